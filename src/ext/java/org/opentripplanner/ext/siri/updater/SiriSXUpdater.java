@@ -10,6 +10,7 @@ import org.opentripplanner.ext.siri.SiriFuzzyTripMatcher;
 import org.opentripplanner.ext.siri.SiriHttpUtils;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.impl.TransitAlertServiceImpl;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.services.TransitAlertService;
 import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitModel;
@@ -110,6 +111,7 @@ public class SiriSXUpdater extends PollingGraphUpdater implements TransitAlertPr
           if (serviceDelivery.getSituationExchangeDeliveries() != null) {
             saveResultOnGraph.execute((graph, transitModel) -> {
               updateHandler.update(serviceDelivery);
+              transitModel.invalidateRoutingResponseCache(RoutingResponseCache::invalidateTransit);
               if (markPrimed) primed = true;
             });
           }
@@ -22,6 +22,7 @@ import org.opentripplanner.ext.siri.SiriAlertsUpdateHandler;
 import org.opentripplanner.ext.siri.SiriFuzzyTripMatcher;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.impl.TransitAlertServiceImpl;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.services.TransitAlertService;
 import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitModel;
@@ -144,9 +145,10 @@ public class SiriAzureSXUpdater extends AbstractAzureSiriUpdater implements Tran
         return;
       }
 
-      super.saveResultOnGraph.execute((graph, transitModel) ->
-        updateHandler.update(siri.getServiceDelivery())
-      );
+      super.saveResultOnGraph.execute((graph, transitModel) -> {
+        updateHandler.update(siri.getServiceDelivery());
+        transitModel.invalidateRoutingResponseCache(RoutingResponseCache::invalidateTransit);
+      });
     } catch (JAXBException | XMLStreamException e) {
       LOG.error(e.getLocalizedMessage(), e);
     }
@@ -163,6 +165,7 @@ public class SiriAzureSXUpdater extends AbstractAzureSiriUpdater implements Tran
       super.saveResultOnGraph.execute((graph, transitModel) -> {
         long t1 = System.currentTimeMillis();
         updateHandler.update(siri.getServiceDelivery());
+        transitModel.invalidateRoutingResponseCache(RoutingResponseCache::invalidateTransit);
 
         setPrimed(true);
         LOG.info(
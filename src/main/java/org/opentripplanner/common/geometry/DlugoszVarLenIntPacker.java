@@ -1,8 +1,6 @@
 package org.opentripplanner.common.geometry;
 
 import java.io.ByteArrayOutputStream;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Variable-length integer encoding. This optimize integer storage when most of the values are
@@ -65,35 +63,65 @@ public class DlugoszVarLenIntPacker {
     if (arr == null) {
       return null;
     }
-    List<Integer> retval = new ArrayList<>(arr.length);
+    int[] values = new int[size(arr)];
+    unpack(arr, values);
+    return values;
+  }
+
+  /**
+   * Return the number of values packed in the given array.
+   */
+  public static int size(byte[] arr) {
+    int size = 0;
+    int i = 0;
+    while (i < arr.length) {
+      int v1 = arr[i] & 0xFF;
+      if ((v1 & 0x80) == 0x00) {
+        i += 1;
+      } else if ((v1 & 0xC0) == 0x80) {
+        i += 2;
+      } else if ((v1 & 0xE0) == 0xC0) {
+        i += 3;
+      } else if ((v1 & 0xF8) == 0xE0) {
+        i += 4;
+      } else {
+        i += 5;
+      }
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * Unpack the values into the given buffer, without allocating anything. The buffer must have
+   * room for {@link #size(byte[])} values.
+   */
+  public static void unpack(byte[] arr, int[] buffer) {
+    int n = 0;
     int i = 0;
     while (i < arr.length) {
       int v1 = arr[i] & 0xFF;
       i++;
       if ((v1 & 0x80) == 0x00) {
         // 0xxx xxxx -> 7 bits value
-        int sv = (v1 & 0x7F) - 64;
-        retval.add(sv);
+        buffer[n++] = (v1 & 0x7F) - 64;
       } else if ((v1 & 0xC0) == 0x80) {
         // 10xx xxxx + 8 -> 14 bits value
-        int sv = ((v1 & 0x3F) << 8) + (arr[i] & 0xFF) - 8192;
+        buffer[n++] = ((v1 & 0x3F) << 8) + (arr[i] & 0xFF) - 8192;
         i++;
-        retval.add(sv);
       } else if ((v1 & 0xE0) == 0xC0) {
         // 110 xxxx + 2x8 -> 21 bits value
-        int sv = ((v1 & 0x1F) << 16) + ((arr[i] & 0xFF) << 8) + (arr[i + 1] & 0xFF) - 1048576;
+        buffer[n++] = ((v1 & 0x1F) << 16) + ((arr[i] & 0xFF) << 8) + (arr[i + 1] & 0xFF) - 1048576;
         i += 2;
-        retval.add(sv);
       } else if ((v1 & 0xF8) == 0xE0) {
         // 1110 0xxx + 3x8 -> 27 bits value
-        int sv =
+        buffer[n++] =
           ((v1 & 0x1F) << 24) +
           ((arr[i] & 0xFF) << 16) +
           ((arr[i + 1] & 0xFF) << 8) +
           (arr[i + 2] & 0xFF) -
           67108864;
         i += 3;
-        retval.add(sv);
       } else {
         // 1110 1xxx + 4x8 -> 35 bits value
         long sv =
@@ -104,14 +132,8 @@ public class DlugoszVarLenIntPacker {
           (arr[i + 3] & 0xFF) -
           2147483648L;
         i += 4;
-        retval.add((int) sv);
+        buffer[n++] = (int) sv;
       }
     }
-    int[] bufret = new int[retval.size()];
-    i = 0;
-    for (int v : retval) {
-      bufret[i++] = v;
-    }
-    return bufret;
   }
 }
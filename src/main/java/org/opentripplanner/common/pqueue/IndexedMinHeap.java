@@ -0,0 +1,192 @@
+package org.opentripplanner.common.pqueue;
+
+import java.util.Arrays;
+
+/**
+ * A 4-ary min-heap where each element is identified by an int key. The keys should be dense,
+ * starting at zero, because the heap keeps an array with the position of each key. Unlike the
+ * {@link BinHeap} the priority and element of a key already in the heap can be changed with
+ * {@link #update(int, Object, double)}, so the heap never contains more than one element for each
+ * key.
+ * <p>
+ * A 4-ary heap is shallower than a binary heap, and the children of a node are next to each other
+ * in memory. This makes insert and update faster, at the cost of a few more comparisons in
+ * extract.
+ */
+public class IndexedMinHeap<T> {
+
+  private static final int ARITY = 4;
+  private static final int NOT_IN_HEAP = -1;
+
+  private int[] keys;
+  private double[] prio;
+  private T[] elem;
+
+  /** The position in the heap for each key, or NOT_IN_HEAP */
+  private int[] positions;
+
+  private int size = 0;
+
+  public IndexedMinHeap() {
+    this(16);
+  }
+
+  @SuppressWarnings("unchecked")
+  public IndexedMinHeap(int capacity) {
+    capacity = Math.max(capacity, 16);
+    this.keys = new int[capacity];
+    this.prio = new double[capacity];
+    this.elem = (T[]) new Object[capacity];
+    this.positions = new int[capacity];
+    Arrays.fill(positions, NOT_IN_HEAP);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int key) {
+    return key < positions.length && positions[key] != NOT_IN_HEAP;
+  }
+
+  /** The element for the given key, or {@code null} if the key is not in the heap. */
+  public T get(int key) {
+    return contains(key) ? elem[positions[key]] : null;
+  }
+
+  public double peekMinPriority() {
+    if (size == 0) {
+      throw new IllegalStateException("An empty queue does not have a minimum key.");
+    }
+    return prio[0];
+  }
+
+  public T peekMin() {
+    return size == 0 ? null : elem[0];
+  }
+
+  /**
+   * Insert an element with a key which is not in the heap.
+   */
+  public void insert(int key, T element, double priority) {
+    if (contains(key)) {
+      throw new IllegalArgumentException("The key is already in the heap: " + key);
+    }
+    ensureCapacity(key);
+    int i = size++;
+    keys[i] = key;
+    elem[i] = element;
+    prio[i] = priority;
+    positions[key] = i;
+    siftUp(i);
+  }
+
+  /**
+   * Replace the element and priority of a key in the heap. The priority may be both decreased and
+   * increased.
+   */
+  public void update(int key, T element, double priority) {
+    int i = positions[key];
+    double oldPriority = prio[i];
+    elem[i] = element;
+    prio[i] = priority;
+    if (priority < oldPriority) {
+      siftUp(i);
+    } else {
+      siftDown(i);
+    }
+  }
+
+  /** Remove and return the element with the lowest priority, or {@code null} if empty. */
+  public T extractMin() {
+    if (size == 0) {
+      return null;
+    }
+    T min = elem[0];
+    positions[keys[0]] = NOT_IN_HEAP;
+    --size;
+    if (size > 0) {
+      move(size, 0);
+      siftDown(0);
+    }
+    elem[size] = null;
+    return min;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; ++i) {
+      positions[keys[i]] = NOT_IN_HEAP;
+      elem[i] = null;
+    }
+    size = 0;
+  }
+
+  private void siftUp(int i) {
+    int key = keys[i];
+    T e = elem[i];
+    double p = prio[i];
+    while (i > 0) {
+      int parent = (i - 1) / ARITY;
+      if (prio[parent] <= p) {
+        break;
+      }
+      move(parent, i);
+      i = parent;
+    }
+    set(i, key, e, p);
+  }
+
+  private void siftDown(int i) {
+    int key = keys[i];
+    T e = elem[i];
+    double p = prio[i];
+    while (true) {
+      int first = i * ARITY + 1;
+      if (first >= size) {
+        break;
+      }
+      int end = Math.min(first + ARITY, size);
+      int min = first;
+      for (int c = first + 1; c < end; ++c) {
+        if (prio[c] < prio[min]) {
+          min = c;
+        }
+      }
+      if (prio[min] >= p) {
+        break;
+      }
+      move(min, i);
+      i = min;
+    }
+    set(i, key, e, p);
+  }
+
+  private void move(int from, int to) {
+    set(to, keys[from], elem[from], prio[from]);
+  }
+
+  private void set(int i, int key, T e, double p) {
+    keys[i] = key;
+    elem[i] = e;
+    prio[i] = p;
+    positions[key] = i;
+  }
+
+  private void ensureCapacity(int key) {
+    if (key >= positions.length) {
+      int oldLength = positions.length;
+      positions = Arrays.copyOf(positions, Math.max(key + 1, 2 * oldLength));
+      Arrays.fill(positions, oldLength, positions.length, NOT_IN_HEAP);
+    }
+    if (size == keys.length) {
+      int capacity = 2 * keys.length;
+      keys = Arrays.copyOf(keys, capacity);
+      prio = Arrays.copyOf(prio, capacity);
+      elem = Arrays.copyOf(elem, capacity);
+    }
+  }
+}
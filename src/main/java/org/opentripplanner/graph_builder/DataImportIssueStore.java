@@ -39,6 +39,16 @@ public class DataImportIssueStore {
     add(Issue.issue(type, message, arguments));
   }
 
+  /**
+   * Add the issues stored in another store, without logging them again. This is used to add the
+   * issues found by parallel tasks in a deterministic order.
+   */
+  public void addAll(DataImportIssueStore other) {
+    if (storeIssues) {
+      this.issues.addAll(other.issues);
+    }
+  }
+
   public List<DataImportIssue> getIssues() {
     return this.issues;
   }
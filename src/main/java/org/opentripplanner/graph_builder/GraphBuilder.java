@@ -117,6 +117,7 @@ public class GraphBuilder implements Runnable {
       osmModule.banDiscouragedWalking = config.banDiscouragedWalking;
       osmModule.banDiscouragedBiking = config.banDiscouragedBiking;
       osmModule.maxAreaNodes = config.maxAreaNodes;
+      osmModule.nodeStoreType = config.osmNodeStore;
       graphBuilder.addModule(osmModule);
     }
     if (hasGtfs) {
@@ -140,6 +141,7 @@ public class GraphBuilder implements Runnable {
         config.blockBasedInterlining,
         config.maxInterlineDistance
       );
+      gtfsModule.setParallelLoading(config.parallelGtfsLoading);
       graphBuilder.addModule(gtfsModule);
     }
 
@@ -162,6 +164,7 @@ public class GraphBuilder implements Runnable {
     // which need to be handled even when there's no transit.
     StreetLinkerModule streetLinkerModule = new StreetLinkerModule();
     streetLinkerModule.setAddExtraEdgesToAreas(config.areaVisibility);
+    streetLinkerModule.setParallelLinking(config.parallelStreetLinking);
     graphBuilder.addModule(streetLinkerModule);
 
     // Prune graph connectivity islands after transit stop linking, so that pruning can take into account
@@ -210,7 +213,8 @@ public class GraphBuilder implements Runnable {
           config.distanceBetweenElevationSamples,
           config.maxElevationPropagationMeters,
           config.includeEllipsoidToGeoidDifference,
-          config.multiThreadElevationCalculations
+          config.multiThreadElevationCalculations,
+          config.elevationRaster
         )
       );
     }
@@ -1,11 +1,20 @@
 package org.opentripplanner.graph_builder.linking;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.locationtech.jts.algorithm.Distance;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -26,6 +35,7 @@ import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.routing.vertextype.TemporarySplitterVertex;
 import org.opentripplanner.transit.service.StopModel;
 import org.opentripplanner.util.OTPFeature;
+import org.opentripplanner.util.geometry.CompactLineStringBuffer;
 import org.opentripplanner.util.geometry.GeometryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +66,11 @@ public class VertexLinker {
   private static final double DUPLICATE_WAY_EPSILON_METERS = 0.001;
   private static final int INITIAL_SEARCH_RADIUS_METERS = 100;
   private static final int MAX_SEARCH_RADIUS_METERS = 1000;
+  /**
+   * A vertex closer than this to a vertex of the edge is linked to that vertex instead of splitting
+   * the edge.
+   */
+  private static final double SNAP_TO_VERTEX_METERS = 0.1;
   private static final GeometryFactory GEOMETRY_FACTORY = GeometryUtils.getGeometryFactory();
   /**
    * Spatial index of StreetEdges in the graph.
@@ -90,6 +105,71 @@ public class VertexLinker {
     link(vertex, traverseModes, direction, Scope.PERMANENT, edgeFunction);
   }
 
+  /**
+   * Link many vertices permanently. The result is the same as linking them one at a time with
+   * {@link #linkVertexPermanently}, except that all the vertices are linked to the street edges as
+   * they were before any of them were linked. A vertex close to where another vertex was linked
+   * will therefore not also be linked to the short pieces left by splitting the edge there.
+   * <p>
+   * The place to link each vertex is found in parallel. The spatial index and the graph are not
+   * changed while this is done, so the index is a read-only snapshot of the street edges. Then the
+   * edges are split in one pass on the calling thread, in the order of the vertices. An edge is
+   * split once at all the places where vertices link to it, instead of splitting the new parts of
+   * the edge again for each vertex. Vertices which link to the same place on an edge share the
+   * splitter vertex, like when they are linked one at a time.
+   *
+   * @param traverseModes the modes to link each vertex for
+   */
+  public void linkVerticesPermanently(
+    List<? extends Vertex> vertices,
+    Function<Vertex, TraverseModeSet> traverseModes,
+    LinkingDirection direction,
+    BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction
+  ) {
+    List<List<LinkPoint>> linkPoints = vertices
+      .parallelStream()
+      .map(vertex -> findLinkPoints(vertex, traverseModes.apply(vertex)))
+      .toList();
+
+    // The hash code of an edge changes when it is removed from the graph, so the edges are looked
+    // up by identity
+    Map<StreetEdge, SortedMap<LinearLocation, StreetVertex>> splitsByEdge = new IdentityHashMap<>();
+    List<StreetEdge> edgesToSplit = new ArrayList<>();
+    for (List<LinkPoint> points : linkPoints) {
+      for (LinkPoint point : points) {
+        if (point.vertex() == null) {
+          splitsByEdge
+            .computeIfAbsent(
+              point.edge(),
+              edge -> {
+                edgesToSplit.add(edge);
+                return new TreeMap<>();
+              }
+            )
+            .put(point.location(), null);
+        }
+      }
+    }
+    for (StreetEdge edge : edgesToSplit) {
+      splitPermanently(edge, splitsByEdge.get(edge));
+    }
+
+    for (int i = 0; i < vertices.size(); i++) {
+      Vertex vertex = vertices.get(i);
+      Set<StreetVertex> streetVertices = new LinkedHashSet<>();
+      for (LinkPoint point : linkPoints.get(i)) {
+        streetVertices.add(
+          point.vertex() != null
+            ? point.vertex()
+            : splitsByEdge.get(point.edge()).get(point.location())
+        );
+      }
+      for (StreetVertex streetVertex : streetVertices) {
+        edgeFunction.apply(vertex, streetVertex);
+      }
+    }
+  }
+
   public DisposableEdgeCollection linkVertexForRealTime(
     Vertex vertex,
     TraverseModeSet traverseModes,
@@ -149,13 +229,27 @@ public class VertexLinker {
   }
 
   /** projected distance from stop to edge, in latitude degrees */
-  private static double distance(Vertex tstop, StreetEdge edge, double xscale) {
+  private static double distance(
+    Vertex tstop,
+    StreetEdge edge,
+    double xscale,
+    CompactLineStringBuffer geometry
+  ) {
     // Despite the fact that we want to use a fast somewhat inaccurate projection, still use JTS library tools
-    // for the actual distance calculations.
-    LineString transformed = equirectangularProject(edge.getGeometry(), xscale);
-    return transformed.distance(
-      GEOMETRY_FACTORY.createPoint(new Coordinate(tstop.getLon() * xscale, tstop.getLat()))
-    );
+    // for the actual distance calculations. The edge geometry is decoded into a reused buffer, this
+    // is called for every edge near the vertex, and the result is the same as for the line string.
+    edge.decodeGeometry(geometry);
+    Coordinate p = new Coordinate(tstop.getLon() * xscale, tstop.getLat());
+    Coordinate a = new Coordinate();
+    Coordinate b = new Coordinate(geometry.getX(0) * xscale, geometry.getY(0));
+    double minDistance = Double.MAX_VALUE;
+    for (int i = 1; i < geometry.size(); ++i) {
+      a.setCoordinate(b);
+      b.x = geometry.getX(i) * xscale;
+      b.y = geometry.getY(i);
+      minDistance = Math.min(minDistance, Distance.pointToSegment(p, a, b));
+    }
+    return minDistance;
   }
 
   /** project this linestring to an equirectangular projection */
@@ -246,17 +340,82 @@ public class VertexLinker {
     Scope scope,
     int radiusMeters,
     DisposableEdgeCollection tempEdges
+  ) {
+    final double xscale = xScale(vertex);
+
+    return findClosestEdges(vertex, traverseModes, scope, radiusMeters)
+      .stream()
+      .map(ce -> link(vertex, ce.item, xscale, scope, direction, tempEdges))
+      .collect(Collectors.toSet());
+  }
+
+  /**
+   * Find where to link the vertex, without changing the graph. The link points are sorted, so the
+   * edges are split in the same order every time. Edges do not have an id, parallel edges between
+   * the same vertices are ordered by their position in the outgoing edges of the from vertex. The
+   * edges are added in the same order in every build.
+   */
+  private List<LinkPoint> findLinkPoints(Vertex vertex, TraverseModeSet traverseModes) {
+    var closestEdges = findClosestEdges(
+      vertex,
+      traverseModes,
+      Scope.PERMANENT,
+      INITIAL_SEARCH_RADIUS_METERS
+    );
+    if (closestEdges.isEmpty()) {
+      closestEdges =
+        findClosestEdges(vertex, traverseModes, Scope.PERMANENT, MAX_SEARCH_RADIUS_METERS);
+    }
+    final double xscale = xScale(vertex);
+    return closestEdges
+      .stream()
+      .map(ce -> findLinkPoint(vertex, ce.item, xscale))
+      .sorted(
+        Comparator
+          .comparing((LinkPoint p) -> p.edge().getFromVertex().getLabel())
+          .thenComparing(p -> p.edge().getToVertex().getLabel())
+          .thenComparingInt(p -> outgoingPosition(p.edge()))
+      )
+      .toList();
+  }
+
+  private static int outgoingPosition(Edge edge) {
+    var outgoing = edge.getFromVertex().getOutgoing();
+    int i = 0;
+    for (Edge e : outgoing) {
+      if (e == edge) {
+        return i;
+      }
+      ++i;
+    }
+    return i;
+  }
+
+  /**
+   * Perform a simple local equirectangular projection, so distances are expressed in degrees
+   * latitude.
+   */
+  private static double xScale(Vertex vertex) {
+    return Math.cos(vertex.getLat() * Math.PI / 180);
+  }
+
+  private Set<DistanceTo<StreetEdge>> findClosestEdges(
+    Vertex vertex,
+    TraverseModeSet traverseModes,
+    Scope scope,
+    int radiusMeters
   ) {
     final double radiusDeg = SphericalDistanceLibrary.metersToDegrees(radiusMeters);
 
     Envelope env = new Envelope(vertex.getCoordinate());
 
-    // Perform a simple local equirectangular projection, so distances are expressed in degrees latitude.
-    final double xscale = Math.cos(vertex.getLat() * Math.PI / 180);
+    final double xscale = xScale(vertex);
 
     // Expand more in the longitude direction than the latitude direction to account for converging meridians.
     env.expandBy(radiusDeg / xscale, radiusDeg);
 
+    var geometry = new CompactLineStringBuffer();
+
     // Perform several transformations at once on the edges returned by the index. Only consider
     // street edges traversable by at least one of the given modes and are still present in the
     // graph. Calculate a distance to each of those edges, and keep only the ones within the search
@@ -266,7 +425,7 @@ public class VertexLinker {
       .filter(StreetEdge.class::isInstance)
       .map(StreetEdge.class::cast)
       .filter(e -> e.canTraverse(traverseModes) && edgeReachableFromGraph(e))
-      .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale)))
+      .map(e -> new DistanceTo<>(e, distance(vertex, e, xscale, geometry)))
       .filter(ead -> ead.distanceDegreesLat < radiusDeg)
       .collect(Collectors.toList());
 
@@ -274,12 +433,7 @@ public class VertexLinker {
       return Set.of();
     }
 
-    Set<DistanceTo<StreetEdge>> closesEdges = getClosestEdgesPerMode(traverseModes, candidateEdges);
-
-    return closesEdges
-      .stream()
-      .map(ce -> link(vertex, ce.item, xscale, scope, direction, tempEdges))
-      .collect(Collectors.toSet());
+    return getClosestEdgesPerMode(traverseModes, candidateEdges);
   }
 
   /**
@@ -346,6 +500,18 @@ public class VertexLinker {
     LinkingDirection direction,
     DisposableEdgeCollection tempEdges
   ) {
+    LinkPoint point = findLinkPoint(vertex, edge, xScale);
+    if (point.vertex() != null) {
+      return point.vertex();
+    }
+    // split the edge, get the split vertex
+    SplitterVertex v0 = split(edge, point.location(), scope, direction, tempEdges);
+    addSplitterVertex(edge, v0, scope);
+    return v0;
+  }
+
+  /** Find the closest vertex of the edge, or where to split it if no vertex is close enough */
+  private static LinkPoint findLinkPoint(Vertex vertex, StreetEdge edge, double xScale) {
     // TODO: we've already built this line string, we should save it
     LineString orig = edge.getGeometry();
     LineString transformed = equirectangularProject(orig, xScale);
@@ -359,38 +525,40 @@ public class VertexLinker {
     // street to use the same vertices. Otherwise the order the stops are loaded in will affect where they are snapped.
     if (
       ll.getSegmentIndex() == 0 &&
-      (ll.getSegmentFraction() < 1e-8 || ll.getSegmentFraction() * length < 0.1)
+      (ll.getSegmentFraction() < 1e-8 || ll.getSegmentFraction() * length < SNAP_TO_VERTEX_METERS)
     ) {
-      return (StreetVertex) edge.getFromVertex();
+      return new LinkPoint(edge, null, (StreetVertex) edge.getFromVertex());
     }
     // -1 converts from count to index. Because of the fencepost problem, npoints - 1 is the "segment"
     // past the last point
     else if (ll.getSegmentIndex() == orig.getNumPoints() - 1) {
-      return (StreetVertex) edge.getToVertex();
+      return new LinkPoint(edge, null, (StreetVertex) edge.getToVertex());
     }
     // nPoints - 2: -1 to correct for index vs count, -1 to account for fencepost problem
     else if (
       ll.getSegmentIndex() == orig.getNumPoints() - 2 &&
-      (ll.getSegmentFraction() > 1 - 1e-8 || (1 - ll.getSegmentFraction()) * length < 0.1)
+      (
+        ll.getSegmentFraction() > 1 - 1e-8 ||
+        (1 - ll.getSegmentFraction()) * length < SNAP_TO_VERTEX_METERS
+      )
     ) {
-      return (StreetVertex) edge.getToVertex();
+      return new LinkPoint(edge, null, (StreetVertex) edge.getToVertex());
     } else {
-      // split the edge, get the split vertex
-      SplitterVertex v0 = split(edge, ll, scope, direction, tempEdges);
-
-      // If splitter vertex is part of area; link splittervertex to all other vertexes in area, this creates
-      // edges that were missed by WalkableAreaBuilder
-      // TODO Temporary code until we refactor the WalkableAreaBuilder (#3152)
-      if (scope == Scope.PERMANENT && this.addExtraEdgesToAreas && edge instanceof AreaEdge) {
-        ((AreaEdge) edge).getArea().addVertex(v0);
-      }
+      return new LinkPoint(edge, ll, null);
+    }
+  }
 
-      // TODO Consider moving this code
-      if (OTPFeature.FlexRouting.isOn()) {
-        FlexLocationAdder.addFlexLocations(edge, v0, stopModel);
-      }
+  private void addSplitterVertex(StreetEdge edge, SplitterVertex v0, Scope scope) {
+    // If splitter vertex is part of area; link splittervertex to all other vertexes in area, this creates
+    // edges that were missed by WalkableAreaBuilder
+    // TODO Temporary code until we refactor the WalkableAreaBuilder (#3152)
+    if (scope == Scope.PERMANENT && this.addExtraEdgesToAreas && edge instanceof AreaEdge) {
+      ((AreaEdge) edge).getArea().addVertex(v0);
+    }
 
-      return v0;
+    // TODO Consider moving this code
+    if (OTPFeature.FlexRouting.isOn()) {
+      FlexLocationAdder.addFlexLocations(edge, v0, stopModel);
     }
   }
 
@@ -469,6 +637,57 @@ public class VertexLinker {
     return v;
   }
 
+  /**
+   * Split the edge permanently at all the given locations, and put the splitter vertex of each
+   * location in the map. The edge is split from the start, each time splitting the part left after
+   * the previous split. A location closer than {@link #SNAP_TO_VERTEX_METERS} to the previous one
+   * gets the same splitter vertex.
+   */
+  private void splitPermanently(
+    StreetEdge originalEdge,
+    SortedMap<LinearLocation, StreetVertex> splits
+  ) {
+    LineString geometry = originalEdge.getGeometry();
+    StreetEdge rest = originalEdge;
+    Coordinate lastSplitPoint = null;
+    SplitterVertex lastSplitterVertex = null;
+
+    for (Map.Entry<LinearLocation, StreetVertex> split : splits.entrySet()) {
+      Coordinate splitPoint = split.getKey().getCoordinate(geometry);
+      if (
+        lastSplitterVertex == null ||
+        SphericalDistanceLibrary.distance(lastSplitPoint, splitPoint) >= SNAP_TO_VERTEX_METERS
+      ) {
+        SplitterVertex v = new SplitterVertex(
+          graph,
+          "split_" + graph.nextSplitNumber++,
+          splitPoint.x,
+          splitPoint.y,
+          originalEdge.getName()
+        );
+        P2<StreetEdge> newEdges = rest.splitDestructively(v);
+        if (rest == originalEdge) {
+          removeEdgeFromIndex(originalEdge, Scope.PERMANENT);
+        }
+        graph.removeEdge(rest);
+        streetSpatialIndex.insert(newEdges.first.getGeometry(), newEdges.first, Scope.PERMANENT);
+        rest = newEdges.second;
+
+        addSplitterVertex(originalEdge, v, Scope.PERMANENT);
+        lastSplitPoint = splitPoint;
+        lastSplitterVertex = v;
+      }
+      split.setValue(lastSplitterVertex);
+    }
+    streetSpatialIndex.insert(rest.getGeometry(), rest, Scope.PERMANENT);
+  }
+
+  /**
+   * Where to link a vertex to an edge: either one of the vertices of the edge, or the location to
+   * split the edge at.
+   */
+  private record LinkPoint(StreetEdge edge, LinearLocation location, StreetVertex vertex) {}
+
   private static class DistanceTo<T> {
 
     T item;
@@ -4,16 +4,20 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.StopNotLinkedForTransfers;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
 import org.opentripplanner.model.PathTransfer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.Transfer;
 import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetSearchRequestKey;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
@@ -25,6 +29,7 @@ import org.opentripplanner.transit.service.TransitModel;
 import org.opentripplanner.transit.service.TransitModelIndex;
 import org.opentripplanner.util.OTPFeature;
 import org.opentripplanner.util.logging.ProgressTracker;
+import org.opentripplanner.util.time.DurationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -85,6 +90,12 @@ public class DirectTransferGenerator implements GraphBuilderModule {
     }
 
     List<TransitStopVertex> stops = graph.getVerticesOfType(TransitStopVertex.class);
+    List<RoutingRequest> streetRequests = distinctStreetRequests(transferRequests);
+    LOG.info(
+      "Searching the streets with {} distinct street requests for {} transfer requests.",
+      streetRequests.size(),
+      transferRequests.size()
+    );
 
     ProgressTracker progress = ProgressTracker.track(
       "Create transfer edges for stops",
@@ -94,6 +105,7 @@ public class DirectTransferGenerator implements GraphBuilderModule {
 
     AtomicInteger nTransfersTotal = new AtomicInteger();
     AtomicInteger nLinkedStops = new AtomicInteger();
+    SearchMetrics searchMetrics = new SearchMetrics();
 
     // This is a synchronizedMultimap so that a parallel stream may be used to insert elements.
     var transfersByStop = Multimaps.<StopLocation, PathTransfer>synchronizedMultimap(
@@ -110,10 +122,9 @@ public class DirectTransferGenerator implements GraphBuilderModule {
         Stop stop = ts0.getStop();
         LOG.debug("Linking stop '{}' {}", stop, ts0);
 
-        for (RoutingRequest transferProfile : transferRequests) {
-          RoutingRequest streetRequest = Transfer.prepareTransferRoutingRequest(transferProfile);
-
-          for (NearbyStop sd : nearbyStopFinder.findNearbyStopsConsideringPatterns(
+        for (RoutingRequest streetRequest : streetRequests) {
+          for (NearbyStop sd : searchMetrics.findNearbyStops(
+            nearbyStopFinder,
             ts0,
             streetRequest,
             false
@@ -130,7 +141,8 @@ public class DirectTransferGenerator implements GraphBuilderModule {
           if (OTPFeature.FlexRouting.isOn()) {
             // This code is for finding transfers from FlexStopLocations to Stops, transfers
             // from Stops to FlexStopLocations and between Stops are already covered above.
-            for (NearbyStop sd : nearbyStopFinder.findNearbyStopsConsideringPatterns(
+            for (NearbyStop sd : searchMetrics.findNearbyStops(
+              nearbyStopFinder,
               ts0,
               streetRequest,
               true
@@ -178,6 +190,7 @@ public class DirectTransferGenerator implements GraphBuilderModule {
       nTransfersTotal,
       nLinkedStops
     );
+    LOG.info(searchMetrics.summary(stops.size()));
   }
 
   @Override
@@ -185,6 +198,60 @@ public class DirectTransferGenerator implements GraphBuilderModule {
     // No inputs
   }
 
+  /**
+   * Prepare the street request of each transfer request, and drop the requests which are equal to
+   * an earlier request in all the fields used by the street search, since they find the same
+   * transfers.
+   */
+  static List<RoutingRequest> distinctStreetRequests(List<RoutingRequest> transferRequests) {
+    Map<StreetSearchRequestKey, RoutingRequest> streetRequests = new LinkedHashMap<>();
+    for (RoutingRequest transferProfile : transferRequests) {
+      RoutingRequest streetRequest = Transfer.prepareTransferRoutingRequest(transferProfile);
+      streetRequests.putIfAbsent(StreetSearchRequestKey.of(streetRequest), streetRequest);
+    }
+    return List.copyOf(streetRequests.values());
+  }
+
+  /**
+   * Count the street searches and the time spent in them, summed over all threads.
+   */
+  private static class SearchMetrics {
+
+    private final AtomicInteger nSearches = new AtomicInteger();
+    private final AtomicLong nNearbyStops = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+
+    private Set<NearbyStop> findNearbyStops(
+      NearbyStopFinder nearbyStopFinder,
+      TransitStopVertex stop,
+      RoutingRequest streetRequest,
+      boolean reverseDirection
+    ) {
+      long start = System.nanoTime();
+      Set<NearbyStop> nearbyStops = nearbyStopFinder.findNearbyStopsConsideringPatterns(
+        stop,
+        streetRequest,
+        reverseDirection
+      );
+      searchNanos.addAndGet(System.nanoTime() - start);
+      nSearches.incrementAndGet();
+      nNearbyStops.addAndGet(nearbyStops.size());
+      return nearbyStops;
+    }
+
+    private String summary(int nStops) {
+      int n = nSearches.get();
+      return String.format(
+        "Ran %d street searches for %d stops, finding %d nearby stops. Search time %s in total, %.2f ms per search.",
+        n,
+        nStops,
+        nNearbyStops.get(),
+        DurationUtils.durationToStr(Duration.ofNanos(searchNanos.get())),
+        n == 0 ? 0.0 : searchNanos.get() / 1e6 / n
+      );
+    }
+  }
+
   private static class TransferKey {
 
     private final StopLocation source;
@@ -4,11 +4,18 @@ import com.google.common.collect.Sets;
 import java.awt.Color;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.onebusaway.csv_entities.EntityHandler;
 import org.onebusaway.gtfs.impl.GtfsRelationalDaoImpl;
 import org.onebusaway.gtfs.model.Agency;
@@ -25,6 +32,7 @@ import org.onebusaway.gtfs.serialization.GtfsReader;
 import org.onebusaway.gtfs.services.GenericMutableDao;
 import org.onebusaway.gtfs.services.GtfsMutableRelationalDao;
 import org.opentripplanner.ext.fares.impl.DefaultFareServiceFactory;
+import org.opentripplanner.ext.fares.model.FareRulesData;
 import org.opentripplanner.ext.flex.FlexTripsMapper;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.model.GtfsBundle;
@@ -52,7 +60,6 @@ import org.slf4j.LoggerFactory;
 public class GtfsModule implements GraphBuilderModule {
 
   private static final Logger LOG = LoggerFactory.getLogger(GtfsModule.class);
-  private final EntityHandler counter = new EntityCounter();
   private final Set<String> agencyIdsSeen = Sets.newHashSet();
   /**
    * @see BuildConfig#transitServiceStart
@@ -64,6 +71,7 @@ public class GtfsModule implements GraphBuilderModule {
   private final boolean discardMinTransferTimes;
   private final boolean blockBasedInterlining;
   private final int maxInterlineDistance;
+  private boolean parallelLoading = false;
   private int nextAgencyId = 1; // used for generating agency IDs to resolve ID conflicts
 
   public GtfsModule(
@@ -97,29 +105,42 @@ public class GtfsModule implements GraphBuilderModule {
 
     boolean hasTransit = false;
 
-    try {
-      for (GtfsBundle gtfsBundle : gtfsBundles) {
-        GtfsMutableRelationalDao gtfsDao = loadBundle(gtfsBundle);
-        GTFSToOtpTransitServiceMapper mapper = new GTFSToOtpTransitServiceMapper(
-          gtfsBundle.getFeedId().getId(),
-          issueStore,
-          discardMinTransferTimes,
-          gtfsDao
-        );
-        mapper.mapStopTripAndRouteDataIntoBuilder();
-
-        OtpTransitServiceBuilder builder = mapper.getBuilder();
-        var fareRulesService = mapper.getFareRulesService();
+    // A feed without a feed id in feed_info.txt gets the next id from a global counter. Resolve the
+    // ids here in the order of the feeds, so they do not depend on the order the feeds are loaded.
+    for (GtfsBundle gtfsBundle : gtfsBundles) {
+      gtfsBundle.getFeedId();
+    }
 
-        builder.limitServiceDays(transitPeriodLimit);
+    int nThreads = Math.min(gtfsBundles.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = parallelLoading && nThreads > 1
+      ? Executors.newFixedThreadPool(nThreads)
+      : null;
 
-        calendarServiceData.add(builder.buildCalendarServiceData());
+    try {
+      Deque<Future<LoadedFeed>> pendingFeeds = new ArrayDeque<>();
+      AgencyIdOrder previousAgencyIds = null;
+      int nSubmitted = 0;
 
-        if (OTPFeature.FlexRouting.isOn()) {
-          builder.getFlexTripsById().addAll(FlexTripsMapper.createFlexTrips(builder, issueStore));
+      for (GtfsBundle gtfsBundle : gtfsBundles) {
+        LoadedFeed feed;
+        if (executor == null) {
+          feed = loadFeed(gtfsBundle, issueStore, null);
+        } else {
+          // Load at most one feed per thread ahead of the feed added to the graph
+          while (nSubmitted < gtfsBundles.size() && pendingFeeds.size() < nThreads) {
+            var agencyIdOrder = new AgencyIdOrder(previousAgencyIds);
+            pendingFeeds.add(submitLoadFeed(executor, gtfsBundles.get(nSubmitted), agencyIdOrder));
+            previousAgencyIds = agencyIdOrder;
+            nSubmitted++;
+          }
+          feed = awaitFeed(pendingFeeds.remove());
+          issueStore.addAll(feed.issueStore);
         }
 
-        repairStopTimesForEachTrip(builder.getStopTimesSortedByTrip(), issueStore);
+        OtpTransitServiceBuilder builder = feed.builder;
+        var fareRulesService = feed.fareRulesService;
+
+        calendarServiceData.add(feed.calendarServiceData);
 
         // NB! The calls below have side effects - the builder state is updated!
         createTripPatterns(
@@ -160,6 +181,9 @@ public class GtfsModule implements GraphBuilderModule {
     } catch (IOException e) {
       throw new RuntimeException(e);
     } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
       // Note the close method of each bundle should NOT throw an exception, so this
       // code should be safe without the try/catch block.
       gtfsBundles.forEach(GtfsBundle::close);
@@ -170,6 +194,15 @@ public class GtfsModule implements GraphBuilderModule {
     transitModel.updateCalendarServiceData(hasTransit, calendarServiceData, issueStore);
   }
 
+  /**
+   * Read and map the feeds in parallel, and repair the stop times and create the trip times of
+   * the trips in parallel. The feeds are still added to the graph one at a time, and the trips are
+   * grouped into patterns in the same order as when everything is done in one thread.
+   */
+  public void setParallelLoading(boolean parallelLoading) {
+    this.parallelLoading = parallelLoading;
+  }
+
   @Override
   public void checkInputs() {
     for (GtfsBundle bundle : gtfsBundles) {
@@ -179,6 +212,79 @@ public class GtfsModule implements GraphBuilderModule {
 
   /* Private Methods */
 
+  /**
+   * Read the feed, map it into a transit service builder and repair the stop times. This is done
+   * independently for each feed, except that the agency ids are checked against the agency ids of
+   * the previous feeds.
+   *
+   * @param agencyIdOrder the order in which the feeds check their agency ids, or {@code null} if
+   *                      the feeds are loaded one at a time.
+   */
+  private LoadedFeed loadFeed(
+    GtfsBundle gtfsBundle,
+    DataImportIssueStore issueStore,
+    AgencyIdOrder agencyIdOrder
+  ) throws IOException {
+    GtfsMutableRelationalDao gtfsDao = loadBundle(gtfsBundle, agencyIdOrder);
+    GTFSToOtpTransitServiceMapper mapper = new GTFSToOtpTransitServiceMapper(
+      gtfsBundle.getFeedId().getId(),
+      issueStore,
+      discardMinTransferTimes,
+      gtfsDao
+    );
+    mapper.mapStopTripAndRouteDataIntoBuilder();
+
+    OtpTransitServiceBuilder builder = mapper.getBuilder();
+
+    builder.limitServiceDays(transitPeriodLimit);
+
+    CalendarServiceData calendarServiceData = builder.buildCalendarServiceData();
+
+    if (OTPFeature.FlexRouting.isOn()) {
+      builder.getFlexTripsById().addAll(FlexTripsMapper.createFlexTrips(builder, issueStore));
+    }
+
+    repairStopTimesForEachTrip(builder.getStopTimesSortedByTrip(), issueStore);
+
+    return new LoadedFeed(builder, mapper.getFareRulesService(), calendarServiceData, issueStore);
+  }
+
+  /**
+   * Load a feed on the thread pool with its own issue store. The issues are added to the graph
+   * issue store in the order of the feeds.
+   */
+  private Future<LoadedFeed> submitLoadFeed(
+    ExecutorService executor,
+    GtfsBundle gtfsBundle,
+    AgencyIdOrder agencyIdOrder
+  ) {
+    return executor.submit(() -> {
+      try {
+        return loadFeed(gtfsBundle, new DataImportIssueStore(true), agencyIdOrder);
+      } finally {
+        // Do not block the next feeds if this feed fails before the agencies are read
+        agencyIdOrder.done();
+      }
+    });
+  }
+
+  private static LoadedFeed awaitFeed(Future<LoadedFeed> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   /**
    * This method has side effects, the {@code stopTimesByTrip} is updated.
    */
@@ -186,7 +292,7 @@ public class GtfsModule implements GraphBuilderModule {
     TripStopTimes stopTimesByTrip,
     DataImportIssueStore issueStore
   ) {
-    new RepairStopTimesForEachTripOperation(stopTimesByTrip, issueStore).run();
+    new RepairStopTimesForEachTripOperation(stopTimesByTrip, issueStore, parallelLoading).run();
   }
 
   /**
@@ -203,7 +309,8 @@ public class GtfsModule implements GraphBuilderModule {
       builder,
       issueStore,
       graph.deduplicator,
-      calServiceIds
+      calServiceIds,
+      parallelLoading
     );
     buildTPOp.run();
     transitModel.setHasFrequencyService(
@@ -229,7 +336,8 @@ public class GtfsModule implements GraphBuilderModule {
     );
   }
 
-  private GtfsMutableRelationalDao loadBundle(GtfsBundle gtfsBundle) throws IOException {
+  private GtfsMutableRelationalDao loadBundle(GtfsBundle gtfsBundle, AgencyIdOrder agencyIdOrder)
+    throws IOException {
     StoreImpl store = new StoreImpl(new GtfsRelationalDaoImpl());
     store.open();
     LOG.info("reading {}", gtfsBundle.toString());
@@ -242,7 +350,7 @@ public class GtfsModule implements GraphBuilderModule {
     reader.setInternStrings(true);
     reader.setDefaultAgencyId(gtfsFeedId.getId());
 
-    if (LOG.isDebugEnabled()) reader.addEntityHandler(counter);
+    if (LOG.isDebugEnabled()) reader.addEntityHandler(new EntityCounter());
 
     for (Class<?> entityClass : reader.getEntityClasses()) {
       LOG.info("reading entities: " + entityClass.getName());
@@ -252,6 +360,9 @@ public class GtfsModule implements GraphBuilderModule {
       // set the agencyId here. Each feed ("bundle") is loaded by a separate reader, so there is no risk of
       // agency mappings accumulating.
       if (entityClass == Agency.class) {
+        if (agencyIdOrder != null) {
+          agencyIdOrder.awaitPrevious();
+        }
         for (Agency agency : reader.getAgencies()) {
           String agencyId = agency.getId();
           LOG.info("This Agency has the ID {}", agencyId);
@@ -275,6 +386,9 @@ public class GtfsModule implements GraphBuilderModule {
           }
           if (agencyId != null) agencyIdsSeen.add(gtfsFeedId.getId() + agencyId);
         }
+        if (agencyIdOrder != null) {
+          agencyIdOrder.done();
+        }
       }
     }
 
@@ -349,6 +463,58 @@ public class GtfsModule implements GraphBuilderModule {
     route.setTextColor(textColor);
   }
 
+  /** A feed read and mapped into a transit service builder, before the patterns are created. */
+  private static class LoadedFeed {
+
+    private final OtpTransitServiceBuilder builder;
+    private final FareRulesData fareRulesService;
+    private final CalendarServiceData calendarServiceData;
+    private final DataImportIssueStore issueStore;
+
+    private LoadedFeed(
+      OtpTransitServiceBuilder builder,
+      FareRulesData fareRulesService,
+      CalendarServiceData calendarServiceData,
+      DataImportIssueStore issueStore
+    ) {
+      this.builder = builder;
+      this.fareRulesService = fareRulesService;
+      this.calendarServiceData = calendarServiceData;
+      this.issueStore = issueStore;
+    }
+  }
+
+  /**
+   * Makes the feeds loaded in parallel check their agency ids one feed at a time, in the order of
+   * the feeds. This keeps the generated agency ids the same as when the feeds are loaded one at a
+   * time.
+   */
+  private static class AgencyIdOrder {
+
+    private final AgencyIdOrder previous;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private AgencyIdOrder(AgencyIdOrder previous) {
+      this.previous = previous;
+    }
+
+    private void awaitPrevious() {
+      if (previous == null) {
+        return;
+      }
+      try {
+        previous.done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    }
+
+    private void done() {
+      done.countDown();
+    }
+  }
+
   private static class StoreImpl implements GenericMutableDao {
 
     private final GtfsMutableRelationalDao dao;
@@ -16,6 +16,7 @@ import org.opentripplanner.ext.flex.trip.FlexTrip;
 import org.opentripplanner.ext.vehicletostopheuristics.BikeToStopSkipEdgeStrategy;
 import org.opentripplanner.ext.vehicletostopheuristics.VehicleToStopSkipEdgeStrategy;
 import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.algorithm.astar.StateQueueType;
 import org.opentripplanner.routing.algorithm.astar.strategies.ComposingSkipEdgeStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.DurationSkipEdgeStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.SkipEdgeStrategy;
@@ -210,6 +211,8 @@ public class NearbyStopFinder {
     ShortestPathTree spt = AStarBuilder
       .allDirections(getSkipEdgeStrategy(reverseDirection, routingRequest))
       .setDominanceFunction(new DominanceFunction.MinimumWeight())
+      .setQueueType(StateQueueType.INDEXED_HEAP)
+      .setPooledStateArray(true)
       .setContext(routingContext)
       .getShortestPathTree();
 
@@ -243,6 +246,7 @@ public class NearbyStopFinder {
           }
         }
       }
+      spt.release();
     }
 
     if (OTPFeature.FlexRouting.isOn()) {
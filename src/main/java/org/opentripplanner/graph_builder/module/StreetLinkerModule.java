@@ -1,13 +1,16 @@
 package org.opentripplanner.graph_builder.module;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.ParkAndRideEntranceRemoved;
 import org.opentripplanner.graph_builder.linking.LinkingDirection;
+import org.opentripplanner.graph_builder.linking.VertexLinker;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
@@ -15,9 +18,12 @@ import org.opentripplanner.routing.edgetype.StreetTransitEntranceLink;
 import org.opentripplanner.routing.edgetype.StreetTransitStopLink;
 import org.opentripplanner.routing.edgetype.StreetVehicleParkingLink;
 import org.opentripplanner.routing.edgetype.VehicleParkingEdge;
+import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingHelper;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
+import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.routing.vertextype.TransitEntranceVertex;
 import org.opentripplanner.routing.vertextype.TransitStopVertex;
 import org.opentripplanner.routing.vertextype.VehicleParkingEntranceVertex;
@@ -41,11 +47,20 @@ public class StreetLinkerModule implements GraphBuilderModule {
 
   private static final Logger LOG = LoggerFactory.getLogger(StreetLinkerModule.class);
   private Boolean addExtraEdgesToAreas = true;
+  private boolean parallelLinking = false;
 
   public void setAddExtraEdgesToAreas(Boolean addExtraEdgesToAreas) {
     this.addExtraEdgesToAreas = addExtraEdgesToAreas;
   }
 
+  /**
+   * Find where to link the stops, entrances and vehicle parks in parallel, and split each street
+   * edge once for all of them. See {@link VertexLinker#linkVerticesPermanently}.
+   */
+  public void setParallelLinking(boolean parallelLinking) {
+    this.parallelLinking = parallelLinking;
+  }
+
   public List<String> provides() {
     return Arrays.asList("street to transit", "linking");
   }
@@ -108,43 +123,70 @@ public class StreetLinkerModule implements GraphBuilderModule {
       );
     }
 
-    for (TransitStopVertex tStop : vertices) {
-      // Stops with pathways do not need to be connected to the street network, since there are explicit entraces defined for that
-      if (tStop.hasPathways()) {
-        continue;
-      }
-      // check if stop is already linked, to allow multiple linking cycles
-      if (tStop.getDegreeOut() + tStop.getDegreeIn() > 0) {
-        continue;
-      }
-      TraverseModeSet modes = new TraverseModeSet(TraverseMode.WALK);
-
-      if (OTPFeature.FlexRouting.isOn()) {
-        // If regular stops are used for flex trips, they also need to be connected to car routable
-        // street edges.
-        if (stopLocationsUsedForFlexTrips.contains(tStop.getStop())) {
-          modes = new TraverseModeSet(TraverseMode.WALK, TraverseMode.CAR);
-        }
-      }
+    final Set<StopLocation> flexStopLocations = stopLocationsUsedForFlexTrips;
+    BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction = (vertex, streetVertex) ->
+      List.of(
+        new StreetTransitStopLink((TransitStopVertex) vertex, streetVertex),
+        new StreetTransitStopLink(streetVertex, (TransitStopVertex) vertex)
+      );
 
+    if (parallelLinking) {
+      List<TransitStopVertex> stopsToLink = vertices
+        .stream()
+        .filter(StreetLinkerModule::isStopToLink)
+        .toList();
       graph
         .getLinker()
-        .linkVertexPermanently(
-          tStop,
-          modes,
+        .linkVerticesPermanently(
+          stopsToLink,
+          tStop -> getTraverseModes((TransitStopVertex) tStop, flexStopLocations),
           LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              new StreetTransitStopLink((TransitStopVertex) vertex, streetVertex),
-              new StreetTransitStopLink(streetVertex, (TransitStopVertex) vertex)
-            )
+          edgeFunction
         );
-      //noinspection Convert2MethodRef
-      progress.step(m -> LOG.info(m));
+      LOG.info("Linked {} transit stops to graph in parallel.", stopsToLink.size());
+    } else {
+      for (TransitStopVertex tStop : vertices) {
+        if (!isStopToLink(tStop)) {
+          continue;
+        }
+        graph
+          .getLinker()
+          .linkVertexPermanently(
+            tStop,
+            getTraverseModes(tStop, flexStopLocations),
+            LinkingDirection.BOTH_WAYS,
+            edgeFunction
+          );
+        //noinspection Convert2MethodRef
+        progress.step(m -> LOG.info(m));
+      }
     }
     LOG.info(progress.completeMessage());
   }
 
+  private static boolean isStopToLink(TransitStopVertex tStop) {
+    // Stops with pathways do not need to be connected to the street network, since there are explicit entraces defined for that
+    if (tStop.hasPathways()) {
+      return false;
+    }
+    // check if stop is already linked, to allow multiple linking cycles
+    return tStop.getDegreeOut() + tStop.getDegreeIn() == 0;
+  }
+
+  private static TraverseModeSet getTraverseModes(
+    TransitStopVertex tStop,
+    Set<StopLocation> stopLocationsUsedForFlexTrips
+  ) {
+    if (OTPFeature.FlexRouting.isOn()) {
+      // If regular stops are used for flex trips, they also need to be connected to car routable
+      // street edges.
+      if (stopLocationsUsedForFlexTrips.contains(tStop.getStop())) {
+        return new TraverseModeSet(TraverseMode.WALK, TraverseMode.CAR);
+      }
+    }
+    return new TraverseModeSet(TraverseMode.WALK);
+  }
+
   private static void linkVehicleParkingWithLinker(
     Graph graph,
     VehicleParkingEntranceVertex vehicleParkingVertex
@@ -156,11 +198,7 @@ public class StreetLinkerModule implements GraphBuilderModule {
           vehicleParkingVertex,
           new TraverseModeSet(TraverseMode.WALK),
           LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              new StreetVehicleParkingLink((VehicleParkingEntranceVertex) vertex, streetVertex),
-              new StreetVehicleParkingLink(streetVertex, (VehicleParkingEntranceVertex) vertex)
-            )
+          StreetLinkerModule::createVehicleParkingLinks
         );
     }
 
@@ -171,29 +209,79 @@ public class StreetLinkerModule implements GraphBuilderModule {
           vehicleParkingVertex,
           new TraverseModeSet(TraverseMode.CAR),
           LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              new StreetVehicleParkingLink((VehicleParkingEntranceVertex) vertex, streetVertex),
-              new StreetVehicleParkingLink(streetVertex, (VehicleParkingEntranceVertex) vertex)
-            )
+          StreetLinkerModule::createVehicleParkingLinks
         );
     }
   }
 
+  /**
+   * Link the entrances like {@link #linkVehicleParkingWithLinker}, first all the walk accessible
+   * entrances, then all the car accessible entrances.
+   */
+  private static void linkVehicleParkingsWithLinker(
+    Graph graph,
+    List<VehicleParkingEntranceVertex> vehicleParkingVertices
+  ) {
+    graph
+      .getLinker()
+      .linkVerticesPermanently(
+        vehicleParkingVertices
+          .stream()
+          .filter(VehicleParkingEntranceVertex::isWalkAccessible)
+          .toList(),
+        vertex -> new TraverseModeSet(TraverseMode.WALK),
+        LinkingDirection.BOTH_WAYS,
+        StreetLinkerModule::createVehicleParkingLinks
+      );
+    graph
+      .getLinker()
+      .linkVerticesPermanently(
+        vehicleParkingVertices
+          .stream()
+          .filter(VehicleParkingEntranceVertex::isCarAccessible)
+          .toList(),
+        vertex -> new TraverseModeSet(TraverseMode.CAR),
+        LinkingDirection.BOTH_WAYS,
+        StreetLinkerModule::createVehicleParkingLinks
+      );
+  }
+
+  private static List<Edge> createVehicleParkingLinks(Vertex vertex, StreetVertex streetVertex) {
+    return List.of(
+      new StreetVehicleParkingLink((VehicleParkingEntranceVertex) vertex, streetVertex),
+      new StreetVehicleParkingLink(streetVertex, (VehicleParkingEntranceVertex) vertex)
+    );
+  }
+
   private void linkTransitEntrances(Graph graph) {
     LOG.info("Linking transit entrances to graph...");
-    for (TransitEntranceVertex tEntrance : graph.getVerticesOfType(TransitEntranceVertex.class)) {
+    BiFunction<Vertex, StreetVertex, List<Edge>> edgeFunction = (vertex, streetVertex) ->
+      List.of(
+        new StreetTransitEntranceLink((TransitEntranceVertex) vertex, streetVertex),
+        new StreetTransitEntranceLink(streetVertex, (TransitEntranceVertex) vertex)
+      );
+    List<TransitEntranceVertex> entrances = graph.getVerticesOfType(TransitEntranceVertex.class);
+
+    if (parallelLinking) {
+      graph
+        .getLinker()
+        .linkVerticesPermanently(
+          entrances,
+          tEntrance -> new TraverseModeSet(TraverseMode.WALK),
+          LinkingDirection.BOTH_WAYS,
+          edgeFunction
+        );
+      return;
+    }
+
+    for (TransitEntranceVertex tEntrance : entrances) {
       graph
         .getLinker()
         .linkVertexPermanently(
           tEntrance,
           new TraverseModeSet(TraverseMode.WALK),
           LinkingDirection.BOTH_WAYS,
-          (vertex, streetVertex) ->
-            List.of(
-              new StreetTransitEntranceLink((TransitEntranceVertex) vertex, streetVertex),
-              new StreetTransitEntranceLink(streetVertex, (TransitEntranceVertex) vertex)
-            )
+          edgeFunction
         );
     }
   }
@@ -204,6 +292,7 @@ public class StreetLinkerModule implements GraphBuilderModule {
       return;
     }
     LOG.info("Linking vehicle parks to graph...");
+    List<VehicleParkingEntranceVertex> entrancesToLink = new ArrayList<>();
     for (VehicleParkingEntranceVertex vehicleParkingEntranceVertex : graph.getVerticesOfType(
       VehicleParkingEntranceVertex.class
     )) {
@@ -212,7 +301,11 @@ public class StreetLinkerModule implements GraphBuilderModule {
       }
 
       if (vehicleParkingEntranceVertex.getParkingEntrance().getVertex() == null) {
-        linkVehicleParkingWithLinker(graph, vehicleParkingEntranceVertex);
+        if (parallelLinking) {
+          entrancesToLink.add(vehicleParkingEntranceVertex);
+        } else {
+          linkVehicleParkingWithLinker(graph, vehicleParkingEntranceVertex);
+        }
         continue;
       }
 
@@ -226,6 +319,9 @@ public class StreetLinkerModule implements GraphBuilderModule {
       );
       removeVehicleParkingEntranceVertexFromGraph(vehicleParkingEntranceVertex, graph);
     }
+    if (!entrancesToLink.isEmpty()) {
+      linkVehicleParkingsWithLinker(graph, entrancesToLink);
+    }
     graph.hasLinkedBikeParks = true;
   }
 
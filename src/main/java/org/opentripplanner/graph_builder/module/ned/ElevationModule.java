@@ -2,6 +2,8 @@ package org.opentripplanner.graph_builder.module.ned;
 
 import static org.opentripplanner.util.ElevationUtils.computeEllipsoidToGeoidDifference;
 
+import gnu.trove.list.TDoubleList;
+import gnu.trove.list.array.TDoubleArrayList;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -12,6 +14,7 @@ import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -33,6 +36,7 @@ import org.opentripplanner.graph_builder.issues.Graphwide;
 import org.opentripplanner.graph_builder.module.extra_elevation_data.ElevationPoint;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
 import org.opentripplanner.graph_builder.services.ned.ElevationGridCoverageFactory;
+import org.opentripplanner.graph_builder.services.ned.ElevationRaster;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetElevationExtension;
 import org.opentripplanner.routing.graph.Edge;
@@ -78,6 +82,8 @@ public class ElevationModule implements GraphBuilderModule {
    * data and machine settings, it might be faster to use a single processor.
    */
   private final boolean multiThreadElevationCalculations;
+  /** Whether to sample a float raster of the elevation data instead of the coverage */
+  private final ElevationRaster.Type elevationRasterType;
   // Keep track of the proportion of elevation fetch operations that fail so we can issue warnings. AtomicInteger is
   // used to provide thread-safe updating capabilities.
   private final AtomicInteger nPointsEvaluated = new AtomicInteger(0);
@@ -104,12 +110,14 @@ public class ElevationModule implements GraphBuilderModule {
   private Coordinate examplarCoordinate;
   /** Used only when the ElevationModule is requested to be ran with a single thread */
   private Coverage singleThreadedCoverageInterpolator;
+  /** The raster of the elevation data, shared by all threads, or null if the coverage is used */
+  private ElevationRaster elevationRaster;
   private double minElevation = Double.MAX_VALUE;
   private double maxElevation = Double.MIN_VALUE;
 
   /** used only for testing purposes */
   public ElevationModule(ElevationGridCoverageFactory factory) {
-    this(factory, null, false, false, 1, 10, 2000, true, false);
+    this(factory, null, false, false, 1, 10, 2000, true, false, ElevationRaster.Type.COVERAGE);
   }
 
   public ElevationModule(
@@ -121,7 +129,8 @@ public class ElevationModule implements GraphBuilderModule {
     double distanceBetweenSamplesM,
     double maxElevationPropagationMeters,
     boolean includeEllipsoidToGeoidDifference,
-    boolean multiThreadElevationCalculations
+    boolean multiThreadElevationCalculations,
+    ElevationRaster.Type elevationRasterType
   ) {
     gridCoverageFactory = factory;
     this.cachedElevationsFile = cachedElevationsFile;
@@ -131,6 +140,7 @@ public class ElevationModule implements GraphBuilderModule {
     this.maxElevationPropagationMeters = maxElevationPropagationMeters;
     this.includeEllipsoidToGeoidDifference = includeEllipsoidToGeoidDifference;
     this.multiThreadElevationCalculations = multiThreadElevationCalculations;
+    this.elevationRasterType = elevationRasterType;
     this.distanceBetweenSamplesM = distanceBetweenSamplesM;
   }
 
@@ -167,7 +177,8 @@ public class ElevationModule implements GraphBuilderModule {
     }
     LOG.info("Setting street elevation profiles from digital elevation model...");
 
-    List<StreetEdge> streetsWithElevationEdges = new LinkedList<>();
+    // An ArrayList, since a LinkedList is split badly by the parallel stream
+    List<StreetEdge> streetsWithElevationEdges = new ArrayList<>();
 
     for (Vertex gv : graph.getVertices()) {
       for (Edge ee : gv.getOutgoing()) {
@@ -189,6 +200,11 @@ public class ElevationModule implements GraphBuilderModule {
     // Keeps track of the total amount of elevation edges for logging purposes
     int totalElevationEdges = streetsWithElevationEdges.size();
 
+    if (elevationRasterType != ElevationRaster.Type.COVERAGE) {
+      elevationRaster =
+        gridCoverageFactory.getElevationRaster(elevationRasterType == ElevationRaster.Type.MAPPED);
+    }
+
     var progress = ProgressTracker.track("Set elevation", 25_000, totalElevationEdges);
 
     if (multiThreadElevationCalculations) {
@@ -383,9 +399,16 @@ public class ElevationModule implements GraphBuilderModule {
       }
     }
 
-    // Needs full calculation. Calculate with a thread-specific coverage instance to avoid waiting for any locks on
-    // coverage instances in other threads.
-    Coverage coverage = getThreadSpecificCoverageInterpolator();
+    // Needs full calculation. Sample the shared raster if there is one, otherwise calculate with a
+    // thread-specific coverage instance to avoid waiting for any locks on coverage instances in
+    // other threads.
+    ElevationSampler sampler;
+    if (elevationRaster != null) {
+      sampler = this::getRasterElevation;
+    } else {
+      Coverage coverage = getThreadSpecificCoverageInterpolator();
+      sampler = (x, y) -> getElevation(coverage, x, y);
+    }
 
     // did not find a cached value, calculate
     // If any of the coordinates throw an error when trying to lookup their value, immediately bail and do not
@@ -393,10 +416,12 @@ public class ElevationModule implements GraphBuilderModule {
     try {
       Coordinate[] coords = edgeGeometry.getCoordinates();
 
-      List<Coordinate> coordList = new LinkedList<>();
+      // The distance along the edge and the elevation of each sample
+      TDoubleList samples = new TDoubleArrayList();
 
       // initial sample (x = 0)
-      coordList.add(new Coordinate(0, getElevation(coverage, coords[0])));
+      samples.add(0);
+      samples.add(sampler.elevation(coords[0].x, coords[0].y));
 
       // iterate through coordinates calculating the edge length and creating intermediate elevation coordinates at
       // the regularly specified interval
@@ -415,15 +440,10 @@ public class ElevationModule implements GraphBuilderModule {
 
           // calculate percent of current segment that distance is between
           double pctAlongSeg = (sampleDistance - previousDistance) / curSegmentDistance;
-          // add an elevation coordinate
-          coordList.add(
-            new Coordinate(
-              sampleDistance,
-              getElevation(
-                coverage,
-                new Coordinate(x1 + (pctAlongSeg * (x2 - x1)), y1 + (pctAlongSeg * (y2 - y1)))
-              )
-            )
+          // add an elevation sample
+          samples.add(sampleDistance);
+          samples.add(
+            sampler.elevation(x1 + (pctAlongSeg * (x2 - x1)), y1 + (pctAlongSeg * (y2 - y1)))
           );
           sampleDistance += distanceBetweenSamplesM;
         }
@@ -433,17 +453,20 @@ public class ElevationModule implements GraphBuilderModule {
       }
 
       // remove final-segment sample if it is less than half the distance between samples
-      if (edgeLenM - coordList.get(coordList.size() - 1).x < distanceBetweenSamplesM / 2) {
-        coordList.remove(coordList.size() - 1);
+      if (edgeLenM - samples.get(samples.size() - 2) < distanceBetweenSamplesM / 2) {
+        samples.remove(samples.size() - 2, 2);
       }
 
       // final sample (x = edge length)
-      coordList.add(new Coordinate(edgeLenM, getElevation(coverage, coords[coords.length - 1])));
+      Coordinate last = coords[coords.length - 1];
+      samples.add(edgeLenM);
+      samples.add(sampler.elevation(last.x, last.y));
 
       // construct the PCS
-      Coordinate[] coordArr = new Coordinate[coordList.size()];
       PackedCoordinateSequence elevPCS = new PackedCoordinateSequence.Double(
-        coordList.toArray(coordArr)
+        samples.toArray(),
+        2,
+        0
       );
 
       setEdgeElevationProfile(ee, elevPCS);
@@ -477,7 +500,7 @@ public class ElevationModule implements GraphBuilderModule {
           // can cause deadlocks if not fully initialized. Therefore, make a single request for the first
           // point on the edge to initialize these other items.
           try {
-            getElevation(coverage, examplarCoordinate);
+            getElevation(coverage, examplarCoordinate.x, examplarCoordinate.y);
           } catch (ElevationLookupException e) {
             LOG.warn(
               "Error processing elevation for coordinate: {} due to error: {}",
@@ -509,16 +532,18 @@ public class ElevationModule implements GraphBuilderModule {
   }
 
   /**
-   * Method for retrieving the elevation at a given Coordinate.
+   * Method for retrieving the elevation at a given (x, y) pair, wrapping the known exceptions.
    *
    * @param coverage the specific Coverage instance to use in order to avoid competition between
    *                 threads
-   * @param c        the coordinate (NAD83)
+   * @param x        the query longitude (NAD83)
+   * @param y        the query latitude (NAD83)
    * @return elevation in meters
    */
-  private double getElevation(Coverage coverage, Coordinate c) throws ElevationLookupException {
+  private double getElevation(Coverage coverage, double x, double y)
+    throws ElevationLookupException {
     try {
-      return getElevation(coverage, c.x, c.y);
+      return getCoverageElevation(coverage, x, y);
     } catch (
       ArrayIndexOutOfBoundsException | PointOutsideCoverageException | TransformException e
     ) {
@@ -531,6 +556,29 @@ public class ElevationModule implements GraphBuilderModule {
     }
   }
 
+  /**
+   * Method for retrieving the elevation at a given (x, y) pair from the shared raster. No objects
+   * are created unless the lookup fails.
+   *
+   * @param x the query longitude (WGS84)
+   * @param y the query latitude (WGS84)
+   * @return elevation in meters
+   */
+  private double getRasterElevation(double x, double y) throws ElevationLookupException {
+    double value = elevationRaster.elevation(x, y);
+    if (Double.isNaN(value)) {
+      nPointsOutsideDEM.incrementAndGet();
+      throw new ElevationLookupException(
+        "Point outside the elevation data or NO_DATA: " + x + ", " + y
+      );
+    }
+    try {
+      return toElevation(value, x, y);
+    } catch (TransformException e) {
+      throw new ElevationLookupException(e);
+    }
+  }
+
   /**
    * Method for retrieving the elevation at a given (x, y) pair.
    *
@@ -540,7 +588,7 @@ public class ElevationModule implements GraphBuilderModule {
    * @param y        the query latitude (NAD83)
    * @return elevation in meters
    */
-  private double getElevation(Coverage coverage, double x, double y)
+  private double getCoverageElevation(Coverage coverage, double x, double y)
     throws PointOutsideCoverageException, TransformException {
     double[] values = new double[1];
     try {
@@ -554,9 +602,16 @@ public class ElevationModule implements GraphBuilderModule {
       nPointsOutsideDEM.incrementAndGet();
       throw e;
     }
+    return toElevation(values[0], x, y);
+  }
 
+  /**
+   * Convert a value of the elevation data to the elevation in meters, and keep track of the lowest
+   * and highest elevation.
+   */
+  private double toElevation(double value, double x, double y) throws TransformException {
     var elevation =
-      (values[0] * elevationUnitMultiplier) -
+      (value * elevationUnitMultiplier) -
       (includeEllipsoidToGeoidDifference ? getApproximateEllipsoidToGeoidDifference(y, x) : 0);
 
     minElevation = Math.min(minElevation, elevation);
@@ -607,5 +662,17 @@ public class ElevationModule implements GraphBuilderModule {
     public ElevationLookupException(Exception e) {
       super(e);
     }
+
+    public ElevationLookupException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Find the elevation in meters at a given (x, y) pair.
+   */
+  @FunctionalInterface
+  private interface ElevationSampler {
+    double elevation(double x, double y) throws ElevationLookupException;
   }
 }
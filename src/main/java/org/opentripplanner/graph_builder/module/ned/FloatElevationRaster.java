@@ -0,0 +1,182 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opentripplanner.graph_builder.services.ned.ElevationRaster;
+
+/**
+ * Elevation data as a grid of floats in longitude/latitude coordinates, either on the heap or in a
+ * temporary memory-mapped file. The value of a point is interpolated bilinearly from the four
+ * closest cell centers, like the {@code InterpolationBilinear} used with the GeoTools coverages.
+ * Within half a cell of the border the value of the border cells is used.
+ * <p>
+ * The rows are kept in blocks of at most {@link #BLOCK_FLOATS} floats, so a raster can be larger
+ * than a single buffer. The rows are set once with {@link #setRow(int, float[])} before the raster
+ * is sampled; after that the raster is read only and can be sampled by many threads.
+ */
+public class FloatElevationRaster implements ElevationRaster {
+
+  private static final int BLOCK_FLOATS = 1 << 26;
+
+  private final int width;
+  private final int height;
+  private final double minLongitude;
+  private final double maxLatitude;
+  private final double cellWidth;
+  private final double cellHeight;
+  private final float noData;
+  private final int rowsPerBlock;
+  private final FloatBuffer[] blocks;
+
+  /**
+   * @param minLongitude the longitude of the left edge of the first column
+   * @param maxLatitude  the latitude of the top edge of the first row
+   * @param cellWidth    the width of a cell in degrees
+   * @param cellHeight   the height of a cell in degrees, the rows go from north to south
+   * @param noData       the value of cells without data, or {@code NaN}
+   * @param memoryMapped keep the values in a temporary memory-mapped file instead of on the heap
+   */
+  public FloatElevationRaster(
+    int width,
+    int height,
+    double minLongitude,
+    double maxLatitude,
+    double cellWidth,
+    double cellHeight,
+    float noData,
+    boolean memoryMapped
+  ) {
+    if (width < 1 || height < 1 || !(cellWidth > 0) || !(cellHeight > 0)) {
+      throw new IllegalArgumentException(
+        "Invalid elevation raster " +
+        width +
+        "x" +
+        height +
+        ", cell " +
+        cellWidth +
+        "x" +
+        cellHeight
+      );
+    }
+    this.width = width;
+    this.height = height;
+    this.minLongitude = minLongitude;
+    this.maxLatitude = maxLatitude;
+    this.cellWidth = cellWidth;
+    this.cellHeight = cellHeight;
+    this.noData = noData;
+    this.rowsPerBlock = Math.max(1, BLOCK_FLOATS / width);
+    this.blocks = new FloatBuffer[(height + rowsPerBlock - 1) / rowsPerBlock];
+
+    if (memoryMapped) {
+      mapBlocks();
+    } else {
+      for (int i = 0; i < blocks.length; ++i) {
+        blocks[i] = FloatBuffer.allocate(blockRows(i) * width);
+      }
+    }
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Set the values of a row, from west to east. The rows are numbered from north to south.
+   */
+  public void setRow(int row, float[] values) {
+    blocks[row / rowsPerBlock].put((row % rowsPerBlock) * width, values, 0, width);
+  }
+
+  @Override
+  public double elevation(double longitude, double latitude) {
+    // The position in cells relative to the center of the first cell
+    double x = (longitude - minLongitude) / cellWidth - 0.5;
+    double y = (maxLatitude - latitude) / cellHeight - 0.5;
+
+    // This is also false for NaN
+    if (!(x >= -0.5 && x <= width - 0.5 && y >= -0.5 && y <= height - 0.5)) {
+      return Double.NaN;
+    }
+    x = Math.min(Math.max(x, 0), width - 1);
+    y = Math.min(Math.max(y, 0), height - 1);
+
+    int col = (int) x;
+    int row = (int) y;
+    double fx = x - col;
+    double fy = y - row;
+
+    double top = interpolateRow(row, col, fx);
+    if (fy == 0) {
+      return top;
+    }
+    double bottom = interpolateRow(row + 1, col, fx);
+    return top + fy * (bottom - top);
+  }
+
+  private double interpolateRow(int row, int col, double fx) {
+    double left = value(row, col);
+    if (fx == 0) {
+      return left;
+    }
+    double right = value(row, col + 1);
+    return left + fx * (right - left);
+  }
+
+  /** The value of a cell, or {@code NaN} if it has no data */
+  private double value(int row, int col) {
+    float v = blocks[row / rowsPerBlock].get((row % rowsPerBlock) * width + col);
+    return v == noData ? Double.NaN : v;
+  }
+
+  private int blockRows(int block) {
+    return Math.min(rowsPerBlock, height - block * rowsPerBlock);
+  }
+
+  /**
+   * Map the blocks in a temporary file. The file is deleted right away where the operating system
+   * allows it, otherwise when the JVM exits.
+   */
+  private void mapBlocks() {
+    try {
+      Path file = Files.createTempFile("otp-elevation", ".bin");
+      try (
+        FileChannel channel = FileChannel.open(
+          file,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE
+        )
+      ) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          file.toFile().deleteOnExit();
+        }
+        long offset = 0;
+        for (int i = 0; i < blocks.length; ++i) {
+          long bytes = (long) blockRows(i) * width * Float.BYTES;
+          // The mapping stays valid after the channel is closed
+          blocks[i] =
+            channel
+              .map(FileChannel.MapMode.READ_WRITE, offset, bytes)
+              .order(ByteOrder.nativeOrder())
+              .asFloatBuffer();
+          offset += bytes;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to map a temporary file for the elevation data", e);
+    }
+  }
+}
@@ -1,19 +1,32 @@
 package org.opentripplanner.graph_builder.module.ned;
 
+import it.geosolutions.jaiext.range.NoDataContainer;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
 import javax.media.jai.InterpolationBilinear;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.coverage.grid.Interpolator2D;
+import org.geotools.coverage.util.CoverageUtilities;
 import org.geotools.gce.geotiff.GeoTiffFormat;
 import org.geotools.gce.geotiff.GeoTiffReader;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.operation.transform.AffineTransform2D;
 import org.geotools.util.factory.Hints;
 import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.metadata.spatial.PixelOrientation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.datastore.api.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
 import org.opentripplanner.graph_builder.services.ned.ElevationGridCoverageFactory;
+import org.opentripplanner.graph_builder.services.ned.ElevationRaster;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.util.geometry.GeometryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +59,20 @@ public class GeotiffGridCoverageFactoryImpl implements ElevationGridCoverageFact
     );
   }
 
+  /**
+   * Copy the elevation data into a float raster. The GeoTools coverage is released afterwards, so
+   * the data is only kept once.
+   */
+  @Override
+  public ElevationRaster getElevationRaster(boolean memoryMapped) {
+    FloatElevationRaster raster = toElevationRaster(getUninterpolatedGridCoverage(), memoryMapped);
+    if (raster != null) {
+      coverage.dispose(true);
+      coverage = null;
+    }
+    return raster;
+  }
+
   @Override
   public void checkInputs() {
     if (!input.exists()) {
@@ -85,6 +112,72 @@ public class GeotiffGridCoverageFactoryImpl implements ElevationGridCoverageFact
     return coverage;
   }
 
+  /**
+   * Copy the first band of a coverage into a float raster. Returns {@code null} if the coverage is
+   * not a north-up grid in longitude/latitude coordinates.
+   */
+  static FloatElevationRaster toElevationRaster(GridCoverage2D coverage, boolean memoryMapped) {
+    if (!isLongitudeLatitude(coverage.getCoordinateReferenceSystem2D())) {
+      LOG.info("Elevation model is not in longitude/latitude coordinates, using the coverage.");
+      return null;
+    }
+    MathTransform gridToCrs = coverage.getGridGeometry().getGridToCRS2D(PixelOrientation.CENTER);
+    if (
+      !(gridToCrs instanceof AffineTransform2D affine) ||
+      affine.getShearX() != 0 ||
+      affine.getShearY() != 0 ||
+      affine.getScaleX() <= 0 ||
+      affine.getScaleY() >= 0
+    ) {
+      LOG.info("Elevation model is not a north-up grid, using the coverage.");
+      return null;
+    }
+
+    RenderedImage image = coverage.getRenderedImage();
+    int minX = image.getMinX();
+    int minY = image.getMinY();
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double cellWidth = affine.getScaleX();
+    double cellHeight = -affine.getScaleY();
+    NoDataContainer noData = CoverageUtilities.getNoDataProperty(coverage);
+
+    FloatElevationRaster raster = new FloatElevationRaster(
+      width,
+      height,
+      affine.getTranslateX() + cellWidth * (minX - 0.5),
+      affine.getTranslateY() - cellHeight * (minY - 0.5),
+      cellWidth,
+      cellHeight,
+      noData == null ? Float.NaN : (float) noData.getAsSingleValue(),
+      memoryMapped
+    );
+
+    // Read a strip of rows at a time, so the whole image is not decoded into memory at once
+    int stripRows = Math.max(1, (1 << 20) / width);
+    float[] values = new float[width * stripRows];
+    float[] row = new float[width];
+    for (int y = 0; y < height; y += stripRows) {
+      int rows = Math.min(stripRows, height - y);
+      Raster strip = image.getData(new Rectangle(minX, minY + y, width, rows));
+      strip.getSamples(minX, minY + y, width, rows, 0, values);
+      for (int i = 0; i < rows; ++i) {
+        System.arraycopy(values, i * width, row, 0, width);
+        raster.setRow(y + i, row);
+      }
+    }
+    LOG.info("Copied elevation model of {}x{} cells into a float raster.", width, height);
+    return raster;
+  }
+
+  private static boolean isLongitudeLatitude(CoordinateReferenceSystem crs) {
+    try {
+      return CRS.findMathTransform(GeometryUtils.WGS84_XY, crs, true).isIdentity();
+    } catch (FactoryException e) {
+      return false;
+    }
+  }
+
   private Object getSource() {
     return input.asInputStream();
   }
@@ -14,6 +14,7 @@ import java.util.zip.ZipInputStream;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.opengis.coverage.Coverage;
 import org.opentripplanner.graph_builder.services.ned.ElevationGridCoverageFactory;
+import org.opentripplanner.graph_builder.services.ned.ElevationRaster;
 import org.opentripplanner.graph_builder.services.ned.NEDTileSource;
 import org.opentripplanner.routing.graph.Graph;
 import org.slf4j.Logger;
@@ -71,6 +72,25 @@ public class NEDGridCoverageFactoryImpl implements ElevationGridCoverageFactory
     return new UnifiedGridCoverage(regionCoverages, datums);
   }
 
+  /**
+   * Copy each NED tile into a float raster. Returns {@code null} if a tile can not be read as a
+   * raster, then the coverage is used for all tiles.
+   */
+  @Override
+  public ElevationRaster getElevationRaster(boolean memoryMapped) {
+    loadVerticalDatum();
+    List<ElevationRaster> tiles = new ArrayList<>();
+    for (File path : tileSource.getNEDTiles()) {
+      GeotiffGridCoverageFactoryImpl factory = new GeotiffGridCoverageFactoryImpl(path);
+      ElevationRaster tile = factory.getElevationRaster(memoryMapped);
+      if (tile == null) {
+        return null;
+      }
+      tiles.add(tile);
+    }
+    return new UnifiedElevationRaster(tiles, datums);
+  }
+
   @Override
   public void checkInputs() {
     /* Attempt to create cache directory if it doesn't exist. */
@@ -0,0 +1,39 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import java.util.List;
+import org.opentripplanner.graph_builder.services.ned.ElevationRaster;
+
+/**
+ * Stitches together the rasters of several elevation tiles, and adds the height of the vertical
+ * datum covering each point. This does the same as the {@link UnifiedGridCoverage}, without a
+ * spatial index query for each sample. The number of tiles and datums is small, so they are
+ * searched in order.
+ */
+class UnifiedElevationRaster implements ElevationRaster {
+
+  private final ElevationRaster[] tiles;
+  private final VerticalDatum[] datums;
+
+  UnifiedElevationRaster(List<? extends ElevationRaster> tiles, List<VerticalDatum> datums) {
+    this.tiles = tiles.toArray(new ElevationRaster[0]);
+    this.datums = datums.toArray(new VerticalDatum[0]);
+  }
+
+  @Override
+  public double elevation(double longitude, double latitude) {
+    for (ElevationRaster tile : tiles) {
+      double elevation = tile.elevation(longitude, latitude);
+      // Tiles overlap a little, so use the next tile if this one has no data here
+      if (Double.isNaN(elevation)) {
+        continue;
+      }
+      for (VerticalDatum datum : datums) {
+        if (datum.covers(longitude, latitude)) {
+          return elevation + datum.interpolatedHeight(longitude, latitude);
+        }
+      }
+      return Double.NaN;
+    }
+    return Double.NaN;
+  }
+}
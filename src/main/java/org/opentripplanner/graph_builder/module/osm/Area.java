@@ -3,7 +3,6 @@ package org.opentripplanner.graph_builder.module.osm;
 import com.google.common.collect.ArrayListMultimap;
 import gnu.trove.list.TLongList;
 import gnu.trove.list.array.TLongArrayList;
-import gnu.trove.map.TLongObjectMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,7 +31,7 @@ class Area {
     OSMWithTags parent,
     List<OSMWay> outerRingWays,
     List<OSMWay> innerRingWays,
-    TLongObjectMap<OSMNode> nodes
+    OSMNodeStore nodes
   ) {
     this.parent = parent;
     // ring assignment
@@ -0,0 +1,226 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * Keep the id and coordinates of the nodes without tags in sorted runs of fixed size records,
+ * either on the heap or in a temporary memory-mapped file. A new {@link OSMNode} is created each
+ * time such a node is looked up. Nodes with tags, and the virtual nodes created by OTP, are kept as
+ * objects.
+ * <p>
+ * The nodes of a PBF file are sorted by id, so each file normally adds one run. A node with a
+ * smaller id than the last node starts a new run. If there are already {@link #MAX_RUNS} runs, the
+ * node is kept as an object instead, so an unsorted file makes this store fall back to keeping all
+ * nodes as objects.
+ */
+class CompactOSMNodeStore implements OSMNodeStore {
+
+  private static final int MAX_RUNS = 16;
+
+  /** The id, latitude and longitude of a node. */
+  private static final int RECORD_SIZE = 3 * Long.BYTES;
+
+  private static final int HEAP_SEGMENT_RECORDS = 1 << 16;
+
+  private static final int MAPPED_SEGMENT_RECORDS = 1 << 20;
+
+  private final TLongObjectMap<OSMNode> nodesWithTags = new TLongObjectHashMap<>();
+  private final List<Run> runs = new ArrayList<>();
+  private final int segmentRecords;
+  private final FileChannel channel;
+  private long fileSize = 0;
+  private int size = 0;
+
+  private CompactOSMNodeStore(int segmentRecords, FileChannel channel) {
+    this.segmentRecords = segmentRecords;
+    this.channel = channel;
+  }
+
+  static CompactOSMNodeStore onHeap() {
+    return new CompactOSMNodeStore(HEAP_SEGMENT_RECORDS, null);
+  }
+
+  /**
+   * Create a store using a temporary file. The file is deleted right away where the operating
+   * system allows it, otherwise when the JVM exits.
+   */
+  static CompactOSMNodeStore memoryMapped() {
+    try {
+      Path file = Files.createTempFile("otp-osm-nodes", ".bin");
+      FileChannel channel = FileChannel.open(
+        file,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.DELETE_ON_CLOSE
+      );
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        file.toFile().deleteOnExit();
+      }
+      return new CompactOSMNodeStore(MAPPED_SEGMENT_RECORDS, channel);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to create a temporary file for the OSM nodes", e);
+    }
+  }
+
+  @Override
+  public void add(OSMNode node) {
+    ++size;
+    long id = node.getId();
+    if (node.getTags() != null || id < 0) {
+      nodesWithTags.put(id, node);
+      return;
+    }
+    Run run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+    if (run == null || run.lastId() >= id) {
+      if (runs.size() == MAX_RUNS) {
+        nodesWithTags.put(id, node);
+        return;
+      }
+      run = new Run();
+      runs.add(run);
+    }
+    run.add(id, node.lat, node.lon);
+  }
+
+  @Override
+  public OSMNode get(long id) {
+    OSMNode node = nodesWithTags.get(id);
+    if (node != null) {
+      return node;
+    }
+    for (Run run : runs) {
+      int index = run.indexOf(id);
+      if (index >= 0) {
+        node = new OSMNode();
+        node.setId(id);
+        node.lat = run.lat(index);
+        node.lon = run.lon(index);
+        return node;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean contains(long id) {
+    if (nodesWithTags.containsKey(id)) {
+      return true;
+    }
+    for (Run run : runs) {
+      if (run.indexOf(id) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Close the temporary file, if any. The file is deleted when it is closed.
+   */
+  @Override
+  public void close() {
+    nodesWithTags.clear();
+    runs.clear();
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to close the OSM nodes file", e);
+    }
+  }
+
+  private ByteBuffer newSegment() {
+    int bytes = segmentRecords * RECORD_SIZE;
+    if (channel == null) {
+      return ByteBuffer.allocate(bytes);
+    }
+    try {
+      ByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, bytes);
+      fileSize += bytes;
+      return segment;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to map the OSM nodes file", e);
+    }
+  }
+
+  /**
+   * Nodes sorted by id, stored in segments of fixed size records.
+   */
+  private class Run {
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private int size = 0;
+
+    void add(long id, double lat, double lon) {
+      if (size == segments.size() * segmentRecords) {
+        segments.add(newSegment());
+      }
+      ByteBuffer segment = segments.get(segments.size() - 1);
+      int offset = (size % segmentRecords) * RECORD_SIZE;
+      segment.putLong(offset, id);
+      segment.putDouble(offset + Long.BYTES, lat);
+      segment.putDouble(offset + 2 * Long.BYTES, lon);
+      ++size;
+    }
+
+    long lastId() {
+      return id(size - 1);
+    }
+
+    /**
+     * Return the index of the node with the given id, or -1 if it is not in the run.
+     */
+    int indexOf(long id) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long midId = id(mid);
+        if (midId < id) {
+          low = mid + 1;
+        } else if (midId > id) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+
+    long id(int index) {
+      return segments.get(index / segmentRecords).getLong(offset(index));
+    }
+
+    double lat(int index) {
+      return segments.get(index / segmentRecords).getDouble(offset(index) + Long.BYTES);
+    }
+
+    double lon(int index) {
+      return segments.get(index / segmentRecords).getDouble(offset(index) + 2 * Long.BYTES);
+    }
+
+    private int offset(int index) {
+      return (index % segmentRecords) * RECORD_SIZE;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * Keep all nodes as objects in a hash map. This is fast, but uses a lot of memory for large
+ * regions.
+ */
+class HashMapOSMNodeStore implements OSMNodeStore {
+
+  private final TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
+
+  @Override
+  public void add(OSMNode node) {
+    nodesById.put(node.getId(), node);
+  }
+
+  @Override
+  public OSMNode get(long id) {
+    return nodesById.get(id);
+  }
+
+  @Override
+  public boolean contains(long id) {
+    return nodesById.containsKey(id);
+  }
+
+  @Override
+  public int size() {
+    return nodesById.size();
+  }
+}
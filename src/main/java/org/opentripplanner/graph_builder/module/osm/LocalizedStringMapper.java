@@ -1,11 +1,11 @@
 package org.opentripplanner.graph_builder.module.osm;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.opentripplanner.openstreetmap.model.OSMWithTags;
@@ -21,9 +21,10 @@ class LocalizedStringMapper {
   private static final Pattern PATTERN_MATCHER = Pattern.compile("\\{(.*?)}");
 
   /**
-   * Map which key has which tagNames. Used only when building graph.
+   * Map which key has which tagNames. Used only when building graph, the ways are named from
+   * several threads.
    */
-  private final ListMultimap<String, String> keyTagNames = ArrayListMultimap.create();
+  private final Map<String, List<String>> keyTagNames = new ConcurrentHashMap<>();
 
   static LocalizedStringMapper getInstance() {
     return INSTANCE;
@@ -71,18 +72,17 @@ class LocalizedStringMapper {
     //TODO: after finding all keys for replacements replace strings to normal java strings
     //with https://stackoverflow.com/questions/2286648/named-placeholders-in-string-formatting if
     // it is faster otherwise it's converted only when toString is called
-    if (keyTagNames.containsKey(key)) {
-      return keyTagNames.get(key);
-    }
+    return keyTagNames.computeIfAbsent(key, LocalizedStringMapper::findTagNames);
+  }
+
+  private static List<String> findTagNames(String key) {
     List<String> tagNames = new ArrayList<>(4);
     String englishTrans = ResourceBundleSingleton.INSTANCE.localize(key, Locale.ENGLISH);
 
     Matcher matcher = PATTERN_MATCHER.matcher(englishTrans);
     while (matcher.find()) {
-      String tagName = matcher.group(1);
-      keyTagNames.put(key, tagName);
-      tagNames.add(tagName);
+      tagNames.add(matcher.group(1));
     }
-    return tagNames;
+    return List.copyOf(tagNames);
   }
 }
@@ -7,6 +7,7 @@ import gnu.trove.iterator.TLongIterator;
 import gnu.trove.list.TLongList;
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.procedure.TLongProcedure;
 import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
 import java.util.ArrayList;
@@ -57,8 +58,8 @@ public class OSMDatabase {
 
   private final DataImportIssueStore issueStore;
 
-  /* Map of all nodes used in ways/areas keyed by their OSM ID */
-  private final TLongObjectMap<OSMNode> nodesById = new TLongObjectHashMap<>();
+  /* All nodes used in ways/areas keyed by their OSM ID */
+  private final OSMNodeStore nodesById;
 
   /* Map of all bike parking nodes, keyed by their OSM ID */
   private final TLongObjectMap<OSMNode> bikeParkingNodes = new TLongObjectHashMap<>();
@@ -130,8 +131,17 @@ public class OSMDatabase {
   private final Set<String> boardingAreaRefTags;
 
   public OSMDatabase(DataImportIssueStore issueStore, Set<String> boardingAreaRefTags) {
+    this(issueStore, boardingAreaRefTags, OSMNodeStore.Type.MEMORY.create());
+  }
+
+  public OSMDatabase(
+    DataImportIssueStore issueStore,
+    Set<String> boardingAreaRefTags,
+    OSMNodeStore nodeStore
+  ) {
     this.issueStore = issueStore;
     this.boardingAreaRefTags = boardingAreaRefTags;
+    this.nodesById = nodeStore;
   }
 
   public OSMNode getNode(Long nodeId) {
@@ -210,6 +220,24 @@ public class OSMDatabase {
     return waysNodeIds.contains(nodeId);
   }
 
+  /**
+   * Return true if {@link #addNode(OSMNode)} keeps the node even when it is not part of a way or
+   * an area. Used to decide which blocks of the OSM file can be skipped when loading the nodes.
+   */
+  public static boolean isNodeKeptWithoutWay(OSMWithTags node) {
+    return node.isBikeParking() || node.isParkAndRide() || node.isBoardingLocation();
+  }
+
+  /**
+   * Call the procedure with the id of each node used by the ways and areas kept in the second
+   * phase. The same id may be given more than once.
+   */
+  public void forEachWayNodeId(TLongProcedure procedure) {
+    if (waysNodeIds.forEach(procedure)) {
+      areaNodeIds.forEach(procedure);
+    }
+  }
+
   public void addNode(OSMNode node) {
     if (node.isBikeParking()) {
       bikeParkingNodes.put(node.getId(), node);
@@ -227,10 +255,10 @@ public class OSMDatabase {
       return;
     }
 
-    if (nodesById.containsKey(node.getId())) {
+    if (nodesById.contains(node.getId())) {
       return;
     }
-    nodesById.put(node.getId(), node);
+    nodesById.add(node);
   }
 
   public void addWay(OSMWay way) {
@@ -696,7 +724,7 @@ public class OSMDatabase {
     node.setId(virtualNodeId);
     virtualNodeId--;
     waysNodeIds.add(node.getId());
-    nodesById.put(node.getId(), node);
+    nodesById.add(node);
     return node;
   }
 
@@ -745,7 +773,7 @@ public class OSMDatabase {
       TLongIterator longIterator = way.getNodeRefs().iterator();
       while (longIterator.hasNext()) {
         long nodeRef = longIterator.next();
-        if (!nodesById.containsKey(nodeRef)) {
+        if (!nodesById.contains(nodeRef)) {
           continue AREA;
         }
       }
@@ -800,7 +828,7 @@ public class OSMDatabase {
         TLongIterator wayNodeIterator = way.getNodeRefs().iterator();
         while (wayNodeIterator.hasNext()) {
           long nodeId = wayNodeIterator.next();
-          if (nodesById.containsKey(nodeId)) {
+          if (nodesById.contains(nodeId)) {
             MapUtils.addToMapSet(areasForNode, nodeId, way);
           } else {
             // this area is missing some nodes, perhaps because it is on
@@ -1147,7 +1175,7 @@ public class OSMDatabase {
         } else {
           issueStore.add(new TooManyAreasInRelation(relation.getId()));
         }
-      } else if ("node".equals(member.getType()) && nodesById.containsKey(member.getRef())) {
+      } else if ("node".equals(member.getType()) && nodesById.contains(member.getRef())) {
         platformsNodes.add(nodesById.get(member.getRef()));
       }
     }
@@ -0,0 +1,51 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import java.io.Closeable;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+
+/**
+ * Stores the OSM nodes kept by the {@link OSMDatabase}, keyed by their OSM id. A store may keep
+ * only the coordinates of nodes without tags, and create a new {@link OSMNode} instance each time
+ * such a node is looked up. Nodes are therefore compared by id, not by identity.
+ * <p>
+ * The store must be closed when the OSM data is processed, to release any file it uses.
+ */
+public interface OSMNodeStore extends Closeable {
+  /**
+   * Add a node. The node must not already be in the store.
+   */
+  void add(OSMNode node);
+
+  /**
+   * Return the node with the given id, or null if it is not in the store.
+   */
+  OSMNode get(long id);
+
+  boolean contains(long id);
+
+  int size();
+
+  /** Release the resources used by the store. The store can not be used after it is closed. */
+  @Override
+  default void close() {}
+
+  /**
+   * The ways to store the nodes, set with the {@code osmNodeStore} build parameter.
+   */
+  enum Type {
+    /** Keep all nodes as objects in a hash map. */
+    MEMORY,
+    /** Keep the coordinates of nodes without tags in sorted arrays on the heap. */
+    COMPACT,
+    /** Keep the coordinates of nodes without tags in a temporary memory-mapped file. */
+    MAPPED;
+
+    public OSMNodeStore create() {
+      return switch (this) {
+        case MEMORY -> new HashMapOSMNodeStore();
+        case COMPACT -> CompactOSMNodeStore.onHeap();
+        case MAPPED -> CompactOSMNodeStore.memoryMapped();
+      };
+    }
+  }
+}
@@ -91,6 +91,9 @@ public class OpenStreetMapModule implements GraphBuilderModule {
   private static final Logger LOG = LoggerFactory.getLogger(OpenStreetMapModule.class);
 
   private static final String VEHICLE_PARKING_OSM_FEED_ID = "OSM";
+
+  /** The number of ways to compute the properties for at a time, before creating their edges. */
+  private static final int WAYS_PER_BATCH = 10_000;
   private final HashMap<Vertex, Double> elevationData = new HashMap<>();
 
   // Private members that are only read or written internally.
@@ -135,6 +138,10 @@ public class OpenStreetMapModule implements GraphBuilderModule {
    */
   public boolean banDiscouragedWalking = false;
   public boolean banDiscouragedBiking = false;
+  /**
+   * How the OSM nodes are stored while the graph is built.
+   */
+  public OSMNodeStore.Type nodeStoreType = OSMNodeStore.Type.MEMORY;
   private DataImportIssueStore issueStore;
   private WayPropertySetSource wayPropertySetSource = new DefaultWayPropertySetSource();
 
@@ -178,26 +185,28 @@ public class OpenStreetMapModule implements GraphBuilderModule {
         transitModel.getTimeZone(),
         issueStore
       );
-    OSMDatabase osmdb = new OSMDatabase(issueStore, boardingAreaRefTags);
-    Handler handler = new Handler(graph, transitModel, osmdb);
-    for (OpenStreetMapProvider provider : providers) {
-      LOG.info("Gathering OSM from provider: " + provider);
-      provider.readOSM(osmdb);
-    }
-    osmdb.postLoad();
+    try (OSMNodeStore nodeStore = nodeStoreType.create()) {
+      OSMDatabase osmdb = new OSMDatabase(issueStore, boardingAreaRefTags, nodeStore);
+      Handler handler = new Handler(graph, transitModel, osmdb);
+      for (OpenStreetMapProvider provider : providers) {
+        LOG.info("Gathering OSM from provider: " + provider);
+        provider.readOSM(osmdb);
+      }
+      osmdb.postLoad();
 
-    LOG.info(
-      "Using OSM way configuration from {}. Setting driving direction of the graph to {}.",
-      wayPropertySetSource.getClass().getSimpleName(),
-      wayPropertySetSource.drivingDirection()
-    );
-    graph.setDrivingDirection(wayPropertySetSource.drivingDirection());
-    graph.setIntersectionTraversalCostModel(
-      wayPropertySetSource.getIntersectionTraversalCostModel()
-    );
+      LOG.info(
+        "Using OSM way configuration from {}. Setting driving direction of the graph to {}.",
+        wayPropertySetSource.getClass().getSimpleName(),
+        wayPropertySetSource.drivingDirection()
+      );
+      graph.setDrivingDirection(wayPropertySetSource.drivingDirection());
+      graph.setIntersectionTraversalCostModel(
+        wayPropertySetSource.getIntersectionTraversalCostModel()
+      );
 
-    LOG.info("Building street graph from OSM");
-    handler.buildGraph(extra);
+      LOG.info("Building street graph from OSM");
+      handler.buildGraph(extra);
+    }
     graph.hasStreets = true;
     //Calculates envelope for OSM
     graph.calculateEnvelope();
@@ -294,7 +303,16 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       WayProperties wayData,
       OSMWithTags way
     ) {
-      Set<T2<StreetNote, NoteMatcher>> notes = wayPropertySet.getNoteForWay(way);
+      applyWayProperties(street, backStreet, wayData, wayPropertySet.getNoteForWay(way), way);
+    }
+
+    private void applyWayProperties(
+      StreetEdge street,
+      StreetEdge backStreet,
+      WayProperties wayData,
+      Set<T2<StreetNote, NoteMatcher>> notes,
+      OSMWithTags way
+    ) {
       boolean motorVehicleNoThrough = wayPropertySetSource.isMotorVehicleThroughTrafficExplicitlyDisallowed(
         way
       );
@@ -880,13 +898,19 @@ public class OpenStreetMapModule implements GraphBuilderModule {
 
     private void buildBasicGraph() {
       /* build the street segment graph from OSM ways */
-      long wayCount = osmdb.getWays().size();
-      ProgressTracker progress = ProgressTracker.track("Build street graph", 5_000, wayCount);
+      List<OSMWay> ways = List.copyOf(osmdb.getWays());
+      ProgressTracker progress = ProgressTracker.track("Build street graph", 5_000, ways.size());
       LOG.info(progress.startMessage());
 
-      WAY:for (OSMWay way : osmdb.getWays()) {
-        WayProperties wayData = wayPropertySet.getDataForWay(way);
-        setWayName(way);
+      List<DerivedWayProperties> derivedProperties = List.of();
+
+      WAY:for (int w = 0; w < ways.size(); w++) {
+        if (w % WAYS_PER_BATCH == 0) {
+          derivedProperties = deriveWayProperties(ways, w);
+        }
+        OSMWay way = ways.get(w);
+        DerivedWayProperties derived = derivedProperties.get(w % WAYS_PER_BATCH);
+        WayProperties wayData = derived.wayData();
         StreetTraversalPermission permissions = OSMFilter.getPermissionsForWay(
           way,
           wayData.getPermission(),
@@ -1019,12 +1043,13 @@ public class OpenStreetMapModule implements GraphBuilderModule {
             osmStartNode.getId(),
             osmEndNode.getId(),
             permissions,
-            geometry
+            geometry,
+            derived
           );
 
           StreetEdge street = streets.first;
           StreetEdge backStreet = streets.second;
-          applyWayProperties(street, backStreet, wayData, way);
+          applyWayProperties(street, backStreet, wayData, derived.notes(), way);
 
           applyEdgesToTurnRestrictions(way, startNode, endNode, street, backStreet);
           startNode = endNode;
@@ -1039,6 +1064,28 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       LOG.info(progress.completeMessage());
     }
 
+    /**
+     * Compute the properties of the next batch of ways which only depend on the tags of each way.
+     * This is where most of the time is spent matching the tags against the way property set, and
+     * the ways are independent, so they are computed as fork-join tasks. The edges are created
+     * afterwards in the order of the ways, so the graph does not depend on the number of threads.
+     */
+    private List<DerivedWayProperties> deriveWayProperties(List<OSMWay> ways, int start) {
+      return ways
+        .subList(start, Math.min(start + WAYS_PER_BATCH, ways.size()))
+        .parallelStream()
+        .map(way -> {
+          setWayName(way);
+          return new DerivedWayProperties(
+            wayPropertySet.getDataForWay(way),
+            wayPropertySet.getNoteForWay(way),
+            wayPropertySet.getCarSpeedForWay(way, false),
+            wayPropertySet.getCarSpeedForWay(way, true)
+          );
+        })
+        .toList();
+    }
+
     private void setWayName(OSMWithTags way) {
       if (!way.hasTag("name")) {
         I18NString creativeName = wayPropertySet.getCreativeNameForWay(way);
@@ -1473,7 +1520,8 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       long startNode,
       long endNode,
       StreetTraversalPermission permissions,
-      LineString geometry
+      LineString geometry,
+      DerivedWayProperties derived
     ) {
       // No point in returning edges that can't be traversed by anyone.
       if (permissions.allowsNothing()) {
@@ -1498,6 +1546,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
             length,
             permissionsFront,
             geometry,
+            derived.carSpeed(),
             false
           );
       }
@@ -1511,6 +1560,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
             length,
             permissionsBack,
             backGeometry,
+            derived.backCarSpeed(),
             true
           );
       }
@@ -1535,14 +1585,13 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       double length,
       StreetTraversalPermission permissions,
       LineString geometry,
+      float carSpeed,
       boolean back
     ) {
       String label = "way " + way.getId() + " from " + index;
       label = label.intern();
       I18NString name = getNameForWay(way, label);
 
-      float carSpeed = wayPropertySet.getCarSpeedForWay(way, back);
-
       StreetEdge street = new StreetEdge(
         startEndpoint,
         endEndpoint,
@@ -1647,4 +1696,14 @@ public class OpenStreetMapModule implements GraphBuilderModule {
       return vertices.get(level);
     }
   }
+
+  /**
+   * The properties of a way which only depend on its tags.
+   */
+  private record DerivedWayProperties(
+    WayProperties wayData,
+    Set<T2<StreetNote, NoteMatcher>> notes,
+    float carSpeed,
+    float backCarSpeed
+  ) {}
 }
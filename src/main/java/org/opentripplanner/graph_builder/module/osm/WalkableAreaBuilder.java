@@ -7,8 +7,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
@@ -42,7 +44,6 @@ import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.spt.DominanceFunction;
-import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.spt.ShortestPathTree;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.routing.vertextype.OsmVertex;
@@ -69,6 +70,12 @@ import org.opentripplanner.util.geometry.GeometryUtils;
  */
 public class WalkableAreaBuilder {
 
+  /**
+   * Areas with fewer visibility nodes than this are processed on the calling thread, splitting
+   * them up costs more than it saves.
+   */
+  private static final int MIN_VISIBILITY_NODES_IN_PARALLEL = 32;
+
   private final DataImportIssueStore issueStore;
 
   private final int maxAreaNodes;
@@ -322,28 +329,39 @@ public class WalkableAreaBuilder {
 
       createNamedAreas(edgeList, ring, group.areas);
 
-      for (OSMNode nodeI : visibilityNodes) {
+      List<OSMNode> nodes = new ArrayList<>(visibilityNodes);
+      List<List<Area>> visibleLines = findVisibleLines(
+        polygon,
+        nodes,
+        alreadyAddedEdges,
+        group.areas
+      );
+
+      for (int i = 0; i < nodes.size(); i++) {
+        OSMNode nodeI = nodes.get(i);
         IntersectionVertex startEndpoint = handler.getVertexForOsmNode(nodeI, areaEntity);
         if (startingNodes.contains(nodeI)) {
           startingVertices.add(startEndpoint);
         }
 
-        for (OSMNode nodeJ : visibilityNodes) {
+        for (int j = 0; j < nodes.size(); j++) {
+          OSMNode nodeJ = nodes.get(j);
           P2<OSMNode> nodePair = new P2<>(nodeI, nodeJ);
           if (alreadyAddedEdges.contains(nodePair)) continue;
 
           IntersectionVertex endEndpoint = handler.getVertexForOsmNode(nodeJ, areaEntity);
 
-          Coordinate[] coordinates = new Coordinate[] {
-            startEndpoint.getCoordinate(),
-            endEndpoint.getCoordinate(),
-          };
-          LineString line = geometryFactory.createLineString(coordinates);
-          if (polygon.contains(line)) {
+          List<Area> intersects = visibleLines.get(i * nodes.size() + j);
+          if (intersects != null) {
+            LineString line = createLine(
+              startEndpoint.getCoordinate(),
+              endEndpoint.getCoordinate()
+            );
             Set<AreaEdge> segments = createSegments(
               startEndpoint,
               endEndpoint,
-              group.areas,
+              line,
+              intersects,
               edgeList
             );
             edges.addAll(segments);
@@ -389,21 +407,23 @@ public class WalkableAreaBuilder {
       mode = TraverseMode.CAR;
     }
     RoutingRequest options = new RoutingRequest(mode);
-    Set<Edge> usedEdges = new HashSet<>();
-    for (Vertex vertex : startingVertices) {
-      ShortestPathTree spt = AStarBuilder
-        .allDirections(new ListedEdgesOnly(edges))
-        .setDominanceFunction(new DominanceFunction.EarliestArrival())
-        .setContext(new RoutingContext(options, graph, vertex, null))
-        .getShortestPathTree();
-
-      for (Vertex endVertex : startingVertices) {
-        GraphPath path = spt.getPath(endVertex);
-        if (path != null) {
-          usedEdges.addAll(path.edges);
-        }
-      }
-    }
+    // The searches only read the graph, so they are run as fork-join tasks
+    Set<Edge> usedEdges = startingVertices
+      .parallelStream()
+      .flatMap(vertex -> {
+        ShortestPathTree spt = AStarBuilder
+          .allDirections(new ListedEdgesOnly(edges))
+          .setDominanceFunction(new DominanceFunction.EarliestArrival())
+          .setContext(new RoutingContext(options, graph, vertex, null))
+          .getShortestPathTree();
+
+        return startingVertices
+          .stream()
+          .map(spt::getPath)
+          .filter(Objects::nonNull)
+          .flatMap(path -> path.edges.stream());
+      })
+      .collect(Collectors.toSet());
     for (Edge edge : edges) {
       if (!usedEdges.contains(edge) && !edgesToKeep.contains(edge)) {
         graph.removeEdge(edge);
@@ -449,21 +469,30 @@ public class WalkableAreaBuilder {
     Collection<Area> areas,
     AreaEdgeList edgeList
   ) {
-    List<Area> intersects = new ArrayList<>();
+    LineString line = createLine(startEndpoint.getCoordinate(), endEndpoint.getCoordinate());
+    return createSegments(
+      startEndpoint,
+      endEndpoint,
+      line,
+      findIntersectingAreas(line, areas),
+      edgeList
+    );
+  }
 
-    Coordinate[] coordinates = new Coordinate[] {
-      startEndpoint.getCoordinate(),
-      endEndpoint.getCoordinate(),
-    };
+  /**
+   * Create the edges along the line between the two vertices.
+   *
+   * @param intersects the areas the line crosses, see {@link #findIntersectingAreas(LineString,
+   *                   Collection)}.
+   */
+  private Set<AreaEdge> createSegments(
+    IntersectionVertex startEndpoint,
+    IntersectionVertex endEndpoint,
+    LineString line,
+    List<Area> intersects,
+    AreaEdgeList edgeList
+  ) {
     GeometryFactory geometryFactory = GeometryUtils.getGeometryFactory();
-    LineString line = geometryFactory.createLineString(coordinates);
-    for (Area area : areas) {
-      MultiPolygon polygon = area.jtsMultiPolygon;
-      Geometry intersection = polygon.intersection(line);
-      if (intersection.getLength() > 0.000001) {
-        intersects.add(area);
-      }
-    }
     if (intersects.size() == 0) {
       // apparently our intersection here was bogus
       return Set.of();
@@ -619,6 +648,69 @@ public class WalkableAreaBuilder {
     return Set.of();
   }
 
+  /**
+   * Find the lines between pairs of visibility nodes which are inside the polygon, and the areas
+   * each line crosses. This is where most of the time is spent for large areas. The pairs are
+   * independent and the graph is not changed here, so the rows are computed as fork-join tasks.
+   * The edges are created afterwards, in the order of the nodes, so the graph does not depend on
+   * the number of threads.
+   *
+   * @return the areas crossed by the line from node {@code i} to node {@code j} at index {@code i *
+   * nodes.size() + j}, or null if no edges should be created between the two nodes.
+   */
+  private static List<List<Area>> findVisibleLines(
+    Polygon polygon,
+    List<OSMNode> nodes,
+    Set<P2<OSMNode>> alreadyAddedEdges,
+    Collection<Area> areas
+  ) {
+    IntStream rows = IntStream.range(0, nodes.size());
+    if (nodes.size() >= MIN_VISIBILITY_NODES_IN_PARALLEL) {
+      rows = rows.parallel();
+    }
+    return rows
+      .mapToObj(i -> {
+        OSMNode nodeI = nodes.get(i);
+        List<List<Area>> row = new ArrayList<>(nodes.size());
+        for (OSMNode nodeJ : nodes) {
+          List<Area> intersects = null;
+          if (!alreadyAddedEdges.contains(new P2<>(nodeI, nodeJ))) {
+            LineString line = createLine(
+              new Coordinate(nodeI.lon, nodeI.lat),
+              new Coordinate(nodeJ.lon, nodeJ.lat)
+            );
+            if (polygon.contains(line)) {
+              intersects = findIntersectingAreas(line, areas);
+            }
+          }
+          row.add(intersects);
+        }
+        return row;
+      })
+      .flatMap(List::stream)
+      .toList();
+  }
+
+  /**
+   * Find the areas which the line crosses. This only reads the geometries, so it is safe to call
+   * from several threads.
+   */
+  private static List<Area> findIntersectingAreas(LineString line, Collection<Area> areas) {
+    List<Area> intersects = new ArrayList<>();
+    for (Area area : areas) {
+      MultiPolygon polygon = area.jtsMultiPolygon;
+      Geometry intersection = polygon.intersection(line);
+      if (intersection.getLength() > 0.000001) {
+        intersects.add(area);
+      }
+    }
+    return intersects;
+  }
+
+  private static LineString createLine(Coordinate start, Coordinate end) {
+    return GeometryUtils.getGeometryFactory().createLineString(new Coordinate[] { start, end });
+  }
+
   private void createNamedAreas(AreaEdgeList edgeList, Ring ring, Collection<Area> areas) {
     Polygon containingArea = ring.jtsPolygon;
     for (Area area : areas) {
@@ -15,6 +15,17 @@ public interface ElevationGridCoverageFactory {
   /** Creates a new coverage instance from files already fetched */
   Coverage getGridCoverage();
 
+  /**
+   * Creates a raster of the elevation data from files already fetched, which is used instead of
+   * the coverage. Returns {@code null} if the data can not be read as a raster, for example if it
+   * is not in longitude/latitude coordinates.
+   *
+   * @param memoryMapped keep the raster in a temporary memory-mapped file instead of on the heap
+   */
+  default ElevationRaster getElevationRaster(boolean memoryMapped) {
+    return null;
+  }
+
   void checkInputs();
 
   /**
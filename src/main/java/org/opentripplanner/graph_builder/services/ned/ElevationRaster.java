@@ -0,0 +1,25 @@
+package org.opentripplanner.graph_builder.services.ned;
+
+/**
+ * Elevation data in a regular longitude/latitude grid, which can be sampled from many threads at
+ * the same time without locking and without creating objects for each sample.
+ */
+public interface ElevationRaster {
+  /**
+   * The elevation at the given point, interpolated from the surrounding grid cells. Returns {@code
+   * NaN} if the point is outside the data or if one of the cells used has no data.
+   */
+  double elevation(double longitude, double latitude);
+
+  /**
+   * How the elevation data is read, set with the {@code elevationRaster} build parameter.
+   */
+  enum Type {
+    /** Sample the GeoTools grid coverage, with one interpolator per thread. */
+    COVERAGE,
+    /** Copy the elevation data into a float raster on the heap. */
+    HEAP,
+    /** Copy the elevation data into a float raster in a temporary memory-mapped file. */
+    MAPPED,
+  }
+}
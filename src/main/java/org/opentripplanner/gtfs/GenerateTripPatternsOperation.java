@@ -8,7 +8,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.opentripplanner.ext.flex.trip.FlexTrip;
+import org.opentripplanner.graph_builder.DataImportIssue;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
 import org.opentripplanner.graph_builder.issues.GTFSModeNotSupported;
 import org.opentripplanner.graph_builder.issues.TripDegenerate;
@@ -41,6 +43,7 @@ public class GenerateTripPatternsOperation {
   private final DataImportIssueStore issueStore;
   private final Deduplicator deduplicator;
   private final Set<FeedScopedId> calendarServiceIds;
+  private final boolean parallel;
 
   private final Multimap<StopPattern, TripPattern> tripPatterns;
   private final ListMultimap<Trip, Frequency> frequenciesForTrip = ArrayListMultimap.create();
@@ -54,12 +57,29 @@ public class GenerateTripPatternsOperation {
     DataImportIssueStore issueStore,
     Deduplicator deduplicator,
     Set<FeedScopedId> calendarServiceIds
+  ) {
+    this(builder, issueStore, deduplicator, calendarServiceIds, false);
+  }
+
+  /**
+   * @param parallel create the stop pattern and trip times of the trips in parallel. The trips are
+   *                 still grouped into patterns one at a time in the same order, so the patterns
+   *                 and their ids do not depend on the number of threads. The deduplicator must be
+   *                 thread-safe.
+   */
+  public GenerateTripPatternsOperation(
+    OtpTransitServiceBuilder builder,
+    DataImportIssueStore issueStore,
+    Deduplicator deduplicator,
+    Set<FeedScopedId> calendarServiceIds,
+    boolean parallel
   ) {
     this.transitDaoBuilder = builder;
     this.issueStore = issueStore;
     this.deduplicator = deduplicator;
     this.calendarServiceIds = calendarServiceIds;
     this.tripPatterns = transitDaoBuilder.getTripPatterns();
+    this.parallel = parallel;
   }
 
   public void run() {
@@ -68,13 +88,27 @@ public class GenerateTripPatternsOperation {
     final Collection<Trip> trips = transitDaoBuilder.getTripsById().values();
     final int tripsSize = trips.size();
 
-    /* Loop over all trips, handling each one as a frequency-based or scheduled trip. */
-    for (Trip trip : trips) {
-      if (++tripCount % 100000 == 0) {
-        LOG.debug("build trip patterns {}/{}", tripCount, tripsSize);
+    if (parallel) {
+      List<TripData> tripData = trips
+        .parallelStream()
+        .map(this::createTripData)
+        .collect(Collectors.toList());
+
+      for (TripData it : tripData) {
+        if (++tripCount % 100000 == 0) {
+          LOG.debug("build trip patterns {}/{}", tripCount, tripsSize);
+        }
+        addTripToPattern(it);
       }
+    } else {
+      /* Loop over all trips, handling each one as a frequency-based or scheduled trip. */
+      for (Trip trip : trips) {
+        if (++tripCount % 100000 == 0) {
+          LOG.debug("build trip patterns {}/{}", tripCount, tripsSize);
+        }
 
-      buildTripPatternForTrip(trip);
+        addTripToPattern(createTripData(trip));
+      }
     }
 
     LOG.info(
@@ -103,20 +137,24 @@ public class GenerateTripPatternsOperation {
     }
   }
 
-  private void buildTripPatternForTrip(Trip trip) {
+  /**
+   * Validate the trip and create its stop pattern and trip times. This does not change the state
+   * of the operation, and can be done for many trips in parallel.
+   */
+  private TripData createTripData(Trip trip) {
     // TODO: move to a validator module
     // Check that the mode is supported
     if (trip.getRoute().getMode() == null) {
-      issueStore.add(
+      return new TripData(
+        trip,
         new GTFSModeNotSupported(trip, Integer.toString(trip.getRoute().getGtfsType()))
       );
-      return;
     }
 
     // TODO: move to a validator module
     if (!calendarServiceIds.contains(trip.getServiceId())) {
-      issueStore.add(new TripUndefinedService(trip));
-      return; // Invalid trip, skip it, it will break later
+      // Invalid trip, skip it, it will break later
+      return new TripData(trip, new TripUndefinedService(trip));
     }
 
     List<StopTime> stopTimes = transitDaoBuilder.getStopTimesSortedByTrip().get(trip);
@@ -127,18 +165,32 @@ public class GenerateTripPatternsOperation {
     // flex trips are allowed to have a single stop because that can be an area or a group of stops
     var flexTripWithZeroStops = FlexTrip.containsFlexStops(stopTimes) && stopTimes.size() < 1;
     if (staticTripWithFewerThan2Stops || flexTripWithZeroStops) {
-      issueStore.add(new TripDegenerate(trip));
+      return new TripData(trip, new TripDegenerate(trip));
+    }
+
+    // Create a TripTimes object for this list of stoptimes, which form one trip.
+    return new TripData(
+      trip,
+      new StopPattern(stopTimes),
+      new TripTimes(trip, stopTimes, deduplicator)
+    );
+  }
+
+  private void addTripToPattern(TripData tripData) {
+    if (tripData.issue != null) {
+      issueStore.add(tripData.issue);
       return;
     }
+    Trip trip = tripData.trip;
+    TripTimes tripTimes = tripData.tripTimes;
 
     // Get the existing TripPattern for this filtered StopPattern, or create one.
-    StopPattern stopPattern = new StopPattern(stopTimes);
-
     Direction direction = trip.getDirection();
-    TripPattern tripPattern = findOrCreateTripPattern(stopPattern, trip.getRoute(), direction);
-
-    // Create a TripTimes object for this list of stoptimes, which form one trip.
-    TripTimes tripTimes = new TripTimes(trip, stopTimes, deduplicator);
+    TripPattern tripPattern = findOrCreateTripPattern(
+      tripData.stopPattern,
+      trip.getRoute(),
+      direction
+    );
 
     // If this trip is referenced by one or more lines in frequencies.txt, wrap it in a FrequencyEntry.
     List<Frequency> frequencies = frequenciesForTrip.get(trip);
@@ -194,4 +246,27 @@ public class GenerateTripPatternsOperation {
 
     return new FeedScopedId(routeId.getFeedId(), id);
   }
+
+  /** A trip with either its stop pattern and trip times, or the issue found in the trip. */
+  private static class TripData {
+
+    private final Trip trip;
+    private final StopPattern stopPattern;
+    private final TripTimes tripTimes;
+    private final DataImportIssue issue;
+
+    private TripData(Trip trip, StopPattern stopPattern, TripTimes tripTimes) {
+      this.trip = trip;
+      this.stopPattern = stopPattern;
+      this.tripTimes = tripTimes;
+      this.issue = null;
+    }
+
+    private TripData(Trip trip, DataImportIssue issue) {
+      this.trip = trip;
+      this.stopPattern = null;
+      this.tripTimes = null;
+      this.issue = issue;
+    }
+  }
 }
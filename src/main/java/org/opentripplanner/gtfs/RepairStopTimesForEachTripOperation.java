@@ -5,6 +5,8 @@ import gnu.trove.list.array.TIntArrayList;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.ext.flex.trip.FlexTrip;
 import org.opentripplanner.graph_builder.DataImportIssue;
@@ -40,44 +42,84 @@ public class RepairStopTimesForEachTripOperation {
 
   private final DataImportIssueStore issueStore;
 
+  private final boolean parallel;
+
   public RepairStopTimesForEachTripOperation(
     TripStopTimes stopTimesByTrip,
     DataImportIssueStore issueStore
+  ) {
+    this(stopTimesByTrip, issueStore, false);
+  }
+
+  /**
+   * @param parallel repair the stop times of the trips in parallel. The issues are still reported
+   *                 in the same order as when the trips are repaired one at a time.
+   */
+  public RepairStopTimesForEachTripOperation(
+    TripStopTimes stopTimesByTrip,
+    DataImportIssueStore issueStore,
+    boolean parallel
   ) {
     this.stopTimesByTrip = stopTimesByTrip;
     this.issueStore = issueStore;
+    this.parallel = parallel;
   }
 
   public void run() {
-    final int tripSize = stopTimesByTrip.size();
-    int tripCount = 0;
+    if (!parallel) {
+      final int tripSize = stopTimesByTrip.size();
+      int tripCount = 0;
 
-    for (Trip trip : stopTimesByTrip.keys()) {
-      if (++tripCount % 100000 == 0) {
-        LOG.debug("Repair StopTimes for trips {}/{}", tripCount, tripSize);
+      for (Trip trip : stopTimesByTrip.keys()) {
+        if (++tripCount % 100000 == 0) {
+          LOG.debug("Repair StopTimes for trips {}/{}", tripCount, tripSize);
+        }
+        stopTimesByTrip.replace(trip, repairStopTimes(trip, issueStore));
       }
+      return;
+    }
 
-      /* Fetch the stop times for this trip. Copy the list since it's immutable. */
-      List<StopTime> stopTimes = new ArrayList<>(stopTimesByTrip.get(trip));
+    List<Trip> trips = new ArrayList<>(stopTimesByTrip.size());
+    stopTimesByTrip.keys().forEach(trips::add);
 
-      // if we don't have flex routing enabled then remove all the flex locations and location
-      // groups
-      if (OTPFeature.FlexRouting.isOff()) {
-        stopTimes.removeIf(st -> !(st.getStop() instanceof Stop));
-      }
+    // Each trip has its own stop times, the issues are collected per trip
+    DataImportIssueStore[] issues = new DataImportIssueStore[trips.size()];
+    List<List<StopTime>> repaired = IntStream
+      .range(0, trips.size())
+      .parallel()
+      .mapToObj(i -> {
+        issues[i] = new DataImportIssueStore(true);
+        return repairStopTimes(trips.get(i), issues[i]);
+      })
+      .collect(Collectors.toList());
 
-      /* Stop times frequently contain duplicate, missing, or incorrect entries. Repair them. */
-      TIntList removedStopSequences = removeRepeatedStops(stopTimes);
-      if (!removedStopSequences.isEmpty()) {
-        issueStore.add(new RepeatedStops(trip, removedStopSequences));
-      }
-      if (!filterStopTimes(stopTimes)) {
-        stopTimesByTrip.replace(trip, List.of());
-      } else {
-        interpolateStopTimes(stopTimes);
-        stopTimesByTrip.replace(trip, stopTimes);
-      }
+    for (int i = 0; i < trips.size(); i++) {
+      issueStore.addAll(issues[i]);
+      stopTimesByTrip.replace(trips.get(i), repaired.get(i));
+    }
+  }
+
+  /** Repair the stop times of a trip, return an empty list if the trip is not usable. */
+  private List<StopTime> repairStopTimes(Trip trip, DataImportIssueStore issues) {
+    /* Fetch the stop times for this trip. Copy the list since it's immutable. */
+    List<StopTime> stopTimes = new ArrayList<>(stopTimesByTrip.get(trip));
+
+    // if we don't have flex routing enabled then remove all the flex locations and location
+    // groups
+    if (OTPFeature.FlexRouting.isOff()) {
+      stopTimes.removeIf(st -> !(st.getStop() instanceof Stop));
+    }
+
+    /* Stop times frequently contain duplicate, missing, or incorrect entries. Repair them. */
+    TIntList removedStopSequences = removeRepeatedStops(stopTimes);
+    if (!removedStopSequences.isEmpty()) {
+      issues.add(new RepeatedStops(trip, removedStopSequences));
+    }
+    if (!filterStopTimes(stopTimes, issues)) {
+      return List.of();
     }
+    interpolateStopTimes(stopTimes);
+    return stopTimes;
   }
 
   /**
@@ -129,9 +171,10 @@ public class RepairStopTimesForEachTripOperation {
    * are reported to reveal the problems to the user.
    *
    * @param stopTimes the stoptimes to be filtered (from a single trip)
+   * @param issues    the store for the issues found in the trip
    * @return whether the stop time is usable
    */
-  private boolean filterStopTimes(List<StopTime> stopTimes) {
+  private boolean filterStopTimes(List<StopTime> stopTimes, DataImportIssueStore issues) {
     if (stopTimes.size() < 2) {
       return false;
     }
@@ -168,13 +211,13 @@ public class RepairStopTimesForEachTripOperation {
       }
       int dwellTime = st0.getDepartureTime() - st0.getArrivalTime();
       if (dwellTime < 0) {
-        issueStore.add(new NegativeDwellTime(st0));
+        issues.add(new NegativeDwellTime(st0));
         return false;
       }
 
       int runningTime = st1.getArrivalTime() - st0.getDepartureTime();
       if (runningTime < 0) {
-        issueStore.add(new NegativeHopTime(new StopTime(st0), new StopTime(st1)));
+        issues.add(new NegativeHopTime(new StopTime(st0), new StopTime(st1)));
         return false;
       }
 
@@ -185,16 +228,16 @@ public class RepairStopTimesForEachTripOperation {
       double hopSpeed = hopDistance / runningTime;
 
       if (hopDistance == 0) {
-        issueStore.add(new HopZeroDistance(runningTime, st1.getTrip(), st1.getStopSequence()));
+        issues.add(new HopZeroDistance(runningTime, st1.getTrip(), st1.getStopSequence()));
       }
       // sanity-check the hop
       if (runningTime == 0) {
         // series of identical stop times at different stops
-        issueStore.add(new HopZeroTime((float) hopDistance, st1.getTrip(), st1.getStopSequence()));
+        issues.add(new HopZeroTime((float) hopDistance, st1.getTrip(), st1.getStopSequence()));
       } else if (hopSpeed > 45) {
         // 45 m/sec ~= 100 miles/hr
         // elapsed time of 0 will give speed of +inf
-        issueStore.add(
+        issues.add(
           new HopSpeedFast(
             (float) hopSpeed,
             (float) hopDistance,
@@ -204,7 +247,7 @@ public class RepairStopTimesForEachTripOperation {
         );
       } else if (hopSpeed < 0.1) {
         // 0.1 m/sec ~= 0.2 miles/hr
-        issueStore.add(
+        issues.add(
           new HopSpeedSlow(
             (float) hopSpeed,
             (float) hopDistance,
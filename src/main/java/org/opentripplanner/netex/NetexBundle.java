@@ -2,9 +2,7 @@ package org.opentripplanner.netex;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.List;
 import java.util.Set;
-import javax.xml.bind.JAXBException;
 import org.opentripplanner.datastore.api.CompositeDataSource;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.graph_builder.DataImportIssueStore;
@@ -12,8 +10,9 @@ import org.opentripplanner.model.impl.OtpTransitServiceBuilder;
 import org.opentripplanner.netex.index.NetexEntityIndex;
 import org.opentripplanner.netex.loader.GroupEntries;
 import org.opentripplanner.netex.loader.NetexDataSourceHierarchy;
-import org.opentripplanner.netex.loader.NetexXmlParser;
+import org.opentripplanner.netex.loader.ParallelNetexXmlParser;
 import org.opentripplanner.netex.loader.parser.NetexDocumentParser;
+import org.opentripplanner.netex.loader.parser.NetexStreamedEntities;
 import org.opentripplanner.netex.mapping.NetexMapper;
 import org.opentripplanner.netex.validation.Validator;
 import org.opentripplanner.standalone.config.NetexConfig;
@@ -43,26 +42,32 @@ public class NetexBundle implements Closeable {
   private final String netexFeedId;
   private final Set<String> ferryIdsNotAllowedForBicycle;
   private final double maxStopToShapeSnapDistance;
+  private final int parseThreads;
+  private final boolean streamingParser;
   /** The NeTEx entities loaded from the input files and passed on to the mapper. */
   private NetexEntityIndex index = new NetexEntityIndex();
   /** Report errors to issue store */
   private DataImportIssueStore issueStore;
   /** maps the NeTEx XML document to OTP transit model. */
   private NetexMapper mapper;
-  private NetexXmlParser xmlParser;
+  private ParallelNetexXmlParser xmlParser;
 
   public NetexBundle(
     String netexFeedId,
     CompositeDataSource source,
     NetexDataSourceHierarchy hierarchy,
     Set<String> ferryIdsNotAllowedForBicycle,
-    double maxStopToShapeSnapDistance
+    double maxStopToShapeSnapDistance,
+    int parseThreads,
+    boolean streamingParser
   ) {
     this.netexFeedId = netexFeedId;
     this.source = source;
     this.hierarchy = hierarchy;
     this.ferryIdsNotAllowedForBicycle = ferryIdsNotAllowedForBicycle;
     this.maxStopToShapeSnapDistance = maxStopToShapeSnapDistance;
+    this.parseThreads = parseThreads;
+    this.streamingParser = streamingParser;
   }
 
   /** load the bundle, map it to the OTP transit model and return */
@@ -78,7 +83,7 @@ public class NetexBundle implements Closeable {
     OtpTransitServiceBuilder transitBuilder = new OtpTransitServiceBuilder();
 
     // init parser and mapper
-    xmlParser = new NetexXmlParser();
+    xmlParser = new ParallelNetexXmlParser(parseThreads, streamingParser);
     mapper =
       new NetexMapper(
         transitBuilder,
@@ -90,7 +95,11 @@ public class NetexBundle implements Closeable {
       );
 
     // Load data
-    loadFileEntries();
+    try {
+      loadFileEntries();
+    } finally {
+      xmlParser.close();
+    }
 
     return transitBuilder;
   }
@@ -120,12 +129,15 @@ public class NetexBundle implements Closeable {
         // Load shared group files
         loadFilesThenMapToOtpTransitModel("shared group file", group.sharedEntries());
 
-        for (DataSource entry : group.independentEntries()) {
-          scopeInputData(() -> {
-            // Load each independent file in group
-            loadFilesThenMapToOtpTransitModel("group file", List.of(entry));
-          });
-        }
+        // Load each independent file in group, the next files are parsed while one is mapped
+        xmlParser.parse(
+          group.independentEntries(),
+          (entry, doc, streamedEntities) ->
+            scopeInputData(() -> {
+              populateIndex("group file", entry, doc, streamedEntities);
+              mapToOtpTransitModel();
+            })
+        );
       });
     }
     mapper.finnishUp();
@@ -154,11 +166,16 @@ public class NetexBundle implements Closeable {
     String fileDescription,
     Iterable<DataSource> entries
   ) {
-    for (DataSource entry : entries) {
-      // Load entry and store it in the index
-      loadSingeFileEntry(fileDescription, entry);
-    }
+    // Load entries and store them in the index
+    xmlParser.parse(
+      entries,
+      (entry, doc, streamedEntities) -> populateIndex(fileDescription, entry, doc, streamedEntities)
+    );
+
+    mapToOtpTransitModel();
+  }
 
+  private void mapToOtpTransitModel() {
     // Validate input data, and remove invalid data
     Validator.validate(index, issueStore);
 
@@ -166,15 +183,14 @@ public class NetexBundle implements Closeable {
     mapper.mapNetexToOtp(index.readOnlyView());
   }
 
-  /** Load a single entry and store it in the index for later */
-  private void loadSingeFileEntry(String fileDescription, DataSource entry) {
-    try {
-      LOG.info("reading entity {}: {}", fileDescription, entry.name());
-
-      PublicationDeliveryStructure doc = xmlParser.parseXmlDoc(entry.asInputStream());
-      NetexDocumentParser.parseAndPopulateIndex(index, doc);
-    } catch (JAXBException e) {
-      throw new RuntimeException(e.getMessage(), e);
-    }
+  /** Store the entities of a parsed entry in the index for later */
+  private void populateIndex(
+    String fileDescription,
+    DataSource entry,
+    PublicationDeliveryStructure doc,
+    NetexStreamedEntities streamedEntities
+  ) {
+    LOG.info("reading entity {}: {}", fileDescription, entry.name());
+    NetexDocumentParser.parseAndPopulateIndex(index, doc, streamedEntities);
   }
 }
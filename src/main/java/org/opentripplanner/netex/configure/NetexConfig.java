@@ -66,7 +66,9 @@ public class NetexConfig {
       source,
       hierarchy(source),
       buildParams.netex.ferryIdsNotAllowedForBicycle,
-      buildParams.maxStopToShapeSnapDistance
+      buildParams.maxStopToShapeSnapDistance,
+      buildParams.netex.parseThreads,
+      buildParams.netex.streamingParser
     );
   }
 
@@ -0,0 +1,124 @@
+package org.opentripplanner.netex.loader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import org.opentripplanner.netex.loader.parser.NetexStreamedEntities;
+import org.rutebanken.netex.model.DatedServiceJourney;
+import org.rutebanken.netex.model.JourneyPattern;
+import org.rutebanken.netex.model.PassengerStopAssignment;
+import org.rutebanken.netex.model.ServiceJourney;
+
+/**
+ * A StAX cursor which hides the large repeated elements of a NeTEx document from the document
+ * unmarshaller. Each {@code ServiceJourney}, {@code DatedServiceJourney}, {@code JourneyPattern}
+ * and {@code PassengerStopAssignment} element is unmarshalled on its own and added to the streamed
+ * entities, and the document unmarshaller continues with the event after the element. The
+ * containing elements, like {@code vehicleJourneys}, are left empty in the document tree.
+ * <p>
+ * The elements are only streamed in their usual container, an element with the same name in
+ * another place is left in the document.
+ */
+class NetexEntityStreamReader extends StreamReaderDelegate {
+
+  private static final String NETEX_NAMESPACE = "http://www.netex.org.uk/netex";
+
+  /** The streamed element types by element name, and the name of their container element */
+  private static final Map<String, StreamedElement> STREAMED_ELEMENTS = Map.of(
+    "ServiceJourney",
+    new StreamedElement("vehicleJourneys", ServiceJourney.class),
+    "DatedServiceJourney",
+    new StreamedElement("vehicleJourneys", DatedServiceJourney.class),
+    "JourneyPattern",
+    new StreamedElement("journeyPatterns", JourneyPattern.class),
+    "PassengerStopAssignment",
+    new StreamedElement("stopAssignments", PassengerStopAssignment.class)
+  );
+
+  private final Unmarshaller elementUnmarshaller;
+  private final NetexStreamedEntities streamedEntities;
+  private final Deque<String> openElements = new ArrayDeque<>();
+
+  /**
+   * @param elementUnmarshaller used for the streamed elements, this can not be the unmarshaller
+   *                            reading the document.
+   */
+  NetexEntityStreamReader(
+    XMLStreamReader reader,
+    Unmarshaller elementUnmarshaller,
+    NetexStreamedEntities streamedEntities
+  ) {
+    super(reader);
+    this.elementUnmarshaller = elementUnmarshaller;
+    this.streamedEntities = streamedEntities;
+  }
+
+  @Override
+  public int next() throws XMLStreamException {
+    int event = super.next();
+    while (event == XMLStreamConstants.START_ELEMENT) {
+      StreamedElement streamed = streamedElement();
+      if (streamed == null) {
+        openElements.push(getLocalName());
+        return event;
+      }
+      // Reads the element and moves the cursor to the event after the end of the element
+      streamEntity(streamed.type);
+      event = getEventType();
+    }
+    if (event == XMLStreamConstants.END_ELEMENT) {
+      openElements.pop();
+    }
+    return event;
+  }
+
+  @Override
+  public int nextTag() throws XMLStreamException {
+    int event = next();
+    while (
+      (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()) ||
+      event == XMLStreamConstants.SPACE ||
+      event == XMLStreamConstants.COMMENT ||
+      event == XMLStreamConstants.PROCESSING_INSTRUCTION
+    ) {
+      event = next();
+    }
+    if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+      throw new XMLStreamException("Expected start or end tag", getLocation());
+    }
+    return event;
+  }
+
+  private StreamedElement streamedElement() {
+    if (!NETEX_NAMESPACE.equals(getNamespaceURI())) {
+      return null;
+    }
+    StreamedElement streamed = STREAMED_ELEMENTS.get(getLocalName());
+    return streamed != null && streamed.container.equals(openElements.peek()) ? streamed : null;
+  }
+
+  private void streamEntity(Class<?> type) throws XMLStreamException {
+    try {
+      streamedEntities.add(elementUnmarshaller.unmarshal(getParent(), type).getValue());
+    } catch (JAXBException e) {
+      throw new XMLStreamException(e.getMessage(), getLocation(), e);
+    }
+  }
+
+  private static class StreamedElement {
+
+    private final String container;
+    private final Class<?> type;
+
+    private StreamedElement(String container, Class<?> type) {
+      this.container = container;
+      this.type = type;
+    }
+  }
+}
@@ -5,14 +5,30 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.opentripplanner.netex.loader.parser.NetexStreamedEntities;
 import org.rutebanken.netex.model.PublicationDeliveryStructure;
 
-/** Simple wrapper to perform typesafe xml parsing and simple error handling. */
+/**
+ * Simple wrapper to perform typesafe xml parsing and simple error handling.
+ * <p>
+ * The JAXB context is expensive to create and thread-safe, so it is shared by all parsers. The
+ * unmarshaller is not thread-safe, use one parser per thread.
+ */
 public class NetexXmlParser {
 
+  private static JAXBContext jaxbContext;
+
   /** used to parse the XML. */
   private final Unmarshaller unmarshaller;
 
+  /** used to parse the streamed elements, created when first used. */
+  private Unmarshaller elementUnmarshaller;
+
+  private XMLInputFactory xmlInputFactory;
+
   public NetexXmlParser() {
     this.unmarshaller = createUnmarshaller();
   }
@@ -29,10 +45,38 @@ public class NetexXmlParser {
     return root.getValue();
   }
 
+  /**
+   * Parse an input stream with a StAX cursor. The large repeated elements are unmarshalled one at
+   * a time and added to the given streamed entities, see {@link NetexEntityStreamReader}. The rest
+   * of the document is returned.
+   */
+  public PublicationDeliveryStructure parseXmlDoc(
+    InputStream stream,
+    NetexStreamedEntities streamedEntities
+  ) throws JAXBException {
+    if (elementUnmarshaller == null) {
+      elementUnmarshaller = createUnmarshaller();
+      xmlInputFactory = createXmlInputFactory();
+    }
+    XMLStreamReader reader = null;
+    try {
+      reader = xmlInputFactory.createXMLStreamReader(stream);
+      JAXBElement<PublicationDeliveryStructure> root = unmarshaller.unmarshal(
+        new NetexEntityStreamReader(reader, elementUnmarshaller, streamedEntities),
+        PublicationDeliveryStructure.class
+      );
+      return root.getValue();
+    } catch (XMLStreamException e) {
+      throw new JAXBException(e.getMessage(), e);
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
   /** factory method for unmarshaller */
   private static Unmarshaller createUnmarshaller() {
     try {
-      return JAXBContext.newInstance(PublicationDeliveryStructure.class).createUnmarshaller();
+      return jaxbContext().createUnmarshaller();
     } catch (JAXBException e) {
       // This is a programming error - not expected!
       // We abort early and also allow for this to happen in the constructor;
@@ -40,4 +84,26 @@ public class NetexXmlParser {
       throw new RuntimeException(e);
     }
   }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  private static void closeQuietly(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException ignore) {}
+    }
+  }
+
+  private static synchronized JAXBContext jaxbContext() throws JAXBException {
+    if (jaxbContext == null) {
+      jaxbContext = JAXBContext.newInstance(PublicationDeliveryStructure.class);
+    }
+    return jaxbContext;
+  }
 }
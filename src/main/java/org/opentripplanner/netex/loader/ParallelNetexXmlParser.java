@@ -0,0 +1,139 @@
+package org.opentripplanner.netex.loader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.bind.JAXBException;
+import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.netex.loader.parser.NetexStreamedEntities;
+import org.rutebanken.netex.model.PublicationDeliveryStructure;
+
+/**
+ * Parse NeTEx files in parallel and pass the documents on in the same order as the files, so the
+ * result does not depend on the number of threads. The documents are handed over to the caller
+ * thread, which is the only thread populating the index and mapping the entities.
+ * <p>
+ * At most {@link #maxDocumentsAhead} files are parsed ahead of the document being consumed, so
+ * only a bounded number of parsed documents are kept in memory at the same time. With one thread
+ * the files are parsed in the caller thread, one at a time.
+ * <p>
+ * In streaming mode the large repeated elements are streamed out of the documents, see {@link
+ * NetexXmlParser#parseXmlDoc(InputStream, NetexStreamedEntities)}. Otherwise the streamed entities
+ * passed on are always empty. With one thread the streamed entities are passed to the frame
+ * parsers as they are read. With several threads they are kept with their document until it is
+ * consumed, so the documents parsed ahead also hold their streamed entities.
+ */
+public class ParallelNetexXmlParser implements Closeable {
+
+  private final ExecutorService executor;
+  private final int maxDocumentsAhead;
+  private final boolean streamEntities;
+  private final ThreadLocal<NetexXmlParser> parsers = ThreadLocal.withInitial(NetexXmlParser::new);
+
+  /**
+   * @param nThreads       the number of threads parsing files, two documents per thread are parsed
+   *                       ahead of the document being consumed.
+   * @param streamEntities stream the large repeated elements out of the documents.
+   */
+  public ParallelNetexXmlParser(int nThreads, boolean streamEntities) {
+    this.executor = nThreads > 1 ? Executors.newFixedThreadPool(nThreads) : null;
+    this.maxDocumentsAhead = 2 * nThreads;
+    this.streamEntities = streamEntities;
+  }
+
+  /**
+   * Parse the given entries and call the consumer with each entry and its document, in the order
+   * of the entries.
+   */
+  public void parse(Iterable<DataSource> entries, DocumentConsumer consumer) {
+    if (executor == null) {
+      for (DataSource entry : entries) {
+        parseEntry(entry).accept(consumer);
+      }
+      return;
+    }
+
+    Iterator<DataSource> it = entries.iterator();
+    Deque<Future<ParsedDocument>> pendingDocs = new ArrayDeque<>();
+    try {
+      while (it.hasNext() || !pendingDocs.isEmpty()) {
+        while (it.hasNext() && pendingDocs.size() < maxDocumentsAhead) {
+          DataSource entry = it.next();
+          pendingDocs.add(executor.submit(() -> parseEntry(entry)));
+        }
+        pendingDocs.remove().get().accept(consumer);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e.getMessage(), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException(cause.getMessage(), cause);
+    } finally {
+      pendingDocs.forEach(f -> f.cancel(true));
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private ParsedDocument parseEntry(DataSource entry) {
+    try (InputStream stream = entry.asInputStream()) {
+      // The entities are parsed as they are read, unless the file is parsed on a worker thread
+      var streamedEntities = new NetexStreamedEntities(executor == null);
+      var doc = streamEntities
+        ? parsers.get().parseXmlDoc(stream, streamedEntities)
+        : parsers.get().parseXmlDoc(stream);
+      return new ParsedDocument(entry, doc, streamedEntities);
+    } catch (JAXBException e) {
+      throw new RuntimeException(e.getMessage(), e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @FunctionalInterface
+  public interface DocumentConsumer {
+    void accept(
+      DataSource entry,
+      PublicationDeliveryStructure doc,
+      NetexStreamedEntities streamedEntities
+    );
+  }
+
+  private static class ParsedDocument {
+
+    private final DataSource entry;
+    private final PublicationDeliveryStructure doc;
+    private final NetexStreamedEntities streamedEntities;
+
+    private ParsedDocument(
+      DataSource entry,
+      PublicationDeliveryStructure doc,
+      NetexStreamedEntities streamedEntities
+    ) {
+      this.entry = entry;
+      this.doc = doc;
+      this.streamedEntities = streamedEntities;
+    }
+
+    private void accept(DocumentConsumer consumer) {
+      consumer.accept(entry, doc, streamedEntities);
+    }
+  }
+}
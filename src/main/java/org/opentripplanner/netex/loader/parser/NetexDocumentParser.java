@@ -44,6 +44,19 @@ public class NetexDocumentParser {
     new NetexDocumentParser(index).parse(doc);
   }
 
+  /**
+   * Parse the document and add the entities streamed out of it to the index. The streamed
+   * entities are added after the frames of the document.
+   */
+  public static void parseAndPopulateIndex(
+    NetexEntityIndex index,
+    PublicationDeliveryStructure doc,
+    NetexStreamedEntities streamedEntities
+  ) {
+    parseAndPopulateIndex(index, doc);
+    streamedEntities.setResultOnIndex(index);
+  }
+
   public static void finnishUp() {
     ServiceFrameParser.logSummary();
   }
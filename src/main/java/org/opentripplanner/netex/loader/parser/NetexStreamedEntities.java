@@ -0,0 +1,92 @@
+package org.opentripplanner.netex.loader.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.opentripplanner.netex.index.NetexEntityIndex;
+import org.opentripplanner.netex.index.hierarchy.HierarchicalMapById;
+import org.rutebanken.netex.model.JourneyPattern;
+import org.rutebanken.netex.model.Journey_VersionStructure;
+import org.rutebanken.netex.model.PassengerStopAssignment;
+
+/**
+ * The entities streamed out of a document one at a time, instead of being part of the document
+ * tree. These are the {@code ServiceJourney}, {@code DatedServiceJourney}, {@code JourneyPattern}
+ * and {@code PassengerStopAssignment} elements, which make up most of a large timetable file.
+ * <p>
+ * The entities are passed on to the same frame parsers as the entities in the document tree, and
+ * added to the index together with the rest of the document by {@link NetexDocumentParser}. If
+ * the entities are parsed as they are added, a {@code PassengerStopAssignment} is only kept as
+ * its quay and stop point references. Otherwise all entities are kept in a list until the
+ * document is added to the index. The journeys and journey patterns are kept by the index in
+ * either case.
+ */
+public class NetexStreamedEntities {
+
+  private final boolean parseOnAdd;
+  private final List<Object> entities = new ArrayList<>();
+  private final TimeTableFrameParser timetableParser = new TimeTableFrameParser();
+
+  /** The streamed elements do not refer to flexible stop places */
+  private final ServiceFrameParser serviceParser = new ServiceFrameParser(
+    new HierarchicalMapById<>()
+  );
+
+  private int size = 0;
+
+  /**
+   * @param parseOnAdd parse each entity when it is added. The frame parsers log through shared
+   *                   counters which are not thread-safe, so this should only be used on the
+   *                   thread populating the index.
+   */
+  public NetexStreamedEntities(boolean parseOnAdd) {
+    this.parseOnAdd = parseOnAdd;
+  }
+
+  /**
+   * Add an entity in document order.
+   *
+   * @throws IllegalArgumentException if the entity is not one of the streamed types.
+   */
+  public void add(Object entity) {
+    if (
+      !(entity instanceof Journey_VersionStructure) &&
+      !(entity instanceof JourneyPattern) &&
+      !(entity instanceof PassengerStopAssignment)
+    ) {
+      throw new IllegalArgumentException(
+        "Netex import - Element can not be streamed: " + entity.getClass().getName()
+      );
+    }
+    if (parseOnAdd) {
+      parse(entity);
+    } else {
+      entities.add(entity);
+    }
+    ++size;
+  }
+
+  /** The number of entities added. */
+  public int size() {
+    return size;
+  }
+
+  void setResultOnIndex(NetexEntityIndex index) {
+    if (size == 0) {
+      return;
+    }
+    entities.forEach(this::parse);
+    entities.clear();
+    timetableParser.setResultOnIndex(index);
+    serviceParser.setResultOnIndex(index);
+  }
+
+  private void parse(Object entity) {
+    if (entity instanceof Journey_VersionStructure) {
+      timetableParser.parseJourney((Journey_VersionStructure) entity);
+    } else if (entity instanceof JourneyPattern) {
+      serviceParser.parseJourneyPattern((JourneyPattern) entity);
+    } else {
+      serviceParser.parsePassengerStopAssignment((PassengerStopAssignment) entity);
+    }
+  }
+}
@@ -143,18 +143,7 @@ class ServiceFrameParser extends NetexParser<Service_VersionFrameStructure> {
 
     for (JAXBElement<?> stopAssignment : stopAssignments.getStopAssignment()) {
       if (stopAssignment.getValue() instanceof PassengerStopAssignment) {
-        var assignment = (PassengerStopAssignment) stopAssignment.getValue();
-
-        if (assignment.getQuayRef() == null) {
-          PASSENGER_STOP_ASSIGNMENT_LOGGER.info(
-            "PassengerStopAssignment with empty quay ref is dropped. Assigment: {}",
-            assignment.getId()
-          );
-        } else {
-          String quayRef = assignment.getQuayRef().getRef();
-          String stopPointRef = assignment.getScheduledStopPointRef().getValue().getRef();
-          quayIdByStopPointRef.put(stopPointRef, quayRef);
-        }
+        parsePassengerStopAssignment((PassengerStopAssignment) stopAssignment.getValue());
       } else if (stopAssignment.getValue() instanceof FlexibleStopAssignment) {
         if (OTPFeature.FlexRouting.isOn()) {
           FlexibleStopAssignment assignment = (FlexibleStopAssignment) stopAssignment.getValue();
@@ -178,6 +167,20 @@ class ServiceFrameParser extends NetexParser<Service_VersionFrameStructure> {
     }
   }
 
+  /** Also used for the stop assignments streamed from the document one at a time. */
+  void parsePassengerStopAssignment(PassengerStopAssignment assignment) {
+    if (assignment.getQuayRef() == null) {
+      PASSENGER_STOP_ASSIGNMENT_LOGGER.info(
+        "PassengerStopAssignment with empty quay ref is dropped. Assigment: {}",
+        assignment.getId()
+      );
+    } else {
+      String quayRef = assignment.getQuayRef().getRef();
+      String stopPointRef = assignment.getScheduledStopPointRef().getValue().getRef();
+      quayIdByStopPointRef.put(stopPointRef, quayRef);
+    }
+  }
+
   private void parseRoutes(RoutesInFrame_RelStructure routes) {
     if (routes == null) return;
 
@@ -245,13 +248,18 @@ class ServiceFrameParser extends NetexParser<Service_VersionFrameStructure> {
 
     for (JAXBElement<?> pattern : journeyPatterns.getJourneyPattern_OrJourneyPatternView()) {
       if (pattern.getValue() instanceof JourneyPattern) {
-        this.journeyPatterns.add((JourneyPattern) pattern.getValue());
+        parseJourneyPattern((JourneyPattern) pattern.getValue());
       } else {
         warnOnMissingMapping(LOG, pattern.getValue());
       }
     }
   }
 
+  /** Also used for the journey patterns streamed from the document one at a time. */
+  void parseJourneyPattern(JourneyPattern journeyPattern) {
+    journeyPatterns.add(journeyPattern);
+  }
+
   private void parseDestinationDisplays(DestinationDisplaysInFrame_RelStructure destDisplays) {
     if (destDisplays == null) return;
 
@@ -76,13 +76,18 @@ class TimeTableFrameParser extends NetexParser<Timetable_VersionFrameStructure>
       return;
     }
     for (Journey_VersionStructure it : element.getVehicleJourneyOrDatedVehicleJourneyOrNormalDatedVehicleJourney()) {
-      if (it instanceof ServiceJourney) {
-        serviceJourneys.add((ServiceJourney) it);
-      } else if (it instanceof DatedServiceJourney) {
-        datedServiceJourneys.add((DatedServiceJourney) it);
-      } else {
-        warnOnMissingMapping(LOG, it);
-      }
+      parseJourney(it);
+    }
+  }
+
+  /** Also used for the journeys streamed from the document one at a time. */
+  void parseJourney(Journey_VersionStructure journey) {
+    if (journey instanceof ServiceJourney) {
+      serviceJourneys.add((ServiceJourney) journey);
+    } else if (journey instanceof DatedServiceJourney) {
+      datedServiceJourneys.add((DatedServiceJourney) journey);
+    } else {
+      warnOnMissingMapping(LOG, journey);
     }
   }
 
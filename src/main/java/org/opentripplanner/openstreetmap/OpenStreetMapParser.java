@@ -1,6 +1,5 @@
 package org.opentripplanner.openstreetmap;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.openstreetmap.osmosis.osmbinary.BinaryParser;
@@ -14,18 +13,29 @@ import org.opentripplanner.openstreetmap.model.OSMTag;
 import org.opentripplanner.openstreetmap.model.OSMWay;
 
 /**
- * Parser for the OpenStreetMap PBF Format.
+ * Parser for the OpenStreetMap PBF Format. A parser decodes the entities of one phase from one
+ * block of the file, so the blocks can be parsed in parallel, each with its own parser. The entities
+ * are collected in an {@link OsmBlock} and added to the {@link OSMDatabase} in file order by the
+ * {@link OpenStreetMapProvider}.
+ * <p>
+ * In the relations phase the parser also records a summary of the nodes and ways in the block,
+ * which is used to skip blocks in the later phases.
  *
  * @since 0.4
  */
 public class OpenStreetMapParser extends BinaryParser {
 
-  private final OSMDatabase osmdb;
-  private final Map<String, String> stringTable = new HashMap<>();
-  private OsmParserPhase parsePhase;
+  private final Map<String, String> stringTable;
+  private final OsmParserPhase parsePhase;
+  private final OsmBlock block = new OsmBlock();
 
-  public OpenStreetMapParser(OSMDatabase osmdb) {
-    this.osmdb = osmdb;
+  /**
+   * @param stringTable the table used to internalize strings, shared by all parsers of a file. It
+   *                    must be thread-safe if the parsers run in parallel.
+   */
+  OpenStreetMapParser(Map<String, String> stringTable, OsmParserPhase parsePhase) {
+    this.stringTable = stringTable;
+    this.parsePhase = parsePhase;
   }
 
   // The strings are already being pulled from a string table in the PBF file,
@@ -33,12 +43,16 @@ public class OpenStreetMapParser extends BinaryParser {
   // String.intern grinds to a halt on large PBF files (as it did on GTFS import), so
   // we implement our own.
   public String internalize(String s) {
-    String fromTable = stringTable.get(s);
-    if (fromTable == null) {
-      stringTable.put(s, s);
-      return s;
-    }
-    return fromTable;
+    String fromTable = stringTable.putIfAbsent(s, s);
+    return fromTable == null ? s : fromTable;
+  }
+
+  /**
+   * Parse a primitive block and return the entities of the current phase found in it.
+   */
+  OsmBlock parseBlock(Osmformat.PrimitiveBlock primitiveBlock) {
+    parse(primitiveBlock);
+    return block;
   }
 
   @Override
@@ -46,13 +60,6 @@ public class OpenStreetMapParser extends BinaryParser {
     // Jump in circles
   }
 
-  /**
-   * Set the phase to be parsed
-   */
-  public void setPhase(OsmParserPhase phase) {
-    this.parsePhase = phase;
-  }
-
   @Override
   protected void parseRelations(List<Osmformat.Relation> rels) {
     if (parsePhase != OsmParserPhase.Relations) {
@@ -95,7 +102,7 @@ public class OpenStreetMapParser extends BinaryParser {
         tmp.addMember(relMember);
       }
 
-      osmdb.addRelation(tmp);
+      block.relations.add(tmp);
     }
   }
 
@@ -104,6 +111,10 @@ public class OpenStreetMapParser extends BinaryParser {
     long lastId = 0, lastLat = 0, lastLon = 0;
     int j = 0; // Index into the keysvals array.
 
+    if (parsePhase == OsmParserPhase.Relations) {
+      summarizeDense(nodes);
+      return;
+    }
     if (parsePhase != OsmParserPhase.Nodes) {
       return;
     }
@@ -139,12 +150,22 @@ public class OpenStreetMapParser extends BinaryParser {
         j++; // Skip over the '0' delimiter.
       }
 
-      osmdb.addNode(tmp);
+      block.nodes.add(tmp);
     }
   }
 
   @Override
   protected void parseNodes(List<Osmformat.Node> nodes) {
+    if (parsePhase == OsmParserPhase.Relations) {
+      for (Osmformat.Node i : nodes) {
+        OSMNode node = new OSMNode();
+        for (int j = 0; j < i.getKeysCount(); j++) {
+          node.addTag(getStringById(i.getKeys(j)), getStringById(i.getVals(j)));
+        }
+        block.summarizeNode(i.getId(), node);
+      }
+      return;
+    }
     if (parsePhase != OsmParserPhase.Nodes) {
       return;
     }
@@ -165,12 +186,15 @@ public class OpenStreetMapParser extends BinaryParser {
         tmp.addTag(tag);
       }
 
-      osmdb.addNode(tmp);
+      block.nodes.add(tmp);
     }
   }
 
   @Override
   protected void parseWays(List<Osmformat.Way> ways) {
+    if (parsePhase == OsmParserPhase.Relations && !ways.isEmpty()) {
+      block.hasWays = true;
+    }
     if (parsePhase != OsmParserPhase.Ways) {
       return;
     }
@@ -197,7 +221,34 @@ public class OpenStreetMapParser extends BinaryParser {
         lastId = j + lastId;
       }
 
-      osmdb.addWay(tmp);
+      block.ways.add(tmp);
+    }
+  }
+
+  /**
+   * Record the node id range of the dense nodes, and if any of them is kept without being part of
+   * a way. Only the tagged nodes are created, and their tags are not internalized.
+   */
+  private void summarizeDense(Osmformat.DenseNodes nodes) {
+    long lastId = 0;
+    int j = 0;
+    for (int i = 0; i < nodes.getIdCount(); i++) {
+      long id = nodes.getId(i) + lastId;
+      lastId = id;
+
+      OSMNode node = null;
+      if (nodes.getKeysValsCount() > 0) {
+        while (nodes.getKeysVals(j) != 0) {
+          if (node == null) {
+            node = new OSMNode();
+          }
+          int keyid = nodes.getKeysVals(j++);
+          int valid = nodes.getKeysVals(j++);
+          node.addTag(getStringById(keyid), getStringById(valid));
+        }
+        j++;
+      }
+      block.summarizeNode(id, node);
     }
   }
 
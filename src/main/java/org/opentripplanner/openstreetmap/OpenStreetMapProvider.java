@@ -2,10 +2,28 @@ package org.opentripplanner.openstreetmap;
 
 import com.google.common.base.MoreObjects;
 import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import org.openstreetmap.osmosis.osmbinary.file.BlockInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
 import org.opentripplanner.datastore.api.DataSource;
 import org.opentripplanner.datastore.api.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
@@ -17,13 +35,33 @@ import org.slf4j.LoggerFactory;
 /**
  * Parser for the OpenStreetMap PBF format. Parses files in three passes: First the relations, then
  * the ways, then the nodes are also loaded.
+ * <p>
+ * The blocks of the file are read on the calling thread and decompressed and parsed on a pool of
+ * worker threads. The parsed blocks are added to the {@link OSMDatabase} on the calling thread in
+ * file order, so the result is the same as when parsing sequentially.
+ * <p>
+ * The first pass records what each block contains. The second pass skips the blocks without ways,
+ * and the third pass skips the blocks without nodes used by the kept ways and areas, unless they
+ * contain nodes which are kept anyway, like bike parking. Skipped blocks are read past without
+ * being decompressed.
  */
 public class OpenStreetMapProvider {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpenStreetMapProvider.class);
 
+  private static final String BLOB_TYPE_HEADER = "OSMHeader";
+  private static final String BLOB_TYPE_DATA = "OSMData";
+
+  /** The max size of a blob header, as defined in the PBF format specification. */
+  private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+
+  /** Parse at most this many blocks per thread ahead of the block added to the database. */
+  private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
   private final DataSource source;
   private final boolean cacheDataInMem;
+  private final int nThreads;
+  private final boolean skipBlocks;
   private byte[] cachedBytes = null;
 
   /** For tests */
@@ -32,24 +70,46 @@ public class OpenStreetMapProvider {
   }
 
   public OpenStreetMapProvider(DataSource source, boolean cacheDataInMem) {
+    this(source, cacheDataInMem, Runtime.getRuntime().availableProcessors(), true);
+  }
+
+  /**
+   * @param nThreads   the number of threads parsing blocks.
+   * @param skipBlocks skip the blocks not needed in the ways and nodes passes. Only turned off to
+   *                   compare the result and performance with and without skipping.
+   */
+  OpenStreetMapProvider(
+    DataSource source,
+    boolean cacheDataInMem,
+    int nThreads,
+    boolean skipBlocks
+  ) {
     this.source = source;
     this.cacheDataInMem = cacheDataInMem;
+    this.nThreads = nThreads;
+    this.skipBlocks = skipBlocks;
   }
 
   public void readOSM(OSMDatabase osmdb) {
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
     try {
-      OpenStreetMapParser parser = new OpenStreetMapParser(osmdb);
+      var phaseParser = new PhaseParser(osmdb, executor);
 
-      parsePhase(parser, OsmParserPhase.Relations);
+      List<OsmBlock.Summary> summaries = phaseParser.parse(OsmParserPhase.Relations, null);
       osmdb.doneFirstPhaseRelations();
 
-      parsePhase(parser, OsmParserPhase.Ways);
+      phaseParser.parse(OsmParserPhase.Ways, skipBlocks ? wayBlocksNeeded(summaries) : null);
       osmdb.doneSecondPhaseWays();
 
-      parsePhase(parser, OsmParserPhase.Nodes);
+      phaseParser.parse(
+        OsmParserPhase.Nodes,
+        skipBlocks ? nodeBlocksNeeded(summaries, osmdb) : null
+      );
       osmdb.doneThirdPhaseNodes();
     } catch (Exception ex) {
       throw new IllegalStateException("error loading OSM from path " + source.path(), ex);
+    } finally {
+      executor.shutdownNow();
     }
   }
 
@@ -68,6 +128,63 @@ public class OpenStreetMapProvider {
     }
   }
 
+  /**
+   * Find the blocks needed in the ways pass: the blocks with ways.
+   */
+  static boolean[] wayBlocksNeeded(List<OsmBlock.Summary> summaries) {
+    boolean[] needed = new boolean[summaries.size()];
+    for (int i = 0; i < needed.length; i++) {
+      needed[i] = summaries.get(i).hasWays();
+    }
+    return needed;
+  }
+
+  /**
+   * Find the blocks needed in the nodes pass: the blocks with nodes used by the kept ways and
+   * areas, and the blocks with nodes which are kept even if they are not used. The node id ranges
+   * of the blocks do not overlap in a sorted file. If they do, all blocks with nodes are needed.
+   */
+  static boolean[] nodeBlocksNeeded(List<OsmBlock.Summary> summaries, OSMDatabase osmdb) {
+    boolean[] needed = new boolean[summaries.size()];
+    int[] nodeBlocks = IntStream
+      .range(0, summaries.size())
+      .filter(i -> summaries.get(i).hasNodes())
+      .boxed()
+      .sorted(Comparator.comparingLong(i -> summaries.get(i).minNodeId()))
+      .mapToInt(Integer::intValue)
+      .toArray();
+    long[] minIds = new long[nodeBlocks.length];
+    long[] maxIds = new long[nodeBlocks.length];
+
+    for (int i = 0; i < nodeBlocks.length; i++) {
+      var summary = summaries.get(nodeBlocks[i]);
+      minIds[i] = summary.minNodeId();
+      maxIds[i] = summary.maxNodeId();
+      needed[nodeBlocks[i]] = summary.hasNodesKeptWithoutWay();
+
+      if (i > 0 && minIds[i] <= maxIds[i - 1]) {
+        LOG.info("The OSM node blocks are not sorted by id, all node blocks are parsed.");
+        for (int block : nodeBlocks) {
+          needed[block] = true;
+        }
+        return needed;
+      }
+    }
+
+    osmdb.forEachWayNodeId(id -> {
+      int pos = Arrays.binarySearch(minIds, id);
+      if (pos < 0) {
+        // The last block starting before the id
+        pos = -pos - 2;
+      }
+      if (pos >= 0 && id <= maxIds[pos]) {
+        needed[nodeBlocks[pos]] = true;
+      }
+      return true;
+    });
+    return needed;
+  }
+
   @SuppressWarnings("Convert2MethodRef")
   private static InputStream track(OsmParserPhase phase, long size, InputStream inputStream) {
     // Keep logging lambda, replacing it with a method-ref will cause the
@@ -75,22 +192,56 @@ public class OpenStreetMapProvider {
     return ProgressTracker.track("Parse OSM " + phase, 1000, size, inputStream, m -> LOG.info(m));
   }
 
-  private void parsePhase(OpenStreetMapParser parser, OsmParserPhase phase) throws IOException {
-    parser.setPhase(phase);
-    BlockInputStream in = null;
+  /**
+   * Read the header of the next blob, or return null at the end of the file.
+   */
+  private static Fileformat.BlobHeader readBlobHeader(DataInputStream in) throws IOException {
+    int headerSize;
     try {
-      in = new BlockInputStream(createInputStream(phase), parser);
-      in.process();
-    } finally {
-      // Close
-      try {
-        if (in != null) {
-          in.close();
-        }
-      } catch (Exception e) {
-        LOG.error(e.getMessage(), e);
+      headerSize = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+      throw new IOException("Invalid PBF blob header size: " + headerSize);
+    }
+    byte[] header = new byte[headerSize];
+    in.readFully(header);
+    return Fileformat.BlobHeader.parseFrom(header);
+  }
+
+  private static byte[] readBlob(DataInputStream in, Fileformat.BlobHeader header)
+    throws IOException {
+    byte[] blob = new byte[header.getDatasize()];
+    in.readFully(blob);
+    return blob;
+  }
+
+  /**
+   * Decompress a blob read from the file.
+   */
+  private static byte[] uncompress(byte[] data) throws IOException {
+    Fileformat.Blob blob = Fileformat.Blob.parseFrom(data);
+    if (blob.hasRaw()) {
+      return blob.getRaw().toByteArray();
+    }
+    if (!blob.hasZlibData()) {
+      throw new IOException("Unsupported PBF blob compression, only zlib is supported");
+    }
+    byte[] raw = new byte[blob.getRawSize()];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(blob.getZlibData().toByteArray());
+      inflater.inflate(raw);
+      if (!inflater.finished()) {
+        throw new IOException("PBF blob is larger than its given raw size: " + raw.length);
       }
+    } catch (DataFormatException e) {
+      throw new IOException("Invalid zlib data in PBF blob", e);
+    } finally {
+      inflater.end();
     }
+    return raw;
   }
 
   private InputStream createInputStream(OsmParserPhase phase) {
@@ -102,4 +253,79 @@ public class OpenStreetMapProvider {
     }
     return track(phase, source.size(), source.asInputStream());
   }
+
+  /**
+   * Parse the file one phase at a time. The string table is shared by all phases.
+   */
+  private class PhaseParser {
+
+    private final OSMDatabase osmdb;
+    private final ExecutorService executor;
+    private final Map<String, String> stringTable = new ConcurrentHashMap<>();
+
+    private PhaseParser(OSMDatabase osmdb, ExecutorService executor) {
+      this.osmdb = osmdb;
+      this.executor = executor;
+    }
+
+    /**
+     * Parse the blocks needed in the given phase and add them to the database.
+     *
+     * @param blocksNeeded for each data block, true if it must be parsed. If null, all blocks are
+     *                     parsed.
+     * @return the summary of each parsed data block, in file order. The summaries are only
+     * recorded in the relations phase, which parses all blocks.
+     */
+    List<OsmBlock.Summary> parse(OsmParserPhase phase, boolean[] blocksNeeded)
+      throws IOException, InterruptedException, ExecutionException {
+      List<OsmBlock.Summary> summaries = new ArrayList<>();
+      Deque<Future<OsmBlock>> inFlight = new ArrayDeque<>();
+      int maxInFlight = BLOCKS_IN_FLIGHT_PER_THREAD * nThreads;
+      int index = 0;
+      int skipped = 0;
+
+      try (DataInputStream in = new DataInputStream(createInputStream(phase))) {
+        Fileformat.BlobHeader header;
+        while ((header = readBlobHeader(in)) != null) {
+          if (BLOB_TYPE_HEADER.equals(header.getType())) {
+            var headerBlock = Osmformat.HeaderBlock.parseFrom(uncompress(readBlob(in, header)));
+            new OpenStreetMapParser(stringTable, phase).parse(headerBlock);
+          } else if (!BLOB_TYPE_DATA.equals(header.getType())) {
+            // Unknown blob types should be ignored, according to the specification
+            in.skipNBytes(header.getDatasize());
+          } else if (blocksNeeded != null && !blocksNeeded[index]) {
+            in.skipNBytes(header.getDatasize());
+            ++index;
+            ++skipped;
+          } else {
+            byte[] blob = readBlob(in, header);
+            ++index;
+            inFlight.add(
+              executor.submit(() ->
+                new OpenStreetMapParser(stringTable, phase)
+                  .parseBlock(Osmformat.PrimitiveBlock.parseFrom(uncompress(blob)))
+              )
+            );
+            if (inFlight.size() >= maxInFlight) {
+              addBlock(inFlight.removeFirst().get(), summaries);
+            }
+          }
+        }
+        while (!inFlight.isEmpty()) {
+          addBlock(inFlight.removeFirst().get(), summaries);
+        }
+      } finally {
+        inFlight.forEach(it -> it.cancel(true));
+      }
+      if (skipped > 0) {
+        LOG.info("Skipped {} of {} OSM blocks not needed in phase {}.", skipped, index, phase);
+      }
+      return summaries;
+    }
+
+    private void addBlock(OsmBlock block, List<OsmBlock.Summary> summaries) {
+      block.addTo(osmdb);
+      summaries.add(block.summary());
+    }
+  }
 }
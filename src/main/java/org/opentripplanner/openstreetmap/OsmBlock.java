@@ -0,0 +1,66 @@
+package org.opentripplanner.openstreetmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMRelation;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+
+/**
+ * The entities parsed from one data block of a PBF file in one phase. In the relations phase the
+ * block also records which kind of entities it contains, see {@link Summary}.
+ */
+class OsmBlock {
+
+  final List<OSMRelation> relations = new ArrayList<>();
+  final List<OSMWay> ways = new ArrayList<>();
+  final List<OSMNode> nodes = new ArrayList<>();
+
+  boolean hasWays = false;
+  private long minNodeId = Long.MAX_VALUE;
+  private long maxNodeId = Long.MIN_VALUE;
+  private boolean hasNodesKeptWithoutWay = false;
+
+  /**
+   * Record a node in the summary. The node is only needed to check its tags, and may be null if
+   * the node has no tags.
+   */
+  void summarizeNode(long id, OSMNode node) {
+    minNodeId = Math.min(minNodeId, id);
+    maxNodeId = Math.max(maxNodeId, id);
+    if (node != null && !hasNodesKeptWithoutWay && OSMDatabase.isNodeKeptWithoutWay(node)) {
+      hasNodesKeptWithoutWay = true;
+    }
+  }
+
+  Summary summary() {
+    return new Summary(hasWays, minNodeId, maxNodeId, hasNodesKeptWithoutWay);
+  }
+
+  /**
+   * Add the entities to the database, in the order they were parsed.
+   */
+  void addTo(OSMDatabase osmdb) {
+    relations.forEach(osmdb::addRelation);
+    ways.forEach(osmdb::addWay);
+    nodes.forEach(osmdb::addNode);
+  }
+
+  /**
+   * What a block contains, recorded in the relations phase and used to skip blocks in the ways
+   * and nodes phases.
+   *
+   * @param minNodeId              the smallest node id, or {@code Long.MAX_VALUE} if the block has
+   *                               no nodes.
+   * @param maxNodeId              the largest node id, or {@code Long.MIN_VALUE} if the block has
+   *                               no nodes.
+   * @param hasNodesKeptWithoutWay true if the block has a node which is kept even if it is not part
+   *                               of a way, see {@link OSMDatabase#isNodeKeptWithoutWay}.
+   */
+  record Summary(boolean hasWays, long minNodeId, long maxNodeId, boolean hasNodesKeptWithoutWay) {
+    boolean hasNodes() {
+      return minNodeId <= maxNodeId;
+    }
+  }
+}
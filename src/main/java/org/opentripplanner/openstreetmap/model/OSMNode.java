@@ -11,6 +11,23 @@ public class OSMNode extends OSMWithTags {
     return "osm node " + id;
   }
 
+  /**
+   * Nodes are equal if they have the same id. The node store of the OSM database may create a new
+   * instance each time a node is looked up.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    return o instanceof OSMNode other && id == other.id;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(id);
+  }
+
   public Coordinate getCoordinate() {
     return new Coordinate(this.lon, this.lat);
   }
@@ -12,6 +12,7 @@ import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.api.response.RoutingResponse;
 import org.opentripplanner.routing.core.intersection_model.IntersectionTraversalCostModel;
 import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.framework.DebugTimingAggregator;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
@@ -20,6 +21,7 @@ import org.opentripplanner.routing.graphfinder.NearbyStop;
 import org.opentripplanner.routing.graphfinder.PlaceAtDistance;
 import org.opentripplanner.routing.graphfinder.PlaceType;
 import org.opentripplanner.routing.impl.StreetVertexIndex;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.services.RealtimeVehiclePositionService;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
 import org.opentripplanner.routing.vehicle_rental.VehicleRentalStationService;
@@ -52,8 +54,15 @@ public class RoutingService {
   }
 
   public RoutingResponse route(RoutingRequest request) {
-    RoutingWorker worker = new RoutingWorker(serverContext, request, timeZone);
-    return worker.route();
+    RoutingResponseCache cache = serverContext.transitService().getRoutingResponseCache();
+    if (cache == null) {
+      return new RoutingWorker(serverContext, request, timeZone).route();
+    }
+    return cache.route(
+      request,
+      () -> new RoutingWorker(serverContext, request, timeZone).route(),
+      () -> new DebugTimingAggregator(serverContext.meterRegistry(), request.tags)
+    );
   }
 
   /** {@link Graph#getVertex(String)} */
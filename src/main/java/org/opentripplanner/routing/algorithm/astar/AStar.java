@@ -5,12 +5,12 @@ import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
-import org.opentripplanner.common.pqueue.BinHeap;
 import org.opentripplanner.routing.algorithm.astar.strategies.RemainingWeightHeuristic;
 import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
 import org.opentripplanner.routing.algorithm.astar.strategies.SkipEdgeStrategy;
 import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.CompactStreetGraph;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.spt.DominanceFunction;
@@ -37,9 +37,10 @@ public class AStar {
   private final SearchTerminationStrategy terminationStrategy;
   private final TraverseVisitor traverseVisitor;
   private final Duration timeout;
+  private final CompactStreetGraph compactGraph;
 
   private final ShortestPathTree spt;
-  private final BinHeap<State> pq;
+  private final StateQueue pq;
   private final List<State> targetAcceptedStates;
 
   private State u;
@@ -53,7 +54,9 @@ public class AStar {
     SearchTerminationStrategy terminationStrategy,
     DominanceFunction dominanceFunction,
     Duration timeout,
-    Collection<State> initialStates
+    StateQueueType queueType,
+    Collection<State> initialStates,
+    boolean pooledStateArray
   ) {
     this.heuristic = heuristic;
     this.skipEdgeStrategy = skipEdgeStrategy;
@@ -63,7 +66,8 @@ public class AStar {
     this.timeout = timeout;
 
     this.rctx = rctx;
-    this.spt = new ShortestPathTree(dominanceFunction);
+    this.compactGraph = rctx.graph.getCompactStreetGraph();
+    this.spt = new ShortestPathTree(dominanceFunction, pooledStateArray ? compactGraph : null);
     this.heuristic.initialize(rctx);
 
     // Priority Queue.
@@ -72,7 +76,7 @@ public class AStar {
     // before reaching its target.
     int initialSize = rctx.graph.getVertices().size();
     initialSize = (int) Math.ceil(2 * (Math.sqrt((double) initialSize + 1)));
-    this.pq = new BinHeap<>(initialSize);
+    this.pq = StateQueue.create(queueType, initialSize, spt);
     this.nVisited = 0;
     this.targetAcceptedStates = Lists.newArrayList();
 
@@ -91,6 +95,9 @@ public class AStar {
   protected List<GraphPath> getPathsToTarget() {
     runSearch();
 
+    // The tree is not returned, so it is released for the next search on this thread
+    spt.release();
+
     return targetAcceptedStates
       .stream()
       .filter(State::isFinal)
@@ -101,12 +108,12 @@ public class AStar {
   private boolean iterate() {
     // print debug info
     if (verbose) {
-      double w = pq.peek_min_key();
+      double w = pq.peekMinPriority();
       LOG.debug("pq min key = " + w);
     }
 
     // get the lowest-weight state in the queue
-    u = pq.extract_min();
+    u = pq.extractMin();
 
     // check that this state has not been dominated
     // and mark vertex as visited
@@ -128,63 +135,78 @@ public class AStar {
       LOG.debug("   vertex " + u_vertex);
     }
 
-    Collection<Edge> edges = arriveBy ? u_vertex.getIncoming() : u_vertex.getOutgoing();
-    for (Edge edge : edges) {
-      if (skipEdgeStrategy != null && skipEdgeStrategy.shouldSkipEdge(u, edge)) {
-        continue;
+    int compactIndex = compactGraph == null
+      ? Vertex.NO_INDEX
+      : compactGraph.indexOf(u_vertex, arriveBy);
+
+    if (compactIndex == Vertex.NO_INDEX) {
+      Collection<Edge> edges = arriveBy ? u_vertex.getIncoming() : u_vertex.getOutgoing();
+      for (Edge edge : edges) {
+        traverseEdge(edge);
       }
+    } else {
+      int end = compactGraph.endAdjacent(compactIndex, arriveBy);
+      for (int i = compactGraph.firstAdjacent(compactIndex, arriveBy); i < end; ++i) {
+        traverseEdge(compactGraph.adjacentEdge(i, arriveBy));
+      }
+    }
 
-      // Iterate over traversal results. When an edge leads nowhere (as indicated by
-      // returning NULL), the iteration is over.
-      for (State v = edge.traverse(u); v != null; v = v.getNextResult()) {
-        // Could be: for (State v : traverseEdge...)
+    return true;
+  }
 
-        if (traverseVisitor != null) {
-          traverseVisitor.visitEdge(edge);
-        }
+  private void traverseEdge(Edge edge) {
+    if (skipEdgeStrategy != null && skipEdgeStrategy.shouldSkipEdge(u, edge)) {
+      return;
+    }
 
-        double remaining_w = heuristic.estimateRemainingWeight(v);
+    // Iterate over traversal results. When an edge leads nowhere (as indicated by
+    // returning NULL), the iteration is over.
+    for (State v = edge.traverse(u); v != null; v = v.getNextResult()) {
+      // Could be: for (State v : traverseEdge...)
 
-        if (remaining_w < 0 || Double.isInfinite(remaining_w)) {
-          continue;
-        }
-        double estimate = v.getWeight() + remaining_w;
-
-        if (verbose) {
-          LOG.debug("      edge " + edge);
-          LOG.debug(
-            "      " +
-            u.getWeight() +
-            " -> " +
-            v.getWeight() +
-            "(w) + " +
-            remaining_w +
-            "(heur) = " +
-            estimate +
-            " vert = " +
-            v.getVertex()
-          );
-        }
+      if (traverseVisitor != null) {
+        traverseVisitor.visitEdge(edge);
+      }
+
+      double remaining_w = heuristic.estimateRemainingWeight(v);
 
-        // spt.add returns true if the state is hopeful; enqueue state if it's hopeful
-        if (spt.add(v)) {
-          // report to the visitor if there is one
-          if (traverseVisitor != null) {
-            traverseVisitor.visitEnqueue();
-          }
-          pq.insert(v, estimate);
+      if (remaining_w < 0 || Double.isInfinite(remaining_w)) {
+        continue;
+      }
+      double estimate = v.getWeight() + remaining_w;
+
+      if (verbose) {
+        LOG.debug("      edge " + edge);
+        LOG.debug(
+          "      " +
+          u.getWeight() +
+          " -> " +
+          v.getWeight() +
+          "(w) + " +
+          remaining_w +
+          "(heur) = " +
+          estimate +
+          " vert = " +
+          v.getVertex()
+        );
+      }
+
+      // spt.add returns true if the state is hopeful; enqueue state if it's hopeful
+      if (spt.add(v)) {
+        // report to the visitor if there is one
+        if (traverseVisitor != null) {
+          traverseVisitor.visitEnqueue();
         }
+        pq.insert(v, estimate);
       }
     }
-
-    return true;
   }
 
   private void runSearch() {
     long abortTime = DateUtils.absoluteTimeout(timeout);
 
     /* the core of the A* algorithm */
-    while (!pq.empty()) { // Until the priority queue is empty:
+    while (!pq.isEmpty()) { // Until the priority queue is empty:
       /*
        * Terminate based on timeout?
        */
@@ -225,5 +247,8 @@ public class AStar {
         break;
       }
     }
+
+    // The queue is not used after the search, so it is released for the next search on this thread
+    pq.release();
   }
 }
@@ -26,8 +26,10 @@ public class AStarBuilder {
   private SearchTerminationStrategy terminationStrategy;
   private DominanceFunction dominanceFunction;
   private Duration timeout;
+  private StateQueueType queueType = StateQueueType.BINARY_HEAP;
   private Edge originBackEdge;
   private Collection<State> initialStates;
+  private boolean pooledStateArray = false;
 
   public AStarBuilder(
     RemainingWeightHeuristic remainingWeightHeuristic,
@@ -82,6 +84,12 @@ public class AStarBuilder {
     return this;
   }
 
+  /** The priority queue used by the search, the default is {@link StateQueueType#BINARY_HEAP}. */
+  public AStarBuilder setQueueType(StateQueueType queueType) {
+    this.queueType = queueType;
+    return this;
+  }
+
   public AStarBuilder setOriginBackEdge(Edge originBackEdge) {
     this.originBackEdge = originBackEdge;
     return this;
@@ -92,15 +100,27 @@ public class AStarBuilder {
     return this;
   }
 
+  /**
+   * Keep the states of the {@link org.opentripplanner.routing.graph.CompactStreetGraph} vertices in
+   * an array which is reused by the next search on the same thread, instead of in a map. The array
+   * has one element for each vertex in the graph, so only set this if the caller calls {@link
+   * ShortestPathTree#release()} when it is done with the tree. The default is {@code false}. The
+   * array is always used by {@link #getPathsToTarget()}, which releases the tree itself.
+   */
+  public AStarBuilder setPooledStateArray(boolean pooledStateArray) {
+    this.pooledStateArray = pooledStateArray;
+    return this;
+  }
+
   public ShortestPathTree getShortestPathTree() {
-    return build().getShortestPathTree();
+    return build(pooledStateArray).getShortestPathTree();
   }
 
   public List<GraphPath> getPathsToTarget() {
-    return build().getPathsToTarget();
+    return build(true).getPathsToTarget();
   }
 
-  private AStar build() {
+  private AStar build(boolean pooledStateArray) {
     Collection<State> initialStates;
 
     if (this.initialStates != null) {
@@ -123,7 +143,9 @@ public class AStarBuilder {
       terminationStrategy,
       Optional.ofNullable(dominanceFunction).orElseGet(DominanceFunction.Pareto::new),
       timeout,
-      initialStates
+      queueType,
+      initialStates,
+      pooledStateArray
     );
   }
 }
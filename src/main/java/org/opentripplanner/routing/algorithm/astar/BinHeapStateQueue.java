@@ -0,0 +1,36 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.routing.core.State;
+
+/**
+ * @see StateQueueType#BINARY_HEAP
+ */
+class BinHeapStateQueue implements StateQueue {
+
+  private final BinHeap<State> heap;
+
+  BinHeapStateQueue(int initialSize) {
+    this.heap = new BinHeap<>(initialSize);
+  }
+
+  @Override
+  public void insert(State state, double priority) {
+    heap.insert(state, priority);
+  }
+
+  @Override
+  public State extractMin() {
+    return heap.extract_min();
+  }
+
+  @Override
+  public double peekMinPriority() {
+    return heap.peek_min_key();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return heap.empty();
+  }
+}
@@ -0,0 +1,136 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.custom_hash.TObjectIntCustomHashMap;
+import gnu.trove.strategy.IdentityHashingStrategy;
+import org.opentripplanner.common.pqueue.BinHeap;
+import org.opentripplanner.common.pqueue.IndexedMinHeap;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+
+/**
+ * Keep at most one state for each vertex in an {@link IndexedMinHeap}. A new state replaces the
+ * queued state at the same vertex if the queued state is no longer in the shortest path tree,
+ * which means it is dominated by the new state. If the queued state is still in the tree the two
+ * states are co-dominant, and the new state is put in an overflow {@link BinHeap}.
+ * <p>
+ * The vertices are given a dense key in the order they are first queued, so the size of the index
+ * is proportional to the number of vertices reached by the search, not the size of the graph.
+ * <p>
+ * The heap and the vertex keys are kept for each thread and reused by the next search on that
+ * thread when the queue is released, so running many similar searches, like when transfers are
+ * generated for every stop, does not grow new arrays for each search.
+ *
+ * @see StateQueueType#INDEXED_HEAP
+ */
+class IndexedStateQueue implements StateQueue {
+
+  private static final int NO_KEY = -1;
+
+  private static final ThreadLocal<Scratch> POOL = new ThreadLocal<>();
+
+  private final ShortestPathTree spt;
+  private final Scratch scratch;
+  private final TObjectIntMap<Vertex> vertexKeys;
+  private final IndexedMinHeap<State> heap;
+  private final BinHeap<State> overflow;
+  private boolean released = false;
+
+  IndexedStateQueue(int initialSize, ShortestPathTree spt) {
+    this.spt = spt;
+    this.scratch = Scratch.acquire(initialSize);
+    this.vertexKeys = scratch.vertexKeys;
+    this.heap = scratch.heap;
+    this.overflow = new BinHeap<>(10);
+  }
+
+  @Override
+  public void insert(State state, double priority) {
+    int key = vertexKeys.get(state.getVertex());
+    if (key == NO_KEY) {
+      key = vertexKeys.size();
+      vertexKeys.put(state.getVertex(), key);
+    }
+
+    State queued = heap.get(key);
+    if (queued == null) {
+      heap.insert(key, state, priority);
+    }
+    // The queued state is dropped from the tree if the new state dominates it
+    else if (!spt.visit(queued)) {
+      heap.update(key, state, priority);
+    } else {
+      overflow.insert(state, priority);
+    }
+  }
+
+  @Override
+  public State extractMin() {
+    if (overflow.empty()) {
+      return heap.extractMin();
+    }
+    if (heap.isEmpty() || overflow.peek_min_key() < heap.peekMinPriority()) {
+      return overflow.extract_min();
+    }
+    return heap.extractMin();
+  }
+
+  @Override
+  public double peekMinPriority() {
+    if (overflow.empty()) {
+      return heap.peekMinPriority();
+    }
+    if (heap.isEmpty()) {
+      return overflow.peek_min_key();
+    }
+    return Math.min(heap.peekMinPriority(), overflow.peek_min_key());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return heap.isEmpty() && overflow.empty();
+  }
+
+  @Override
+  public void release() {
+    if (!released) {
+      released = true;
+      scratch.release();
+    }
+  }
+
+  /**
+   * The vertex keys and the heap of a queue, which are reused by the searches on the same thread.
+   */
+  private static final class Scratch {
+
+    private final TObjectIntMap<Vertex> vertexKeys;
+    private final IndexedMinHeap<State> heap;
+
+    private Scratch(int initialSize) {
+      this.vertexKeys =
+        new TObjectIntCustomHashMap<>(IdentityHashingStrategy.INSTANCE, initialSize, 0.5f, NO_KEY);
+      this.heap = new IndexedMinHeap<>(initialSize);
+    }
+
+    /**
+     * Take the scratch kept for the current thread, or create a new one if the thread has none,
+     * which is also the case while another queue on the same thread is in use.
+     */
+    static Scratch acquire(int initialSize) {
+      Scratch scratch = POOL.get();
+      if (scratch == null) {
+        return new Scratch(initialSize);
+      }
+      POOL.remove();
+      return scratch;
+    }
+
+    void release() {
+      heap.clear();
+      vertexKeys.clear();
+      POOL.set(this);
+    }
+  }
+}
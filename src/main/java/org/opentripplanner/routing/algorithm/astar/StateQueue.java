@@ -0,0 +1,34 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+
+/**
+ * The priority queue of states in the {@link AStar} search.
+ */
+interface StateQueue {
+  static StateQueue create(StateQueueType type, int initialSize, ShortestPathTree spt) {
+    return switch (type) {
+      case BINARY_HEAP -> new BinHeapStateQueue(initialSize);
+      case INDEXED_HEAP -> new IndexedStateQueue(initialSize, spt);
+    };
+  }
+
+  /**
+   * Queue a state, which is accepted by the shortest path tree.
+   */
+  void insert(State state, double priority);
+
+  /** Remove and return the state with the lowest priority. */
+  State extractMin();
+
+  double peekMinPriority();
+
+  boolean isEmpty();
+
+  /**
+   * Called when the search is done, the queue must not be used after this. Queues which keep
+   * their memory for the next search do it here.
+   */
+  default void release() {}
+}
@@ -0,0 +1,21 @@
+package org.opentripplanner.routing.algorithm.astar;
+
+/**
+ * The priority queue used by the {@link AStar} search.
+ */
+public enum StateQueueType {
+  /**
+   * A binary heap of states. Every state added to the shortest path tree is queued, a state which
+   * is dominated after it is queued is dropped when it comes out of the queue.
+   */
+  BINARY_HEAP,
+
+  /**
+   * A heap keyed on the vertex of each state. When a new state dominates the queued state at the
+   * same vertex, the queued state is replaced and its priority is decreased, instead of queuing
+   * both. This keeps the queue small for searches with one state per vertex, like searches with the
+   * {@link org.opentripplanner.routing.spt.DominanceFunction.MinimumWeight} dominance function.
+   * Other non-dominated states at the same vertex are queued in a binary heap.
+   */
+  INDEXED_HEAP,
+}
@@ -39,6 +39,7 @@ import org.opentripplanner.routing.vertextype.VehicleParkingEntranceVertex;
 import org.opentripplanner.routing.vertextype.VehicleRentalPlaceVertex;
 import org.opentripplanner.transit.model.basic.I18NString;
 import org.opentripplanner.util.OTPFeature;
+import org.opentripplanner.util.geometry.CompactLineStringBuffer;
 import org.opentripplanner.util.geometry.GeometryUtils;
 
 /**
@@ -138,8 +139,19 @@ public class GraphPathToItineraryMapper {
    */
   private static CoordinateArrayListSequence makeCoordinates(List<Edge> edges) {
     CoordinateArrayListSequence coordinates = new CoordinateArrayListSequence();
+    // Street edge geometries are decoded directly into the sequence, without a line string
+    var buffer = new CompactLineStringBuffer();
 
     for (Edge edge : edges) {
+      if (edge instanceof StreetEdge streetEdge) {
+        streetEdge.decodeGeometry(buffer);
+        // Avoid duplications
+        for (int i = coordinates.size() == 0 ? 0 : 1; i < buffer.size(); ++i) {
+          coordinates.add(buffer.getCoordinate(i));
+        }
+        continue;
+      }
+
       LineString geometry = edge.getGeometry();
 
       if (geometry != null) {
@@ -219,7 +219,8 @@ public class TransitRouter {
         routingContext,
         serverContext.transitService(),
         mode,
-        isEgress
+        isEgress,
+        serverContext.graph().getNearbyStopCache()
       );
 
       results.addAll(accessEgressMapper.mapNearbyStops(nearbyStops, isEgress));
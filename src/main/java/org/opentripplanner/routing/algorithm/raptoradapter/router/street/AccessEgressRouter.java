@@ -3,12 +3,15 @@ package org.opentripplanner.routing.algorithm.raptoradapter.router.street;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import org.opentripplanner.graph_builder.module.NearbyStopFinder;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.api.request.StreetMode;
 import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.graphfinder.NearbyStop;
+import org.opentripplanner.routing.graphfinder.NearbyStopCache;
 import org.opentripplanner.transit.service.TransitService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +36,20 @@ public class AccessEgressRouter {
     TransitService transitService,
     StreetMode streetMode,
     boolean fromTarget
+  ) {
+    return streetSearch(rctx, transitService, streetMode, fromTarget, null);
+  }
+
+  /**
+   * Same as {@link #streetSearch(RoutingContext, TransitService, StreetMode, boolean)}, but the
+   * result is taken from the given cache if the same search is done before.
+   */
+  public static Collection<NearbyStop> streetSearch(
+    RoutingContext rctx,
+    TransitService transitService,
+    StreetMode streetMode,
+    boolean fromTarget,
+    @Nullable NearbyStopCache cache
   ) {
     final RoutingRequest rr = rctx.opt;
     Set<Vertex> vertices = fromTarget != rr.arriveBy ? rctx.toVertices : rctx.fromVertices;
@@ -40,17 +57,19 @@ public class AccessEgressRouter {
     //TODO: Investigate why this is needed for flex
     RoutingRequest nearbyRequest = rr.getStreetSearchRequest(streetMode);
 
-    NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(
-      rctx.graph,
-      transitService,
-      rr.getMaxAccessEgressDuration(streetMode),
-      true
-    );
-    List<NearbyStop> nearbyStopList = nearbyStopFinder.findNearbyStopsViaStreets(
-      vertices,
-      fromTarget,
-      nearbyRequest
-    );
+    Supplier<List<NearbyStop>> search = () -> {
+      NearbyStopFinder nearbyStopFinder = new NearbyStopFinder(
+        rctx.graph,
+        transitService,
+        rr.getMaxAccessEgressDuration(streetMode),
+        true
+      );
+      return nearbyStopFinder.findNearbyStopsViaStreets(vertices, fromTarget, nearbyRequest);
+    };
+
+    List<NearbyStop> nearbyStopList = cache == null
+      ? search.get()
+      : cache.get(rctx.graph, vertices, streetMode, fromTarget, nearbyRequest, search);
 
     LOG.debug("Found {} {} stops", nearbyStopList.size(), fromTarget ? "egress" : "access");
 
@@ -13,6 +13,7 @@ import org.opentripplanner.model.transfer.TransferService;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TripPatternMapper;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransitDataCache;
 import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.transit.model.site.Stop;
 import org.opentripplanner.transit.model.site.StopLocation;
@@ -43,6 +44,8 @@ public class TransitLayer {
 
   private final RaptorRequestTransferCache transferCache;
 
+  private final RaptorRequestTransitDataCache transitDataCache;
+
   private final TripPatternMapper tripPatternMapper;
 
   private final TransferIndexGenerator transferIndexGenerator;
@@ -62,6 +65,7 @@ public class TransitLayer {
       transitLayer.stopIndex,
       transitLayer.transitDataZoneId,
       transitLayer.transferCache,
+      transitLayer.transitDataCache,
       transitLayer.tripPatternMapper,
       transitLayer.transferIndexGenerator,
       transitLayer.stopBoardAlightCosts
@@ -75,6 +79,7 @@ public class TransitLayer {
     StopModelIndex stopIndex,
     ZoneId transitDataZoneId,
     RaptorRequestTransferCache transferCache,
+    RaptorRequestTransitDataCache transitDataCache,
     TripPatternMapper tripPatternMapper,
     TransferIndexGenerator transferIndexGenerator,
     int[] stopBoardAlightCosts
@@ -85,6 +90,7 @@ public class TransitLayer {
     this.stopIndex = stopIndex;
     this.transitDataZoneId = transitDataZoneId;
     this.transferCache = transferCache;
+    this.transitDataCache = transitDataCache;
     this.tripPatternMapper = tripPatternMapper;
     this.transferIndexGenerator = transferIndexGenerator;
     this.stopBoardAlightCosts = stopBoardAlightCosts;
@@ -150,6 +156,14 @@ public class TransitLayer {
     return transferCache;
   }
 
+  /**
+   * The cache of merged trip patterns used to create the transit data for each request. The cache
+   * is shared with all copies of this transit layer.
+   */
+  public RaptorRequestTransitDataCache getTransitDataCache() {
+    return transitDataCache;
+  }
+
   public TripPatternMapper getTripPatternMapper() {
     return tripPatternMapper;
   }
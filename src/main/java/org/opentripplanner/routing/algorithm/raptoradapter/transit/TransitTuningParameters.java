@@ -46,6 +46,21 @@ public interface TransitTuningParameters {
       return 5;
     }
 
+    @Override
+    public int transitDataCacheMaxSize() {
+      return 5;
+    }
+
+    @Override
+    public int accessEgressCacheMaxSize() {
+      return 5;
+    }
+
+    @Override
+    public Duration accessEgressCacheTimeToLive() {
+      return Duration.ofMinutes(10);
+    }
+
     @Override
     public List<Duration> pagingSearchWindowAdjustments() {
       return PAGING_SEARCH_WINDOW_ADJUSTMENTS;
@@ -71,6 +86,26 @@ public interface TransitTuningParameters {
    */
   int transferCacheMaxSize();
 
+  /**
+   * The maximum number of distinct combinations of search days and transit filters (modes, banned
+   * routes and so on) for which the trip patterns merged over the search days should be cached.
+   * Each entry hold the trip schedules for all search days, so this should be kept low for large
+   * transit networks. If 0, the trip patterns are created for each request.
+   */
+  int transitDataCacheMaxSize();
+
+  /**
+   * The maximum number of access/egress street searches for which the stops found should be
+   * cached. Only walk, bike and car searches are cached, keyed on the origin or destination and the
+   * street search parameters. If 0, the street search is done for each request.
+   */
+  int accessEgressCacheMaxSize();
+
+  /**
+   * The access/egress stops are removed from the cache this long after they are found.
+   */
+  Duration accessEgressCacheTimeToLive();
+
   /**
    * This parameter is used to reduce the number of pages a client have to step through for a
    * journey where there are few alternatives/low frequency. This also work well to adjust for
@@ -0,0 +1,186 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit;
+
+import gnu.trove.list.array.TIntArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of the {@link TripPatternForDate}s running on a date, used by the realtime
+ * {@link TransitLayer}.
+ * <p>
+ * The elements are stored in fixed size chunks. A new version of the list is created with a
+ * {@link Builder}, which only copies the chunks it changes - all other chunks are shared with the
+ * previous version. This allows the {@link org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater}
+ * to apply a realtime update to a date without copying all trip patterns for that date. The list
+ * does not contain duplicates, and the order of the elements is not defined.
+ */
+public final class TripPatternsRunningOnDate
+  extends AbstractList<TripPatternForDate>
+  implements RandomAccess {
+
+  private static final int CHUNK_BITS = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final TripPatternForDate[][] EMPTY = new TripPatternForDate[0][];
+
+  private final TripPatternForDate[][] chunks;
+  private final int size;
+
+  private TripPatternsRunningOnDate(TripPatternForDate[][] chunks, int size) {
+    this.chunks = chunks;
+    this.size = size;
+  }
+
+  /**
+   * Create a builder with the given trip patterns. If the given collection is a {@link
+   * TripPatternsRunningOnDate} its chunks are shared, not copied.
+   */
+  public static Builder of(Collection<TripPatternForDate> tripPatterns) {
+    return new Builder(tripPatterns);
+  }
+
+  @Override
+  public TripPatternForDate get(int index) {
+    Objects.checkIndex(index, size);
+    return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Create new versions of a {@link TripPatternsRunningOnDate}. The builder keeps its state after
+   * {@link #build()} is called, so it can be used to apply the next update. A chunk shared with a
+   * built list is copied before it is changed.
+   * <p>
+   * This class is NOT THREAD SAFE, but the lists it builds are.
+   */
+  public static final class Builder {
+
+    private final Map<TripPatternForDate, Integer> indexOf = new HashMap<>();
+
+    /** The chunks which are created or copied after the last build, and can be changed. */
+    private final BitSet ownedChunks = new BitSet();
+
+    /** The indexes of removed trip patterns, not yet filled */
+    private final TIntArrayList holes = new TIntArrayList();
+
+    private TripPatternForDate[][] chunks;
+
+    /** The number of elements in the chunks, including the holes */
+    private int size = 0;
+
+    /** True if the chunks array is shared with the last built list */
+    private boolean chunksShared = true;
+
+    private Builder(Collection<TripPatternForDate> tripPatterns) {
+      if (tripPatterns instanceof TripPatternsRunningOnDate list) {
+        this.chunks = list.chunks;
+        this.size = list.size;
+        for (int i = 0; i < size; ++i) {
+          indexOf.put(list.get(i), i);
+        }
+      } else {
+        this.chunks = EMPTY;
+        for (TripPatternForDate it : tripPatterns) {
+          add(it);
+        }
+      }
+    }
+
+    /**
+     * Add the trip pattern, it is put in the place of a removed trip pattern if there is one.
+     *
+     * @return {@code false} if the trip pattern is already in the list.
+     */
+    public boolean add(TripPatternForDate tripPattern) {
+      int index = holes.isEmpty() ? size : holes.removeAt(holes.size() - 1);
+      if (indexOf.putIfAbsent(tripPattern, index) != null) {
+        if (index != size) {
+          holes.add(index);
+        }
+        return false;
+      }
+      set(index, tripPattern);
+      if (index == size) {
+        ++size;
+      }
+      return true;
+    }
+
+    /**
+     * Remove the trip pattern. The hole is filled by the next trip pattern added, or when the list
+     * is built.
+     *
+     * @return {@code false} if the trip pattern is not in the list.
+     */
+    public boolean remove(TripPatternForDate tripPattern) {
+      Integer index = indexOf.remove(tripPattern);
+      if (index == null) {
+        return false;
+      }
+      set(index, null);
+      holes.add(index);
+      return true;
+    }
+
+    public int size() {
+      return size - holes.size();
+    }
+
+    public TripPatternsRunningOnDate build() {
+      fillHoles();
+      var list = new TripPatternsRunningOnDate(chunks, size);
+      chunksShared = true;
+      ownedChunks.clear();
+      return list;
+    }
+
+    /**
+     * Move the last elements into the holes, starting with the hole with the highest index. All
+     * holes after the one being filled are already removed, so the last element is never a hole
+     * unless it is the one being filled.
+     */
+    private void fillHoles() {
+      holes.sort();
+      for (int i = holes.size() - 1; i >= 0; --i) {
+        int hole = holes.get(i);
+        int last = size - 1;
+        if (hole != last) {
+          var moved = chunks[last >>> CHUNK_BITS][last & CHUNK_MASK];
+          set(hole, moved);
+          indexOf.put(moved, hole);
+          set(last, null);
+        }
+        --size;
+      }
+      holes.clear();
+    }
+
+    private void set(int index, TripPatternForDate tripPattern) {
+      int c = index >>> CHUNK_BITS;
+
+      if (chunksShared || c >= chunks.length) {
+        int length = c < chunks.length ? chunks.length : Math.max(c + 1, 2 * chunks.length);
+        chunks = Arrays.copyOf(chunks, length);
+        chunksShared = false;
+      }
+      if (chunks[c] == null) {
+        chunks[c] = new TripPatternForDate[CHUNK_SIZE];
+        ownedChunks.set(c);
+      } else if (!ownedChunks.get(c)) {
+        chunks[c] = chunks[c].clone();
+        ownedChunks.set(c);
+      }
+      chunks[c][index & CHUNK_MASK] = tripPattern;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternWi
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.cost.RaptorCostConverter;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransferCache;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.request.RaptorRequestTransitDataCache;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.site.StopTransferPriority;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -100,6 +101,9 @@ public class TransitLayerMapper {
     }
 
     var transferCache = new RaptorRequestTransferCache(tuningParameters.transferCacheMaxSize());
+    var transitDataCache = new RaptorRequestTransitDataCache(
+      tuningParameters.transitDataCacheMaxSize()
+    );
 
     LOG.info("Mapping complete.");
 
@@ -110,6 +114,7 @@ public class TransitLayerMapper {
       stopIndex,
       transitModel.getTimeZone(),
       transferCache,
+      transitDataCache,
       tripPatternMapper,
       transferIndexGenerator,
       createStopTransferCosts(stopIndex, tuningParameters)
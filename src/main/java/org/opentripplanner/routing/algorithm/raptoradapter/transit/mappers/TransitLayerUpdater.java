@@ -2,7 +2,6 @@ package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
 
 import gnu.trove.set.TIntSet;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -14,7 +13,9 @@ import org.opentripplanner.model.TripIdAndServiceDate;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternWithRaptorStopIndexes;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternsRunningOnDate;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.constrainedtransfer.TransferIndexGenerator;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.transit.model.network.TripPattern;
 import org.opentripplanner.transit.model.timetable.TripTimes;
 import org.opentripplanner.transit.service.TransitModel;
@@ -49,7 +50,11 @@ public class TransitLayerUpdater {
    */
   private final Map<TripIdAndServiceDate, TripPatternForDate> tripPatternsForTripIdAndServiceDateCache = new HashMap<>();
 
-  private final Map<LocalDate, Set<TripPatternForDate>> tripPatternsRunningOnDateMapCache = new HashMap<>();
+  /**
+   * The TripPatternForDates running on each updated date. The builder shares the unchanged
+   * TripPatternForDates with the list in the current realtime TransitLayer.
+   */
+  private final Map<LocalDate, TripPatternsRunningOnDate.Builder> tripPatternsRunningOnDateMapCache = new HashMap<>();
 
   public TransitLayerUpdater(
     TransitModel transitModel,
@@ -64,6 +69,7 @@ public class TransitLayerUpdater {
     Map<TripPattern, SortedSet<Timetable>> timetables
   ) {
     if (!transitModel.hasRealtimeTransitLayer()) {
+      invalidateRoutingResponseCache(updatedTimetables);
       return;
     }
 
@@ -164,64 +170,53 @@ public class TransitLayerUpdater {
     }
 
     // Now loop through all running period dates of old and new TripPatternsForDate and update
-    // the tripPatternsByRunningPeriodDate accordingly
-    for (LocalDate date : datesToBeUpdated) {
-      tripPatternsRunningOnDateMapCache.computeIfAbsent(
-        date,
-        p -> new HashSet<>(realtimeTransitLayer.getTripPatternsRunningOnDateCopy(date))
-      );
+    // the tripPatternsByRunningPeriodDate accordingly. Only the changed TripPatternForDates are
+    // replaced, the rest is shared with the current realtime transit layer.
 
-      // Remove old cached tripPatterns where tripTimes are no longer running
-      Set<TripPatternForDate> patternsForDate = tripPatternsRunningOnDateMapCache.get(date);
-
-      for (Map.Entry<TripPattern, TripPatternForDate> entry : oldTripPatternsForDate.entrySet()) {
-        TripPattern tripPattern = entry.getKey();
-        TripPatternForDate oldTripPatternForDate = oldTripPatternsForDate.get(tripPattern);
+    // Remove old TripPatternForDate for each date it was valid on
+    for (TripPatternForDate oldTripPatternForDate : oldTripPatternsForDate.values()) {
+      for (LocalDate date : oldTripPatternForDate.getRunningPeriodDates()) {
+        tripPatternsRunningOnDate(realtimeTransitLayer, date).remove(oldTripPatternForDate);
+      }
+    }
 
-        // Remove old TripPatternForDate for this date if it was valid on this date
-        if (oldTripPatternForDate != null) {
-          if (oldTripPatternForDate.getRunningPeriodDates().contains(date)) {
-            patternsForDate.remove(oldTripPatternForDate);
-          }
-        }
+    // Remove cached tripPatterns created by the realtime updater where tripTimes are no longer
+    // running
+    for (TripPatternForDate tripPatternForDate : previouslyUsedPatterns) {
+      LocalDate date = tripPatternForDate.getLocalDate();
+      TripPattern pattern = tripPatternForDate.getTripPattern().getPattern();
+      if (!datesToBeUpdated.contains(date) || !pattern.isCreatedByRealtimeUpdater()) {
+        continue;
       }
+      var oldTimeTable = timetables.get(pattern);
+      if (oldTimeTable != null) {
+        var toRemove = oldTimeTable
+          .stream()
+          .filter(tt -> tt.getServiceDate().equals(date))
+          .findFirst()
+          .map(tt -> tt.getTripTimes().isEmpty())
+          .orElse(false);
 
-      for (TripPatternForDate tripPatternForDate : previouslyUsedPatterns) {
-        if (tripPatternForDate.getLocalDate().equals(date)) {
-          TripPattern pattern = tripPatternForDate.getTripPattern().getPattern();
-          if (!pattern.isCreatedByRealtimeUpdater()) {
-            continue;
-          }
-          var oldTimeTable = timetables.get(pattern);
-          if (oldTimeTable != null) {
-            var toRemove = oldTimeTable
-              .stream()
-              .filter(tt -> tt.getServiceDate().equals(date))
-              .findFirst()
-              .map(tt -> tt.getTripTimes().isEmpty())
-              .orElse(false);
-
-            if (toRemove) {
-              patternsForDate.remove(tripPatternForDate);
-            }
-          } else {
-            LOG.warn("Could not fetch timetable for {}", pattern);
-          }
+        if (toRemove) {
+          tripPatternsRunningOnDate(realtimeTransitLayer, date).remove(tripPatternForDate);
         }
+      } else {
+        LOG.warn("Could not fetch timetable for {}", pattern);
       }
+    }
 
-      for (Map.Entry<TripPattern, TripPatternForDate> entry : newTripPatternsForDate.entrySet()) {
-        TripPatternForDate newTripPatternForDate = entry.getValue();
-
-        // Add new TripPatternForDate for this date if it mapped correctly and is valid on this date
-        if (newTripPatternForDate != null) {
-          if (newTripPatternForDate.getRunningPeriodDates().contains(date)) {
-            patternsForDate.add(newTripPatternForDate);
-          }
-        }
+    // Add new TripPatternForDate for each date it is valid on
+    for (TripPatternForDate newTripPatternForDate : newTripPatternsForDate.values()) {
+      for (LocalDate date : newTripPatternForDate.getRunningPeriodDates()) {
+        tripPatternsRunningOnDate(realtimeTransitLayer, date).add(newTripPatternForDate);
       }
+    }
 
-      realtimeTransitLayer.replaceTripPatternsForDate(date, new ArrayList<>(patternsForDate));
+    for (LocalDate date : datesToBeUpdated) {
+      realtimeTransitLayer.replaceTripPatternsForDate(
+        date,
+        tripPatternsRunningOnDate(realtimeTransitLayer, date).build()
+      );
     }
 
     if (transferIndexGenerator != null) {
@@ -232,10 +227,35 @@ public class TransitLayerUpdater {
     // guarantee that the reference is set after all the fields have been updated.
     transitModel.setRealtimeTransitLayer(realtimeTransitLayer);
 
+    invalidateRoutingResponseCache(updatedTimetables);
+
     LOG.debug(
       "UPDATING {} tripPatterns took {} ms",
       updatedTimetables.size(),
       System.currentTimeMillis() - startTime
     );
   }
+
+  private TripPatternsRunningOnDate.Builder tripPatternsRunningOnDate(
+    TransitLayer realtimeTransitLayer,
+    LocalDate date
+  ) {
+    return tripPatternsRunningOnDateMapCache.computeIfAbsent(
+      date,
+      d -> TripPatternsRunningOnDate.of(realtimeTransitLayer.getTripPatternsForDate(d))
+    );
+  }
+
+  /**
+   * Remove the cached routing responses using the updated patterns. This is done after the new
+   * realtime transit layer is published.
+   */
+  private void invalidateRoutingResponseCache(Set<Timetable> updatedTimetables) {
+    RoutingResponseCache cache = transitModel.getRoutingResponseCache();
+    if (cache != null) {
+      cache.invalidate(
+        updatedTimetables.stream().map(Timetable::getPattern).collect(Collectors.toSet())
+      );
+    }
+  }
 }
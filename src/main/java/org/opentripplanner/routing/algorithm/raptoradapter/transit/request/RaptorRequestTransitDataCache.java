@@ -0,0 +1,178 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+
+/**
+ * Cache the request independent part of the {@link RaptorRoutingRequestTransitData}: the trip
+ * patterns merged over all search days and the active trip patterns per stop. Most requests use
+ * the same search days and one of a few filters, so these do not need to be rebuilt for each
+ * request.
+ * <p>
+ * The entries are keyed on the search time zero, the number of additional search days and the
+ * {@link TransitDataProviderFilter#cacheKey()}. The cache is shared between the scheduled and all
+ * realtime copies of the {@link TransitLayer}. An entry keeps a reference to the trip patterns of
+ * each day it was built from. The {@link org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater}
+ * replaces the list of trip patterns for each date it updates, so an entry is valid as long as the
+ * transit layer returns the same list instances. When a realtime update is applied, only the days
+ * which changed are filtered again before the patterns are merged.
+ * <p>
+ * This class is thread-safe. Two requests may build the same entry at the same time, the last one
+ * to finish is kept.
+ */
+public class RaptorRequestTransitDataCache {
+
+  @Nullable
+  private final Cache<CacheKey, CacheEntry> cache;
+
+  /**
+   * @param maximumSize the maximum number of entries, if 0 the cache is disabled
+   */
+  public RaptorRequestTransitDataCache(int maximumSize) {
+    this.cache =
+      maximumSize > 0 ? CacheBuilder.newBuilder().maximumSize(maximumSize).build() : null;
+  }
+
+  public long size() {
+    return cache == null ? 0 : cache.size();
+  }
+
+  public void invalidateAll() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  TripPatternsForRequest get(
+    TransitLayer transitLayer,
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    TransitDataProviderFilter filter
+  ) {
+    var creator = new RaptorRoutingRequestTransitDataCreator(transitLayer, transitSearchTimeZero);
+    Object filterKey = filter.cacheKey();
+
+    if (cache == null || filterKey == null) {
+      var patternIndex = creator.createTripPatterns(
+        additionalPastSearchDays,
+        additionalFutureSearchDays,
+        filter
+      );
+      return new TripPatternsForRequest(
+        patternIndex,
+        creator.createTripPatternsPerStop(patternIndex)
+      );
+    }
+
+    var key = new CacheKey(
+      transitSearchTimeZero,
+      additionalPastSearchDays,
+      additionalFutureSearchDays,
+      filterKey
+    );
+
+    // The trip patterns in the transit layer for each search day, in the same order as in the entry
+    List<Collection<TripPatternForDate>> source = new ArrayList<>();
+    for (int d = -additionalPastSearchDays; d <= additionalFutureSearchDays; ++d) {
+      source.add(transitLayer.getTripPatternsForDate(creator.searchDate(d)));
+    }
+
+    CacheEntry entry = cache.getIfPresent(key);
+
+    if (entry != null && entry.isBuiltFrom(source)) {
+      return entry.tripPatterns;
+    }
+
+    entry = CacheEntry.create(creator, additionalPastSearchDays, source, filter, entry);
+    cache.put(key, entry);
+    return entry.tripPatterns;
+  }
+
+  /**
+   * The trip patterns merged over all search days, and the indexes of the active patterns for
+   * each stop.
+   */
+  record TripPatternsForRequest(
+    List<TripPatternForDates> patternIndex,
+    List<int[]> activeTripPatternsPerStop
+  ) {}
+
+  private record CacheKey(
+    ZonedDateTime transitSearchTimeZero,
+    int additionalPastSearchDays,
+    int additionalFutureSearchDays,
+    Object filterKey
+  ) {}
+
+  private static class CacheEntry {
+
+    /** The trip patterns in the transit layer for each search day, compared by identity. */
+    private final List<Collection<TripPatternForDate>> source;
+
+    /** The trip patterns for each search day accepted by the filter */
+    private final List<List<TripPatternForDate>> filtered;
+
+    private final TripPatternsForRequest tripPatterns;
+
+    private CacheEntry(
+      List<Collection<TripPatternForDate>> source,
+      List<List<TripPatternForDate>> filtered,
+      TripPatternsForRequest tripPatterns
+    ) {
+      this.source = source;
+      this.filtered = filtered;
+      this.tripPatterns = tripPatterns;
+    }
+
+    /**
+     * Create a new entry, the filtered trip patterns for each day are reused from the previous
+     * entry if the day is not changed.
+     */
+    static CacheEntry create(
+      RaptorRoutingRequestTransitDataCreator creator,
+      int additionalPastSearchDays,
+      List<Collection<TripPatternForDate>> source,
+      TransitDataProviderFilter filter,
+      @Nullable CacheEntry previous
+    ) {
+      List<List<TripPatternForDate>> filtered = new ArrayList<>(source.size());
+      List<TripPatternForDate> all = new ArrayList<>();
+
+      for (int i = 0; i < source.size(); ++i) {
+        List<TripPatternForDate> patterns;
+        if (previous != null && previous.source.get(i) == source.get(i)) {
+          patterns = previous.filtered.get(i);
+        } else {
+          patterns = creator.filterActiveTripPatterns(i - additionalPastSearchDays, filter);
+        }
+        filtered.add(patterns);
+        all.addAll(patterns);
+      }
+
+      var patternIndex = creator.createTripPatterns(all, filter);
+
+      return new CacheEntry(
+        source,
+        filtered,
+        new TripPatternsForRequest(patternIndex, creator.createTripPatternsPerStop(patternIndex))
+      );
+    }
+
+    boolean isBuiltFrom(List<Collection<TripPatternForDate>> source) {
+      for (int i = 0; i < source.size(); ++i) {
+        if (this.source.get(i) != source.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -71,20 +71,19 @@ public class RaptorRoutingRequestTransitData implements RaptorTransitDataProvide
     this.transitLayer = transitLayer;
     this.transitSearchTimeZero = transitSearchTimeZero;
 
-    // Delegate to the creator to construct the needed data structures. The code is messy so
-    // it is nice to NOT have it in the class. It isolate this code to only be available at
-    // the time of construction
-    var transitDataCreator = new RaptorRoutingRequestTransitDataCreator(
-      transitLayer,
-      transitSearchTimeZero
-    );
-    this.patternIndex =
-      transitDataCreator.createTripPatterns(
+    // The trip patterns are created by the RaptorRoutingRequestTransitDataCreator. The result is
+    // cached and shared between requests with the same search days and filter.
+    var tripPatterns = transitLayer
+      .getTransitDataCache()
+      .get(
+        transitLayer,
+        transitSearchTimeZero,
         additionalPastSearchDays,
         additionalFutureSearchDays,
         filter
       );
-    this.activeTripPatternsPerStop = transitDataCreator.createTripPatternsPerStop(patternIndex);
+    this.patternIndex = tripPatterns.patternIndex();
+    this.activeTripPatternsPerStop = tripPatterns.activeTripPatternsPerStop();
     this.transfers = transitLayer.getRaptorTransfersForRequest(routingContext);
 
     var mcCostParams = McCostParamsMapper.map(routingContext.opt);
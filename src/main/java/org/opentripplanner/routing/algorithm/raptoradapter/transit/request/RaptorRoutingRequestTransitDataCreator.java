@@ -138,6 +138,32 @@ class RaptorRoutingRequestTransitDataCreator {
     return merge(transitSearchTimeZero, tripPatternForDates, filter);
   }
 
+  /**
+   * Merge the already filtered trip patterns for all search days, see {@link #merge(ZonedDateTime,
+   * List, TransitDataProviderFilter)}.
+   */
+  List<TripPatternForDates> createTripPatterns(
+    List<TripPatternForDate> tripPatternForDates,
+    TransitDataProviderFilter filter
+  ) {
+    return merge(transitSearchTimeZero, tripPatternForDates, filter);
+  }
+
+  /**
+   * The search date plus the given number of days, the day is relative to the departure date and
+   * may be negative.
+   */
+  LocalDate searchDate(int day) {
+    return departureDate.plusDays(day);
+  }
+
+  /**
+   * Filter the trip patterns for the given search day, the day is relative to the departure date.
+   */
+  List<TripPatternForDate> filterActiveTripPatterns(int day, TransitDataProviderFilter filter) {
+    return filterActiveTripPatterns(transitLayer, searchDate(day), day == 0, filter);
+  }
+
   private static List<TripPatternForDate> filterActiveTripPatterns(
     TransitLayer transitLayer,
     LocalDate date,
@@ -168,9 +194,7 @@ class RaptorRoutingRequestTransitDataCreator {
 
     // This filters trips by the search date as well as additional dates before and after
     for (int d = -additionalPastSearchDays; d <= additionalFutureSearchDays; ++d) {
-      tripPatternForDates.addAll(
-        filterActiveTripPatterns(transitLayer, departureDate.plusDays(d), d == 0, filter)
-      );
+      tripPatternForDates.addAll(filterActiveTripPatterns(d, filter));
     }
 
     if (LOG.isDebugEnabled()) {
@@ -31,6 +31,8 @@ public class RoutingRequestTransitDataProviderFilter implements TransitDataProvi
 
   private final Set<FeedScopedId> bannedTrips;
 
+  private final CacheKey cacheKey;
+
   public RoutingRequestTransitDataProviderFilter(
     boolean requireBikesAllowed,
     WheelchairAccessibilityRequest accessibility,
@@ -45,6 +47,16 @@ public class RoutingRequestTransitDataProviderFilter implements TransitDataProvi
     this.bannedRoutes = bannedRoutes;
     this.bannedTrips = bannedTrips;
     this.transitModeFilter = AllowTransitModeFilter.of(allowedTransitModes);
+    this.cacheKey =
+      new CacheKey(
+        requireBikesAllowed,
+        accessibility.enabled() && accessibility.trip().onlyConsiderAccessible(),
+        accessibility.enabled() && accessibility.stop().onlyConsiderAccessible(),
+        includePlannedCancellations,
+        Set.copyOf(allowedTransitModes),
+        bannedRoutes,
+        bannedTrips
+      );
   }
 
   public RoutingRequestTransitDataProviderFilter(
@@ -130,8 +142,27 @@ public class RoutingRequestTransitDataProviderFilter implements TransitDataProvi
     return boardingPossible;
   }
 
+  @Override
+  public Object cacheKey() {
+    return cacheKey;
+  }
+
   private boolean routeIsNotBanned(TripPatternForDate tripPatternForDate) {
     FeedScopedId routeId = tripPatternForDate.getTripPattern().getPattern().getRoute().getId();
     return !bannedRoutes.contains(routeId);
   }
+
+  /**
+   * The request parameters used by this filter. Only the wheelchair accessibility flags which
+   * affect the filtering are included, not the costs.
+   */
+  private record CacheKey(
+    boolean requireBikesAllowed,
+    boolean onlyAccessibleTrips,
+    boolean onlyAccessibleStops,
+    boolean includePlannedCancellations,
+    Set<MainAndSubMode> allowedTransitModes,
+    Set<FeedScopedId> bannedRoutes,
+    Set<FeedScopedId> bannedTrips
+  ) {}
 }
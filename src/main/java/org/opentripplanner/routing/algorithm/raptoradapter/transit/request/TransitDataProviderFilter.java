@@ -1,6 +1,7 @@
 package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
 
 import java.util.BitSet;
+import javax.annotation.Nullable;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternWithRaptorStopIndexes;
 import org.opentripplanner.transit.model.timetable.TripTimes;
@@ -33,4 +34,16 @@ public interface TransitDataProviderFilter {
     TripPatternWithRaptorStopIndexes tripPattern,
     BitSet boardingPossible
   );
+
+  /**
+   * Return a value object identifying the filtering done by this filter. Two filters with equal
+   * keys must accept the same trip patterns, trip times and stops. The key is used to cache the
+   * filtered transit data across requests, see {@link RaptorRequestTransitDataCache}.
+   *
+   * @return {@code null} if the result of this filter can not be cached, this is the default.
+   */
+  @Nullable
+  default Object cacheKey() {
+    return null;
+  }
 }
@@ -0,0 +1,154 @@
+package org.opentripplanner.routing.api.request;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.opentripplanner.routing.core.TraverseModeSet;
+
+/**
+ * The parameters of a {@link RoutingRequest} which may be used by a street search, used as a key
+ * when the result of a street search is reused for another request. Two requests with equal keys
+ * give the same street search from the same place at the same time.
+ * <p>
+ * The key contains all the fields of the request, except the fields listed in {@link
+ * #NOT_USED_BY_STREET_SEARCH}. A new field in the request is therefore part of the key, until it
+ * is added to that list. A value with a type which does not implement {@code equals}, like the
+ * {@link RoutingRequest#dataOverlay}, is only equal to itself. Mutable values are copied, so
+ * changing the request does not change the key.
+ * <p>
+ * The time of the request is not part of the key.
+ */
+public final class StreetSearchRequestKey {
+
+  /**
+   * The fields of the request which are only used by the transit search, the itinerary filters
+   * or the API, or which describe the location or the time of the request.
+   */
+  static final Set<String> NOT_USED_BY_STREET_SEARCH = Set.of(
+    "parameters",
+    "transferOptimization",
+    "transitReluctanceForMode",
+    "from",
+    "to",
+    "intermediatePlaces",
+    "maxDirectStreetDuration",
+    "maxDirectStreetDurationForMode",
+    "dateTime",
+    "searchWindow",
+    "maxJourneyDuration",
+    "pageCursor",
+    "timetableView",
+    "numItineraries",
+    "showIntermediateStops",
+    "transferCost",
+    "nonpreferredTransferCost",
+    "waitReluctance",
+    "waitAtBeginningFactor",
+    "walkBoardCost",
+    "bikeBoardCost",
+    "bannedAgencies",
+    "whiteListedAgencies",
+    "preferredAgencies",
+    "unpreferredAgencies",
+    "bannedRoutes",
+    "whiteListedRoutes",
+    "preferredRoutes",
+    "otherThanPreferredRoutesPenalty",
+    "unpreferredRoutes",
+    "unpreferredRouteCost",
+    "bannedTrips",
+    "transferSlack",
+    "boardSlack",
+    "boardSlackForMode",
+    "alightSlack",
+    "alightSlackForMode",
+    "maxTransfers",
+    "ignoreRealtimeUpdates",
+    "includePlannedCancellations",
+    "startingTransitStopId",
+    "startingTransitTripId",
+    "onlyTransitTrips",
+    "disableAlertFiltering",
+    "geoidElevation",
+    "pathComparator",
+    "itineraryFilters",
+    "raptorDebugging",
+    "raptorOptions",
+    "tags",
+    "fromEnvelope",
+    "toEnvelope"
+  );
+
+  private static final List<Field> FIELDS = streetSearchFields();
+
+  private final List<Object> values;
+
+  private StreetSearchRequestKey(List<Object> values) {
+    this.values = values;
+  }
+
+  public static StreetSearchRequestKey of(RoutingRequest request) {
+    List<Object> values = new ArrayList<>(FIELDS.size());
+    for (Field field : FIELDS) {
+      try {
+        values.add(copyOf(field.get(request)));
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return new StreetSearchRequestKey(values);
+  }
+
+  @Override
+  public int hashCode() {
+    return values.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return values.equals(((StreetSearchRequestKey) o).values);
+  }
+
+  @Override
+  public String toString() {
+    return "StreetSearchRequestKey" + values;
+  }
+
+  static List<Field> streetSearchFields() {
+    return Arrays
+      .stream(RoutingRequest.class.getDeclaredFields())
+      .filter(f -> !Modifier.isStatic(f.getModifiers()))
+      .filter(f -> !NOT_USED_BY_STREET_SEARCH.contains(f.getName()))
+      .peek(f -> f.setAccessible(true))
+      .toList();
+  }
+
+  private static Object copyOf(Object value) {
+    if (value instanceof TraverseModeSet modes) {
+      return modes.clone();
+    }
+    if (value instanceof Set<?> set) {
+      return new HashSet<>(set);
+    }
+    if (value instanceof Collection<?> collection) {
+      return new ArrayList<>(collection);
+    }
+    if (value instanceof Map<?, ?> map) {
+      return new HashMap<>(map);
+    }
+    return value;
+  }
+}
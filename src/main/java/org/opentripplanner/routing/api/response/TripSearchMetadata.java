@@ -80,6 +80,10 @@ public class TripSearchMetadata {
     );
   }
 
+  public TripSearchMetadata copy() {
+    return new TripSearchMetadata(searchWindowUsed, prevDateTime, nextDateTime);
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder
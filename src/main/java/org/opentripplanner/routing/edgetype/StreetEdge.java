@@ -2,6 +2,7 @@ package org.opentripplanner.routing.edgetype;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -32,6 +33,7 @@ import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.transit.model.basic.I18NString;
 import org.opentripplanner.transit.model.basic.NonLocalizedString;
 import org.opentripplanner.util.BitSetUtils;
+import org.opentripplanner.util.geometry.CompactLineStringBuffer;
 import org.opentripplanner.util.geometry.CompactLineStringUtils;
 import org.opentripplanner.util.geometry.GeometryUtils;
 import org.slf4j.Logger;
@@ -68,7 +70,16 @@ public class StreetEdge
   private static final int WHEELCHAIR_ACCESSIBLE_FLAG_INDEX = 6;
   private static final int BICYCLE_NOTHRUTRAFFIC = 7;
   private static final int WALK_NOTHRUTRAFFIC = 8;
-  private StreetEdgeCostExtension costExtension;
+
+  /** The permission code used for a {@code null} permission */
+  private static final byte NO_PERMISSION = -1;
+
+  /*
+   * The fields are kept as small as possible, there may be tens of millions of street edges in a
+   * graph. An edge takes 56 bytes with compressed object pointers, excluding the geometry and
+   * extensions.
+   */
+
   /** back, roundabout, stairs, ... */
   private short flags;
 
@@ -91,9 +102,11 @@ public class StreetEdge
 
   private I18NString name;
 
-  private StreetTraversalPermission permission;
+  /** The {@link StreetTraversalPermission#code}, or {@link #NO_PERMISSION} */
+  private byte permission;
 
-  private int streetClass = CLASS_OTHERPATH;
+  /** The CLASS_* bits of this street, all of them fit in a byte */
+  private byte streetClass = CLASS_OTHERPATH;
 
   /**
    * The speed (meters / sec) at which an automobile can traverse this street segment.
@@ -112,19 +125,17 @@ public class StreetEdge
   private StreetElevationExtension elevationExtension;
 
   /**
-   * The set of turn restrictions of this edge. Since most instances don't have any, we reuse a
-   * global instance in order to conserve memory.
+   * The turn restrictions and cost extension of this edge. Since most instances don't have any, we
+   * reuse a global instance in order to conserve memory.
    * <p>
    * This field is optimized for low memory consumption and fast access, but modification is
-   * synchronized since it can happen concurrently.
-   * <p>
-   * Why not use null to represent no turn restrictions? This would mean that the access would also
-   * need to be synchronized but since that is a very hot code path, it needs to be fast.
+   * synchronized since it can happen concurrently. The extensions are immutable, and replaced
+   * when they are modified, so they can be read without synchronization.
    * <p>
    * Why not use a concurrent collection? That would mean that every StreetEdge has its own empty
    * instance which would increase memory significantly.
    */
-  private List<TurnRestriction> turnRestrictions = List.of();
+  private Extensions extensions = Extensions.NONE;
 
   public StreetEdge(
     StreetVertex v1,
@@ -436,6 +447,29 @@ public class StreetEdge
     );
   }
 
+  /**
+   * Decode the geometry of this edge into the given buffer. The coordinates are the same as in
+   * {@link #getGeometry()}, but no line string is created. Use this when going through the geometry
+   * of many edges.
+   */
+  public CompactLineStringBuffer decodeGeometry(CompactLineStringBuffer buffer) {
+    return decodeGeometry(buffer, fromv.getLon(), fromv.getLat(), tov.getLon(), tov.getLat());
+  }
+
+  /**
+   * Decode the geometry between the given end points, for subclasses which keep the geometry after
+   * the vertices are removed.
+   */
+  protected final CompactLineStringBuffer decodeGeometry(
+    CompactLineStringBuffer buffer,
+    double xa,
+    double ya,
+    double xb,
+    double yb
+  ) {
+    return buffer.decode(xa, ya, xb, yb, compactGeometry, isBack());
+  }
+
   @Override
   public double getDistanceMeters() {
     return length_mm / 1000.0;
@@ -474,7 +508,7 @@ public class StreetEdge
   }
 
   public boolean canTurnOnto(Edge e, State state, TraverseMode mode) {
-    for (TurnRestriction turnRestriction : turnRestrictions) {
+    for (TurnRestriction turnRestriction : extensions.turnRestrictions()) {
       /* FIXME: This is wrong for trips that end in the middle of turnRestriction.to
        */
 
@@ -519,11 +553,11 @@ public class StreetEdge
   }
 
   public StreetTraversalPermission getPermission() {
-    return permission;
+    return permission == NO_PERMISSION ? null : StreetTraversalPermission.get(permission);
   }
 
   public void setPermission(StreetTraversalPermission permission) {
-    this.permission = permission;
+    this.permission = permission == null ? NO_PERMISSION : (byte) permission.code;
   }
 
   public int getStreetClass() {
@@ -531,7 +565,10 @@ public class StreetEdge
   }
 
   public void setStreetClass(int streetClass) {
-    this.streetClass = streetClass;
+    if (streetClass < 0 || streetClass > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid street class: " + streetClass);
+    }
+    this.streetClass = (byte) streetClass;
   }
 
   /**
@@ -614,8 +651,56 @@ public class StreetEdge
     return (int) Math.round(this.outAngle * 180 / 128.0);
   }
 
-  public void setCostExtension(StreetEdgeCostExtension costExtension) {
-    this.costExtension = costExtension;
+  /* Raw attribute access, used by the StreetEdgeSections */
+
+  short getFlags() {
+    return flags;
+  }
+
+  int getLengthMm() {
+    return length_mm;
+  }
+
+  byte[] getCompactGeometry() {
+    return compactGeometry;
+  }
+
+  byte getRawInAngle() {
+    return inAngle;
+  }
+
+  byte getRawOutAngle() {
+    return outAngle;
+  }
+
+  /**
+   * Set the attributes which are not serialized with the rest of the edge when the graph is saved
+   * with {@link StreetEdgeSections}. The values are set as they are, without any validation.
+   */
+  void restoreAttributes(
+    short flags,
+    int lengthMm,
+    float bicycleSafetyFactor,
+    float carSpeed,
+    StreetTraversalPermission permission,
+    int streetClass,
+    byte inAngle,
+    byte outAngle,
+    byte[] compactGeometry
+  ) {
+    this.flags = flags;
+    this.length_mm = lengthMm;
+    this.bicycleSafetyFactor = bicycleSafetyFactor;
+    this.carSpeed = carSpeed;
+    this.setPermission(permission);
+    this.streetClass = (byte) streetClass;
+    this.inAngle = inAngle;
+    this.outAngle = outAngle;
+    this.compactGeometry = compactGeometry;
+  }
+
+  public synchronized void setCostExtension(StreetEdgeCostExtension costExtension) {
+    extensions = Extensions.of(extensions.turnRestrictions(), costExtension);
   }
 
   /**
@@ -630,7 +715,7 @@ public class StreetEdge
       v,
       geoms.first,
       name,
-      permission,
+      getPermission(),
       this.isBack()
     );
     StreetEdge e2 = new StreetEdge(
@@ -638,7 +723,7 @@ public class StreetEdge
       (StreetVertex) tov,
       geoms.second,
       name,
-      permission,
+      getPermission(),
       this.isBack()
     );
 
@@ -788,9 +873,9 @@ public class StreetEdge
     synchronized (this) {
       // in order to guarantee fast access without extra allocations
       // we make the turn restrictions unmodifiable after a copy-on-write modification
-      var temp = new HashSet<>(turnRestrictions);
+      var temp = new HashSet<>(extensions.turnRestrictions());
       temp.add(turnRestriction);
-      turnRestrictions = List.copyOf(temp);
+      extensions = Extensions.of(List.copyOf(temp), extensions.costExtension());
     }
   }
 
@@ -804,26 +889,24 @@ public class StreetEdge
       return;
     }
     synchronized (this) {
+      var turnRestrictions = extensions.turnRestrictions();
       if (turnRestrictions.contains(turnRestriction)) {
         if (turnRestrictions.size() == 1) {
-          turnRestrictions = List.of();
+          extensions = Extensions.of(List.of(), extensions.costExtension());
         } else {
           // in order to guarantee fast access without extra allocations
           // we make the turn restrictions unmodifiable after a copy-on-write modification
           var withRemoved = new HashSet<>(turnRestrictions);
           withRemoved.remove(turnRestriction);
-          turnRestrictions = List.copyOf(withRemoved);
+          extensions = Extensions.of(List.copyOf(withRemoved), extensions.costExtension());
         }
       }
     }
   }
 
   public void removeAllTurnRestrictions() {
-    if (turnRestrictions == null) {
-      return;
-    }
     synchronized (this) {
-      turnRestrictions = List.of();
+      extensions = Extensions.of(List.of(), extensions.costExtension());
     }
   }
 
@@ -837,7 +920,7 @@ public class StreetEdge
   @Nonnull
   public List<TurnRestriction> getTurnRestrictions() {
     // this can be safely returned as it's unmodifiable
-    return turnRestrictions;
+    return extensions.turnRestrictions();
   }
 
   protected void copyPropertiesToSplitEdge(
@@ -1048,6 +1131,7 @@ public class StreetEdge
       s1.incrementWalkDistance(getDistanceWithElevation());
     }
 
+    var costExtension = extensions.costExtension();
     if (costExtension != null) {
       weight += costExtension.calculateExtraCost(s0.getRoutingContext(), length_mm, traverseMode);
     }
@@ -1200,4 +1284,25 @@ public class StreetEdge
 
   /** Tuple to return time and weight from calculation */
   private record TraversalCosts(double time, double weight) {}
+
+  /**
+   * The rarely used, and possibly large, attributes of an edge. They are kept out of the edge
+   * itself, so that the edges without them share the same {@link #NONE} instance.
+   */
+  private record Extensions(
+    List<TurnRestriction> turnRestrictions,
+    StreetEdgeCostExtension costExtension
+  )
+    implements Serializable {
+    private static final Extensions NONE = new Extensions(List.of(), null);
+
+    static Extensions of(
+      List<TurnRestriction> turnRestrictions,
+      StreetEdgeCostExtension costExtension
+    ) {
+      return turnRestrictions.isEmpty() && costExtension == null
+        ? NONE
+        : new Extensions(turnRestrictions, costExtension);
+    }
+  }
 }
@@ -0,0 +1,282 @@
+package org.opentripplanner.routing.edgetype;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Store the primitive attributes of all {@link StreetEdge}s in flat sections, one section for each
+ * attribute with one element for each edge. The sections are written to the graph file after the
+ * Kryo serialized part, and the Kryo serializer skips the {@link #FIELDS_IN_SECTIONS}. When the
+ * graph is loaded from a local file, the sections are memory-mapped and the attributes are copied
+ * directly into the edges, without going through Kryo.
+ * <p>
+ * The edges are identified by their position in the list of street edges. The edges must be given
+ * in the same order when the sections are written and read.
+ * <p>
+ * Layout of the sections block, all values are big-endian:
+ * <pre>
+ * int   magic number
+ * int   version
+ * int   number of edges
+ * int   number of geometries
+ * int   number of sections
+ * long  length of each section, in the order of {@link Section}
+ * ...   the sections
+ * </pre>
+ * The geometries are deduplicated, forward and back edges sharing the same compact geometry still
+ * share it after loading.
+ */
+public final class StreetEdgeSections {
+
+  /** The {@link StreetEdge} fields stored in the sections, these are not serialized by Kryo. */
+  public static final List<String> FIELDS_IN_SECTIONS = List.of(
+    "flags",
+    "length_mm",
+    "bicycleSafetyFactor",
+    "carSpeed",
+    "permission",
+    "streetClass",
+    "inAngle",
+    "outAngle",
+    "compactGeometry"
+  );
+
+  private static final int MAGIC_NUMBER = 0x4f545053; // "OTPS"
+  private static final int VERSION = 1;
+  private static final int NO_GEOMETRY = -1;
+  private static final byte NO_PERMISSION = -1;
+
+  /** The sections, in the order they are written. Do not change the order without a new VERSION. */
+  enum Section {
+    FLAGS(Short.BYTES),
+    LENGTH_MM(Integer.BYTES),
+    BICYCLE_SAFETY_FACTOR(Float.BYTES),
+    CAR_SPEED(Float.BYTES),
+    PERMISSION(Byte.BYTES),
+    STREET_CLASS(Integer.BYTES),
+    IN_ANGLE(Byte.BYTES),
+    OUT_ANGLE(Byte.BYTES),
+    /** The index of the edge geometry in the GEOMETRY_OFFSETS, or NO_GEOMETRY */
+    GEOMETRY_INDEX(Integer.BYTES),
+    /** The offset of each geometry in the GEOMETRY_DATA, plus the end of the last geometry */
+    GEOMETRY_OFFSETS(Integer.BYTES),
+    GEOMETRY_DATA(Byte.BYTES);
+
+    private final int elementSize;
+
+    Section(int elementSize) {
+      this.elementSize = elementSize;
+    }
+  }
+
+  private final List<StreetEdge> edges;
+  private final List<byte[]> geometries = new ArrayList<>();
+  private final int[] geometryIndex;
+  private final long geometryDataLength;
+
+  private StreetEdgeSections(List<StreetEdge> edges) {
+    this.edges = edges;
+    this.geometryIndex = new int[edges.size()];
+
+    Map<byte[], Integer> indexOfGeometry = new IdentityHashMap<>();
+    long dataLength = 0;
+    for (int i = 0; i < edges.size(); ++i) {
+      byte[] geometry = edges.get(i).getCompactGeometry();
+      if (geometry == null) {
+        geometryIndex[i] = NO_GEOMETRY;
+        continue;
+      }
+      Integer index = indexOfGeometry.get(geometry);
+      if (index == null) {
+        index = geometries.size();
+        indexOfGeometry.put(geometry, index);
+        geometries.add(geometry);
+        dataLength += geometry.length;
+      }
+      geometryIndex[i] = index;
+    }
+    this.geometryDataLength = dataLength;
+  }
+
+  /**
+   * Prepare the sections for the given street edges.
+   */
+  public static StreetEdgeSections of(List<StreetEdge> edges) {
+    return new StreetEdgeSections(edges);
+  }
+
+  /**
+   * Each section is mapped into a single buffer, so no section can be bigger than 2 GB. If this
+   * return {@code false}, the graph must be saved without sections.
+   */
+  public boolean canBeMapped() {
+    for (Section section : Section.values()) {
+      if (sectionLength(section) > Integer.MAX_VALUE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(MAGIC_NUMBER);
+    out.writeInt(VERSION);
+    out.writeInt(edges.size());
+    out.writeInt(geometries.size());
+    out.writeInt(Section.values().length);
+    for (Section section : Section.values()) {
+      out.writeLong(sectionLength(section));
+    }
+
+    for (StreetEdge e : edges) {
+      out.writeShort(e.getFlags());
+    }
+    for (StreetEdge e : edges) {
+      out.writeInt(e.getLengthMm());
+    }
+    for (StreetEdge e : edges) {
+      out.writeFloat(e.getBicycleSafetyFactor());
+    }
+    for (StreetEdge e : edges) {
+      out.writeFloat(e.getCarSpeed());
+    }
+    for (StreetEdge e : edges) {
+      var permission = e.getPermission();
+      out.writeByte(permission == null ? NO_PERMISSION : permission.code);
+    }
+    for (StreetEdge e : edges) {
+      out.writeInt(e.getStreetClass());
+    }
+    for (StreetEdge e : edges) {
+      out.writeByte(e.getRawInAngle());
+    }
+    for (StreetEdge e : edges) {
+      out.writeByte(e.getRawOutAngle());
+    }
+    for (int index : geometryIndex) {
+      out.writeInt(index);
+    }
+    int offset = 0;
+    for (byte[] geometry : geometries) {
+      out.writeInt(offset);
+      offset += geometry.length;
+    }
+    out.writeInt(offset);
+    for (byte[] geometry : geometries) {
+      out.write(geometry);
+    }
+  }
+
+  /**
+   * Read the sections and restore the attributes of the given edges. The edges must be in the same
+   * order as when the sections were written.
+   */
+  public static void read(SectionSource source, List<StreetEdge> edges) throws IOException {
+    ByteBuffer header = source.next(5 * Integer.BYTES);
+    if (header.getInt() != MAGIC_NUMBER) {
+      throw new IOException("The street edge sections are not valid.");
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException(
+        "Unsupported street edge sections version " + version + ", expected " + VERSION + "."
+      );
+    }
+    int nEdges = header.getInt();
+    int nGeometries = header.getInt();
+    int nSections = header.getInt();
+    if (nSections != Section.values().length) {
+      throw new IOException("The street edge sections are not valid.");
+    }
+    if (nEdges != edges.size()) {
+      throw new IOException(
+        "The street edge sections do not match the graph, expected " +
+        edges.size() +
+        " edges, but found " +
+        nEdges +
+        "."
+      );
+    }
+
+    ByteBuffer lengths = source.next(nSections * Long.BYTES);
+    ByteBuffer[] sections = new ByteBuffer[nSections];
+    for (int i = 0; i < nSections; ++i) {
+      sections[i] = source.next(lengths.getLong());
+    }
+
+    byte[][] geometries = readGeometries(
+      sections[Section.GEOMETRY_OFFSETS.ordinal()],
+      sections[Section.GEOMETRY_DATA.ordinal()],
+      nGeometries
+    );
+
+    // Use absolute gets, the values are read directly from the (mapped) buffers
+    ByteBuffer flags = sections[Section.FLAGS.ordinal()];
+    ByteBuffer lengthMm = sections[Section.LENGTH_MM.ordinal()];
+    ByteBuffer bicycleSafetyFactor = sections[Section.BICYCLE_SAFETY_FACTOR.ordinal()];
+    ByteBuffer carSpeed = sections[Section.CAR_SPEED.ordinal()];
+    ByteBuffer permission = sections[Section.PERMISSION.ordinal()];
+    ByteBuffer streetClass = sections[Section.STREET_CLASS.ordinal()];
+    ByteBuffer inAngle = sections[Section.IN_ANGLE.ordinal()];
+    ByteBuffer outAngle = sections[Section.OUT_ANGLE.ordinal()];
+    ByteBuffer geometryIndex = sections[Section.GEOMETRY_INDEX.ordinal()];
+
+    for (int i = 0; i < nEdges; ++i) {
+      byte permissionCode = permission.get(i);
+      int geometry = geometryIndex.getInt(i * Integer.BYTES);
+      edges
+        .get(i)
+        .restoreAttributes(
+          flags.getShort(i * Short.BYTES),
+          lengthMm.getInt(i * Integer.BYTES),
+          bicycleSafetyFactor.getFloat(i * Float.BYTES),
+          carSpeed.getFloat(i * Float.BYTES),
+          permissionCode == NO_PERMISSION ? null : StreetTraversalPermission.get(permissionCode),
+          streetClass.getInt(i * Integer.BYTES),
+          inAngle.get(i),
+          outAngle.get(i),
+          geometry == NO_GEOMETRY ? null : geometries[geometry]
+        );
+    }
+  }
+
+  private static byte[][] readGeometries(ByteBuffer offsets, ByteBuffer data, int nGeometries) {
+    byte[][] geometries = new byte[nGeometries][];
+    int start = offsets.getInt(0);
+    for (int i = 0; i < nGeometries; ++i) {
+      int end = offsets.getInt((i + 1) * Integer.BYTES);
+      byte[] geometry = new byte[end - start];
+      data.get(start, geometry);
+      geometries[i] = geometry;
+      start = end;
+    }
+    return geometries;
+  }
+
+  private long sectionLength(Section section) {
+    long nElements =
+      switch (section) {
+        case GEOMETRY_OFFSETS -> geometries.size() + 1;
+        case GEOMETRY_DATA -> geometryDataLength;
+        default -> edges.size();
+      };
+    return nElements * section.elementSize;
+  }
+
+  /**
+   * The source of the sections. The sections are requested in the order they are written, a file
+   * based source can map each section, while a stream based source must read them into memory.
+   */
+  @FunctionalInterface
+  public interface SectionSource {
+    /**
+     * Return a buffer with the next {@code length} bytes, starting at index 0.
+     */
+    ByteBuffer next(long length) throws IOException;
+  }
+}
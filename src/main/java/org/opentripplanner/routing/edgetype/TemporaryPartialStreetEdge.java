@@ -5,6 +5,7 @@ import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.vertextype.StreetVertex;
 import org.opentripplanner.transit.model.basic.I18NString;
+import org.opentripplanner.util.geometry.CompactLineStringBuffer;
 
 public final class TemporaryPartialStreetEdge extends StreetEdge implements TemporaryEdge {
 
@@ -125,6 +126,17 @@ public final class TemporaryPartialStreetEdge extends StreetEdge implements Temp
     return geometry;
   }
 
+  /**
+   * Decode the geometry between the end points of the stored geometry, since the from/to vertices
+   * are set to null when this edge is removed from the graph.
+   */
+  @Override
+  public CompactLineStringBuffer decodeGeometry(CompactLineStringBuffer buffer) {
+    Coordinate a = geometry.getCoordinateN(0);
+    Coordinate b = geometry.getCoordinateN(geometry.getNumPoints() - 1);
+    return decodeGeometry(buffer, a.x, a.y, b.x, b.y);
+  }
+
   /**
    * Have the inbound angle of  their parent.
    */
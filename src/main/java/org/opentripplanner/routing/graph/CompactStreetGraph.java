@@ -0,0 +1,195 @@
+package org.opentripplanner.routing.graph;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A compact, read-only copy of the graph adjacency. Each vertex and edge is given a dense integer
+ * index, and the outgoing and incoming edges of all vertices are stored in two int arrays in
+ * compressed sparse row (CSR) format: the edges of vertex {@code v} are found at the positions
+ * {@code offsets[v]} (inclusive) to {@code offsets[v+1]} (exclusive) in the adjacency array. This
+ * lets the {@link org.opentripplanner.routing.algorithm.astar.AStar} search iterate the edges of a
+ * vertex by scanning a contiguous block of memory, instead of going through the edge arrays and
+ * collection wrappers of each {@link Vertex}.
+ * <p>
+ * The compact graph is created after the graph is loaded, and is never changed. The graph
+ * continues to change after that:
+ * <ul>
+ *   <li>
+ *     When a permanent edge is added to or removed from a vertex, the edges of the vertex are
+ *     found in the usual way. The vertex keeps its index.
+ *   </li>
+ *   <li>
+ *     Temporary edges added for a request are not part of the compact graph. The compact edges of
+ *     a vertex are only used when the vertex has the same number of edges as when the compact
+ *     graph was created, that is when no temporary edges are connected to it.
+ *   </li>
+ * </ul>
+ * This class is thread-safe.
+ */
+public class CompactStreetGraph {
+
+  private final Vertex[] vertices;
+  private final Edge[] edges;
+
+  /** The index of the from vertex for each edge */
+  private final int[] fromVertex;
+
+  /** The index of the to vertex for each edge */
+  private final int[] toVertex;
+
+  private final int[] outgoingOffsets;
+  private final int[] outgoingEdges;
+  private final int[] incomingOffsets;
+  private final int[] incomingEdges;
+
+  private CompactStreetGraph(Vertex[] vertices, Map<Edge, Integer> edgeIndex) {
+    this.vertices = vertices;
+    this.edges = new Edge[edgeIndex.size()];
+    this.fromVertex = new int[edges.length];
+    this.toVertex = new int[edges.length];
+    this.outgoingOffsets = new int[vertices.length + 1];
+    this.incomingOffsets = new int[vertices.length + 1];
+    this.outgoingEdges = new int[edges.length];
+    this.incomingEdges = new int[edges.length];
+
+    edgeIndex.forEach((edge, e) -> {
+      edges[e] = edge;
+      fromVertex[e] = edge.getFromVertex().getIndex();
+      toVertex[e] = edge.getToVertex().getIndex();
+    });
+
+    // The edges of each vertex are kept in the same order as in the vertex
+    int nOutgoing = 0;
+    int nIncoming = 0;
+    for (int v = 0; v < vertices.length; ++v) {
+      for (Edge edge : vertices[v].getOutgoing()) {
+        Integer e = edgeIndex.get(edge);
+        if (e != null) {
+          outgoingEdges[nOutgoing++] = e;
+        }
+      }
+      for (Edge edge : vertices[v].getIncoming()) {
+        Integer e = edgeIndex.get(edge);
+        if (e != null) {
+          incomingEdges[nIncoming++] = e;
+        }
+      }
+      outgoingOffsets[v + 1] = nOutgoing;
+      incomingOffsets[v + 1] = nIncoming;
+    }
+  }
+
+  /**
+   * Index the given vertices and their edges. An edge is included if both its vertices are in the
+   * given collection. The index of each vertex is set, any index from a previous compact graph is
+   * replaced. A vertex with an edge to or from a vertex outside the collection is not given an
+   * index, its edges are always found in the usual way.
+   */
+  public static CompactStreetGraph of(Collection<Vertex> vertices) {
+    Vertex[] vertexArray = vertices.toArray(Vertex[]::new);
+    for (int i = 0; i < vertexArray.length; ++i) {
+      vertexArray[i].setIndex(i);
+    }
+
+    Map<Edge, Integer> edgeIndex = new IdentityHashMap<>();
+    for (Vertex v : vertexArray) {
+      for (Edge e : v.getOutgoing()) {
+        if (isIncluded(e, vertexArray)) {
+          edgeIndex.put(e, edgeIndex.size());
+        }
+      }
+    }
+
+    var graph = new CompactStreetGraph(vertexArray, edgeIndex);
+
+    for (int i = 0; i < vertexArray.length; ++i) {
+      Vertex v = vertexArray[i];
+      if (v.getDegreeOut() != graph.degree(i, false) || v.getDegreeIn() != graph.degree(i, true)) {
+        v.setIndex(Vertex.NO_INDEX);
+      }
+    }
+    return graph;
+  }
+
+  public int numberOfVertices() {
+    return vertices.length;
+  }
+
+  public int numberOfEdges() {
+    return edges.length;
+  }
+
+  public Vertex vertex(int index) {
+    return vertices[index];
+  }
+
+  public Edge edge(int index) {
+    return edges[index];
+  }
+
+  public int fromVertex(int edgeIndex) {
+    return fromVertex[edgeIndex];
+  }
+
+  public int toVertex(int edgeIndex) {
+    return toVertex[edgeIndex];
+  }
+
+  /**
+   * Return the index of the given vertex, or {@link Vertex#NO_INDEX} if the vertex is not part of
+   * this compact graph. The index is in the range {@code [0, numberOfVertices())} and can be used to
+   * keep per-vertex state in arrays.
+   */
+  public int vertexIndex(Vertex vertex) {
+    return isIncluded(vertex, vertices) ? vertex.getIndex() : Vertex.NO_INDEX;
+  }
+
+  /**
+   * Return the index of the given vertex, if its edges in the given direction can be found in this
+   * compact graph. Otherwise {@link Vertex#NO_INDEX} is returned, and the edges must be taken from
+   * the vertex itself.
+   *
+   * @param incoming {@code true} for the incoming edges, {@code false} for the outgoing edges
+   */
+  public int indexOf(Vertex vertex, boolean incoming) {
+    int index = vertexIndex(vertex);
+    if (index == Vertex.NO_INDEX || vertex.hasCompactEdgesChanged()) {
+      return Vertex.NO_INDEX;
+    }
+    int degree = incoming ? vertex.getDegreeIn() : vertex.getDegreeOut();
+    return degree == degree(index, incoming) ? index : Vertex.NO_INDEX;
+  }
+
+  /**
+   * The first position of the edges of the given vertex in the adjacency array. Use
+   * {@link #adjacentEdge(int, boolean)} to get the edge at a position.
+   */
+  public int firstAdjacent(int vertexIndex, boolean incoming) {
+    return (incoming ? incomingOffsets : outgoingOffsets)[vertexIndex];
+  }
+
+  /** The position after the last edge of the given vertex in the adjacency array. */
+  public int endAdjacent(int vertexIndex, boolean incoming) {
+    return (incoming ? incomingOffsets : outgoingOffsets)[vertexIndex + 1];
+  }
+
+  /** The edge at the given position in the adjacency array. */
+  public Edge adjacentEdge(int position, boolean incoming) {
+    return edges[(incoming ? incomingEdges : outgoingEdges)[position]];
+  }
+
+  public int degree(int vertexIndex, boolean incoming) {
+    return endAdjacent(vertexIndex, incoming) - firstAdjacent(vertexIndex, incoming);
+  }
+
+  private static boolean isIncluded(Edge edge, Vertex[] vertices) {
+    return isIncluded(edge.getFromVertex(), vertices) && isIncluded(edge.getToVertex(), vertices);
+  }
+
+  private static boolean isIncluded(Vertex v, Vertex[] vertices) {
+    int i = v.getIndex();
+    return i >= 0 && i < vertices.length && vertices[i] == v;
+  }
+}
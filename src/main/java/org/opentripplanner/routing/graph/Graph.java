@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.HashMap;
@@ -16,6 +17,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
@@ -30,6 +32,7 @@ import org.opentripplanner.model.calendar.openinghours.OpeningHoursCalendarServi
 import org.opentripplanner.routing.core.intersection_model.IntersectionTraversalCostModel;
 import org.opentripplanner.routing.core.intersection_model.SimpleIntersectionTraversalCostModel;
 import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graphfinder.NearbyStopCache;
 import org.opentripplanner.routing.impl.StreetVertexIndex;
 import org.opentripplanner.routing.services.RealtimeVehiclePositionService;
 import org.opentripplanner.routing.services.notes.StreetNotesService;
@@ -73,6 +76,8 @@ public class Graph implements Serializable {
 
   private OpeningHoursCalendarService openingHoursCalendarService;
   private transient StreetVertexIndex streetIndex;
+  private transient CompactStreetGraph compactStreetGraph;
+  private transient NearbyStopCache nearbyStopCache;
 
   //Envelope of all OSM and transit vertices. Calculated during build time
   private WorldEnvelope envelope = null;
@@ -337,6 +342,56 @@ public class Graph implements Serializable {
     LOG.info("Index street model complete.");
   }
 
+  /**
+   * Create a {@link CompactStreetGraph} of all vertices and edges in the graph, used by the street
+   * search. This should be done after the graph is loaded and indexed. It is optional; the street
+   * search uses the edges of each vertex if it is not created.
+   */
+  public void compactStreetGraph() {
+    LOG.info("Compact street graph...");
+    compactStreetGraph = CompactStreetGraph.of(getVertices());
+    LOG.info(
+      "Compact street graph complete. {} vertices and {} edges.",
+      compactStreetGraph.numberOfVertices(),
+      compactStreetGraph.numberOfEdges()
+    );
+  }
+
+  @Nullable
+  public CompactStreetGraph getCompactStreetGraph() {
+    return compactStreetGraph;
+  }
+
+  /**
+   * Cache the access/egress stops found for popular locations, see {@link NearbyStopCache}. The
+   * cache is disabled if this is not called, or if the street graph has turn restrictions which
+   * are only active at some times.
+   */
+  public void initNearbyStopCache(int maximumSize, Duration timeToLive) {
+    if (NearbyStopCache.hasTimeDependentTurnRestrictions(this)) {
+      LOG.info(
+        "The access/egress cache is not used, since the street graph has time-dependent turn restrictions."
+      );
+      return;
+    }
+    nearbyStopCache = new NearbyStopCache(maximumSize, timeToLive);
+  }
+
+  @Nullable
+  public NearbyStopCache getNearbyStopCache() {
+    return nearbyStopCache;
+  }
+
+  /**
+   * Discard the cached access/egress stops. This must be called by the updaters when they add or
+   * remove vertices and edges.
+   */
+  public void invalidateNearbyStopCache() {
+    if (nearbyStopCache != null) {
+      nearbyStopCache.invalidateAll();
+    }
+  }
+
   public OpeningHoursCalendarService getOpeningHoursCalendarService() {
     return this.openingHoursCalendarService;
   }
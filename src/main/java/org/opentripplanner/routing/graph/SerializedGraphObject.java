@@ -6,20 +6,30 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.opentripplanner.common.geometry.CompactElevationProfile;
 import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.datastore.file.FileDataSource;
 import org.opentripplanner.model.projectinfo.GraphFileHeader;
 import org.opentripplanner.model.projectinfo.OtpProjectInfo;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetEdgeSections;
+import org.opentripplanner.routing.graph.kryosupport.ChunkedKryo;
 import org.opentripplanner.routing.graph.kryosupport.KryoBuilder;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
@@ -40,15 +50,37 @@ import org.slf4j.LoggerFactory;
  * serializer to know that vertices referenced by the edges are the same vertices stored in the
  * graph itself. The easiest way to do this is to make only one serialization call, serializing a
  * single object that contains both the graph and the edge collection.
+ * <p>
+ * The file starts with the {@link GraphFileHeader}, followed by a byte with the format of the rest
+ * of the file. If the format is {@link #KRYO_FORMAT}, everything is serialized in one Kryo stream.
+ * Otherwise, the format is a combination of these flags:
+ * <ul>
+ *   <li>{@link #CHUNKED_FLAG}: The Kryo stream is split in {@link ChunkedKryo} chunks, which are
+ *   deserialized in parallel. The edges are in the first chunks, in groups of
+ *   {@link #EDGES_PER_CHUNK}, followed by the transit model, the graph and this object.</li>
+ *   <li>{@link #STREET_EDGE_SECTIONS_FLAG}: The Kryo serialized object does not contain the street
+ *   edge attributes. It is followed by the {@link StreetEdgeSections} and the position of the
+ *   sections in the file as a long. When loading the graph from a local file, the sections are
+ *   memory-mapped.</li>
+ * </ul>
  */
 public class SerializedGraphObject implements Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(SerializedGraphObject.class);
 
+  private static final byte KRYO_FORMAT = 0;
+  private static final byte STREET_EDGE_SECTIONS_FLAG = 1;
+  private static final byte CHUNKED_FLAG = 2;
+
+  private static final int EDGES_PER_CHUNK = 50_000;
+
+  /** The size in degrees of the cells used to order the edges, see {@link #edgesInCellOrder} */
+  private static final double CELL_SIZE_DEGREES = 0.02;
+
   public final Graph graph;
   public final TransitModel transitModel;
 
-  private final Collection<Edge> edges;
+  private final List<Edge> edges;
 
   /**
    * The config JSON used to build this graph. Allows checking whether the configuration has
@@ -72,7 +104,7 @@ public class SerializedGraphObject implements Serializable {
     RouterConfig routerConfig
   ) {
     this.graph = graph;
-    this.edges = graph.getEdges();
+    this.edges = edgesInCellOrder(graph);
     this.transitModel = transitModel;
     this.buildConfig = buildConfig;
     this.routerConfig = routerConfig;
@@ -96,16 +128,23 @@ public class SerializedGraphObject implements Serializable {
   }
 
   public static SerializedGraphObject load(DataSource source) {
-    return load(source.asInputStream(), source.path());
+    // Local files are loaded through a file channel, to memory-map the street edge sections
+    if (source instanceof FileDataSource && !source.name().endsWith(".gz")) {
+      return load(new File(source.path()));
+    }
+    return load(source.asInputStream(), null, source.path());
   }
 
   public static SerializedGraphObject load(File file) {
+    FileChannel channel;
     try {
-      return load(new FileInputStream(file), file.getAbsolutePath());
-    } catch (FileNotFoundException e) {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    } catch (IOException e) {
       LOG.error("Graph file not found: " + file, e);
       throw new OtpAppException(e.getMessage());
     }
+    // The input stream closes the channel
+    return load(Channels.newInputStream(channel), channel, file.getAbsolutePath());
   }
 
   /**
@@ -138,8 +177,70 @@ public class SerializedGraphObject implements Serializable {
 
   /* private methods */
 
-  private static SerializedGraphObject load(InputStream inputStream, String sourceDescription) {
-    // TODO store version information, halt load if versions mismatch
+  /**
+   * Return the edges in a list, the order of the edges must be kept for the street edge sections.
+   * <p>
+   * The vertices are written in the graph file chunk of the first edge referring to them, and a
+   * chunk referring to a vertex in another chunk must wait until that chunk is read, see
+   * {@link ChunkedKryo}. The edges are therefore grouped by the grid cell of their from vertex,
+   * with the cells in a checkerboard pattern: first the "black" cells, which do not share a side
+   * with each other, then the "white" cells. The chunks of the black cells mostly refer to their
+   * own vertices and are read in parallel, and the chunks of the white cells only wait for the
+   * black cells.
+   */
+  private static List<Edge> edgesInCellOrder(Graph graph) {
+    List<Vertex> vertices = new ArrayList<>(graph.getVertices());
+    vertices.sort(
+      Comparator
+        .comparingInt((Vertex v) -> (cell(v.getLat()) + cell(v.getLon())) & 1)
+        .thenComparingInt(v -> cell(v.getLat()))
+        .thenComparingInt(v -> cell(v.getLon()))
+    );
+    List<Edge> edges = new ArrayList<>();
+    for (Vertex v : vertices) {
+      edges.addAll(v.getOutgoing());
+    }
+    return edges;
+  }
+
+  private static int cell(double degrees) {
+    return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+  }
+
+  /**
+   * The objects to write in each chunk: the edges first, and the objects referring to them last.
+   */
+  private List<Object> chunks() {
+    List<Object> chunks = new ArrayList<>();
+    for (int i = 0; i < edges.size(); i += EDGES_PER_CHUNK) {
+      chunks.add(new ArrayList<>(edges.subList(i, Math.min(i + EDGES_PER_CHUNK, edges.size()))));
+    }
+    chunks.add(transitModel);
+    chunks.add(graph);
+    chunks.add(this);
+    return chunks;
+  }
+
+  /** The street edges, in the order they are serialized */
+  private List<StreetEdge> streetEdges() {
+    List<StreetEdge> streetEdges = new ArrayList<>();
+    for (Edge e : edges) {
+      if (e instanceof StreetEdge streetEdge) {
+        streetEdges.add(streetEdge);
+      }
+    }
+    return streetEdges;
+  }
+
+  /**
+   * @param channel If not {@code null}, the channel of the input stream, used to memory-map the
+   *                street edge sections.
+   */
+  private static SerializedGraphObject load(
+    InputStream inputStream,
+    @Nullable FileChannel channel,
+    String sourceDescription
+  ) {
     try (inputStream) {
       LOG.info("Reading graph from '{}'", sourceDescription);
       Input input = new Input(inputStream);
@@ -148,9 +249,27 @@ public class SerializedGraphObject implements Serializable {
         input.readBytes(GraphFileHeader.headerLength()),
         sourceDescription
       );
+      byte format = input.readByte();
+      if ((format & ~(STREET_EDGE_SECTIONS_FLAG | CHUNKED_FLAG)) != 0) {
+        throw new OtpAppException("Unknown graph file format %d: %s", format, sourceDescription);
+      }
+      boolean hasStreetEdgeSections = (format & STREET_EDGE_SECTIONS_FLAG) != 0;
 
-      Kryo kryo = KryoBuilder.create();
-      SerializedGraphObject serObj = (SerializedGraphObject) kryo.readClassAndObject(input);
+      Supplier<Kryo> kryoFactory = hasStreetEdgeSections
+        ? KryoBuilder::createWithStreetEdgeSections
+        : KryoBuilder::create;
+      SerializedGraphObject serObj = (SerializedGraphObject) (
+        (format & CHUNKED_FLAG) != 0
+          ? ChunkedKryo.read(input, Runtime.getRuntime().availableProcessors(), kryoFactory)
+          : kryoFactory.get().readClassAndObject(input)
+      );
+      if (hasStreetEdgeSections) {
+        LOG.info("Reading street edge sections...");
+        StreetEdgeSections.SectionSource sections = channel == null
+          ? streamSections(input)
+          : mappedSections(channel);
+        StreetEdgeSections.read(sections, serObj.streetEdges());
+      }
       SubMode.deserializeSubModeCache(serObj.allTransitSubModes);
       CompactElevationProfile.setDistanceBetweenSamplesM(
         serObj.graph.getDistanceBetweenElevationSamples()
@@ -163,6 +282,9 @@ public class SerializedGraphObject implements Serializable {
     } catch (IOException e) {
       LOG.error("Exception while loading graph: {}", e.getLocalizedMessage(), e);
       return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OtpAppException("Interrupted while loading graph: %s", sourceDescription);
     } catch (KryoException ke) {
       LOG.warn(
         "Exception while loading graph: {}\n{}",
@@ -178,6 +300,36 @@ public class SerializedGraphObject implements Serializable {
     }
   }
 
+  /**
+   * Read the sections from the stream, following the Kryo serialized object.
+   */
+  private static StreetEdgeSections.SectionSource streamSections(Input input) {
+    return length -> {
+      return ByteBuffer.wrap(input.readBytes((int) length));
+    };
+  }
+
+  /**
+   * Map the sections from the file. The position of the sections is stored at the end of the
+   * file.
+   */
+  private static StreetEdgeSections.SectionSource mappedSections(FileChannel channel)
+    throws IOException {
+    ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+    long trailerPosition = channel.size() - Long.BYTES;
+    while (trailer.hasRemaining()) {
+      if (channel.read(trailer, trailerPosition + trailer.position()) < 0) {
+        throw new EOFException("The street edge sections are truncated.");
+      }
+    }
+    long[] position = { trailer.getLong(0) };
+    return length -> {
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, position[0], length);
+      position[0] += length;
+      return buffer;
+    };
+  }
+
   @SuppressWarnings("Convert2MethodRef")
   private static OutputStream wrapOutputStreamWithProgressTracker(
     OutputStream outputStream,
@@ -214,10 +366,48 @@ public class SerializedGraphObject implements Serializable {
   private void save(OutputStream outputStream, String graphName, long size) {
     LOG.info("Writing graph " + graphName + " ...");
     outputStream = wrapOutputStreamWithProgressTracker(outputStream, size);
-    Kryo kryo = KryoBuilder.create();
     Output output = new Output(outputStream);
     output.write(OtpProjectInfo.projectInfo().graphFileHeaderInfo.header());
-    kryo.writeClassAndObject(output, this);
+
+    StreetEdgeSections sections = null;
+    if (buildConfig != null && buildConfig.graphFileStreetEdgeSections) {
+      sections = StreetEdgeSections.of(streetEdges());
+      if (!sections.canBeMapped()) {
+        LOG.warn("The street edges are too big to be saved in sections, using Kryo only.");
+        sections = null;
+      }
+    }
+
+    boolean chunked = buildConfig != null && buildConfig.graphFileParallelLoad;
+
+    byte format = KRYO_FORMAT;
+    if (sections != null) {
+      format |= STREET_EDGE_SECTIONS_FLAG;
+    }
+    if (chunked) {
+      format |= CHUNKED_FLAG;
+    }
+    output.writeByte(format);
+
+    Kryo kryo = sections == null
+      ? KryoBuilder.create()
+      : KryoBuilder.createWithStreetEdgeSections();
+    if (chunked) {
+      ChunkedKryo.write(output, chunks(), kryo);
+    } else {
+      kryo.writeClassAndObject(output, this);
+    }
+
+    if (sections != null) {
+      long sectionsPosition = output.total();
+      try {
+        var out = new DataOutputStream(output);
+        sections.write(out);
+        out.writeLong(sectionsPosition);
+      } catch (IOException e) {
+        throw new OtpAppException("Unable to write graph %s: %s", graphName, e.getMessage());
+      }
+    }
     output.close();
     LOG.info("Graph written: {}", graphName);
     // Summarize serialized classes and associated serializers to stdout:
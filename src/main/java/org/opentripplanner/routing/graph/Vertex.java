@@ -11,6 +11,7 @@ import java.util.List;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.common.geometry.DirectionUtils;
 import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
 import org.opentripplanner.transit.model.basic.I18NString;
 import org.opentripplanner.transit.model.basic.NonLocalizedString;
 import org.opentripplanner.transit.model.site.StationElement;
@@ -25,6 +26,9 @@ public abstract class Vertex implements Serializable, Cloneable {
 
   private static final long serialVersionUID = 1L;
 
+  /** The index of a vertex which is not part of the {@link CompactStreetGraph}. */
+  public static final int NO_INDEX = -1;
+
   private static final Logger LOG = LoggerFactory.getLogger(Vertex.class);
 
   /**
@@ -39,6 +43,12 @@ public abstract class Vertex implements Serializable, Cloneable {
 
   private transient Edge[] outgoing = new Edge[0];
 
+  /** The index of this vertex in the {@link CompactStreetGraph}. */
+  private transient int index = NO_INDEX;
+
+  /** True if a permanent edge is added or removed after the compact graph is created. */
+  private transient boolean compactEdgesChanged = false;
+
   /* CONSTRUCTORS */
 
   protected Vertex(Graph g, String label, double x, double y) {
@@ -80,6 +90,7 @@ public abstract class Vertex implements Serializable, Cloneable {
 
   public void addOutgoing(Edge edge) {
     synchronized (this) {
+      removeFromCompactGraph(edge);
       outgoing = addEdge(outgoing, edge);
     }
   }
@@ -87,6 +98,7 @@ public abstract class Vertex implements Serializable, Cloneable {
   /** @return whether the edge was found and removed. */
   public boolean removeOutgoing(Edge edge) {
     synchronized (this) {
+      removeFromCompactGraph(edge);
       int n = outgoing.length;
       outgoing = removeEdge(outgoing, edge);
       return (outgoing.length < n);
@@ -95,6 +107,7 @@ public abstract class Vertex implements Serializable, Cloneable {
 
   public void addIncoming(Edge edge) {
     synchronized (this) {
+      removeFromCompactGraph(edge);
       incoming = addEdge(incoming, edge);
     }
   }
@@ -102,12 +115,23 @@ public abstract class Vertex implements Serializable, Cloneable {
   /** @return whether the edge was found and removed. */
   public boolean removeIncoming(Edge edge) {
     synchronized (this) {
+      removeFromCompactGraph(edge);
       int n = incoming.length;
       incoming = removeEdge(incoming, edge);
       return (incoming.length < n);
     }
   }
 
+  /**
+   * The index of this vertex in the {@link CompactStreetGraph}, or {@link #NO_INDEX} if the vertex
+   * is not part of it. The index does not change when edges are added to or removed from the
+   * vertex, so it can be used as a dense id for the vertex, see
+   * {@link CompactStreetGraph#vertexIndex(Vertex)}.
+   */
+  public int getIndex() {
+    return index;
+  }
+
   /**
    * Get a collection containing all the edges leading from this vertex to other vertices. There is
    * probably some overhead to creating the wrapper ArrayList objects, but this allows filtering and
@@ -208,6 +232,26 @@ public abstract class Vertex implements Serializable, Cloneable {
     return result;
   }
 
+  void setIndex(int index) {
+    this.index = index;
+    this.compactEdgesChanged = false;
+  }
+
+  /**
+   * The compact graph is not updated, so the edges of the vertex are no longer taken from it
+   * when a permanent edge is added or removed. Temporary edges are detected by comparing the
+   * number of edges, see {@link CompactStreetGraph#indexOf(Vertex, boolean)}.
+   */
+  boolean hasCompactEdgesChanged() {
+    return compactEdgesChanged;
+  }
+
+  private void removeFromCompactGraph(Edge edge) {
+    if (!(edge instanceof TemporaryEdge)) {
+      compactEdgesChanged = true;
+    }
+  }
+
   /**
    * A static helper method to avoid repeated code for outgoing and incoming lists. Synchronization
    * must be handled by the caller, to avoid passing edge array pointers that may be invalidated.
@@ -260,5 +304,6 @@ public abstract class Vertex implements Serializable, Cloneable {
     in.defaultReadObject();
     this.incoming = new Edge[0];
     this.outgoing = new Edge[0];
+    this.index = NO_INDEX;
   }
 }
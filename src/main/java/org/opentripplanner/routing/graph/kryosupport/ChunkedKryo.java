@@ -0,0 +1,317 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import org.opentripplanner.util.logging.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serialize a list of objects into independent Kryo chunks, which can be deserialized in parallel.
+ * <p>
+ * All chunks share the same reference numbering: an object which is already written in a previous
+ * chunk is written as a reference to it, not again. So a chunk can only refer to objects in the
+ * previous chunks. When reading, each chunk is deserialized by its own Kryo instance, the
+ * references to objects in other chunks are looked up in a shared table. Kryo adds an object to
+ * the table before its fields are read, so a reference to an object in another chunk waits until
+ * that chunk is finished. This also makes the fields written by the other thread visible. The
+ * chunks are started in order, so the chunk a reader waits for is always running or finished.
+ * <p>
+ * The chunks are written as:
+ * <pre>
+ * int    number of chunks
+ * for each chunk:
+ *   int    id of the first object in the chunk
+ *   int    id of the first object after the chunk
+ *   int    number of bytes
+ *   byte[] the Kryo serialized chunk
+ * </pre>
+ * To get parallelism, the first chunks should contain many independent objects, like the edges of
+ * the graph, and the objects referring to all of them should be in the last chunks. A chunk
+ * referring to objects in the chunk just before it is not read in parallel with that chunk.
+ */
+public final class ChunkedKryo {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ChunkedKryo.class);
+
+  /** The size of the segments of the shared reference table */
+  private static final int SEGMENT_BITS = 16;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+  private ChunkedKryo() {}
+
+  /**
+   * Write the chunks to the output. Each chunk is serialized in memory before it is written, so
+   * the chunks should not be too big.
+   */
+  public static void write(Output output, List<?> chunks, Kryo kryo) {
+    var references = new WriteReferenceResolver();
+    kryo.setReferenceResolver(references);
+
+    output.writeInt(chunks.size());
+    var chunkOutput = new Output(64 * 1024, -1);
+    for (Object chunk : chunks) {
+      int firstId = references.numberOfObjects();
+      chunkOutput.reset();
+      kryo.writeClassAndObject(chunkOutput, chunk);
+      output.writeInt(firstId);
+      output.writeInt(references.numberOfObjects());
+      output.writeInt(chunkOutput.position());
+      output.writeBytes(chunkOutput.getBuffer(), 0, chunkOutput.position());
+    }
+  }
+
+  /**
+   * Read the chunks from the input, using the given number of threads, and return the objects
+   * deserialized from the last chunk.
+   *
+   * @param kryoFactory Create a new Kryo instance configured like the one used to write the chunks.
+   */
+  public static Object read(Input input, int nThreads, Supplier<Kryo> kryoFactory)
+    throws InterruptedException {
+    int nChunks = input.readInt();
+    var progress = ProgressTracker.track("Read graph chunks", 1, nChunks);
+    LOG.info(progress.startMessage());
+
+    var table = new ReferenceTable();
+    var chunks = new FinishedChunks();
+    var aborted = new AtomicBoolean(false);
+    var waitNanos = new AtomicLong();
+    // Limit the number of chunks kept in memory before they are deserialized
+    var inFlight = new Semaphore(2 * nThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+    long start = System.nanoTime();
+    try {
+      List<Future<Object>> results = new ArrayList<>(nChunks);
+      for (int i = 0; i < nChunks; ++i) {
+        int firstId = input.readInt();
+        int endId = input.readInt();
+        byte[] bytes = input.readBytes(input.readInt());
+        table.ensureCapacity(endId);
+        Chunk chunk = chunks.add(firstId, endId);
+        inFlight.acquire();
+        results.add(
+          executor.submit(() -> {
+            try {
+              Kryo kryo = kryoFactory.get();
+              var references = new ReadReferenceResolver(table, chunks, firstId, aborted);
+              kryo.setReferenceResolver(references);
+              Object value = kryo.readClassAndObject(new Input(bytes));
+              waitNanos.addAndGet(references.waitNanos);
+              return value;
+            } catch (RuntimeException | Error e) {
+              aborted.set(true);
+              throw e;
+            } finally {
+              // Release the waiting chunks also on failure, they check if the reading is aborted
+              chunks.finished(chunk);
+              inFlight.release();
+              progress.step(LOG::info);
+            }
+          })
+        );
+      }
+      Object last = null;
+      for (Future<Object> result : results) {
+        last = result.get();
+      }
+      LOG.info(progress.completeMessage());
+      LOG.info(
+        "Read {} graph chunks with {} threads in {} ms, waiting {} ms for objects in other chunks.",
+        nChunks,
+        nThreads,
+        (System.nanoTime() - start) / 1_000_000,
+        waitNanos.get() / 1_000_000
+      );
+      return last;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof KryoException ke) {
+        throw ke;
+      }
+      throw new KryoException("Unable to read graph chunk: " + e.getCause(), e.getCause());
+    } finally {
+      aborted.set(true);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Keep the references of all chunks, and do not clear them after each chunk is written.
+   */
+  private static class WriteReferenceResolver extends MapReferenceResolver {
+
+    private int numberOfObjects = 0;
+
+    @Override
+    public int addWrittenObject(Object object) {
+      int id = super.addWrittenObject(object);
+      numberOfObjects = id + 1;
+      return id;
+    }
+
+    @Override
+    public void reset() {
+      // The references are kept between the chunks
+    }
+
+    int numberOfObjects() {
+      return numberOfObjects;
+    }
+  }
+
+  /**
+   * Read the objects of one chunk into the shared table. The ids of the chunk start at the given
+   * first id, the objects with a lower id are in previous chunks.
+   */
+  private static class ReadReferenceResolver extends MapReferenceResolver {
+
+    private final ReferenceTable table;
+    private final FinishedChunks chunks;
+    private final int firstId;
+    private final AtomicBoolean aborted;
+    private int nextId;
+    private long waitNanos = 0;
+
+    ReadReferenceResolver(
+      ReferenceTable table,
+      FinishedChunks chunks,
+      int firstId,
+      AtomicBoolean aborted
+    ) {
+      this.table = table;
+      this.chunks = chunks;
+      this.firstId = firstId;
+      this.nextId = firstId;
+      this.aborted = aborted;
+    }
+
+    @Override
+    public int nextReadId(Class type) {
+      return nextId++;
+    }
+
+    @Override
+    public void setReadObject(int id, Object object) {
+      table.set(id, object);
+    }
+
+    @Override
+    public Object getReadObject(Class type, int id) {
+      if (id >= firstId || chunks.isFinished(id)) {
+        return table.get(id);
+      }
+      // The object is in a previous chunk, which is not finished yet
+      long start = System.nanoTime();
+      try {
+        chunks.awaitFinished(id);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new KryoException("Reading of the graph chunks is interrupted.");
+      }
+      if (aborted.get()) {
+        throw new KryoException("Reading of the graph chunks is aborted.");
+      }
+      waitNanos += System.nanoTime() - start;
+      return table.get(id);
+    }
+
+    @Override
+    public void reset() {
+      // The objects are kept in the shared table
+    }
+  }
+
+  /** The range of reference ids read by a chunk, and a latch released when it is finished. */
+  private record Chunk(int firstId, int endId, CountDownLatch finished) {}
+
+  /**
+   * Keep track of which chunks are finished. The chunks are added by the thread reading the chunks
+   * from the input before the chunk is deserialized.
+   */
+  private static class FinishedChunks {
+
+    /** The chunks with any objects, by the id of their first object */
+    private final ConcurrentSkipListMap<Integer, Chunk> chunks = new ConcurrentSkipListMap<>();
+
+    /**
+     * All objects with a lower id are in finished chunks. This is written after the chunks are
+     * finished, so reading it makes the objects in these chunks visible to the reading thread.
+     */
+    private volatile int finishedUpTo = 0;
+
+    Chunk add(int firstId, int endId) {
+      var chunk = new Chunk(firstId, endId, new CountDownLatch(1));
+      // A chunk with only references to previous chunks can not be waited for
+      if (endId > firstId) {
+        chunks.put(firstId, chunk);
+      }
+      return chunk;
+    }
+
+    void finished(Chunk chunk) {
+      chunk.finished().countDown();
+      synchronized (this) {
+        int id = finishedUpTo;
+        Chunk next;
+        while ((next = chunks.get(id)) != null && next.finished().getCount() == 0) {
+          id = next.endId();
+        }
+        finishedUpTo = id;
+      }
+    }
+
+    boolean isFinished(int id) {
+      return id < finishedUpTo;
+    }
+
+    void awaitFinished(int id) throws InterruptedException {
+      chunks.floorEntry(id).getValue().finished().await();
+    }
+  }
+
+  /**
+   * A table of all objects read, indexed by reference id. The table is made of segments, which are
+   * allocated by the thread reading the chunks from the input before the chunk is deserialized.
+   */
+  private static class ReferenceTable {
+
+    @SuppressWarnings("unchecked")
+    private final AtomicReferenceArray<Object>[] segments = new AtomicReferenceArray[(
+      Integer.MAX_VALUE >> SEGMENT_BITS
+    ) +
+    1];
+
+    private int capacity = 0;
+
+    void ensureCapacity(int size) {
+      while (capacity < size) {
+        segments[capacity >> SEGMENT_BITS] = new AtomicReferenceArray<>(SEGMENT_SIZE);
+        capacity += SEGMENT_SIZE;
+      }
+    }
+
+    Object get(int id) {
+      return segments[id >> SEGMENT_BITS].get(id & (SEGMENT_SIZE - 1));
+    }
+
+    void set(int id, Object object) {
+      segments[id >> SEGMENT_BITS].set(id & (SEGMENT_SIZE - 1), object);
+    }
+  }
+}
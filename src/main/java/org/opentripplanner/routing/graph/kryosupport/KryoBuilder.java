@@ -3,7 +3,9 @@ package org.opentripplanner.routing.graph.kryosupport;
 import com.conveyal.kryo.TIntArrayListSerializer;
 import com.conveyal.kryo.TIntIntHashMapSerializer;
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.SerializerFactory;
 import com.esotericsoftware.kryo.serializers.ExternalizableSerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
@@ -19,6 +21,8 @@ import org.objenesis.strategy.SerializingInstantiatorStrategy;
 import org.opentripplanner.kryo.BuildConfigSerializer;
 import org.opentripplanner.kryo.RouterConfigSerializer;
 import org.opentripplanner.kryo.UnmodifiableCollectionsSerializer;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetEdgeSections;
 import org.opentripplanner.standalone.config.BuildConfig;
 import org.opentripplanner.standalone.config.RouterConfig;
 
@@ -74,4 +78,24 @@ public final class KryoBuilder {
     );
     return kryo;
   }
+
+  /**
+   * Create a Kryo instance like {@link #create()}, but which skips the {@link StreetEdge} fields
+   * stored in the {@link StreetEdgeSections}. This apply to all subclasses of StreetEdge.
+   */
+  public static Kryo createWithStreetEdgeSections() {
+    Kryo kryo = create();
+    kryo.addDefaultSerializer(
+      StreetEdge.class,
+      new SerializerFactory.BaseSerializerFactory<FieldSerializer<?>>() {
+        @Override
+        public FieldSerializer<?> newSerializer(Kryo kryo, Class type) {
+          var serializer = new FieldSerializer<>(kryo, type);
+          StreetEdgeSections.FIELDS_IN_SECTIONS.forEach(serializer::removeField);
+          return serializer;
+        }
+      }
+    );
+    return kryo;
+  }
 }
@@ -0,0 +1,399 @@
+package org.opentripplanner.routing.graphfinder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.request.StreetSearchRequestKey;
+import org.opentripplanner.routing.core.RoutingContext;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
+import org.opentripplanner.routing.edgetype.TemporaryFreeEdge;
+import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.TemporarySplitterVertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+import org.opentripplanner.transit.model.site.StopLocation;
+
+/**
+ * Cache the stops found by the access/egress street search, so the search is not repeated for
+ * popular origins and destinations like stations and addresses.
+ * <p>
+ * The entries are keyed on the locations the search starts from, the street mode, the direction
+ * of the search and all request parameters used by the street search, see
+ * {@link StreetSearchRequestKey}. A graph vertex, like a stop, is keyed on its label. A location
+ * given as a coordinate is linked to the streets with temporary vertices and edges for each
+ * request, and is keyed on where it is linked: the street vertices it is linked to, and the parent
+ * edges and the coordinate of the places where the streets are split. The coordinate is rounded to
+ * {@link #SPLIT_POINT_PRECISION} degrees, about 10 cm, so the distance of a stop found for a
+ * nearby location on the same street may differ by this much.
+ * <p>
+ * The cache keeps the stops and the edges leading to them, not the states of the search. The
+ * temporary edges at the start of a path are removed when the request is done, so the cache keeps
+ * the keys of the vertices they lead to instead, and looks up the matching temporary edges of the
+ * next request. The states are created again for each request by traversing the edges, so the
+ * times and the routing context of the result belong to the request. The time of the request is
+ * not part of the key, so the graph must not have turn restrictions which are only active at some
+ * times, see {@link #hasTimeDependentTurnRestrictions(Graph)}.
+ * <p>
+ * Only the {@link #CACHED_MODES} are cached, since the searches for the other modes depend on
+ * the real-time rental and parking information. The {@link Graph} updaters must call
+ * {@link #invalidateAll()} when they add or remove vertices and edges.
+ * <p>
+ * This class is thread-safe. Two requests may search for the same entry at the same time, the
+ * last one to finish is kept.
+ */
+public class NearbyStopCache {
+
+  public static final Set<StreetMode> CACHED_MODES = EnumSet.of(
+    StreetMode.WALK,
+    StreetMode.BIKE,
+    StreetMode.CAR
+  );
+
+  /** The split points of temporary locations are rounded to this number of degrees */
+  static final double SPLIT_POINT_PRECISION = 1e-6;
+
+  private final Cache<CacheKey, List<CachedStop>> cache;
+
+  /**
+   * @param maximumSize the maximum number of entries
+   * @param timeToLive  the entries are evicted this long after they are created
+   */
+  public NearbyStopCache(int maximumSize, Duration timeToLive) {
+    this.cache =
+      CacheBuilder
+        .newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeToLive)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Return true if any street edge has a turn restriction which is only active at some times.
+   * The result of the street search then depends on the time of the request, and the cache can
+   * not be used.
+   */
+  public static boolean hasTimeDependentTurnRestrictions(Graph graph) {
+    return graph
+      .getStreetEdges()
+      .stream()
+      .flatMap(e -> e.getTurnRestrictions().stream())
+      .anyMatch(tr -> tr.time != null);
+  }
+
+  /**
+   * Return the stops for the given search, using the cached stops if the same search is done
+   * before, or run the search and cache the result.
+   *
+   * @param vertices   the vertices the street search starts from
+   * @param fromTarget {@code true} for egress
+   * @param request    the street search request, the search direction is set to match
+   *                   {@code fromTarget}
+   */
+  public List<NearbyStop> get(
+    Graph graph,
+    Set<Vertex> vertices,
+    StreetMode streetMode,
+    boolean fromTarget,
+    RoutingRequest request,
+    Supplier<List<NearbyStop>> search
+  ) {
+    request.setArriveBy(fromTarget);
+    Map<Object, Vertex> verticesByKey = verticesByKey(vertices);
+    CacheKey key = createKey(verticesByKey, streetMode, fromTarget, request);
+    if (key == null) {
+      return search.get();
+    }
+    List<CachedStop> cachedStops = cache.getIfPresent(key);
+    if (cachedStops != null) {
+      List<NearbyStop> stops = createNearbyStops(
+        cachedStops,
+        graph,
+        vertices,
+        verticesByKey,
+        fromTarget,
+        request
+      );
+      if (stops != null) {
+        return stops;
+      }
+      // The edges are no longer traversable, this happens if the graph is updated
+      cache.invalidate(key);
+    }
+    List<NearbyStop> stops = search.get();
+    List<CachedStop> toCache = createCachedStops(stops, fromTarget);
+    if (toCache != null) {
+      cache.put(key, toCache);
+    }
+    return stops;
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public Cache<?, ?> getCache() {
+    return cache;
+  }
+
+  /**
+   * Return the vertices by their key, or {@code null} if the search can not be cached because a
+   * vertex is temporary and not linked in a known way.
+   */
+  @Nullable
+  private static Map<Object, Vertex> verticesByKey(Set<Vertex> vertices) {
+    if (vertices == null) {
+      return null;
+    }
+    Map<Object, Vertex> result = new HashMap<>();
+    for (Vertex vertex : vertices) {
+      Object key = originKey(vertex);
+      if (key == null) {
+        return null;
+      }
+      result.put(key, vertex);
+    }
+    return result;
+  }
+
+  @Nullable
+  private static CacheKey createKey(
+    Map<Object, Vertex> verticesByKey,
+    StreetMode streetMode,
+    boolean fromTarget,
+    RoutingRequest request
+  ) {
+    // The data overlay sandbox adds costs to the street search which are not part of the key
+    if (
+      !CACHED_MODES.contains(streetMode) || request.dataOverlay != null || verticesByKey == null
+    ) {
+      return null;
+    }
+    return new CacheKey(
+      Set.copyOf(verticesByKey.keySet()),
+      streetMode,
+      fromTarget,
+      StreetSearchRequestKey.of(request)
+    );
+  }
+
+  /**
+   * The key of a vertex the search starts from: the label of a graph vertex, or where a temporary
+   * location is linked to the streets. Return {@code null} for other temporary vertices.
+   */
+  @Nullable
+  private static Object originKey(Vertex vertex) {
+    if (!(vertex instanceof TemporaryVertex)) {
+      return vertex.getLabel();
+    }
+    if (!(vertex instanceof TemporaryStreetLocation)) {
+      return null;
+    }
+    Set<Object> linkedTo = new HashSet<>();
+    for (Edge edge : vertex.getOutgoing()) {
+      if (!(edge instanceof TemporaryFreeEdge)) {
+        return null;
+      }
+      linkedTo.add(vertexKey(edge.getToVertex()));
+    }
+    for (Edge edge : vertex.getIncoming()) {
+      if (!(edge instanceof TemporaryFreeEdge)) {
+        return null;
+      }
+      linkedTo.add(vertexKey(edge.getFromVertex()));
+    }
+    return linkedTo.isEmpty() || linkedTo.contains(null) ? null : new LinkedLocation(linkedTo);
+  }
+
+  /**
+   * The key of a vertex reached by a temporary edge: the label of a graph vertex, or the parent
+   * edges and the rounded coordinate of a split point. Return {@code null} for other temporary
+   * vertices.
+   */
+  @Nullable
+  private static Object vertexKey(Vertex vertex) {
+    if (!(vertex instanceof TemporaryVertex)) {
+      return vertex.getLabel();
+    }
+    if (!(vertex instanceof TemporarySplitterVertex)) {
+      return null;
+    }
+    Set<StreetEdge> parentEdges = new HashSet<>();
+    for (Edge edge : vertex.getOutgoing()) {
+      if (edge instanceof TemporaryPartialStreetEdge partial) {
+        parentEdges.add(partial.getParentEdge());
+      }
+    }
+    for (Edge edge : vertex.getIncoming()) {
+      if (edge instanceof TemporaryPartialStreetEdge partial) {
+        parentEdges.add(partial.getParentEdge());
+      }
+    }
+    return new SplitPoint(
+      parentEdges,
+      Math.round(vertex.getLon() / SPLIT_POINT_PRECISION),
+      Math.round(vertex.getLat() / SPLIT_POINT_PRECISION)
+    );
+  }
+
+  /**
+   * Return the stops and edges to cache, or {@code null} if the result has temporary edges after
+   * the start of a path, or is missing the states.
+   */
+  @Nullable
+  private static List<CachedStop> createCachedStops(List<NearbyStop> stops, boolean fromTarget) {
+    List<CachedStop> result = new ArrayList<>(stops.size());
+    for (NearbyStop stop : stops) {
+      if (stop.state == null || stop.edges == null) {
+        return null;
+      }
+      State origin = stop.state;
+      while (origin.getBackState() != null) {
+        origin = origin.getBackState();
+      }
+      Object originKey = originKey(origin.getVertex());
+      if (originKey == null) {
+        return null;
+      }
+      // The edges in the order they are traversed by the search
+      List<Edge> edges = new ArrayList<>(stop.edges);
+      if (fromTarget) {
+        Collections.reverse(edges);
+      }
+      int nTemporary = 0;
+      List<Object> linkKeys = new ArrayList<>();
+      while (nTemporary < edges.size() && edges.get(nTemporary) instanceof TemporaryEdge) {
+        Edge edge = edges.get(nTemporary++);
+        Object key = vertexKey(fromTarget ? edge.getFromVertex() : edge.getToVertex());
+        if (key == null) {
+          return null;
+        }
+        linkKeys.add(key);
+      }
+      List<Edge> permanentEdges = edges.subList(nTemporary, edges.size());
+      if (permanentEdges.stream().anyMatch(TemporaryEdge.class::isInstance)) {
+        return null;
+      }
+      result.add(
+        new CachedStop(
+          stop.stop,
+          stop.distance,
+          originKey,
+          List.copyOf(linkKeys),
+          List.copyOf(permanentEdges)
+        )
+      );
+    }
+    return List.copyOf(result);
+  }
+
+  /**
+   * Create the states for the given request by traversing the cached edges from the origin of
+   * each stop, starting with the temporary edges of this request leading to the cached link keys.
+   * Return {@code null} if an edge can not be found or traversed.
+   */
+  @Nullable
+  private static List<NearbyStop> createNearbyStops(
+    List<CachedStop> cachedStops,
+    Graph graph,
+    Set<Vertex> vertices,
+    Map<Object, Vertex> verticesByKey,
+    boolean fromTarget,
+    RoutingRequest request
+  ) {
+    RoutingContext rctx = fromTarget
+      ? new RoutingContext(request, graph, null, vertices)
+      : new RoutingContext(request, graph, vertices, null);
+
+    List<NearbyStop> result = new ArrayList<>(cachedStops.size());
+    for (CachedStop cachedStop : cachedStops) {
+      Vertex origin = verticesByKey.get(cachedStop.originKey());
+      if (origin == null) {
+        return null;
+      }
+      State state = new State(origin, request, rctx);
+      List<Edge> edges = new ArrayList<>(cachedStop.linkKeys().size() + cachedStop.edges().size());
+      Vertex vertex = origin;
+      for (Object linkKey : cachedStop.linkKeys()) {
+        Edge edge = findTemporaryEdge(vertex, linkKey, fromTarget);
+        if (edge == null) {
+          return null;
+        }
+        edges.add(edge);
+        vertex = fromTarget ? edge.getFromVertex() : edge.getToVertex();
+      }
+      edges.addAll(cachedStop.edges());
+      for (int i = 0; i < edges.size() && state != null; ++i) {
+        state = edges.get(i).traverse(state);
+      }
+      if (state == null) {
+        return null;
+      }
+      // The path is listed in the direction of travel
+      if (fromTarget) {
+        Collections.reverse(edges);
+      }
+      result.add(new NearbyStop(cachedStop.stop(), cachedStop.distance(), edges, state));
+    }
+    return result;
+  }
+
+  @Nullable
+  private static Edge findTemporaryEdge(Vertex vertex, Object key, boolean fromTarget) {
+    for (Edge edge : fromTarget ? vertex.getIncoming() : vertex.getOutgoing()) {
+      if (
+        edge instanceof TemporaryEdge &&
+        key.equals(vertexKey(fromTarget ? edge.getFromVertex() : edge.getToVertex()))
+      ) {
+        return edge;
+      }
+    }
+    return null;
+  }
+
+  private record CacheKey(
+    Set<Object> locations,
+    StreetMode streetMode,
+    boolean fromTarget,
+    StreetSearchRequestKey request
+  ) {}
+
+  /** A temporary location, by the keys of the vertices it is linked to */
+  private record LinkedLocation(Set<Object> linkedTo) {}
+
+  /** A temporary vertex splitting the parent edges at the given rounded coordinate */
+  private record SplitPoint(Set<StreetEdge> parentEdges, long x, long y) {}
+
+  /**
+   * A stop and the path to it, in the order the search traverses it. The path starts with the
+   * temporary edges leading to the link keys, followed by the edges of the graph.
+   */
+  private record CachedStop(
+    StopLocation stop,
+    double distance,
+    Object originKey,
+    List<Object> linkKeys,
+    List<Edge> edges
+  ) {}
+}
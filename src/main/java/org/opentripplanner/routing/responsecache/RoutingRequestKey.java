@@ -0,0 +1,212 @@
+package org.opentripplanner.routing.responsecache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+/**
+ * A canonical, immutable copy of all the parameters of a {@link RoutingRequest}, used as the key
+ * of the {@link RoutingResponseCache}. Two requests get equal keys if all their fields are equal,
+ * including the page cursor.
+ * <p>
+ * The key is created by reading the fields of the request and of the OTP objects it refers to, so
+ * new request parameters are part of the key without changing this class. The values are
+ * normalised:
+ * <ul>
+ *   <li>Instants, like the request date-time, are truncated to whole seconds.</li>
+ *   <li>Sets and maps are sorted, so the order the elements are added in does not matter.</li>
+ *   <li>The {@code parameters} of the request are not included, they are the raw API parameters
+ *   which are already mapped to the other fields.</li>
+ * </ul>
+ * A request is not cached if it contains a value which can not be compared, like a lambda or an
+ * object from a library, or if Raptor debugging is enabled.
+ */
+final class RoutingRequestKey {
+
+  private static final int MAX_DEPTH = 8;
+  private static final String OTP_PACKAGE = "org.opentripplanner.";
+  private static final Set<String> EXCLUDED_REQUEST_FIELDS = Set.of("parameters");
+
+  private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+    @Override
+    protected List<Field> computeValue(Class<?> type) {
+      List<Field> fields = new ArrayList<>();
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+            continue;
+          }
+          if (c == RoutingRequest.class && EXCLUDED_REQUEST_FIELDS.contains(field.getName())) {
+            continue;
+          }
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+      return List.copyOf(fields);
+    }
+  };
+
+  private final List<Object> values;
+  private final int hashCode;
+
+  private RoutingRequestKey(List<Object> values) {
+    this.values = values;
+    this.hashCode = values.hashCode();
+  }
+
+  /**
+   * Create a key for the given request, or return {@code null} if the request can not be cached.
+   * The key must be created before the request is routed, since the routing may change it.
+   */
+  @Nullable
+  static RoutingRequestKey of(RoutingRequest request) {
+    if (request.raptorDebugging.isEnabled()) {
+      return null;
+    }
+    try {
+      return new RoutingRequestKey(fieldValues(request, 0));
+    } catch (NotComparableException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RoutingRequestKey that = (RoutingRequestKey) o;
+    return hashCode == that.hashCode && values.equals(that.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return "RoutingRequestKey" + values;
+  }
+
+  private static Object canonical(Object value, int depth) {
+    if (depth > MAX_DEPTH) {
+      throw new NotComparableException();
+    }
+    if (
+      value == null ||
+      value instanceof String ||
+      value instanceof Number ||
+      value instanceof Boolean ||
+      value instanceof Character ||
+      value instanceof Enum<?> ||
+      value instanceof Duration ||
+      value instanceof LocalDate ||
+      value instanceof LocalTime ||
+      value instanceof ZoneId ||
+      value instanceof Locale ||
+      value instanceof FeedScopedId
+    ) {
+      return value;
+    }
+    if (value instanceof Instant instant) {
+      return instant.truncatedTo(ChronoUnit.SECONDS);
+    }
+    // Copy the mutable JTS types
+    if (value instanceof Coordinate c) {
+      return List.of(c.x, c.y, c.z);
+    }
+    if (value instanceof Envelope e) {
+      return e.isNull() ? List.of() : List.of(e.getMinX(), e.getMinY(), e.getMaxX(), e.getMaxY());
+    }
+    if (value instanceof List<?> list) {
+      List<Object> result = new ArrayList<>(list.size());
+      for (Object it : list) {
+        result.add(canonical(it, depth + 1));
+      }
+      return result;
+    }
+    if (value instanceof Collection<?> collection) {
+      List<Object> result = new ArrayList<>(collection.size());
+      for (Object it : collection) {
+        result.add(canonical(it, depth + 1));
+      }
+      result.sort(Comparator.comparing(String::valueOf));
+      return result;
+    }
+    if (value instanceof Map<?, ?> map) {
+      List<Object> result = new ArrayList<>(map.size());
+      for (Map.Entry<?, ?> it : map.entrySet()) {
+        result.add(
+          // Arrays.asList allows null values
+          Arrays.asList(canonical(it.getKey(), depth + 1), canonical(it.getValue(), depth + 1))
+        );
+      }
+      result.sort(Comparator.comparing(e -> String.valueOf(((List<?>) e).get(0))));
+      return result;
+    }
+    if (value.getClass().isArray()) {
+      int length = Array.getLength(value);
+      List<Object> result = new ArrayList<>(length);
+      for (int i = 0; i < length; ++i) {
+        result.add(canonical(Array.get(value, i), depth + 1));
+      }
+      return result;
+    }
+    return fieldValues(value, depth);
+  }
+
+  /**
+   * The class and field values of an OTP object. Lambdas and objects of other libraries can not be
+   * compared.
+   */
+  private static List<Object> fieldValues(Object value, int depth) {
+    Class<?> type = value.getClass();
+    if (!type.getName().startsWith(OTP_PACKAGE) || type.isSynthetic() || type.isHidden()) {
+      throw new NotComparableException();
+    }
+    List<Field> fields = FIELDS.get(type);
+    // Arrays.asList allows null values
+    Object[] result = new Object[fields.size() + 1];
+    result[0] = type;
+    for (int i = 0; i < fields.size(); ++i) {
+      try {
+        result[i + 1] = canonical(fields.get(i).get(value), depth + 1);
+      } catch (IllegalAccessException e) {
+        throw new NotComparableException();
+      }
+    }
+    return Arrays.asList(result);
+  }
+
+  /** Thrown when a value can not be part of the key. */
+  private static class NotComparableException extends RuntimeException {
+
+    NotComparableException() {
+      super(null, null, false, false);
+    }
+  }
+}
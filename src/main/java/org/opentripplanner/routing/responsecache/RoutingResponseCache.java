@@ -0,0 +1,251 @@
+package org.opentripplanner.routing.responsecache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.opentripplanner.model.plan.Itinerary;
+import org.opentripplanner.model.plan.Leg;
+import org.opentripplanner.model.plan.ScheduledTransitLeg;
+import org.opentripplanner.routing.api.request.RequestModes;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.response.RoutingResponse;
+import org.opentripplanner.routing.framework.DebugTimingAggregator;
+import org.opentripplanner.transit.model.network.TripPattern;
+
+/**
+ * Cache the responses of the routing, so identical requests - like app refreshes, widgets polling
+ * the same trip or retries of the same page - are not routed again. The requests are compared
+ * using a {@link RoutingRequestKey}, which includes the page cursor.
+ * <p>
+ * The entries are evicted when they are older than the time-to-live, or when the total weight of
+ * the cached responses exceeds the maximum weight. The weight of a response is the number of legs
+ * in its itineraries, plus one. When a realtime update changes the timetable of a trip pattern,
+ * all responses with an itinerary using the pattern are removed, see {@link
+ * #invalidate(Collection)}. Responses without these patterns are kept until they expire, even if
+ * the update makes a better itinerary possible. The alert updaters remove all responses with
+ * transit legs, and the vehicle rental and parking updaters remove all responses to requests
+ * using rental or parking modes.
+ * <p>
+ * Responses with routing errors are not cached.
+ * <p>
+ * Each caller gets its own {@link RoutingResponse}, with a copy of the search metadata and the
+ * routing errors, and a new {@link DebugTimingAggregator}. The trip plan and its itineraries are
+ * shared by all callers of a cached response, and must not be changed.
+ * <p>
+ * This class is thread-safe.
+ */
+public class RoutingResponseCache {
+
+  private static final EnumSet<StreetMode> RENTAL_MODES = EnumSet.of(
+    StreetMode.BIKE_RENTAL,
+    StreetMode.SCOOTER_RENTAL,
+    StreetMode.CAR_RENTAL
+  );
+
+  private static final EnumSet<StreetMode> PARKING_MODES = EnumSet.of(
+    StreetMode.BIKE_TO_PARK,
+    StreetMode.CAR_TO_PARK
+  );
+
+  private final Cache<RoutingRequestKey, Entry> cache;
+
+  /**
+   * Incremented each time entries are invalidated. A response is not added if it was routed while
+   * an update was applied, since it may use the old timetables.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  public RoutingResponseCache(RoutingResponseCacheParameters parameters) {
+    this.cache =
+      CacheBuilder
+        .newBuilder()
+        .maximumWeight(parameters.maxWeight())
+        .weigher((RoutingRequestKey key, Entry entry) -> entry.weight())
+        .expireAfterWrite(parameters.timeToLive())
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Return the cached response for the given request, or call the router and cache its response.
+   *
+   * @param debugTimingAggregator creates the timing aggregator of a cached response. The timings
+   *                              of a cached response only cover the lookup and the rendering.
+   */
+  public RoutingResponse route(
+    RoutingRequest request,
+    Supplier<RoutingResponse> router,
+    Supplier<DebugTimingAggregator> debugTimingAggregator
+  ) {
+    // The key and the modes are read before routing, the router may change the request
+    RoutingRequestKey key = RoutingRequestKey.of(request);
+    if (key == null) {
+      return router.get();
+    }
+    Entry cached = cache.getIfPresent(key);
+    if (cached != null) {
+      DebugTimingAggregator timing = debugTimingAggregator.get();
+      timing.finishedRouting();
+      timing.finishedFiltering();
+      return copyOf(cached.response(), timing);
+    }
+    Set<StreetMode> streetModes = streetModes(request.modes);
+
+    long generationBeforeRouting = generation.get();
+    RoutingResponse response = router.get();
+
+    if (isCacheable(response)) {
+      Entry entry = Entry.of(copyOf(response, null), streetModes);
+      synchronized (generation) {
+        if (generation.get() == generationBeforeRouting) {
+          cache.put(key, entry);
+        }
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Remove all responses with an itinerary using one of the given trip patterns. This is called
+   * when a realtime update is applied to the timetables of the patterns.
+   */
+  public void invalidate(Collection<TripPattern> updatedPatterns) {
+    if (updatedPatterns.isEmpty()) {
+      return;
+    }
+    Set<TripPattern> patterns = Set.copyOf(updatedPatterns);
+    invalidateIf(entry -> entry.usesAnyOf(patterns));
+  }
+
+  /**
+   * Remove all responses with a transit leg. This is called when the alerts are updated, since the
+   * alerts are added to the transit legs.
+   */
+  public void invalidateTransit() {
+    invalidateIf(entry -> entry.hasTransit());
+  }
+
+  /**
+   * Remove all responses to requests using a vehicle rental mode. This is called when the vehicle
+   * rental stations or vehicles are updated.
+   */
+  public void invalidateVehicleRental() {
+    invalidateIf(entry -> entry.usesAnyOf(RENTAL_MODES));
+  }
+
+  /**
+   * Remove all responses to requests using a park and ride mode. This is called when the vehicle
+   * parking facilities are updated.
+   */
+  public void invalidateVehicleParking() {
+    invalidateIf(entry -> entry.usesAnyOf(PARKING_MODES));
+  }
+
+  public void invalidateAll() {
+    synchronized (generation) {
+      generation.incrementAndGet();
+    }
+    cache.invalidateAll();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public Cache<?, ?> getCache() {
+    return cache;
+  }
+
+  private void invalidateIf(Predicate<Entry> predicate) {
+    synchronized (generation) {
+      generation.incrementAndGet();
+    }
+    cache.asMap().values().removeIf(predicate);
+  }
+
+  /**
+   * Create a response with the same trip plan and page cursors, and a copy of the mutable search
+   * metadata and routing errors.
+   */
+  private static RoutingResponse copyOf(
+    RoutingResponse response,
+    DebugTimingAggregator debugTimingAggregator
+  ) {
+    return new RoutingResponse(
+      response.getTripPlan(),
+      response.getPreviousPageCursor(),
+      response.getNextPageCursor(),
+      response.getMetadata() == null ? null : response.getMetadata().copy(),
+      response.getRoutingErrors() == null ? null : new ArrayList<>(response.getRoutingErrors()),
+      debugTimingAggregator
+    );
+  }
+
+  private static Set<StreetMode> streetModes(RequestModes modes) {
+    Set<StreetMode> result = EnumSet.noneOf(StreetMode.class);
+    if (modes != null) {
+      result.add(modes.accessMode);
+      result.add(modes.egressMode);
+      result.add(modes.directMode);
+      result.add(modes.transferMode);
+    }
+    return result;
+  }
+
+  private static boolean isCacheable(RoutingResponse response) {
+    return (
+      response.getTripPlan() != null &&
+      (response.getRoutingErrors() == null || response.getRoutingErrors().isEmpty())
+    );
+  }
+
+  private record Entry(
+    RoutingResponse response,
+    Set<TripPattern> patterns,
+    boolean hasTransit,
+    Set<StreetMode> streetModes,
+    int weight
+  ) {
+    static Entry of(RoutingResponse response, Set<StreetMode> streetModes) {
+      Set<TripPattern> patterns = new HashSet<>();
+      boolean hasTransit = false;
+      int weight = 1;
+      for (Itinerary itinerary : response.getTripPlan().itineraries) {
+        for (Leg leg : itinerary.getLegs()) {
+          if (leg instanceof ScheduledTransitLeg transitLeg) {
+            patterns.add(transitLeg.getTripPattern());
+          }
+          hasTransit |= leg.isTransitLeg();
+          ++weight;
+        }
+      }
+      return new Entry(response, patterns, hasTransit, streetModes, weight);
+    }
+
+    boolean usesAnyOf(Set<TripPattern> updatedPatterns) {
+      for (TripPattern pattern : patterns) {
+        if (updatedPatterns.contains(pattern)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean usesAnyOf(EnumSet<StreetMode> modes) {
+      for (StreetMode mode : streetModes) {
+        if (modes.contains(mode)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
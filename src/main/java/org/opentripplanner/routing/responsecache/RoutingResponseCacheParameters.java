@@ -0,0 +1,19 @@
+package org.opentripplanner.routing.responsecache;
+
+import java.time.Duration;
+
+/**
+ * The parameters of the {@link RoutingResponseCache}.
+ */
+public interface RoutingResponseCacheParameters {
+  /**
+   * The maximum total weight of the cached responses, the weight of a response is the number of
+   * legs in it plus one. If 0, the cache is disabled.
+   */
+  long maxWeight();
+
+  /**
+   * The responses are removed from the cache this long after they are routed.
+   */
+  Duration timeToLive();
+}
@@ -11,8 +11,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import org.opentripplanner.routing.api.request.RoutingRequest;
+import javax.annotation.Nullable;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.graph.CompactStreetGraph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,13 @@ import org.slf4j.LoggerFactory;
  * when walking. The turn restriction handling is done in the base dominance function
  * implementation, and applies to all subclasses. It essentially splits each vertex into N vertices
  * depending on the incoming edge being taken.
+ * <p>
+ * If a {@link CompactStreetGraph} is given, the states of the vertices in it are kept in an array
+ * indexed by the vertex index, instead of in a map. Most vertices only have one state, which is
+ * stored without a list. The array is reused by the next search on the same thread when the tree
+ * is {@link #release() released}, so it should only be given if the tree is released when it is
+ * no longer used, see {@link org.opentripplanner.routing.algorithm.astar.AStarBuilder#setPooledStateArray(boolean)}.
+ * The states of other vertices, like the temporary vertices of a request, are kept in the map.
  */
 public class ShortestPathTree {
 
@@ -41,12 +49,31 @@ public class ShortestPathTree {
 
   private final Map<Vertex, List<State>> stateSets;
 
+  @Nullable
+  private final CompactStreetGraph compactGraph;
+
+  /** The states of the vertices in the compact graph, null if there is no compact graph */
+  @Nullable
+  private VertexStateArray vertexStates;
+
+  private boolean released = false;
+
   /** Indicates that the search timed out or was otherwise aborted. */
   private boolean aborted = false;
 
   public ShortestPathTree(DominanceFunction dominanceFunction) {
+    this(dominanceFunction, null);
+  }
+
+  public ShortestPathTree(
+    DominanceFunction dominanceFunction,
+    @Nullable CompactStreetGraph compactGraph
+  ) {
     this.dominanceFunction = dominanceFunction;
-    stateSets = new IdentityHashMap<>();
+    this.stateSets = new IdentityHashMap<>();
+    this.compactGraph = compactGraph;
+    this.vertexStates =
+      compactGraph == null ? null : VertexStateArray.acquire(compactGraph.numberOfVertices());
   }
 
   /** @return a list of GraphPaths, sometimes empty but never null. */
@@ -79,8 +106,7 @@ public class ShortestPathTree {
     Multiset<Integer> histogram = HashMultiset.create();
     int statesCount = 0;
     int maxSize = 0;
-    for (Map.Entry<Vertex, List<State>> kv : stateSets.entrySet()) {
-      List<State> states = kv.getValue();
+    for (List<State> states : allStateSets()) {
       int size = states.size();
       histogram.add(size);
       statesCount += size;
@@ -90,13 +116,13 @@ public class ShortestPathTree {
     }
     LOG.info(
       "SPT: vertices: " +
-      stateSets.size() +
+      getVertexCount() +
       " states: total: " +
       statesCount +
       " per vertex max: " +
       maxSize +
       " avg: " +
-      (statesCount * 1.0 / stateSets.size())
+      (statesCount * 1.0 / getVertexCount())
     );
     List<Integer> nStates = new ArrayList<>(histogram.elementSet());
     Collections.sort(nStates);
@@ -106,7 +132,15 @@ public class ShortestPathTree {
   }
 
   public Set<Vertex> getVertices() {
-    return stateSets.keySet();
+    if (vertexStates == null) {
+      return stateSets.keySet();
+    }
+    Set<Vertex> vertices = Collections.newSetFromMap(new IdentityHashMap<>());
+    vertices.addAll(stateSets.keySet());
+    for (int i = 0; i < vertexStates.numberOfUsedIndexes(); ++i) {
+      vertices.add(compactGraph.vertex(vertexStates.usedIndex(i)));
+    }
+    return vertices;
   }
 
   /**
@@ -121,6 +155,10 @@ public class ShortestPathTree {
    */
   public boolean add(State newState) {
     Vertex vertex = newState.getVertex();
+    int index = vertexIndex(vertex);
+    if (index != Vertex.NO_INDEX) {
+      return addToVertexStates(index, newState);
+    }
     List<State> states = stateSets.get(vertex);
 
     // if the vertex has no states, add one and return
@@ -130,7 +168,35 @@ public class ShortestPathTree {
       states.add(newState);
       return true;
     }
+    return addToStates(states, newState);
+  }
 
+  private boolean addToVertexStates(int index, State newState) {
+    Object old = vertexStates.get(index);
+
+    // The common case of zero or one state is handled without creating a list
+    if (old == null) {
+      vertexStates.set(index, newState);
+      return true;
+    }
+    if (old instanceof State oldState) {
+      if (dominanceFunction.betterOrEqualAndComparable(oldState, newState)) {
+        return false;
+      }
+      if (dominanceFunction.betterOrEqualAndComparable(newState, oldState)) {
+        vertexStates.set(index, newState);
+      } else {
+        List<State> states = new ArrayList<>(2);
+        states.add(oldState);
+        states.add(newState);
+        vertexStates.set(index, states);
+      }
+      return true;
+    }
+    return addToStates(asStateList(old), newState);
+  }
+
+  private boolean addToStates(List<State> states, State newState) {
     // if the vertex has any states that dominate the new state, don't add the state
     // if the new state dominates any old states, remove them
     Iterator<State> it = states.iterator();
@@ -158,7 +224,7 @@ public class ShortestPathTree {
    * @return a 'best' state at that vertex
    */
   public State getState(Vertex dest) {
-    Collection<State> states = stateSets.get(dest);
+    Collection<State> states = getStates(dest);
     if (states == null) {
       return null;
     }
@@ -182,12 +248,19 @@ public class ShortestPathTree {
    * @return a collection of 'interesting' states at that vertex
    */
   public List<State> getStates(Vertex dest) {
+    int index = vertexIndex(dest);
+    if (index != Vertex.NO_INDEX) {
+      Object states = vertexStates.get(index);
+      return states instanceof State state ? List.of(state) : asStateList(states);
+    }
     return stateSets.get(dest);
   }
 
   /** @return number of vertices referenced in this SPT */
   public int getVertexCount() {
-    return stateSets.keySet().size();
+    checkNotReleased();
+    int count = stateSets.size();
+    return vertexStates == null ? count : count + vertexStates.numberOfUsedIndexes();
   }
 
   /**
@@ -215,25 +288,37 @@ public class ShortestPathTree {
    * @return - whether this state is still considered worth visiting.
    */
   public boolean visit(State state) {
-    boolean ret = false;
-    for (State s : stateSets.get(state.getVertex())) {
-      if (s == state) {
-        ret = true;
-        break;
-      }
+    Vertex vertex = state.getVertex();
+    int index = vertexIndex(vertex);
+    if (index != Vertex.NO_INDEX) {
+      Object states = vertexStates.get(index);
+      return states instanceof State s ? s == state : contains(asStateList(states), state);
     }
-    return ret;
+    return contains(stateSets.get(vertex), state);
   }
 
   /** @return every state in this tree */
   public Collection<State> getAllStates() {
     ArrayList<State> allStates = new ArrayList<>();
-    for (List<State> stateSet : stateSets.values()) {
+    for (List<State> stateSet : allStateSets()) {
       allStates.addAll(stateSet);
     }
     return allStates;
   }
 
+  /**
+   * Give the vertex state array back to the pool of the current thread, so it can be reused by the
+   * next search. The states already returned by the tree can still be used, but the tree itself
+   * can not. A tree which is not released keeps its array until the tree is garbage collected.
+   */
+  public void release() {
+    if (vertexStates != null && !released) {
+      vertexStates.release();
+      vertexStates = null;
+    }
+    released = true;
+  }
+
   public void setAborted() {
     aborted = true;
   }
@@ -243,6 +328,46 @@ public class ShortestPathTree {
   }
 
   public String toString() {
-    return "ShortestPathTree(" + this.stateSets.size() + " vertices)";
+    return "ShortestPathTree(" + getVertexCount() + " vertices)";
+  }
+
+  private int vertexIndex(Vertex vertex) {
+    checkNotReleased();
+    return vertexStates == null ? Vertex.NO_INDEX : compactGraph.vertexIndex(vertex);
+  }
+
+  private List<List<State>> allStateSets() {
+    checkNotReleased();
+    List<List<State>> result = new ArrayList<>(stateSets.values());
+    if (vertexStates != null) {
+      for (int i = 0; i < vertexStates.numberOfUsedIndexes(); ++i) {
+        Object states = vertexStates.get(vertexStates.usedIndex(i));
+        result.add(states instanceof State state ? List.of(state) : asStateList(states));
+      }
+    }
+    return result;
+  }
+
+  private void checkNotReleased() {
+    if (released) {
+      throw new IllegalStateException("The shortest path tree is released.");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<State> asStateList(Object states) {
+    return (List<State>) states;
+  }
+
+  private static boolean contains(List<State> states, State state) {
+    if (states == null) {
+      return false;
+    }
+    for (State s : states) {
+      if (s == state) {
+        return true;
+      }
+    }
+    return false;
   }
 }
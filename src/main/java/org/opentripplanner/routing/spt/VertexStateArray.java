@@ -0,0 +1,71 @@
+package org.opentripplanner.routing.spt;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * The states of a {@link ShortestPathTree}, in an array indexed by the vertex index in the {@link
+ * org.opentripplanner.routing.graph.CompactStreetGraph}. Each element is either {@code null}, a
+ * single {@link org.opentripplanner.routing.core.State} or a list of states.
+ * <p>
+ * The array has one element for each vertex in the graph, so it is too big to be created for each
+ * search. Instead, one array is kept for each thread, and reused by the next search on that thread
+ * when the tree is released. Only the elements used by a search are cleared when it is released.
+ * <p>
+ * This class is NOT THREAD SAFE.
+ */
+final class VertexStateArray {
+
+  private static final ThreadLocal<VertexStateArray> POOL = new ThreadLocal<>();
+
+  private final Object[] states;
+
+  /** The indexes of the elements which are set */
+  private final TIntArrayList usedIndexes = new TIntArrayList();
+
+  private VertexStateArray(int size) {
+    this.states = new Object[size];
+  }
+
+  /**
+   * Take the array kept for the current thread, or create a new one if the thread has none or if it
+   * is too small.
+   */
+  static VertexStateArray acquire(int size) {
+    VertexStateArray array = POOL.get();
+    if (array == null || array.states.length < size) {
+      return new VertexStateArray(size);
+    }
+    POOL.remove();
+    return array;
+  }
+
+  /**
+   * Clear the array and keep it for the next search on the current thread.
+   */
+  void release() {
+    for (int i = 0; i < usedIndexes.size(); ++i) {
+      states[usedIndexes.getQuick(i)] = null;
+    }
+    usedIndexes.resetQuick();
+    POOL.set(this);
+  }
+
+  Object get(int index) {
+    return states[index];
+  }
+
+  void set(int index, Object value) {
+    if (states[index] == null) {
+      usedIndexes.add(index);
+    }
+    states[index] = value;
+  }
+
+  int numberOfUsedIndexes() {
+    return usedIndexes.size();
+  }
+
+  int usedIndex(int i) {
+    return usedIndexes.getQuick(i);
+  }
+}
@@ -157,6 +157,7 @@ public class OTPMain {
         .save(app.graphOutputDataSource());
       // Log size info for the deduplicator
       LOG.info("Memory optimized {}", graph.deduplicator.toString());
+      LOG.info("Deduplicator hits {}", graph.deduplicator.hitStatistics());
     }
 
     if (graph == null) {
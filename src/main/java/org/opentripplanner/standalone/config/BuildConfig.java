@@ -13,7 +13,9 @@ import org.opentripplanner.api.common.RoutingResource;
 import org.opentripplanner.common.geometry.CompactElevationProfile;
 import org.opentripplanner.ext.dataoverlay.configuration.DataOverlayConfig;
 import org.opentripplanner.ext.fares.FaresConfiguration;
+import org.opentripplanner.graph_builder.module.osm.OSMNodeStore;
 import org.opentripplanner.graph_builder.module.osm.WayPropertySetSource;
+import org.opentripplanner.graph_builder.services.ned.ElevationRaster;
 import org.opentripplanner.graph_builder.services.osm.CustomNamer;
 import org.opentripplanner.model.calendar.ServiceDateInterval;
 import org.opentripplanner.routing.api.request.RoutingRequest;
@@ -113,6 +115,18 @@ public class BuildConfig {
    */
   public final boolean embedRouterConfig;
 
+  /**
+   * Save the street edge attributes in flat sections of the graph file instead of serializing them
+   * with the rest of the graph. The sections are memory-mapped when the graph is loaded from a
+   * local file, which makes the server start faster and use less memory while loading.
+   */
+  public final boolean graphFileStreetEdgeSections;
+
+  /**
+   * Split the graph file in chunks, which are deserialized in parallel when the graph is loaded.
+   */
+  public final boolean graphFileParallelLoad;
+
   /**
    * Perform visibility calculations on OSM areas (these calculations can be time consuming).
    */
@@ -123,6 +137,19 @@ public class BuildConfig {
    */
   public final boolean platformEntriesLinking;
 
+  /**
+   * Read and map the GTFS feeds in parallel, and repair the stop times and create the trip times of
+   * the trips in parallel. The trips are still grouped into patterns in the same order, so the
+   * result is the same as when the feeds are loaded one at a time.
+   */
+  public final boolean parallelGtfsLoading;
+
+  /**
+   * Find where to link the transit stops, entrances and vehicle parks to the streets in parallel,
+   * and split each street once for all of them, instead of linking them one at a time.
+   */
+  public final boolean parallelStreetLinking;
+
   /**
    * Based on GTFS shape data, guess which OSM streets each bus runs on to improve stop linking.
    */
@@ -131,6 +158,15 @@ public class BuildConfig {
   /** If specified, download NED elevation tiles from the given AWS S3 bucket. */
   public final S3BucketConfig elevationBucket;
 
+  /**
+   * How the elevation data is sampled. With {@code coverage} the GeoTools grid coverage is used,
+   * with one interpolator for each thread. With {@code heap} or {@code mapped} the data is copied
+   * once into a float raster, on the heap or in a temporary memory-mapped file, which all threads
+   * sample without locking. The raster is only used for data in longitude/latitude coordinates,
+   * otherwise the coverage is used. The default value is {@code coverage}.
+   */
+  public final ElevationRaster.Type elevationRaster;
+
   /**
    * Unit conversion multiplier for elevation values. No conversion needed if the elevation values
    * are defined in meters in the source data. If, for example, decimetres are used in the source
@@ -163,6 +199,15 @@ public class BuildConfig {
    * {@code false}.
    */
   public final boolean osmCacheDataInMem;
+
+  /**
+   * How the OSM nodes are stored while the graph is built. With {@code memory} all nodes are kept
+   * as objects. With {@code compact} only the nodes with tags are kept as objects, the coordinates
+   * of the other nodes are kept in sorted arrays. With {@code mapped} these arrays are kept in a
+   * temporary memory-mapped file instead of on the heap, so large regions can be built with less
+   * memory. The default value is {@code memory}.
+   */
+  public final OSMNodeStore.Type osmNodeStore;
   /**
    * This field indicates the pruning threshold for islands without stops. Any such island under
    * this size will be pruned.
@@ -355,9 +400,12 @@ public class BuildConfig {
         CompactElevationProfile.DEFAULT_DISTANCE_BETWEEN_SAMPLES_METERS
       );
     elevationBucket = S3BucketConfig.fromConfig(c.path("elevationBucket"));
+    elevationRaster = c.asEnum("elevationRaster", ElevationRaster.Type.COVERAGE);
     elevationUnitMultiplier = c.asDouble("elevationUnitMultiplier", 1);
     embedRouterConfig = c.asBoolean("embedRouterConfig", true);
     extraEdgesStopPlatformLink = c.asBoolean("extraEdgesStopPlatformLink", false);
+    graphFileParallelLoad = c.asBoolean("graphFileParallelLoad", false);
+    graphFileStreetEdgeSections = c.asBoolean("graphFileStreetEdgeSections", false);
     includeEllipsoidToGeoidDifference = c.asBoolean("includeEllipsoidToGeoidDifference", false);
     pruningThresholdIslandWithStops = c.asInt("islandWithStopsMaxSize", 5);
     pruningThresholdIslandWithoutStops = c.asInt("islandWithoutStopsMaxSize", 40);
@@ -370,7 +418,10 @@ public class BuildConfig {
     maxStopToShapeSnapDistance = c.asDouble("maxStopToShapeSnapDistance", 150);
     multiThreadElevationCalculations = c.asBoolean("multiThreadElevationCalculations", false);
     osmCacheDataInMem = c.asBoolean("osmCacheDataInMem", false);
+    osmNodeStore = c.asEnum("osmNodeStore", OSMNodeStore.Type.MEMORY);
     osmWayPropertySet = WayPropertySetSource.fromConfig(c.asText("osmWayPropertySet", "default"));
+    parallelGtfsLoading = c.asBoolean("parallelGtfsLoading", false);
+    parallelStreetLinking = c.asBoolean("parallelStreetLinking", false);
     parentStopLinking = c.asBoolean("parentStopLinking", false);
     platformEntriesLinking = c.asBoolean("platformEntriesLinking", false);
     readCachedElevations = c.asBoolean("readCachedElevations", true);
@@ -20,6 +20,8 @@ public class NetexConfig {
 
   private static final Set<String> FERRY_IDS_NOT_ALLOWED_FOR_BICYCLE = Collections.emptySet();
 
+  private static final int PARSE_THREADS = 1;
+
   /**
    * This field is used to identify the specific NeTEx feed. It is used instead of the feed_id field
    * in GTFS file feed_info.txt.
@@ -98,6 +100,30 @@ public class NetexConfig {
    */
   public final Set<String> ferryIdsNotAllowedForBicycle;
 
+  /**
+   * The number of threads parsing the NeTEx XML files. The files are still indexed and mapped one
+   * at a time in the same order, so the result does not depend on the number of threads. At most
+   * two parsed files per thread are kept in memory ahead of the file being mapped.
+   * <p>
+   * Default value is <code>1</code>, the files are parsed one at a time.
+   */
+  public final int parseThreads;
+
+  /**
+   * Read the NeTEx XML files with a StAX cursor, and unmarshal the {@code ServiceJourney}, {@code
+   * DatedServiceJourney}, {@code JourneyPattern} and {@code PassengerStopAssignment} elements one
+   * at a time. The rest of the document is unmarshalled as before, without these elements. This
+   * avoids the JAXB element wrappers and the element lists of the timetable and service frames.
+   * <p>
+   * The journeys and journey patterns are kept in memory as before, so this does not lower the
+   * peak memory much. With {@link #parseThreads} set to one, the elements are passed on as they are
+   * read, and the stop assignments are only kept as their quay and stop point references. With
+   * more threads, the elements of each file are kept until the file is added to the index.
+   * <p>
+   * Default value is <code>false</code>.
+   */
+  public final boolean streamingParser;
+
   NetexConfig(NodeAdapter config) {
     ignoreFilePattern = config.asPattern("ignoreFilePattern", IGNORE_FILE_PATTERN);
     sharedFilePattern = config.asPattern("sharedFilePattern", SHARED_FILE_PATTERN);
@@ -106,5 +132,7 @@ public class NetexConfig {
     netexFeedId = config.asText("netexFeedId", NETEX_FEED_ID);
     ferryIdsNotAllowedForBicycle =
       config.asTextSet("ferryIdsNotAllowedForBicycle", FERRY_IDS_NOT_ALLOWED_FOR_BICYCLE);
+    parseThreads = config.asInt("parseThreads", PARSE_THREADS);
+    streamingParser = config.asBoolean("streamingParser", false);
   }
 }
@@ -11,6 +11,7 @@ import org.opentripplanner.ext.flex.FlexParameters;
 import org.opentripplanner.ext.vectortiles.VectorTilesResource;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitTuningParameters;
 import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.responsecache.RoutingResponseCacheParameters;
 import org.opentripplanner.standalone.config.sandbox.FlexConfig;
 import org.opentripplanner.standalone.config.sandbox.TransmodelAPIConfig;
 import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
@@ -40,6 +41,8 @@ public class RouterConfig implements Serializable {
   private final String requestLogFile;
   private final TransmodelAPIConfig transmodelApi;
   private final Duration streetRoutingTimeout;
+  private final boolean compactStreetGraph;
+  private final RoutingResponseCacheConfig routingResponseCache;
   private final RoutingRequest routingRequestDefaults;
   private final TransitRoutingConfig transitConfig;
   private final UpdatersParameters updatersParameters;
@@ -53,6 +56,9 @@ public class RouterConfig implements Serializable {
     this.requestLogFile = adapter.asText("requestLogFile", null);
     this.transmodelApi = new TransmodelAPIConfig(adapter.path("transmodelApi"));
     this.streetRoutingTimeout = parseStreetRoutingTimeout(adapter);
+    this.compactStreetGraph = adapter.asBoolean("compactStreetGraph", false);
+    this.routingResponseCache =
+      new RoutingResponseCacheConfig(adapter.path("routingResponseCache"));
     this.transitConfig = new TransitRoutingConfig(adapter.path("transit"));
     this.routingRequestDefaults = mapRoutingRequest(adapter.path("routingDefaults"));
     this.updatersParameters = new UpdatersConfig(adapter);
@@ -94,6 +100,19 @@ public class RouterConfig implements Serializable {
     return streetRoutingTimeout;
   }
 
+  /**
+   * Create a {@link org.opentripplanner.routing.graph.CompactStreetGraph} when the server starts.
+   * The street search then iterates the edges of each vertex using int arrays, at the cost of
+   * some extra memory. The default is {@code false}.
+   */
+  public boolean compactStreetGraph() {
+    return compactStreetGraph;
+  }
+
+  public RoutingResponseCacheParameters routingResponseCache() {
+    return routingResponseCache;
+  }
+
   public TransmodelAPIConfig transmodelApi() {
     return transmodelApi;
   }
@@ -0,0 +1,28 @@
+package org.opentripplanner.standalone.config;
+
+import java.time.Duration;
+import org.opentripplanner.routing.responsecache.RoutingResponseCacheParameters;
+
+/**
+ * @see RoutingResponseCacheParameters for documentation of parameters
+ */
+public class RoutingResponseCacheConfig implements RoutingResponseCacheParameters {
+
+  private final long maxWeight;
+  private final Duration timeToLive;
+
+  public RoutingResponseCacheConfig(NodeAdapter node) {
+    maxWeight = node.asLong("maxWeight", 0);
+    timeToLive = node.asDuration("timeToLive", Duration.ofMinutes(1));
+  }
+
+  @Override
+  public long maxWeight() {
+    return maxWeight;
+  }
+
+  @Override
+  public Duration timeToLive() {
+    return timeToLive;
+  }
+}
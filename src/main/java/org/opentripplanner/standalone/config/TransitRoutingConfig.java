@@ -17,7 +17,12 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
   private final int scheduledTripBinarySearchThreshold;
   private final int iterationDepartureStepInSeconds;
   private final int searchThreadPoolSize;
+  private final int parallelSearchWindowSplitInSeconds;
+  private final boolean multiCriteriaStopArrivalsInArrays;
   private final int transferCacheMaxSize;
+  private final int transitDataCacheMaxSize;
+  private final int accessEgressCacheMaxSize;
+  private final Duration accessEgressCacheTimeToLive;
   private final List<Duration> pagingSearchWindowAdjustments;
 
   private final Map<StopTransferPriority, Integer> stopTransferCost;
@@ -32,6 +37,10 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
     this.iterationDepartureStepInSeconds =
       c.asInt("iterationDepartureStepInSeconds", dft.iterationDepartureStepInSeconds());
     this.searchThreadPoolSize = c.asInt("searchThreadPoolSize", dft.searchThreadPoolSize());
+    this.parallelSearchWindowSplitInSeconds =
+      c.asInt("parallelSearchWindowSplitInSeconds", dft.parallelSearchWindowSplitInSeconds());
+    this.multiCriteriaStopArrivalsInArrays =
+      c.asBoolean("multiCriteriaStopArrivalsInArrays", dft.multiCriteriaStopArrivalsInArrays());
     // Dynamic Search Window
     this.stopTransferCost =
       c.asEnumMapAllKeysRequired(
@@ -40,6 +49,10 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
         NodeAdapter::asInt
       );
     this.transferCacheMaxSize = c.asInt("transferCacheMaxSize", 25);
+    this.transitDataCacheMaxSize = c.asInt("transitDataCacheMaxSize", 0);
+    this.accessEgressCacheMaxSize = c.asInt("accessEgressCacheMaxSize", 0);
+    this.accessEgressCacheTimeToLive =
+      c.asDuration("accessEgressCacheTimeToLive", Duration.ofMinutes(10));
 
     this.pagingSearchWindowAdjustments =
       c.asDurations("pagingSearchWindowAdjustments", PAGING_SEARCH_WINDOW_ADJUSTMENTS);
@@ -68,6 +81,16 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
     return searchThreadPoolSize;
   }
 
+  @Override
+  public int parallelSearchWindowSplitInSeconds() {
+    return parallelSearchWindowSplitInSeconds;
+  }
+
+  @Override
+  public boolean multiCriteriaStopArrivalsInArrays() {
+    return multiCriteriaStopArrivalsInArrays;
+  }
+
   @Override
   public DynamicSearchWindowCoefficients dynamicSearchWindowCoefficients() {
     return dynamicSearchWindowCoefficients;
@@ -88,6 +111,21 @@ public final class TransitRoutingConfig implements RaptorTuningParameters, Trans
     return transferCacheMaxSize;
   }
 
+  @Override
+  public int transitDataCacheMaxSize() {
+    return transitDataCacheMaxSize;
+  }
+
+  @Override
+  public int accessEgressCacheMaxSize() {
+    return accessEgressCacheMaxSize;
+  }
+
+  @Override
+  public Duration accessEgressCacheTimeToLive() {
+    return accessEgressCacheTimeToLive;
+  }
+
   @Override
   public List<Duration> pagingSearchWindowAdjustments() {
     return pagingSearchWindowAdjustments;
@@ -175,10 +175,27 @@ public class OTPAppConstruction {
   }
 
   private void setupTransitRoutingServer() {
-    new MetricsLogging(transitModel(), raptorTuningParameters);
+    var tuningParameters = routerConfig().transitTuningParameters();
+    if (tuningParameters.accessEgressCacheMaxSize() > 0) {
+      graph()
+        .initNearbyStopCache(
+          tuningParameters.accessEgressCacheMaxSize(),
+          tuningParameters.accessEgressCacheTimeToLive()
+        );
+    }
+
+    if (routerConfig().routingResponseCache().maxWeight() > 0) {
+      transitModel().initRoutingResponseCache(routerConfig().routingResponseCache());
+    }
+
+    new MetricsLogging(graph(), transitModel(), raptorTuningParameters);
 
     creatTransitLayerForRaptor(transitModel, routerConfig());
 
+    if (routerConfig().compactStreetGraph()) {
+      graph().compactStreetGraph();
+    }
+
     /* Create Graph updater modules from JSON config. */
     GraphUpdaterConfigurator.setupGraph(graph(), transitModel(), routerConfig().updaterConfig());
 
@@ -17,6 +17,7 @@ import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
 import io.micrometer.core.instrument.binder.system.UptimeMetrics;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
+import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.transit.raptor.configure.RaptorConfig;
 import org.opentripplanner.transit.service.TransitModel;
 
@@ -26,7 +27,7 @@ import org.opentripplanner.transit.service.TransitModel;
  */
 public class MetricsLogging {
 
-  public MetricsLogging(TransitModel transitModel, RaptorConfig<?> raptorConfig) {
+  public MetricsLogging(Graph graph, TransitModel transitModel, RaptorConfig<?> raptorConfig) {
     new ClassLoaderMetrics().bindTo(Metrics.globalRegistry);
     new FileDescriptorMetrics().bindTo(Metrics.globalRegistry);
     new JvmCompilationMetrics().bindTo(Metrics.globalRegistry);
@@ -47,6 +48,22 @@ public class MetricsLogging {
       )
         .bindTo(Metrics.globalRegistry);
     }
+    if (transitModel.getRoutingResponseCache() != null) {
+      new GuavaCacheMetrics(
+        transitModel.getRoutingResponseCache().getCache(),
+        "routingResponseCache",
+        List.of(Tag.of("cache", "routingResponse"))
+      )
+        .bindTo(Metrics.globalRegistry);
+    }
+    if (graph.getNearbyStopCache() != null) {
+      new GuavaCacheMetrics(
+        graph.getNearbyStopCache().getCache(),
+        "accessEgressCache",
+        List.of(Tag.of("cache", "accessEgress"))
+      )
+        .bindTo(Metrics.globalRegistry);
+    }
     new ExecutorServiceMetrics(
       ForkJoinPool.commonPool(),
       "commonPool",
@@ -1,14 +1,14 @@
 package org.opentripplanner.transit.model.framework;
 
-import com.google.common.collect.Maps;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -17,20 +17,26 @@ import org.opentripplanner.util.lang.ToStringBuilder;
 /**
  * Does the same thing as String.intern, but for several different types. Java's String.intern uses
  * perm gen space and is broken anyway.
+ * <p>
+ * The deduplicator is thread-safe, so it can be used from the parallel graph build stages. When two
+ * threads deduplicate equal values at the same time, both get the value which was stored first.
+ * <p>
+ * For each type the number of requests and the number of hits, requests returning a value which
+ * was already stored, are counted. See {@link #hitStatistics()}.
  */
 public class Deduplicator implements Serializable {
 
   private static final long serialVersionUID = 20140524L;
 
-  private final Map<BitSet, BitSet> canonicalBitSets = Maps.newHashMap();
-  private final Map<IntArray, IntArray> canonicalIntArrays = Maps.newHashMap();
-  private final Map<String, String> canonicalStrings = Maps.newHashMap();
-  private final Map<StringArray, StringArray> canonicalStringArrays = Maps.newHashMap();
-  private final Map<String2DArray, String2DArray> canonicalString2DArrays = Maps.newHashMap();
-  private final Map<Class<?>, Map<?, ?>> canonicalObjects = new HashMap<>();
-  private final Map<Class<?>, Map<List<?>, List<?>>> canonicalLists = new HashMap<>();
+  private final Map<BitSet, BitSet> canonicalBitSets = new ConcurrentHashMap<>();
+  private final Map<IntArray, IntArray> canonicalIntArrays = new ConcurrentHashMap<>();
+  private final Map<String, String> canonicalStrings = new ConcurrentHashMap<>();
+  private final Map<StringArray, StringArray> canonicalStringArrays = new ConcurrentHashMap<>();
+  private final Map<String2DArray, String2DArray> canonicalString2DArrays = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Map<?, ?>> canonicalObjects = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Map<List<?>, List<?>>> canonicalLists = new ConcurrentHashMap<>();
 
-  private final Map<String, Integer> effectCounter = new HashMap<>();
+  private final Map<String, EffectCounter> effectCounters = new ConcurrentHashMap<>();
 
   /** Free up any memory used by the deduplicator. */
   public void reset() {
@@ -48,29 +54,25 @@ public class Deduplicator implements Serializable {
     if (original == null) {
       return null;
     }
-    BitSet canonical = canonicalBitSets.get(original);
-    if (canonical == null) {
-      canonical = original;
-      canonicalBitSets.put(canonical, canonical);
-    }
-    incrementEffectCounter(BitSet.class);
-    return canonical;
+    BitSet canonical = canonicalBitSets.putIfAbsent(original, original);
+    incrementEffectCounter(BitSet.class, canonical != null);
+    return canonical == null ? original : canonical;
   }
 
-  /** Used to deduplicate time and stop sequence arrays. The same times may occur in many trips. */
+  /**
+   * Used to deduplicate time and stop sequence arrays. The same times may occur in many trips. The
+   * trip times are shifted to start at zero before they are deduplicated, so all trips with the
+   * same running and dwell times share the same arrays, also across patterns.
+   */
   @Nullable
   public int[] deduplicateIntArray(int[] original) {
     if (original == null) {
       return null;
     }
     IntArray intArray = new IntArray(original);
-    IntArray canonical = canonicalIntArrays.get(intArray);
-    if (canonical == null) {
-      canonical = intArray;
-      canonicalIntArrays.put(canonical, canonical);
-    }
-    incrementEffectCounter(IntArray.class);
-    return canonical.array;
+    IntArray canonical = canonicalIntArrays.putIfAbsent(intArray, intArray);
+    incrementEffectCounter(IntArray.class, canonical != null);
+    return canonical == null ? original : canonical.array;
   }
 
   @Nullable
@@ -79,7 +81,7 @@ public class Deduplicator implements Serializable {
       return null;
     }
     String canonical = canonicalStrings.putIfAbsent(original, original);
-    incrementEffectCounter(String.class);
+    incrementEffectCounter(String.class, canonical != null);
     return canonical == null ? original : canonical;
   }
 
@@ -89,11 +91,16 @@ public class Deduplicator implements Serializable {
       return null;
     }
     StringArray canonical = canonicalStringArrays.get(new StringArray(original, false));
+    boolean hit = canonical != null;
     if (canonical == null) {
-      canonical = new StringArray(original, true);
-      canonicalStringArrays.put(canonical, canonical);
+      var deduplicated = new StringArray(original, true);
+      canonical = canonicalStringArrays.putIfAbsent(deduplicated, deduplicated);
+      hit = canonical != null;
+      if (canonical == null) {
+        canonical = deduplicated;
+      }
     }
-    incrementEffectCounter(StringArray.class);
+    incrementEffectCounter(StringArray.class, hit);
     return canonical.array;
   }
 
@@ -107,11 +114,16 @@ public class Deduplicator implements Serializable {
       return null;
     }
     String2DArray canonical = canonicalString2DArrays.get(new String2DArray(original, false));
+    boolean hit = canonical != null;
     if (canonical == null) {
-      canonical = new String2DArray(original, true);
-      canonicalString2DArrays.put(canonical, canonical);
+      var deduplicated = new String2DArray(original, true);
+      canonical = canonicalString2DArrays.putIfAbsent(deduplicated, deduplicated);
+      hit = canonical != null;
+      if (canonical == null) {
+        canonical = deduplicated;
+      }
     }
-    incrementEffectCounter(String2DArray.class);
+    incrementEffectCounter(String2DArray.class, hit);
     return canonical.array;
   }
 
@@ -124,9 +136,12 @@ public class Deduplicator implements Serializable {
     if (original == null) {
       return null;
     }
-    Map<T, T> objects = (Map<T, T>) canonicalObjects.computeIfAbsent(cl, c -> new HashMap<T, T>());
+    Map<T, T> objects = (Map<T, T>) canonicalObjects.computeIfAbsent(
+      cl,
+      c -> new ConcurrentHashMap<T, T>()
+    );
     T canonical = objects.putIfAbsent(original, original);
-    incrementEffectCounter(cl);
+    incrementEffectCounter(cl, canonical != null);
     return canonical == null ? original : canonical;
   }
 
@@ -137,24 +152,29 @@ public class Deduplicator implements Serializable {
     }
 
     Map<List<?>, List<?>> canonicalLists =
-      this.canonicalLists.computeIfAbsent(clazz, key -> new HashMap<>());
+      this.canonicalLists.computeIfAbsent(clazz, key -> new ConcurrentHashMap<>());
 
     @SuppressWarnings("unchecked")
     List<T> canonical = (List<T>) canonicalLists.get(original);
+    boolean hit = canonical != null;
     if (canonical == null) {
       // The list may contain nulls, hence the use of the old unmodifiable wrapper
       //noinspection FuseStreamOperations
       boolean containsNull = original.stream().anyMatch(Objects::isNull);
       Stream<T> stream = original.stream().map(it -> deduplicateObject(clazz, it));
       // The list may contain nulls, hence the use of the old unmodifiable wrapper
-      canonical =
-        containsNull
-          ? Collections.unmodifiableList(stream.collect(Collectors.toList()))
-          : stream.collect(Collectors.toUnmodifiableList());
-      canonicalLists.put(canonical, canonical);
+      List<T> deduplicated = containsNull
+        ? Collections.unmodifiableList(stream.collect(Collectors.toList()))
+        : stream.collect(Collectors.toUnmodifiableList());
+      //noinspection unchecked
+      canonical = (List<T>) canonicalLists.putIfAbsent(deduplicated, deduplicated);
+      hit = canonical != null;
+      if (canonical == null) {
+        canonical = deduplicated;
+      }
     }
 
-    incrementEffectCounter(listKey(clazz));
+    incrementEffectCounter(listKey(clazz), hit);
     return canonical;
   }
 
@@ -180,32 +200,89 @@ public class Deduplicator implements Serializable {
     return builder.toString();
   }
 
+  /**
+   * Returns a string with the number of hits and the number of requests for each type, like
+   * {@code IntArray: 90/100 (90%)}. A hit is a request returning a value which was already stored.
+   */
+  public String hitStatistics() {
+    var builder = ToStringBuilder.of(Deduplicator.class);
+    addHitStatistics(builder, "BitSet", BitSet.class.getName());
+    addHitStatistics(builder, "IntArray", IntArray.class.getName());
+    addHitStatistics(builder, "String", String.class.getName());
+    addHitStatistics(builder, "StringArray", StringArray.class.getName());
+    addHitStatistics(builder, "String2DArray", String2DArray.class.getName());
+    canonicalObjects
+      .keySet()
+      .forEach(k -> addHitStatistics(builder, k.getSimpleName(), k.getName()));
+    canonicalLists
+      .keySet()
+      .forEach(k -> addHitStatistics(builder, "List<" + k.getSimpleName() + ">", listKey(k)));
+    return builder.toString();
+  }
+
   /* private members */
 
   private static <T> String listKey(Class<T> elementType) {
     return "List<" + elementType.getName() + ">";
   }
 
-  private void incrementEffectCounter(Class<?> clazz) {
-    incrementEffectCounter(clazz.getName());
+  private void incrementEffectCounter(Class<?> clazz, boolean hit) {
+    incrementEffectCounter(clazz.getName(), hit);
   }
 
   private String sizeAndCount(int size, Class<?> clazz) {
     return sizeAndCount(size, clazz.getName());
   }
 
-  private void incrementEffectCounter(String key) {
-    // Count the first element, start at 1
-    effectCounter.compute(key, (k, v) -> v == null ? 1 : ++v);
+  private void incrementEffectCounter(String key, boolean hit) {
+    // Avoid the locking in computeIfAbsent when the counter exists
+    EffectCounter counter = effectCounters.get(key);
+    if (counter == null) {
+      counter = effectCounters.computeIfAbsent(key, k -> new EffectCounter());
+    }
+    counter.increment(hit);
   }
 
   private String sizeAndCount(int size, String key) {
-    int count = effectCounter.getOrDefault(key, 0);
+    EffectCounter counter = effectCounters.get(key);
+    long count = counter == null ? 0 : counter.requests.sum();
     return size + "(" + count + ")";
   }
 
+  private void addHitStatistics(ToStringBuilder builder, String name, String key) {
+    EffectCounter counter = effectCounters.get(key);
+    if (counter != null) {
+      builder.addObj(name, counter.toString());
+    }
+  }
+
   /* private classes */
 
+  /**
+   * Counts the requests and hits for one type. The counters are updated from many threads, so
+   * {@link LongAdder}s are used to avoid contention on a single value.
+   */
+  private static class EffectCounter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    void increment(boolean hit) {
+      requests.increment();
+      if (hit) {
+        hits.increment();
+      }
+    }
+
+    @Override
+    public String toString() {
+      long r = requests.sum();
+      long h = hits.sum();
+      return h + "/" + r + " (" + (r == 0 ? 0 : (100 * h) / r) + "%)";
+    }
+  }
+
   /** A wrapper for a primitive int array. This is insane but necessary in Java. */
   private static class IntArray implements Serializable {
 
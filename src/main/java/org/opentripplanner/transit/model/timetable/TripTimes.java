@@ -81,12 +81,14 @@ public class TripTimes implements Serializable, Comparable<TripTimes> {
   private int serviceCode = -1;
   /**
    * The time in seconds after midnight at which the vehicle arrives at each stop, accounting for
-   * any real-time updates. Non-final to allow updates.
+   * any real-time updates. Non-final to allow updates. This is null until an update changes one of
+   * the arrival times, the shared scheduled times are used until then.
    */
   private int[] arrivalTimes;
   /**
    * The time in seconds after midnight at which the vehicle leaves each stop, accounting for any
-   * real-time updates. Non-final to allow updates.
+   * real-time updates. Non-final to allow updates. This is null until an update changes one of the
+   * departure times, the shared scheduled times are used until then.
    */
   private int[] departureTimes;
 
@@ -385,22 +387,32 @@ public class TripTimes implements Serializable, Comparable<TripTimes> {
 
   public void updateDepartureTime(final int stop, final int time) {
     prepareForRealTimeUpdates();
+    if (departureTimes == null) {
+      if (time == getScheduledDepartureTime(stop)) {
+        return;
+      }
+      departureTimes = copyWithTimeShift(scheduledDepartureTimes);
+    }
     departureTimes[stop] = time;
   }
 
   public void updateDepartureDelay(final int stop, final int delay) {
-    prepareForRealTimeUpdates();
-    departureTimes[stop] = scheduledDepartureTimes[stop] + timeShift + delay;
+    updateDepartureTime(stop, getScheduledDepartureTime(stop) + delay);
   }
 
   public void updateArrivalTime(final int stop, final int time) {
     prepareForRealTimeUpdates();
+    if (arrivalTimes == null) {
+      if (time == getScheduledArrivalTime(stop)) {
+        return;
+      }
+      arrivalTimes = copyWithTimeShift(scheduledArrivalTimes);
+    }
     arrivalTimes[stop] = time;
   }
 
   public void updateArrivalDelay(final int stop, final int delay) {
-    prepareForRealTimeUpdates();
-    arrivalTimes[stop] = scheduledArrivalTimes[stop] + timeShift + delay;
+    updateArrivalTime(stop, getScheduledArrivalTime(stop) + delay);
   }
 
   public WheelchairAccessibility getWheelchairAccessibility() {
@@ -424,8 +436,8 @@ public class TripTimes implements Serializable, Comparable<TripTimes> {
   /**
    * Returns a time-shifted copy of this TripTimes in which the vehicle passes the given stop index
    * (not stop sequence number) at the given time. We only have a mechanism to shift the scheduled
-   * stoptimes, not the real-time stoptimes. Therefore, this only works on trips without updates for
-   * now (frequency trips don't have updates).
+   * stoptimes, not the real-time stoptimes. Therefore, this only works on trips without updated
+   * times for now (frequency trips don't have updates).
    */
   public TripTimes timeShift(final int stop, final int time, final boolean depart) {
     if (arrivalTimes != null || departureTimes != null) {
@@ -614,26 +626,36 @@ public class TripTimes implements Serializable, Comparable<TripTimes> {
   }
 
   /**
-   * If they don't already exist, create arrays for updated arrival and departure times that are
-   * just time-shifted copies of the zero-based scheduled departure times.
+   * Allocate the per stop real-time states, the first time this TripTimes is updated. The arrival
+   * and departure times are not copied here, they are copied when the first time is changed. Most
+   * updates leave many trips, or the arrival or departure times of a trip, unchanged, and these
+   * keep sharing the deduplicated scheduled times.
+   * <p>
+   * Also sets the realtime state to UPDATED, even if none of the times are changed.
    * <p>
-   * Also sets the realtime state to UPDATED.
+   * The occupancy status is never copied from another TripTimes, so it is used to check if this
+   * TripTimes is prepared. The stop real-time states may be shared with the TripTimes this is a
+   * copy of, and must be replaced before they are changed.
    */
   private void prepareForRealTimeUpdates() {
-    if (arrivalTimes == null) {
-      this.arrivalTimes = Arrays.copyOf(scheduledArrivalTimes, scheduledArrivalTimes.length);
-      this.departureTimes = Arrays.copyOf(scheduledDepartureTimes, scheduledDepartureTimes.length);
-      this.stopRealTimeStates = new StopRealTimeState[arrivalTimes.length];
-      this.occupancyStatus = new OccupancyStatus[arrivalTimes.length];
-      for (int i = 0; i < arrivalTimes.length; i++) {
-        arrivalTimes[i] += timeShift;
-        departureTimes[i] += timeShift;
-        stopRealTimeStates[i] = StopRealTimeState.DEFAULT;
-        occupancyStatus[i] = OccupancyStatus.NO_DATA;
-      }
+    if (occupancyStatus == null) {
+      final int nStops = scheduledArrivalTimes.length;
+      this.stopRealTimeStates = new StopRealTimeState[nStops];
+      this.occupancyStatus = new OccupancyStatus[nStops];
+      Arrays.fill(stopRealTimeStates, StopRealTimeState.DEFAULT);
+      Arrays.fill(occupancyStatus, OccupancyStatus.NO_DATA);
 
       // Update the real-time state
       realTimeState = RealTimeState.UPDATED;
     }
   }
+
+  /** Updated times are not time shifted, so the shift is added to the copied scheduled times. */
+  private int[] copyWithTimeShift(int[] scheduledTimes) {
+    final int[] times = new int[scheduledTimes.length];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = scheduledTimes[i] + timeShift;
+    }
+    return times;
+  }
 }
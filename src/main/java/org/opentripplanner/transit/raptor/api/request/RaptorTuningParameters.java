@@ -55,6 +55,34 @@ public interface RaptorTuningParameters {
     return 0;
   }
 
+  /**
+   * Split the search-window of a multi-criteria search into sub-windows and route each of them in
+   * parallel using the {@link #searchThreadPoolSize()} thread pool. The results of the sub-searches
+   * are merged into one pareto-set of paths. This parameter set the minimum length of each
+   * sub-window, the search-window is not split into more parts than there are threads in the pool.
+   * <p/>
+   * Each sub-search runs without the pruning from the later iterations in the other sub-windows,
+   * so the total amount of work increases, but the response time goes down if there are idle
+   * cores available.
+   * <p/>
+   * The default value is 0 - zero. If 0, the search-window is not split.
+   */
+  default int parallelSearchWindowSplitInSeconds() {
+    return 0;
+  }
+
+  /**
+   * Store the multi-criteria stop arrivals in primitive arrays, pooled and reused across searches,
+   * instead of creating one object for each stop arrival. This reduces the pressure on the garbage
+   * collector for large multi-criteria searches, but it does not support debugging of stop
+   * arrivals - the object based state is used if stop arrival debugging is enabled.
+   * <p/>
+   * The default value is {@code false}.
+   */
+  default boolean multiCriteriaStopArrivalsInArrays() {
+    return false;
+  }
+
   /**
    * Coefficients used to calculate raptor-search-window parameters dynamically  from heuristics.
    */
@@ -1,12 +1,17 @@
 package org.opentripplanner.transit.raptor.configure;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import javax.annotation.Nullable;
+import org.opentripplanner.transit.raptor.api.path.Path;
 import org.opentripplanner.transit.raptor.api.request.RaptorRequest;
 import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTransitDataProvider;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+import org.opentripplanner.transit.raptor.rangeraptor.ConcurrentRangeRaptorWorker;
 import org.opentripplanner.transit.raptor.rangeraptor.RangeRaptorWorker;
 import org.opentripplanner.transit.raptor.rangeraptor.context.SearchContext;
 import org.opentripplanner.transit.raptor.rangeraptor.internalapi.HeuristicSearch;
@@ -17,6 +22,7 @@ import org.opentripplanner.transit.raptor.rangeraptor.internalapi.WorkerState;
 import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.configure.McRangeRaptorConfig;
 import org.opentripplanner.transit.raptor.rangeraptor.standard.configure.StdRangeRaptorConfig;
 import org.opentripplanner.transit.raptor.rangeraptor.transit.RaptorSearchWindowCalculator;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoComparator;
 
 /**
  * This class is responsible for creating a new search and holding application scoped Raptor state.
@@ -57,6 +63,9 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
     RaptorRequest<T> request,
     Heuristics heuristics
   ) {
+    if (isSearchWindowSplitEnabled(request)) {
+      return createConcurrentMcWorker(transitData, request, heuristics);
+    }
     final SearchContext<T> context = context(transitData, request);
     return new McRangeRaptorConfig<>(context)
       .createWorker(heuristics, (s, w) -> createWorker(context, s, w));
@@ -91,6 +100,85 @@ public class RaptorConfig<T extends RaptorTripSchedule> {
 
   /* private factory methods */
 
+  /**
+   * Split the search-window into sub-windows and create a worker for each of them. The
+   * sub-windows are aligned with the Range Raptor iterations, so the union of the iterations
+   * performed by the sub-window workers is the same as for one worker routing the entire
+   * search-window.
+   */
+  private Worker<T> createConcurrentMcWorker(
+    RaptorTransitDataProvider<T> transitData,
+    RaptorRequest<T> request,
+    Heuristics heuristics
+  ) {
+    final int edt = request.searchParams().earliestDepartureTime();
+    final int searchWindow = request.searchParams().searchWindowInSeconds();
+    final int step = tuningParameters.iterationDepartureStepInSeconds();
+    final int nIterations = searchWindow / step;
+    final int nSubWindows = numberOfSubSearchWindows(request);
+    final int subWindowLength = step * ((nIterations + nSubWindows - 1) / nSubWindows);
+
+    List<Worker<T>> workers = new ArrayList<>();
+    ParetoComparator<Path<T>> pathParetoComparator = null;
+    int upperBound = edt + searchWindow;
+
+    // Create the workers in order, starting with the latest sub-window
+    while (upperBound > edt) {
+      int lowerBound = upperBound - subWindowLength;
+
+      // Add the remaining part of the search-window to the earliest sub-window, if it is too
+      // short to contain a Range Raptor iteration.
+      if (lowerBound - edt < step) {
+        lowerBound = edt;
+      }
+      var subRequest = request
+        .mutate()
+        .searchParams()
+        .earliestDepartureTime(lowerBound)
+        .searchWindowInSeconds(upperBound - lowerBound)
+        .build();
+
+      final SearchContext<T> context = context(transitData, subRequest);
+      var mcConfig = new McRangeRaptorConfig<>(context);
+      workers.add(mcConfig.createWorker(heuristics, (s, w) -> createWorker(context, s, w)));
+      pathParetoComparator = mcConfig.pathParetoComparator();
+      upperBound = lowerBound;
+    }
+    // The first worker should route the earliest sub-window
+    Collections.reverse(workers);
+
+    return new ConcurrentRangeRaptorWorker<>(workers, threadPool, pathParetoComparator);
+  }
+
+  private boolean isSearchWindowSplitEnabled(RaptorRequest<T> request) {
+    return (
+      isMultiThreaded() &&
+      request.runInParallel() &&
+      request.searchDirection().isForward() &&
+      tuningParameters.parallelSearchWindowSplitInSeconds() > 0 &&
+      numberOfSubSearchWindows(request) > 1
+    );
+  }
+
+  /**
+   * The caller thread route one of the sub-windows, so we can use one more sub-window than there
+   * are threads in the pool.
+   */
+  private int numberOfSubSearchWindows(RaptorRequest<T> request) {
+    int nIterations =
+      request.searchParams().searchWindowInSeconds() /
+      tuningParameters.iterationDepartureStepInSeconds();
+    int nIterationsPerWindow = Math.max(
+      1,
+      tuningParameters.parallelSearchWindowSplitInSeconds() /
+      tuningParameters.iterationDepartureStepInSeconds()
+    );
+    return Math.min(
+      nIterations / nIterationsPerWindow,
+      tuningParameters.searchThreadPoolSize() + 1
+    );
+  }
+
   private Worker<T> createWorker(
     SearchContext<T> ctx,
     WorkerState<T> workerState,
@@ -0,0 +1,99 @@
+package org.opentripplanner.transit.raptor.rangeraptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.opentripplanner.transit.raptor.api.path.Path;
+import org.opentripplanner.transit.raptor.api.response.StopArrivals;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+import org.opentripplanner.transit.raptor.rangeraptor.internalapi.Worker;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoComparator;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoSet;
+
+/**
+ * This worker route a Range Raptor search by splitting the search-window into sub-windows. Each
+ * sub-window is routed by its own worker, with its own state, in parallel using the given thread
+ * pool. When all workers are done the paths are merged into one pareto-set using the same
+ * comparator as the {@code DestinationArrivalPaths} in each worker.
+ * <p/>
+ * The sub-window workers do not share state, so an iteration in one sub-window is not pruned by
+ * the arrivals found in the later sub-windows. The result is the same, but the total amount of
+ * work is higher than for a single worker.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class ConcurrentRangeRaptorWorker<T extends RaptorTripSchedule> implements Worker<T> {
+
+  /**
+   * The sub-window workers, the first worker route the earliest sub-window.
+   */
+  private final List<Worker<T>> workers;
+  private final ExecutorService threadPool;
+  private final ParetoComparator<Path<T>> pathParetoComparator;
+
+  public ConcurrentRangeRaptorWorker(
+    List<Worker<T>> workers,
+    ExecutorService threadPool,
+    ParetoComparator<Path<T>> pathParetoComparator
+  ) {
+    if (workers.isEmpty()) {
+      throw new IllegalArgumentException("At least one worker is required.");
+    }
+    this.workers = workers;
+    this.threadPool = threadPool;
+    this.pathParetoComparator = pathParetoComparator;
+  }
+
+  @Override
+  public void route() {
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      // Submit all but the first worker, the first worker run in the caller thread
+      for (int i = 1; i < workers.size(); ++i) {
+        futures.add(threadPool.submit(workers.get(i)::route));
+      }
+      workers.get(0).route();
+
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(
+        "Failed to run sub-search-window searches in parallel. Details: " + e.getMessage(),
+        e
+      );
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Parallel Range Raptor search interrupted.", e);
+    }
+  }
+
+  /**
+   * Merge the paths found by each worker into one pareto-set.
+   */
+  @Override
+  public Collection<Path<T>> paths() {
+    ParetoSet<Path<T>> paths = new ParetoSet<>(pathParetoComparator);
+    for (Worker<T> worker : workers) {
+      paths.addAll(worker.paths());
+    }
+    return paths;
+  }
+
+  /**
+   * The stop arrivals can not be merged, so we return the stop arrivals for the worker routing the
+   * earliest sub-window. The last iteration of this worker is the same as the last iteration of a
+   * single worker routing the entire search-window.
+   */
+  @Override
+  public StopArrivals stopArrivals() {
+    return workers.get(0).stopArrivals();
+  }
+}
@@ -62,7 +62,9 @@ public final class RangeRaptorWorker<T extends RaptorTripSchedule> implements Wo
    * This also allow us to try out different strategies for storing the result in memory. For a long
    * time we had a state which stored all data as int arrays in addition to the current
    * object-oriented approach. There were no performance differences(=> GC is not the bottle neck),
-   * so we dropped the integer array implementation.
+   * so we dropped the integer array implementation. For large multi-criteria searches with many
+   * requests in parallel on a constrained heap the GC can be a bottleneck, so there is an optional
+   * array based multi-criteria state, see {@code McArrayWorkerState}.
    */
   private final WorkerState<T> state;
 
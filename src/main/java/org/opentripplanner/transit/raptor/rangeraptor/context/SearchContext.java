@@ -171,6 +171,14 @@ public class SearchContext<T extends RaptorTripSchedule> {
     return tuningParameters.maxNumberOfTransfers() + 1;
   }
 
+  /**
+   * Store the multi-criteria stop arrivals in primitive arrays, see {@link
+   * RaptorTuningParameters#multiCriteriaStopArrivalsInArrays()}.
+   */
+  public boolean multiCriteriaStopArrivalsInArrays() {
+    return tuningParameters.multiCriteriaStopArrivalsInArrays();
+  }
+
   public RoundProvider roundProvider() {
     return roundTracker;
   }
@@ -0,0 +1,44 @@
+package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays;
+
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoComparator;
+import org.opentripplanner.util.lang.ToStringBuilder;
+
+/**
+ * The same as the {@code PatternRide}, except that the previous stop arrival is referenced by its
+ * index in the {@link McStopArrivalArrays}.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+record McArrayPatternRide<T extends RaptorTripSchedule>(
+  int prevArrival,
+  int boardTime,
+  int boardCost,
+  int relativeCost,
+  int tripSortIndex,
+  T trip
+) {
+  // Pareto vector: [relativeCost, tripSortIndex]
+
+  /**
+   * Same as {@code PatternRide#paretoComparatorRelativeCost()}.
+   */
+  static <
+    T extends RaptorTripSchedule
+  > ParetoComparator<McArrayPatternRide<T>> paretoComparatorRelativeCost() {
+    return (l, r) -> l.tripSortIndex != r.tripSortIndex || l.relativeCost < r.relativeCost;
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder
+      .of(McArrayPatternRide.class)
+      .addNum("prevArrival", prevArrival)
+      .addServiceTime("boardTime", boardTime)
+      .addNum("boardCost", boardCost)
+      .addNum("relativeCost", relativeCost)
+      .addNum("tripSortIndex", tripSortIndex)
+      .addObj("trip", trip)
+      .toString();
+  }
+}
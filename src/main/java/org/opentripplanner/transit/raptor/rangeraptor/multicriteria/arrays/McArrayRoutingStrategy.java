@@ -0,0 +1,136 @@
+package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays;
+
+import static org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays.McArrayPatternRide.paretoComparatorRelativeCost;
+
+import java.util.function.IntConsumer;
+import org.opentripplanner.transit.raptor.api.transit.CostCalculator;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripScheduleBoardOrAlightEvent;
+import org.opentripplanner.transit.raptor.api.transit.TransitArrival;
+import org.opentripplanner.transit.raptor.rangeraptor.internalapi.RoutingStrategy;
+import org.opentripplanner.transit.raptor.rangeraptor.internalapi.SlackProvider;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoSet;
+
+/**
+ * The multi-criteria routing strategy for the {@link McArrayWorkerState}. The logic is the same as
+ * in the {@code MultiCriteriaRoutingStrategy}, but the stop arrivals are referenced by their index
+ * in the {@link McStopArrivalArrays}.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class McArrayRoutingStrategy<T extends RaptorTripSchedule>
+  implements RoutingStrategy<T> {
+
+  private final McArrayWorkerState<T> state;
+  private final CostCalculator<T> costCalculator;
+  private final SlackProvider slackProvider;
+  private final ParetoSet<McArrayPatternRide<T>> patternRides;
+
+  private McStopArrivalArrays arrays;
+  private int prevArrival;
+
+  public McArrayRoutingStrategy(
+    McArrayWorkerState<T> state,
+    SlackProvider slackProvider,
+    CostCalculator<T> costCalculator
+  ) {
+    this.state = state;
+    this.slackProvider = slackProvider;
+    this.costCalculator = costCalculator;
+    this.patternRides = new ParetoSet<>(paretoComparatorRelativeCost());
+  }
+
+  @Override
+  public void setAccessToStop(
+    RaptorTransfer accessPath,
+    int iterationDepartureTime,
+    int timeDependentDepartureTime
+  ) {
+    state.setAccessToStop(accessPath, timeDependentDepartureTime);
+  }
+
+  @Override
+  public void prepareForTransitWith() {
+    this.patternRides.clear();
+    this.arrays = state.arrays();
+  }
+
+  @Override
+  public void alight(final int stopIndex, final int stopPos, int alightSlack) {
+    for (McArrayPatternRide<T> ride : patternRides) {
+      state.transitToStop(ride, stopIndex, ride.trip().arrival(stopPos), alightSlack);
+    }
+  }
+
+  @Override
+  public void forEachBoarding(int stopIndex, IntConsumer prevStopArrivalTimeConsumer) {
+    final int marker = arrays.stopSetMarker(stopIndex);
+    final int size = arrays.stopSetSize(stopIndex);
+
+    for (int i = marker; i < size; ++i) {
+      this.prevArrival = arrays.stopSetElement(stopIndex, i);
+      prevStopArrivalTimeConsumer.accept(arrays.arrivalTime(prevArrival));
+    }
+  }
+
+  @Override
+  public TransitArrival<T> previousTransit(int boardStopIndex) {
+    int it = prevArrival;
+    while (arrays.arrivedByTransfer(it)) {
+      it = arrays.previous(it);
+    }
+    return arrays.arrivedByTransit(it) ? new McStopArrivalView<>(arrays, it) : null;
+  }
+
+  @Override
+  public void board(
+    final int stopIndex,
+    final int earliestBoardTime,
+    final RaptorTripScheduleBoardOrAlightEvent<T> boarding
+  ) {
+    final T trip = boarding.getTrip();
+    final int boardTime = boarding.getTime();
+
+    if (arrays.arrivedByAccess(prevArrival)) {
+      int latestArrivalTime = boardTime - slackProvider.boardSlack(trip.pattern().slackIndex());
+      prevArrival = state.timeShiftAccessArrival(prevArrival, latestArrivalTime);
+    }
+
+    final int boardCost = calculateCostAtBoardTime(prevArrival, boarding);
+
+    final int relativeBoardCost =
+      boardCost + costCalculator.onTripRelativeRidingCost(boardTime, trip);
+
+    patternRides.add(
+      new McArrayPatternRide<>(
+        prevArrival,
+        boardTime,
+        boardCost,
+        relativeBoardCost,
+        trip.tripSortIndex(),
+        trip
+      )
+    );
+  }
+
+  /**
+   * Same as {@code MultiCriteriaRoutingStrategy#calculateCostAtBoardTime}.
+   */
+  private int calculateCostAtBoardTime(
+    final int prevArrival,
+    final RaptorTripScheduleBoardOrAlightEvent<T> boardEvent
+  ) {
+    return (
+      arrays.cost(prevArrival) +
+      costCalculator.boardingCost(
+        arrays.round(prevArrival) == 0,
+        arrays.arrivalTime(prevArrival),
+        boardEvent.getBoardStopIndex(),
+        boardEvent.getTime(),
+        boardEvent.getTrip(),
+        boardEvent.getTransferConstraint()
+      )
+    );
+  }
+}
@@ -0,0 +1,302 @@
+package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.opentripplanner.transit.raptor.api.path.Path;
+import org.opentripplanner.transit.raptor.api.response.StopArrivals;
+import org.opentripplanner.transit.raptor.api.transit.CostCalculator;
+import org.opentripplanner.transit.raptor.api.transit.IntIterator;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+import org.opentripplanner.transit.raptor.rangeraptor.internalapi.WorkerLifeCycle;
+import org.opentripplanner.transit.raptor.rangeraptor.internalapi.WorkerState;
+import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.heuristic.HeuristicsProvider;
+import org.opentripplanner.transit.raptor.rangeraptor.path.DestinationArrivalPaths;
+import org.opentripplanner.transit.raptor.rangeraptor.transit.EgressPaths;
+import org.opentripplanner.transit.raptor.rangeraptor.transit.TransitCalculator;
+import org.opentripplanner.transit.raptor.util.BitSetIterator;
+
+/**
+ * Multi-criteria Range Raptor state, storing the stop arrivals in primitive arrays instead of
+ * creating one object for each stop arrival, see {@link McStopArrivalArrays}. The arrays are
+ * pooled and reused across searches, this reduce the pressure on the garbage collector for large
+ * multi-criteria searches.
+ * <p/>
+ * The state return the same result as the {@code McRangeRaptorWorkerState}, but it does not
+ * support debugging of stop arrivals.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+public final class McArrayWorkerState<T extends RaptorTripSchedule> implements WorkerState<T> {
+
+  private final int nStops;
+  private final List<RaptorTransfer>[] egressPathsByStop;
+  private final DestinationArrivalPaths<T> paths;
+  private final HeuristicsProvider<T> heuristics;
+  private final CostCalculator<T> costCalculator;
+  private final TransitCalculator<T> transitCalculator;
+  private final BitSet touchedStops;
+
+  /** The arrays are acquired from the pool when the search starts. */
+  private McStopArrivalArrays arrays;
+
+  /**
+   * New arrivals are added at the end of the arrays and not committed before the end of the
+   * transit or transfer phase of each round. This is the index of the first pending arrival.
+   */
+  private int pendingStart = 0;
+
+  public McArrayWorkerState(
+    int nStops,
+    EgressPaths egressPaths,
+    DestinationArrivalPaths<T> paths,
+    HeuristicsProvider<T> heuristics,
+    CostCalculator<T> costCalculator,
+    TransitCalculator<T> transitCalculator,
+    WorkerLifeCycle lifeCycle
+  ) {
+    this.nStops = nStops;
+    this.paths = paths;
+    this.heuristics = heuristics;
+    this.costCalculator = costCalculator;
+    this.transitCalculator = transitCalculator;
+    this.touchedStops = new BitSet(nStops);
+
+    //noinspection unchecked
+    this.egressPathsByStop = (List<RaptorTransfer>[]) new List[nStops];
+    egressPaths
+      .byStop()
+      .forEachEntry((stop, list) -> {
+        egressPathsByStop[stop] = list;
+        return true;
+      });
+
+    // Attach to the RR life cycle
+    lifeCycle.onRouteSearch(ignore -> setupSearch());
+    lifeCycle.onSetupIteration(ignore -> setupIteration());
+    lifeCycle.onTransitsForRoundComplete(this::transitsForRoundComplete);
+    lifeCycle.onTransfersForRoundComplete(this::transfersForRoundComplete);
+  }
+
+  // The below methods are ordered after the sequence they naturally appear in the algorithm,
+  // also private life-cycle callbacks are listed here (not in the private method section).
+
+  @Override
+  public boolean isNewRoundAvailable() {
+    return !touchedStops.isEmpty();
+  }
+
+  @Override
+  public IntIterator stopsTouchedPreviousRound() {
+    return new BitSetIterator(touchedStops);
+  }
+
+  @Override
+  public IntIterator stopsTouchedByTransitCurrentRound() {
+    return new BitSetIterator(touchedStops);
+  }
+
+  @Override
+  public boolean isDestinationReachedInCurrentRound() {
+    return paths.isReachedCurrentRound();
+  }
+
+  @Override
+  public void setAccessToStop(RaptorTransfer accessPath, int departureTime) {
+    int index = arrays.addAccess(departureTime, accessPath);
+    if (!addStopArrival(index)) {
+      arrays.truncate(index);
+    }
+    pendingStart = arrays.size();
+  }
+
+  /**
+   * Set the time at a transit stops iff it is optimal.
+   */
+  @Override
+  public void transferToStops(int fromStop, Iterator<? extends RaptorTransfer> transfers) {
+    final int marker = arrays.stopSetMarker(fromStop);
+    final int size = arrays.stopSetSize(fromStop);
+
+    while (transfers.hasNext()) {
+      RaptorTransfer transfer = transfers.next();
+      int transferTimeInSeconds = transfer.durationInSeconds();
+
+      for (int i = marker; i < size; ++i) {
+        int prevArrival = arrays.stopSetElement(fromStop, i);
+        int arrivalTime = arrays.arrivalTime(prevArrival) + transferTimeInSeconds;
+
+        if (!exceedsTimeLimit(arrivalTime)) {
+          arrays.addTransfer(prevArrival, transfer, arrivalTime);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Collection<Path<T>> extractPaths() {
+    return paths.listPaths();
+  }
+
+  /**
+   * The stop arrivals must be extracted before the thread routing this search start a new
+   * multi-criteria search using this state implementation.
+   */
+  @Override
+  public StopArrivals extractStopArrivals() {
+    if (arrays == null || !arrays.isOwnedBy(this)) {
+      throw new IllegalStateException(
+        "The stop arrivals are not available, the search is not routed or the pooled arrays " +
+        "are reused by another search."
+      );
+    }
+    return new McStopArrivalsSnapshot(arrays, nStops);
+  }
+
+  McStopArrivalArrays arrays() {
+    return arrays;
+  }
+
+  /**
+   * Time-shift the access arrival to the given arrival time, if possible. The time-shifted access
+   * is added to the arrays, but not to the stop arrivals pareto-set.
+   *
+   * @return the index of the time-shifted arrival, or the given index if not time-shifted.
+   */
+  int timeShiftAccessArrival(int accessArrival, int requestedArrivalTime) {
+    RaptorTransfer access = arrays.accessOrTransfer(accessArrival);
+    int newArrivalTime = access.latestArrivalTime(requestedArrivalTime);
+
+    if (newArrivalTime == -1 || newArrivalTime == arrays.arrivalTime(accessArrival)) {
+      return accessArrival;
+    }
+    return arrays.addAccess(newArrivalTime - access.durationInSeconds(), access);
+  }
+
+  /**
+   * Set the time at a transit stop iff it is optimal.
+   */
+  void transitToStop(
+    final McArrayPatternRide<T> ride,
+    final int alightStop,
+    final int alightTime,
+    final int alightSlack
+  ) {
+    final int stopArrivalTime = alightTime + alightSlack;
+
+    if (exceedsTimeLimit(stopArrivalTime)) {
+      return;
+    }
+
+    final int costTransit = costCalculator.transitArrivalCost(
+      ride.boardCost(),
+      alightSlack,
+      alightTime - ride.boardTime(),
+      ride.trip(),
+      alightStop
+    );
+
+    arrays.addTransit(ride.prevArrival(), alightStop, stopArrivalTime, costTransit, ride.trip());
+  }
+
+  /* private methods */
+
+  /** This method is called by the Worker life cycle */
+  private void setupSearch() {
+    arrays = McStopArrivalArrays.acquire(this, nStops);
+    pendingStart = 0;
+    touchedStops.clear();
+  }
+
+  /** This method is called by the Worker life cycle */
+  private void setupIteration() {
+    arrays.truncate(pendingStart);
+    // clear all touched stops to avoid constant re-exploration
+    clearTouchedStopsAndSetStopMarkers();
+  }
+
+  /** This method is called by the Worker life cycle */
+  private void transitsForRoundComplete() {
+    clearTouchedStopsAndSetStopMarkers();
+    commitPendingArrivals();
+  }
+
+  /** This method is part of Worker life cycle */
+  private void transfersForRoundComplete() {
+    commitPendingArrivals();
+  }
+
+  private void clearTouchedStopsAndSetStopMarkers() {
+    IntIterator it = new BitSetIterator(touchedStops);
+    while (it.hasNext()) {
+      arrays.markAtEndOfStopSet(it.next());
+    }
+    touchedStops.clear();
+  }
+
+  /**
+   * Add the pending arrivals to the stop pareto-sets, and remove the rejected arrivals from the
+   * arrays. Time-shifted access arrivals are kept, they may be referenced by other arrivals.
+   */
+  private void commitPendingArrivals() {
+    final int end = arrays.size();
+    int next = pendingStart;
+
+    for (int i = pendingStart; i < end; ++i) {
+      arrays.move(i, next, pendingStart);
+      if (arrays.arrivedByAccess(next) || addStopArrival(next)) {
+        ++next;
+      }
+    }
+    arrays.truncate(next);
+    pendingStart = next;
+  }
+
+  private boolean addStopArrival(int index) {
+    if (
+      heuristics.rejectDestinationArrivalBasedOnHeuristic(
+        arrays.stop(index),
+        arrays.arrivalTime(index),
+        arrays.travelDuration(index),
+        arrays.cost(index)
+      )
+    ) {
+      return false;
+    }
+    if (!arrays.addToStopSet(index)) {
+      return false;
+    }
+    int stop = arrays.stop(index);
+    touchedStops.set(stop);
+
+    if (egressPathsByStop[stop] != null) {
+      transferToDestination(index, egressPathsByStop[stop]);
+    }
+    return true;
+  }
+
+  /**
+   * Same as the {@code CalculateTransferToDestination} used by the object based state.
+   */
+  private void transferToDestination(int index, List<RaptorTransfer> egressPaths) {
+    if (arrays.arrivedByTransit(index)) {
+      var arrival = new McStopArrivalView<T>(arrays, index);
+      for (RaptorTransfer egress : egressPaths) {
+        paths.add(arrival, egress);
+      }
+    } else if (arrays.arrivedByTransfer(index)) {
+      var arrival = new McStopArrivalView<T>(arrays, index);
+      for (RaptorTransfer egress : egressPaths) {
+        if (egress.stopReachedOnBoard()) {
+          paths.add(arrival, egress);
+        }
+      }
+    }
+  }
+
+  private boolean exceedsTimeLimit(int time) {
+    return transitCalculator.exceedsTimeLimit(time);
+  }
+}
@@ -0,0 +1,386 @@
+package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays;
+
+import java.util.Arrays;
+import org.opentripplanner.transit.raptor.api.transit.RaptorTransfer;
+
+/**
+ * Struct-of-arrays storage for multi-criteria stop arrivals. Instead of creating one object for
+ * each stop arrival, the arrival criteria is stored in primitive arrays and an arrival is
+ * identified by its index. The previous arrival is referenced by its index, and the trip, access
+ * or transfer is kept in an object array.
+ * <p/>
+ * The class also keep one pareto-set of arrival indexes for each stop. The pareto-sets follow the
+ * same rules as the {@link org.opentripplanner.transit.raptor.util.paretoset.ParetoSetWithMarker}
+ * used with the {@code AbstractStopArrival#compareArrivalTimeRoundAndCost()} comparator, so the
+ * elements are kept in the same order and the result is the same as for the object based state.
+ * <p/>
+ * Arrivals are appended to the end of the arrays. New arrivals are "pending" until they are
+ * committed, rejected pending arrivals are removed by compacting the pending part of the arrays,
+ * see {@link #move(int, int, int)}. Committed arrivals are not removed before the next search, so
+ * an index stays valid for the duration of a search.
+ * <p/>
+ * The arrays are pooled, one instance per thread, and reused across searches. Use {@link
+ * #acquire(Object, int)} to get an instance for a new search. The instance is NOT thread-safe.
+ */
+final class McStopArrivalArrays {
+
+  static final int NOT_SET = -1;
+
+  static final byte ACCESS = 1;
+  static final byte TRANSIT = 2;
+  static final byte TRANSFER = 3;
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int INITIAL_STOP_SET_CAPACITY = 8;
+
+  private static final ThreadLocal<McStopArrivalArrays> POOL = ThreadLocal.withInitial(
+    McStopArrivalArrays::new
+  );
+
+  /* Stop arrivals, one element for each arrival */
+
+  private int size = 0;
+  private int[] stop = new int[INITIAL_CAPACITY];
+  private int[] arrivalTime = new int[INITIAL_CAPACITY];
+  private int[] travelDuration = new int[INITIAL_CAPACITY];
+  private int[] cost = new int[INITIAL_CAPACITY];
+
+  /**
+   * The pareto-round is used to let transits dominate transfers, see {@code
+   * AbstractStopArrival#paretoRound}.
+   */
+  private int[] paretoRound = new int[INITIAL_CAPACITY];
+  private int[] previous = new int[INITIAL_CAPACITY];
+  private byte[] type = new byte[INITIAL_CAPACITY];
+
+  /** The access, trip or transfer used to reach the stop. */
+  private Object[] ref = new Object[INITIAL_CAPACITY];
+
+  /** Used to update the previous index when pending arrivals are moved. */
+  private int[] newIndex = new int[INITIAL_CAPACITY];
+
+  /* Pareto-set of arrival indexes, one for each stop */
+
+  private int[][] stopSet = new int[0][];
+  private int[] stopSetSize = new int[0];
+  private int[] stopSetMarker = new int[0];
+
+  /**
+   * The search currently using this instance.
+   */
+  private Object owner;
+
+  private McStopArrivalArrays() {}
+
+  /**
+   * Get the arrays for the current thread and reset them for a new search. Any previous search
+   * routed by this thread loose access to the arrays.
+   */
+  static McStopArrivalArrays acquire(Object owner, int nStops) {
+    var arrays = POOL.get();
+    arrays.reset(owner, nStops);
+    return arrays;
+  }
+
+  boolean isOwnedBy(Object owner) {
+    return this.owner == owner;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /* Stop arrival accessors */
+
+  int stop(int index) {
+    return stop[index];
+  }
+
+  int arrivalTime(int index) {
+    return arrivalTime[index];
+  }
+
+  int travelDuration(int index) {
+    return travelDuration[index];
+  }
+
+  int cost(int index) {
+    return cost[index];
+  }
+
+  int round(int index) {
+    return (paretoRound[index] + 1) / 2;
+  }
+
+  int previous(int index) {
+    return previous[index];
+  }
+
+  boolean arrivedByAccess(int index) {
+    return type[index] == ACCESS;
+  }
+
+  boolean arrivedByTransit(int index) {
+    return type[index] == TRANSIT;
+  }
+
+  boolean arrivedByTransfer(int index) {
+    return type[index] == TRANSFER;
+  }
+
+  RaptorTransfer accessOrTransfer(int index) {
+    return (RaptorTransfer) ref[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> T trip(int index) {
+    return (T) ref[index];
+  }
+
+  /* Add stop arrivals */
+
+  int addAccess(int departureTime, RaptorTransfer access) {
+    int duration = access.durationInSeconds();
+    return add(
+      ACCESS,
+      access.stop(),
+      departureTime + duration,
+      duration,
+      access.generalizedCost(),
+      access.numberOfRides(),
+      NOT_SET,
+      access
+    );
+  }
+
+  int addTransit(int prev, int stopIndex, int time, int totalCost, Object trip) {
+    return add(
+      TRANSIT,
+      stopIndex,
+      time,
+      travelDuration[prev] + (time - arrivalTime[prev]),
+      totalCost,
+      paretoRound[prev] + (type[prev] == TRANSIT ? 2 : 1),
+      prev,
+      trip
+    );
+  }
+
+  int addTransfer(int prev, RaptorTransfer transfer, int time) {
+    return add(
+      TRANSFER,
+      transfer.stop(),
+      time,
+      travelDuration[prev] + (time - arrivalTime[prev]),
+      cost[prev] + transfer.generalizedCost(),
+      paretoRound[prev] + 1,
+      prev,
+      transfer
+    );
+  }
+
+  /**
+   * Move a pending arrival to a lower index, overwriting the arrival at the new index. If the
+   * previous arrival is also pending, the reference is updated to the new index of the previous
+   * arrival. Pending arrivals must be moved in increasing index order.
+   *
+   * @param from         the index of the arrival to move
+   * @param to           the new index, {@code to <= from}
+   * @param pendingStart the index of the first pending arrival
+   */
+  void move(int from, int to, int pendingStart) {
+    int prev = previous[from];
+    newIndex[from] = to;
+    previous[to] = prev >= pendingStart ? newIndex[prev] : prev;
+
+    if (from == to) {
+      return;
+    }
+    stop[to] = stop[from];
+    arrivalTime[to] = arrivalTime[from];
+    travelDuration[to] = travelDuration[from];
+    cost[to] = cost[from];
+    paretoRound[to] = paretoRound[from];
+    type[to] = type[from];
+    ref[to] = ref[from];
+  }
+
+  /**
+   * Remove all arrivals with an index greater than or equal to the given size.
+   */
+  void truncate(int newSize) {
+    Arrays.fill(ref, newSize, size, null);
+    size = newSize;
+  }
+
+  /* Stop pareto-sets */
+
+  int stopSetSize(int stop) {
+    return stopSetSize[stop];
+  }
+
+  int stopSetMarker(int stop) {
+    return stopSetMarker[stop];
+  }
+
+  int stopSetElement(int stop, int setIndex) {
+    return stopSet[stop][setIndex];
+  }
+
+  void markAtEndOfStopSet(int stop) {
+    stopSetMarker[stop] = stopSetSize[stop];
+  }
+
+  /**
+   * Add the arrival to the pareto-set of its stop. Arrivals in the set dominated by the new arrival
+   * are dropped.
+   *
+   * @return {@code true} if the arrival is pareto-optimal and added to the set.
+   */
+  boolean addToStopSet(final int index) {
+    final int s = stop[index];
+    final int n = stopSetSize[s];
+
+    if (n == 0) {
+      appendToStopSet(s, index);
+      return true;
+    }
+
+    final int[] set = stopSet[s];
+    boolean mutualDominanceExist = false;
+    boolean equivalentVectorExist = false;
+
+    for (int i = 0; i < n; ++i) {
+      int it = set[i];
+      boolean leftDominance = leftDominanceExist(index, it);
+      boolean rightDominance = leftDominanceExist(it, index);
+
+      if (leftDominance && rightDominance) {
+        mutualDominanceExist = true;
+      } else if (leftDominance) {
+        removeDominatedElementsAndAddNewElement(s, index, i);
+        return true;
+      } else if (rightDominance) {
+        return false;
+      } else {
+        equivalentVectorExist = true;
+      }
+    }
+
+    if (mutualDominanceExist && !equivalentVectorExist) {
+      appendToStopSet(s, index);
+      return true;
+    }
+    return false;
+  }
+
+  /* private methods */
+
+  private void reset(Object owner, int nStops) {
+    this.owner = owner;
+    truncate(0);
+
+    if (stopSet.length < nStops) {
+      stopSet = new int[nStops][];
+      stopSetSize = new int[nStops];
+      stopSetMarker = new int[nStops];
+    } else {
+      Arrays.fill(stopSetSize, 0);
+      Arrays.fill(stopSetMarker, 0);
+    }
+  }
+
+  private int add(
+    byte type,
+    int stop,
+    int arrivalTime,
+    int travelDuration,
+    int cost,
+    int paretoRound,
+    int previous,
+    Object ref
+  ) {
+    if (size == this.stop.length) {
+      grow();
+    }
+    int i = size++;
+    this.type[i] = type;
+    this.stop[i] = stop;
+    this.arrivalTime[i] = arrivalTime;
+    this.travelDuration[i] = travelDuration;
+    this.cost[i] = cost;
+    this.paretoRound[i] = paretoRound;
+    this.previous[i] = previous;
+    this.ref[i] = ref;
+    return i;
+  }
+
+  private void grow() {
+    int capacity = stop.length * 2;
+    stop = Arrays.copyOf(stop, capacity);
+    arrivalTime = Arrays.copyOf(arrivalTime, capacity);
+    travelDuration = Arrays.copyOf(travelDuration, capacity);
+    cost = Arrays.copyOf(cost, capacity);
+    paretoRound = Arrays.copyOf(paretoRound, capacity);
+    previous = Arrays.copyOf(previous, capacity);
+    type = Arrays.copyOf(type, capacity);
+    ref = Arrays.copyOf(ref, capacity);
+    newIndex = Arrays.copyOf(newIndex, capacity);
+  }
+
+  /**
+   * Same as {@code AbstractStopArrival#compareArrivalTimeRoundAndCost()}.
+   */
+  private boolean leftDominanceExist(int l, int r) {
+    return (
+      arrivalTime[l] < arrivalTime[r] || paretoRound[l] < paretoRound[r] || cost[l] < cost[r]
+    );
+  }
+
+  private boolean leftVectorDominatesRightVector(int l, int r) {
+    return leftDominanceExist(l, r) && !leftDominanceExist(r, l);
+  }
+
+  private void appendToStopSet(int s, int index) {
+    int[] set = stopSet[s];
+    int n = stopSetSize[s];
+
+    if (set == null) {
+      set = stopSet[s] = new int[INITIAL_STOP_SET_CAPACITY];
+    } else if (n == set.length) {
+      set = stopSet[s] = Arrays.copyOf(set, n * 2);
+    }
+    set[n] = index;
+    stopSetSize[s] = n + 1;
+  }
+
+  /**
+   * Remove all elements dominated by the new element starting from {@code pos + 1}. The element at
+   * {@code pos} is dropped. The marker is moved with the elements, like in the {@code
+   * ParetoSetWithMarker}.
+   */
+  private void removeDominatedElementsAndAddNewElement(int s, int index, int pos) {
+    final int[] set = stopSet[s];
+    final int n = stopSetSize[s];
+    int marker = stopSetMarker[s];
+    int i = pos;
+    int j = pos + 1;
+
+    while (j < n) {
+      if (j == marker) {
+        marker = i;
+      }
+      if (!leftVectorDominatesRightVector(index, set[j])) {
+        set[i] = set[j];
+        ++i;
+      }
+      ++j;
+    }
+    if (j == marker) {
+      marker = i;
+    }
+    set[i] = index;
+    stopSetSize[s] = i + 1;
+    stopSetMarker[s] = marker;
+  }
+}
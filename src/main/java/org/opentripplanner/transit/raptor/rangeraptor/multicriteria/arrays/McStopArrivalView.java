@@ -0,0 +1,111 @@
+package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays;
+
+import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
+import org.opentripplanner.transit.raptor.api.transit.TransitArrival;
+import org.opentripplanner.transit.raptor.api.view.AccessPathView;
+import org.opentripplanner.transit.raptor.api.view.ArrivalView;
+import org.opentripplanner.transit.raptor.api.view.TransferPathView;
+import org.opentripplanner.transit.raptor.api.view.TransitPathView;
+
+/**
+ * A view of a stop arrival in the {@link McStopArrivalArrays}. The view is only valid until the
+ * arrays are reset for a new search, so the view should only be used to map paths and stop
+ * arrivals during the search - it is not a persistent copy of the stop arrival.
+ *
+ * @param <T> The TripSchedule type defined by the user of the raptor API.
+ */
+final class McStopArrivalView<T extends RaptorTripSchedule>
+  implements ArrivalView<T>, TransitPathView<T>, TransitArrival<T> {
+
+  private final McStopArrivalArrays arrays;
+  private final int index;
+
+  McStopArrivalView(McStopArrivalArrays arrays, int index) {
+    this.arrays = arrays;
+    this.index = index;
+  }
+
+  @Override
+  public int stop() {
+    return arrays.stop(index);
+  }
+
+  @Override
+  public int round() {
+    return arrays.round(index);
+  }
+
+  @Override
+  public int arrivalTime() {
+    return arrays.arrivalTime(index);
+  }
+
+  @Override
+  public int cost() {
+    return arrays.cost(index);
+  }
+
+  @Override
+  public ArrivalView<T> previous() {
+    int previous = arrays.previous(index);
+    return previous == McStopArrivalArrays.NOT_SET
+      ? null
+      : new McStopArrivalView<>(arrays, previous);
+  }
+
+  @Override
+  public TransitArrival<T> mostRecentTransitArrival() {
+    if (arrivedByTransit()) {
+      return this;
+    }
+    if (arrivedByTransfer()) {
+      return previous().mostRecentTransitArrival();
+    }
+    return null;
+  }
+
+  @Override
+  public boolean arrivedByAccess() {
+    return arrays.arrivedByAccess(index);
+  }
+
+  @Override
+  public AccessPathView accessPath() {
+    return () -> arrays.accessOrTransfer(index);
+  }
+
+  @Override
+  public boolean arrivedByTransit() {
+    return arrays.arrivedByTransit(index);
+  }
+
+  @Override
+  public TransitPathView<T> transitPath() {
+    return this;
+  }
+
+  @Override
+  public boolean arrivedByTransfer() {
+    return arrays.arrivedByTransfer(index);
+  }
+
+  @Override
+  public TransferPathView transferPath() {
+    return () -> arrays.accessOrTransfer(index);
+  }
+
+  @Override
+  public int boardStop() {
+    return arrays.stop(arrays.previous(index));
+  }
+
+  @Override
+  public T trip() {
+    return arrays.trip(index);
+  }
+
+  @Override
+  public String toString() {
+    return asString();
+  }
+}
@@ -0,0 +1,66 @@
+package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays;
+
+import java.util.Arrays;
+import org.opentripplanner.transit.raptor.api.response.StopArrivals;
+
+/**
+ * The {@link McStopArrivalArrays} are reused by the next search, so the stop arrivals returned to
+ * the client is a copy of the best values for each stop.
+ */
+final class McStopArrivalsSnapshot implements StopArrivals {
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  private final int[] bestArrivalTime;
+  private final int[] bestTransitArrivalTime;
+  private final int[] smallestNumberOfTransfers;
+
+  McStopArrivalsSnapshot(McStopArrivalArrays arrays, int nStops) {
+    this.bestArrivalTime = new int[nStops];
+    this.bestTransitArrivalTime = new int[nStops];
+    this.smallestNumberOfTransfers = new int[nStops];
+    Arrays.fill(bestArrivalTime, UNREACHED);
+    Arrays.fill(bestTransitArrivalTime, UNREACHED);
+    Arrays.fill(smallestNumberOfTransfers, UNREACHED);
+
+    for (int stop = 0; stop < nStops; ++stop) {
+      int size = arrays.stopSetSize(stop);
+      for (int i = 0; i < size; ++i) {
+        int it = arrays.stopSetElement(stop, i);
+        int time = arrays.arrivalTime(it);
+        bestArrivalTime[stop] = Math.min(bestArrivalTime[stop], time);
+
+        if (arrays.arrivedByTransit(it)) {
+          bestTransitArrivalTime[stop] = Math.min(bestTransitArrivalTime[stop], time);
+          smallestNumberOfTransfers[stop] =
+            Math.min(smallestNumberOfTransfers[stop], arrays.round(it) - 1);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean reached(int stopIndex) {
+    return bestArrivalTime[stopIndex] != UNREACHED;
+  }
+
+  @Override
+  public int bestArrivalTime(int stopIndex) {
+    return bestArrivalTime[stopIndex];
+  }
+
+  @Override
+  public boolean reachedByTransit(int stopIndex) {
+    return bestTransitArrivalTime[stopIndex] != UNREACHED;
+  }
+
+  @Override
+  public int bestTransitArrivalTime(int stopIndex) {
+    return bestTransitArrivalTime[stopIndex];
+  }
+
+  @Override
+  public int smallestNumberOfTransfers(int stopIndex) {
+    return smallestNumberOfTransfers[stopIndex];
+  }
+}
@@ -1,6 +1,7 @@
 package org.opentripplanner.transit.raptor.rangeraptor.multicriteria.configure;
 
 import java.util.function.BiFunction;
+import org.opentripplanner.transit.raptor.api.path.Path;
 import org.opentripplanner.transit.raptor.api.transit.RaptorTripSchedule;
 import org.opentripplanner.transit.raptor.rangeraptor.context.SearchContext;
 import org.opentripplanner.transit.raptor.rangeraptor.internalapi.Heuristics;
@@ -10,9 +11,12 @@ import org.opentripplanner.transit.raptor.rangeraptor.internalapi.WorkerState;
 import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.McRangeRaptorWorkerState;
 import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.McStopArrivals;
 import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.MultiCriteriaRoutingStrategy;
+import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays.McArrayRoutingStrategy;
+import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.arrays.McArrayWorkerState;
 import org.opentripplanner.transit.raptor.rangeraptor.multicriteria.heuristic.HeuristicsProvider;
 import org.opentripplanner.transit.raptor.rangeraptor.path.DestinationArrivalPaths;
 import org.opentripplanner.transit.raptor.rangeraptor.path.configure.PathConfig;
+import org.opentripplanner.transit.raptor.util.paretoset.ParetoComparator;
 
 /**
  * Configure and create multicriteria worker, state and child classes.
@@ -38,10 +42,22 @@ public class McRangeRaptorConfig<T extends RaptorTripSchedule> {
     Heuristics heuristics,
     BiFunction<WorkerState<T>, RoutingStrategy<T>, Worker<T>> createWorker
   ) {
+    if (useArrayState()) {
+      McArrayWorkerState<T> state = createArrayState(heuristics);
+      return createWorker.apply(state, createArrayTransitWorkerStrategy(state));
+    }
     McRangeRaptorWorkerState<T> state = createState(heuristics);
     return createWorker.apply(state, createTransitWorkerStrategy(state));
   }
 
+  /**
+   * The pareto comparator used to collect paths at the destination. This can be used to merge
+   * the paths of several workers.
+   */
+  public ParetoComparator<Path<T>> pathParetoComparator() {
+    return pathConfig.paretoComparator(true);
+  }
+
   /* private factory methods */
 
   private RoutingStrategy<T> createTransitWorkerStrategy(McRangeRaptorWorkerState<T> state) {
@@ -53,6 +69,35 @@ public class McRangeRaptorConfig<T extends RaptorTripSchedule> {
     );
   }
 
+  private RoutingStrategy<T> createArrayTransitWorkerStrategy(McArrayWorkerState<T> state) {
+    return new McArrayRoutingStrategy<>(state, context.slackProvider(), context.costCalculator());
+  }
+
+  /**
+   * The array state does not support debugging of stop arrivals and pattern rides, so the object
+   * based state is used if debugging is enabled.
+   */
+  private boolean useArrayState() {
+    var debug = context.debugFactory();
+    return (
+      context.multiCriteriaStopArrivalsInArrays() &&
+      !debug.isDebugStopArrival() &&
+      debug.paretoSetPatternRideListener() == null
+    );
+  }
+
+  private McArrayWorkerState<T> createArrayState(Heuristics heuristics) {
+    return new McArrayWorkerState<>(
+      context.nStops(),
+      context.egressPaths(),
+      createDestinationArrivalPaths(),
+      createHeuristicsProvider(heuristics),
+      context.costCalculator(),
+      context.calculator(),
+      context.lifeCycle()
+    );
+  }
+
   private McRangeRaptorWorkerState<T> createState(Heuristics heuristics) {
     return new McRangeRaptorWorkerState<>(
       createStopArrivals(),
@@ -62,6 +62,22 @@ public final class HeuristicsProvider<T extends RaptorTripSchedule> {
     return rejected;
   }
 
+  /**
+   * Same as {@link #rejectDestinationArrivalBasedOnHeuristic(AbstractStopArrival)}, but for a stop
+   * arrival not represented by an object. The rejected arrival is not reported to the debugger.
+   */
+  public boolean rejectDestinationArrivalBasedOnHeuristic(
+    int stop,
+    int arrivalTime,
+    int travelDuration,
+    int cost
+  ) {
+    if (heuristics == null || paths.isEmpty()) {
+      return false;
+    }
+    return !qualify(stop, arrivalTime, travelDuration, cost);
+  }
+
   /* private methods */
 
   private void debugRejectByOptimization(AbstractStopArrival<T> arrival) {
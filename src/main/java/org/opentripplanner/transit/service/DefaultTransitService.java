@@ -27,6 +27,7 @@ import org.opentripplanner.model.calendar.CalendarService;
 import org.opentripplanner.model.transfer.TransferService;
 import org.opentripplanner.routing.DatedServiceJourneyHelper;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.services.TransitAlertService;
 import org.opentripplanner.routing.stoptimes.ArrivalDeparture;
 import org.opentripplanner.routing.stoptimes.StopTimesHelper;
@@ -489,6 +490,12 @@ public class DefaultTransitService implements TransitEditorService {
     return this.transitModel.getRealtimeTransitLayer();
   }
 
+  /** {@link TransitModel#getRoutingResponseCache()} */
+  @Override
+  public RoutingResponseCache getRoutingResponseCache() {
+    return this.transitModel.getRoutingResponseCache();
+  }
+
   /** {@link TransitModel#setTransitLayer(TransitLayer)} */
   @Override
   public void setTransitLayer(TransitLayer transitLayer) {
@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Envelope;
@@ -36,6 +37,8 @@ import org.opentripplanner.model.transfer.DefaultTransferService;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers.TransitLayerUpdater;
 import org.opentripplanner.routing.impl.DelegatingTransitAlertServiceImpl;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
+import org.opentripplanner.routing.responsecache.RoutingResponseCacheParameters;
 import org.opentripplanner.routing.services.TransitAlertService;
 import org.opentripplanner.routing.util.ConcurrentPublished;
 import org.opentripplanner.routing.vertextype.TransitStopVertex;
@@ -104,6 +107,7 @@ public class TransitModel implements Serializable {
 
   private transient TransitLayer transitLayer;
   private transient TransitLayerUpdater transitLayerUpdater;
+  private transient RoutingResponseCache routingResponseCache;
 
   private transient TransitAlertService transitAlertService;
 
@@ -176,6 +180,29 @@ public class TransitModel implements Serializable {
     this.realtimeTransitLayer.publish(realtimeTransitLayer);
   }
 
+  /**
+   * Cache the routing responses, see {@link RoutingResponseCache}. The cache is disabled if this is
+   * not called.
+   */
+  public void initRoutingResponseCache(RoutingResponseCacheParameters parameters) {
+    this.routingResponseCache = new RoutingResponseCache(parameters);
+  }
+
+  @Nullable
+  public RoutingResponseCache getRoutingResponseCache() {
+    return routingResponseCache;
+  }
+
+  /**
+   * Remove cached routing responses affected by an update, if the cache is enabled. This must be
+   * called by the updaters from the graph writer thread.
+   */
+  public void invalidateRoutingResponseCache(Consumer<RoutingResponseCache> invalidation) {
+    if (routingResponseCache != null) {
+      invalidation.accept(routingResponseCache);
+    }
+  }
+
   public boolean hasRealtimeTransitLayer() {
     return realtimeTransitLayer != null;
   }
@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.opentripplanner.ext.flex.FlexIndex;
@@ -23,6 +24,7 @@ import org.opentripplanner.model.TripTimeOnDate;
 import org.opentripplanner.model.calendar.CalendarService;
 import org.opentripplanner.model.transfer.TransferService;
 import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.services.TransitAlertService;
 import org.opentripplanner.routing.stoptimes.ArrivalDeparture;
 import org.opentripplanner.routing.vertextype.TransitStopVertex;
@@ -167,6 +169,9 @@ public interface TransitService {
 
   TransitLayer getRealtimeTransitLayer();
 
+  @Nullable
+  RoutingResponseCache getRoutingResponseCache();
+
   CalendarService getCalendarService();
 
   ZoneId getTimeZone();
@@ -6,6 +6,7 @@ import java.net.URI;
 import java.util.Map;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.impl.TransitAlertServiceImpl;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.services.TransitAlertService;
 import org.opentripplanner.transit.service.DefaultTransitService;
 import org.opentripplanner.transit.service.TransitModel;
@@ -116,7 +117,10 @@ public class GtfsRealtimeAlertsUpdater extends PollingGraphUpdater implements Tr
       }
 
       // Handle update in graph writer runnable
-      saveResultOnGraph.execute((graph, transitModel) -> updateHandler.update(feed));
+      saveResultOnGraph.execute((graph, transitModel) -> {
+        updateHandler.update(feed);
+        transitModel.invalidateRoutingResponseCache(RoutingResponseCache::invalidateTransit);
+      });
 
       lastTimestamp = feedTimestamp;
     } catch (Exception e) {
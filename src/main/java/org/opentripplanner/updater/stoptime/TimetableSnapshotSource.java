@@ -6,14 +6,20 @@ import com.google.common.base.Preconditions;
 import com.google.transit.realtime.GtfsRealtime.TripDescriptor;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 import org.opentripplanner.model.StopTime;
 import org.opentripplanner.model.Timetable;
@@ -84,9 +90,21 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
   public int maxSnapshotFrequency = 1000; // msec
   /**
    * The last committed snapshot that was handed off to a routing thread. This snapshot may be given
-   * to more than one routing thread if the maximum snapshot frequency is exceeded.
+   * to more than one routing thread if the maximum snapshot frequency is exceeded. Only the thread
+   * holding the {@link #bufferLock} publishes a new snapshot, the routing threads only read it.
    */
-  private volatile TimetableSnapshot snapshot = null;
+  private final AtomicReference<TimetableSnapshot> snapshot = new AtomicReference<>();
+  /** Epoch time in milliseconds at which the current snapshot was published. */
+  private volatile long snapshotPublishedTime = -1;
+  /**
+   * True if the buffer has changes which are not published, because the commit was held back by
+   * the {@link #maxSnapshotFrequency}. Such changes are committed by the next request for the
+   * snapshot, or by the next set of updates.
+   */
+  private volatile boolean commitPending = false;
+  /** The feeds with a snapshot age gauge, only accessed by the thread holding the buffer lock. */
+  private final Set<String> feedIdsWithGauge = new HashSet<>();
+  private final Timer commitTimer;
   /** Should expired realtime data be purged from the graph. */
   public boolean purgeExpiredData = true;
   protected LocalDate lastPurgeDate = null;
@@ -124,6 +142,11 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     this.transitLayerUpdater = transitLayerUpdater;
     this.deduplicator = deduplicator;
     this.serviceCodes = serviceCodes;
+    this.commitTimer =
+      Timer
+        .builder("realtime.snapshot.commit")
+        .description("Time used to commit the realtime updates and publish a new snapshot")
+        .register(Metrics.globalRegistry);
   }
 
   /**
@@ -131,25 +154,21 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
    * timetable objects it references are guaranteed to never change, so the requesting thread is
    * provided a consistent view of all TripTimes. The routing thread need only release its reference
    * to the snapshot to release resources.
+   * <p>
+   * The snapshot is published by the updater thread after the updates are applied, and this method
+   * does not lock the buffer. The exception is when a commit was held back by the {@link
+   * #maxSnapshotFrequency}. Then the buffer is committed here, if the lock is available. If the
+   * lock is held by the updater, the updater commits the changes.
    */
   public TimetableSnapshot getTimetableSnapshot() {
-    TimetableSnapshot snapshotToReturn;
-
-    // Try to get a lock on the buffer
-    if (bufferLock.tryLock()) {
-      // Make a new snapshot if necessary
+    if (commitPending && bufferLock.tryLock()) {
       try {
-        snapshotToReturn = getTimetableSnapshot(false);
+        commitTimetableSnapshot(false);
       } finally {
         bufferLock.unlock();
       }
-    } else {
-      // No lock could be obtained because there is either a snapshot commit busy or updates
-      // are applied at this moment, just return the current snapshot
-      snapshotToReturn = snapshot;
     }
-
-    return snapshotToReturn;
+    return snapshot.get();
   }
 
   /**
@@ -179,6 +198,8 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     Map<TripDescriptor.ScheduleRelationship, Integer> failuresByRelationship = new HashMap<>();
 
     try {
+      registerSnapshotAgeGauge(feedId);
+
       if (fullDataset) {
         // Remove all updates from the buffer
         buffer.clear(feedId);
@@ -290,12 +311,11 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
 
       // Make a snapshot after each message in anticipation of incoming requests
       // Purge data if necessary (and force new snapshot if anything was purged)
-      // Make sure that the public (locking) getTimetableSnapshot function is not called.
       if (purgeExpiredData) {
         final boolean modified = purgeExpiredData();
-        getTimetableSnapshot(modified);
+        commitTimetableSnapshot(modified);
       } else {
-        getTimetableSnapshot(false);
+        commitTimetableSnapshot(false);
       }
     } finally {
       // Always release lock
@@ -303,20 +323,53 @@ public class TimetableSnapshotSource implements TimetableSnapshotProvider {
     }
   }
 
-  private TimetableSnapshot getTimetableSnapshot(final boolean force) {
+  /**
+   * Commit the buffer and publish a new snapshot, if forced or if the buffer is changed and the
+   * {@link #maxSnapshotFrequency} is not exceeded. The caller must hold the {@link #bufferLock}.
+   */
+  private void commitTimetableSnapshot(final boolean force) {
     final long now = System.currentTimeMillis();
     if (force || now - lastSnapshotTime > maxSnapshotFrequency) {
       if (force || buffer.isDirty()) {
         LOG.debug("Committing {}", buffer.toString());
-        snapshot = buffer.commit(transitLayerUpdater, force);
+        long start = System.nanoTime();
+        TimetableSnapshot newSnapshot = buffer.commit(transitLayerUpdater, force);
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        snapshot.set(newSnapshot);
+        snapshotPublishedTime = System.currentTimeMillis();
       } else {
         LOG.debug("Buffer was unchanged, keeping old snapshot.");
       }
       lastSnapshotTime = System.currentTimeMillis();
+      commitPending = false;
     } else {
-      LOG.debug("Snapshot frequency exceeded. Reusing snapshot {}", snapshot);
+      LOG.debug("Snapshot frequency exceeded. Reusing snapshot {}", snapshot.get());
+      commitPending = buffer.isDirty();
     }
-    return snapshot;
+  }
+
+  /**
+   * Register a gauge with the age of the snapshot, tagged with the feed id. There may be more than
+   * one source, each updating its own feed. The caller must hold the {@link #bufferLock}.
+   */
+  private void registerSnapshotAgeGauge(String feedId) {
+    if (feedIdsWithGauge.add(feedId)) {
+      Gauge
+        .builder("realtime.snapshot.age", this, TimetableSnapshotSource::snapshotAgeInSeconds)
+        .description("Time since the current realtime snapshot was published")
+        .baseUnit("seconds")
+        .tag("feedId", feedId)
+        .register(Metrics.globalRegistry);
+    }
+  }
+
+  /**
+   * The number of seconds since the current snapshot was published, or {@code NaN} if no snapshot
+   * is published yet.
+   */
+  private double snapshotAgeInSeconds() {
+    long published = snapshotPublishedTime;
+    return published < 0 ? Double.NaN : (System.currentTimeMillis() - published) / 1000.0;
   }
 
   /**
@@ -16,6 +16,7 @@ import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.edgetype.StreetVehicleParkingLink;
 import org.opentripplanner.routing.edgetype.VehicleParkingEdge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.vehicle_parking.VehicleParking;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingHelper;
 import org.opentripplanner.routing.vehicle_parking.VehicleParkingService;
@@ -170,6 +171,12 @@ public class VehicleParkingUpdater extends PollingGraphUpdater {
 
       oldVehicleParkings.removeAll(toRemove);
       oldVehicleParkings.addAll(toAdd);
+
+      if (!toRemove.isEmpty() || !toLink.isEmpty()) {
+        graph.invalidateNearbyStopCache();
+      }
+      // The availability of the spaces has changed, even if the parkings are the same
+      transitModel.invalidateRoutingResponseCache(RoutingResponseCache::invalidateVehicleParking);
     }
 
     private List<DisposableEdgeCollection> linkVehicleParkingVertexToStreets(
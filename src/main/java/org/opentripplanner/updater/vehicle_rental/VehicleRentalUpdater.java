@@ -17,6 +17,7 @@ import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.edgetype.StreetVehicleRentalLink;
 import org.opentripplanner.routing.edgetype.VehicleRentalEdge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.responsecache.RoutingResponseCache;
 import org.opentripplanner.routing.vehicle_rental.RentalVehicleType.FormFactor;
 import org.opentripplanner.routing.vehicle_rental.VehicleRentalPlace;
 import org.opentripplanner.routing.vehicle_rental.VehicleRentalStationService;
@@ -122,6 +123,7 @@ public class VehicleRentalUpdater extends PollingGraphUpdater {
     public void run(Graph graph, TransitModel transitModel) {
       // Apply stations to graph
       Set<FeedScopedId> stationSet = new HashSet<>();
+      boolean graphChanged = false;
 
       /* add any new stations and update vehicle counts for existing stations */
       for (VehicleRentalPlace station : stations) {
@@ -155,6 +157,7 @@ public class VehicleRentalUpdater extends PollingGraphUpdater {
           }
           verticesByStation.put(station.getId(), vehicleRentalVertex);
           tempEdgesByStation.put(station.getId(), tempEdges);
+          graphChanged = true;
         } else {
           vehicleRentalVertex.setStation(station);
         }
@@ -173,6 +176,11 @@ public class VehicleRentalUpdater extends PollingGraphUpdater {
         tempEdgesByStation.get(station).disposeEdges();
         tempEdgesByStation.remove(station);
       }
+      if (graphChanged || !toRemove.isEmpty()) {
+        graph.invalidateNearbyStopCache();
+      }
+      // The availability of the vehicles has changed, even if the stations are the same
+      transitModel.invalidateRoutingResponseCache(RoutingResponseCache::invalidateVehicleRental);
     }
   }
 }
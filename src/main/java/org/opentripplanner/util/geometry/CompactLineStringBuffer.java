@@ -0,0 +1,115 @@
+package org.opentripplanner.util.geometry;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.common.geometry.DlugoszVarLenIntPacker;
+
+/**
+ * A reusable buffer for the coordinates of a compact line string, see
+ * {@link CompactLineStringUtils}. The coordinates are the same as in the line string returned by
+ * {@link CompactLineStringUtils#uncompactLineString(double, double, double, double, byte[], boolean)},
+ * but no line string, coordinate or array is created for each line string decoded. The buffer only
+ * grows, so once it is big enough, decoding and iterating over the coordinates does not allocate
+ * anything.
+ * <p>
+ * Use it for code going through the geometry of many edges, like mapping itineraries and linking:
+ * <pre>
+ *   var buffer = new CompactLineStringBuffer();
+ *   for (StreetEdge edge : edges) {
+ *     edge.decodeGeometry(buffer);
+ *     for (int i = 0; i < buffer.size(); ++i) {
+ *       ... buffer.getX(i), buffer.getY(i)
+ *     }
+ *   }
+ * </pre>
+ * This class is not thread-safe, each thread should use its own buffer.
+ */
+public final class CompactLineStringBuffer {
+
+  /** The intermediate points as fixed floating point x and y pairs, in the order they are packed */
+  private int[] points = new int[32];
+
+  /** The number of points, including the end points */
+  private int size = 0;
+
+  private boolean reverse;
+  private double xa;
+  private double ya;
+  private double xb;
+  private double yb;
+
+  /**
+   * Decode the given compact line string into this buffer, replacing the previous one. The
+   * arguments are the same as for
+   * {@link CompactLineStringUtils#uncompactLineString(double, double, double, double, byte[], boolean)}.
+   */
+  public CompactLineStringBuffer decode(
+    double xa,
+    double ya,
+    double xb,
+    double yb,
+    byte[] packedCoords,
+    boolean reverse
+  ) {
+    this.xa = xa;
+    this.ya = ya;
+    this.xb = xb;
+    this.yb = yb;
+    this.reverse = reverse;
+
+    int nValues = packedCoords == null ? 0 : DlugoszVarLenIntPacker.size(packedCoords);
+    if (nValues > points.length) {
+      points = new int[Math.max(nValues, 2 * points.length)];
+    }
+    if (nValues > 0) {
+      DlugoszVarLenIntPacker.unpack(packedCoords, points);
+      // The points are delta coded from the first point they were packed with
+      int ix = (int) Math.round((reverse ? xb : xa) * CompactLineStringUtils.FIXED_FLOAT_MULT);
+      int iy = (int) Math.round((reverse ? yb : ya) * CompactLineStringUtils.FIXED_FLOAT_MULT);
+      for (int i = 0; i < nValues; i += 2) {
+        ix += points[i];
+        iy += points[i + 1];
+        points[i] = ix;
+        points[i + 1] = iy;
+      }
+    }
+    this.size = nValues / 2 + 2;
+    return this;
+  }
+
+  /** The number of coordinates, including the start and end points. */
+  public int size() {
+    return size;
+  }
+
+  /** The x coordinate of the i-th point, from the start point A to the end point B. */
+  public double getX(int i) {
+    if (i == 0) {
+      return xa;
+    }
+    if (i == size - 1) {
+      return xb;
+    }
+    return points[2 * packedIndex(i)] / CompactLineStringUtils.FIXED_FLOAT_MULT;
+  }
+
+  /** The y coordinate of the i-th point, from the start point A to the end point B. */
+  public double getY(int i) {
+    if (i == 0) {
+      return ya;
+    }
+    if (i == size - 1) {
+      return yb;
+    }
+    return points[2 * packedIndex(i) + 1] / CompactLineStringUtils.FIXED_FLOAT_MULT;
+  }
+
+  /** Create a new coordinate for the i-th point. */
+  public Coordinate getCoordinate(int i) {
+    return new Coordinate(getX(i), getY(i));
+  }
+
+  /** A reversed line string is packed from B to A. */
+  private int packedIndex(int i) {
+    return reverse ? size - 2 - i : i - 1;
+  }
+}
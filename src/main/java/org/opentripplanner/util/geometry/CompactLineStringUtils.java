@@ -28,7 +28,7 @@ public final class CompactLineStringUtils {
    * Multiplier for fixed-float representation. For lat/lon CRS, 1e6 leads to a precision of 0.11
    * meter at a minimum (at the equator).
    */
-  private static final double FIXED_FLOAT_MULT = 1.0e6;
+  static final double FIXED_FLOAT_MULT = 1.0e6;
 
   /**
    * Constant to check that line string end points are sticking to given points. 0.000001 is around
@@ -0,0 +1,69 @@
+package org.opentripplanner.common.pqueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class IndexedMinHeapTest {
+
+  @Test
+  public void extractInPriorityOrder() {
+    var random = new Random(7);
+    var heap = new IndexedMinHeap<Integer>(4);
+    var expected = new PriorityQueue<Double>();
+
+    for (int key = 0; key < 1000; ++key) {
+      double p = random.nextInt(500);
+      heap.insert(key, key, p);
+      expected.add(p);
+    }
+    assertEquals(1000, heap.size());
+
+    while (!heap.isEmpty()) {
+      assertEquals(expected.poll(), heap.peekMinPriority());
+      heap.extractMin();
+    }
+    assertNull(heap.extractMin());
+    assertNull(heap.peekMin());
+    assertThrows(IllegalStateException.class, heap::peekMinPriority);
+  }
+
+  @Test
+  public void updatePriority() {
+    var heap = new IndexedMinHeap<String>();
+    heap.insert(0, "A", 10);
+    heap.insert(1, "B", 20);
+    heap.insert(2, "C", 30);
+    heap.insert(3, "D", 40);
+    heap.insert(4, "E", 50);
+
+    // Decrease
+    heap.update(3, "D2", 5);
+    // Increase
+    heap.update(0, "A2", 45);
+
+    assertTrue(heap.contains(3));
+    assertEquals("D2", heap.get(3));
+    assertThrows(IllegalArgumentException.class, () -> heap.insert(1, "B2", 1));
+
+    List<String> result = new ArrayList<>();
+    while (!heap.isEmpty()) {
+      result.add(heap.extractMin());
+    }
+    assertEquals(List.of("D2", "B", "C", "A2", "E"), result);
+    assertFalse(heap.contains(3));
+    assertNull(heap.get(3));
+
+    // A key can be inserted again after it is extracted
+    heap.insert(3, "D3", 1);
+    assertEquals("D3", heap.peekMin());
+  }
+}
@@ -169,6 +169,31 @@ class DirectTransferGeneratorTest extends GraphRoutingTest {
     );
   }
 
+  @Test
+  public void testEqualRequestsAreSearchedOnce() {
+    var walk = new RoutingRequest(RequestModes.of().withTransferMode(StreetMode.WALK).build());
+    var bike = new RoutingRequest(RequestModes.of().withTransferMode(StreetMode.BIKE).build());
+    var sameWalk = walk.clone();
+    // Rounded to the same value when the street request is prepared
+    sameWalk.walkSpeed = walk.walkSpeed + 0.1;
+
+    // Not rounded and not part of the options cached by the RaptorRequestTransferCache
+    var reluctantBike = bike.clone();
+    reluctantBike.bikeReluctance = bike.bikeReluctance + 1.0;
+    var bikeWalking = bike.clone();
+    bikeWalking.bikeWalkingSpeed = bike.bikeWalkingSpeed + 1.0;
+
+    var streetRequests = DirectTransferGenerator.distinctStreetRequests(
+      List.of(walk, bike, sameWalk, reluctantBike, bikeWalking)
+    );
+
+    assertEquals(4, streetRequests.size());
+    assertEquals(StreetMode.WALK, streetRequests.get(0).modes.transferMode);
+    assertEquals(StreetMode.BIKE, streetRequests.get(1).modes.transferMode);
+    assertEquals(bike.bikeReluctance + 1.0, streetRequests.get(2).bikeReluctance);
+    assertEquals(bike.bikeWalkingSpeed + 1.0, streetRequests.get(3).bikeWalkingSpeed);
+  }
+
   private TestOtpModel graph(boolean addPatterns) {
     return graphOf(
       new Builder() {
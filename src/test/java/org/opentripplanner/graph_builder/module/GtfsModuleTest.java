@@ -6,12 +6,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.io.File;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import org.opentripplanner.ConstantsForTests;
 import org.opentripplanner.graph_builder.model.GtfsBundle;
 import org.opentripplanner.model.calendar.ServiceDateInterval;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
 import org.opentripplanner.transit.service.StopModel;
 import org.opentripplanner.transit.service.TransitModel;
 
@@ -45,4 +48,78 @@ class GtfsModuleTest {
     assertNotNull(pattern.getGeometry());
     assertNotNull(pattern.getHopGeometry(0));
   }
+
+  /**
+   * The test feeds have no feed id in feed_info.txt, so each bundle gets a new id from a global
+   * counter. The feed ids are compared by the position of the bundle, and they must be given in the
+   * order of the bundles also when the feeds are loaded in parallel.
+   */
+  @Test
+  public void parallelLoadingCreatesSamePatterns() {
+    var sequentialBundles = bundles();
+    var sequential = buildTransitModel(sequentialBundles, false);
+    var parallelBundles = bundles();
+    var parallel = buildTransitModel(parallelBundles, true);
+
+    assertFeedIdsInBundleOrder(sequentialBundles);
+    assertFeedIdsInBundleOrder(parallelBundles);
+    assertEquals(
+      patternSummary(sequential, sequentialBundles),
+      patternSummary(parallel, parallelBundles)
+    );
+  }
+
+  private static List<GtfsBundle> bundles() {
+    return List.of(
+      new GtfsBundle(new File(ConstantsForTests.FAKE_GTFS)),
+      new GtfsBundle(new File(ConstantsForTests.CALTRAIN_GTFS))
+    );
+  }
+
+  private static TransitModel buildTransitModel(List<GtfsBundle> bundles, boolean parallelLoading) {
+    var deduplicator = new Deduplicator();
+    var stopModel = new StopModel();
+    var graph = new Graph(stopModel, deduplicator);
+    var transitModel = new TransitModel(stopModel, deduplicator);
+
+    var module = new GtfsModule(bundles, ServiceDateInterval.unbounded());
+    module.setParallelLoading(parallelLoading);
+
+    module.buildGraph(graph, transitModel, new HashMap<>());
+    return transitModel;
+  }
+
+  private static void assertFeedIdsInBundleOrder(List<GtfsBundle> bundles) {
+    int first = Integer.parseInt(bundles.get(0).getFeedId().getId());
+    for (int i = 1; i < bundles.size(); ++i) {
+      assertEquals(first + i, Integer.parseInt(bundles.get(i).getFeedId().getId()));
+    }
+  }
+
+  /**
+   * The pattern ids with the trip ids and scheduled departures of each pattern, sorted by id. The
+   * feed ids are replaced by the position of the bundle.
+   */
+  private static List<String> patternSummary(TransitModel transitModel, List<GtfsBundle> bundles) {
+    Map<String, String> feedIndex = new HashMap<>();
+    for (int i = 0; i < bundles.size(); ++i) {
+      feedIndex.put(bundles.get(i).getFeedId().getId(), "F" + i);
+    }
+    Function<FeedScopedId, String> id = i -> feedIndex.get(i.getFeedId()) + ":" + i.getId();
+    return transitModel
+      .getAllTripPatterns()
+      .stream()
+      .map(p ->
+        id.apply(p.getId()) +
+        " " +
+        p
+          .getScheduledTimetable()
+          .getTripTimes()
+          .stream()
+          .map(t -> id.apply(t.getTrip().getId()) + "@" + t.getScheduledDepartureTime(0))
+          .toList()
+      )
+      .sorted()
+      .toList();
+  }
 }
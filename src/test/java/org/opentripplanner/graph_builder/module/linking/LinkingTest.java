@@ -11,6 +11,7 @@ import static org.opentripplanner.graph_builder.module.FakeGraph.link;
 import com.google.common.collect.Iterables;
 import java.net.URISyntaxException;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,8 @@ import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.TestOtpModel;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.common.model.P2;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.module.StreetLinkerModule;
 import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetTransitStopLink;
 import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
@@ -144,6 +147,62 @@ public class LinkingTest {
     }
   }
 
+  /**
+   * Test that linking the stops in parallel, splitting each edge once for all stops, links them to
+   * the same places as linking them one at a time.
+   */
+  @Test
+  public void testStopsLinkedInParallelToSameStreets() throws URISyntaxException {
+    TestOtpModel model = buildGraphNoTransit();
+    Graph g1 = model.graph();
+    TransitModel transitModel1 = model.transitModel();
+    addExtraStops(g1, transitModel1);
+    addRegularStopGrid(g1, transitModel1);
+    link(g1, transitModel1);
+
+    TestOtpModel model2 = buildGraphNoTransit();
+    Graph g2 = model2.graph();
+    TransitModel transitModel2 = model2.transitModel();
+    addExtraStops(g2, transitModel2);
+    addRegularStopGrid(g2, transitModel2);
+    StreetLinkerModule streetLinkerModule = new StreetLinkerModule();
+    streetLinkerModule.setAddExtraEdgesToAreas(false);
+    streetLinkerModule.setParallelLinking(true);
+    streetLinkerModule.buildGraph(
+      g2,
+      transitModel2,
+      new HashMap<>(),
+      new DataImportIssueStore(false)
+    );
+
+    assertEquals(g1.getVertices().size(), g2.getVertices().size());
+
+    // When linking one stop at a time a stop may also link to the short fragments left by the
+    // splits of an earlier stop, so the parallel links are a subset of the sequential ones.
+    for (TransitStopVertex ts : Iterables.filter(g1.getVertices(), TransitStopVertex.class)) {
+      List<StreetTransitStopLink> stls1 = outgoingStls(ts);
+      List<StreetTransitStopLink> stls2 = outgoingStls(
+        (TransitStopVertex) g2.getVertex(ts.getLabel())
+      );
+
+      assertEquals(stls1.isEmpty(), stls2.isEmpty(), "Stop linked in one graph only " + ts);
+
+      for (StreetTransitStopLink stl2 : stls2) {
+        Vertex v2 = stl2.getToVertex();
+        assertTrue(
+          stls1
+            .stream()
+            .map(StreetTransitStopLink::getToVertex)
+            .anyMatch(v1 ->
+              Math.abs(v1.getLat() - v2.getLat()) < 1e-10 &&
+              Math.abs(v1.getLon() - v2.getLon()) < 1e-10
+            ),
+          "Link from stop " + ts + " to " + v2 + " not made when linking one stop at a time"
+        );
+      }
+    }
+  }
+
   private static List<StreetTransitStopLink> outgoingStls(final TransitStopVertex tsv) {
     return tsv
       .getOutgoing()
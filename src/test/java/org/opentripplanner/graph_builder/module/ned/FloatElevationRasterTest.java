@@ -0,0 +1,96 @@
+package org.opentripplanner.graph_builder.module.ned;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FloatElevationRasterTest {
+
+  private static final float NO_DATA = -9999;
+
+  /**
+   * A 3x2 raster of 0.25 degree cells, from 10.0 to 10.75 east and 59.5 to 60.0 north:
+   * <pre>
+   *   10  20  30
+   *   40  50  NO_DATA
+   * </pre>
+   * The cell centers are at 10.125, 10.375, 10.625 east and 59.875, 59.625 north.
+   */
+  private static FloatElevationRaster raster(boolean memoryMapped) {
+    var raster = new FloatElevationRaster(3, 2, 10.0, 60.0, 0.25, 0.25, NO_DATA, memoryMapped);
+    raster.setRow(0, new float[] { 10, 20, 30 });
+    raster.setRow(1, new float[] { 40, 50, NO_DATA });
+    return raster;
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  void testCellCenters(boolean memoryMapped) {
+    var raster = raster(memoryMapped);
+    assertEquals(10, raster.elevation(10.125, 59.875), 1e-4);
+    assertEquals(30, raster.elevation(10.625, 59.875), 1e-4);
+    assertEquals(50, raster.elevation(10.375, 59.625), 1e-4);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  void testBilinearInterpolation(boolean memoryMapped) {
+    var raster = raster(memoryMapped);
+    // Halfway between the two first columns
+    assertEquals(15, raster.elevation(10.25, 59.875), 1e-4);
+    // A quarter of the way down from the first row
+    assertEquals(17.5, raster.elevation(10.125, 59.8125), 1e-4);
+    // Between the four cells on the left
+    assertEquals(30, raster.elevation(10.25, 59.75), 1e-4);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  void testBorder(boolean memoryMapped) {
+    var raster = raster(memoryMapped);
+    // The border cells are used within half a cell of the border
+    assertEquals(10, raster.elevation(10.0, 60.0), 1e-4);
+    assertEquals(40, raster.elevation(10.01, 59.5), 1e-4);
+    assertEquals(25, raster.elevation(10.5, 60.0), 1e-4);
+
+    assertTrue(Double.isNaN(raster.elevation(9.99, 59.875)));
+    assertTrue(Double.isNaN(raster.elevation(10.125, 60.01)));
+    assertTrue(Double.isNaN(raster.elevation(10.76, 59.875)));
+    assertTrue(Double.isNaN(raster.elevation(10.125, 59.49)));
+    assertTrue(Double.isNaN(raster.elevation(Double.NaN, 59.875)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  void testNoData(boolean memoryMapped) {
+    var raster = raster(memoryMapped);
+    assertTrue(Double.isNaN(raster.elevation(10.625, 59.625)));
+    // Interpolating with a cell without data gives no data
+    assertTrue(Double.isNaN(raster.elevation(10.5, 59.625)));
+    assertTrue(Double.isNaN(raster.elevation(10.625, 59.75)));
+    // Unless the weight of that cell is zero
+    assertEquals(25, raster.elevation(10.5, 59.875), 1e-4);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  void testUnifiedRasterUsesNextTileWithData(boolean memoryMapped) {
+    var right = new FloatElevationRaster(1, 1, 10.5, 59.75, 0.25, 0.25, NO_DATA, memoryMapped);
+    right.setRow(0, new float[] { 70 });
+    var datum = new VerticalDatum(
+      0,
+      50,
+      20,
+      20,
+      new float[][] { { 1, 1, 1 }, { 1, 1, 1 }, { 1, 1, 1 } }
+    );
+    var unified = new UnifiedElevationRaster(List.of(raster(memoryMapped), right), List.of(datum));
+
+    assertEquals(11, unified.elevation(10.125, 59.875), 1e-4);
+    assertEquals(71, unified.elevation(10.625, 59.625), 1e-4);
+    assertTrue(Double.isNaN(unified.elevation(10.8, 59.875)));
+  }
+}
@@ -0,0 +1,157 @@
+package org.opentripplanner.graph_builder.module.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.openstreetmap.OpenStreetMapProvider;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+
+public class CompactOSMNodeStoreTest {
+
+  @Test
+  public void testSortedNodesOnHeap() {
+    // More nodes than fit in one heap segment
+    var store = CompactOSMNodeStore.onHeap();
+    int n = 70_000;
+    for (int id = 1; id <= n; id++) {
+      store.add(node(id));
+    }
+
+    assertEquals(n, store.size());
+    for (int id = 1; id <= n; id += 997) {
+      assertNode(id, store.get(id));
+    }
+    assertNode(n, store.get(n));
+    assertNull(store.get(0));
+    assertNull(store.get(n + 1));
+    assertFalse(store.contains(n + 1));
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = OSMNodeStore.Type.class, names = { "COMPACT", "MAPPED" })
+  public void testNodesWithTagsAreKept(OSMNodeStore.Type type) {
+    try (var store = type.create()) {
+      assertNodesWithTagsAreKept(store);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = OSMNodeStore.Type.class, names = { "COMPACT", "MAPPED" })
+  public void testNodesOutOfOrder(OSMNodeStore.Type type) {
+    try (var store = type.create()) {
+      assertNodesOutOfOrder(store);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = OSMNodeStore.Type.class, names = { "COMPACT", "MAPPED" })
+  public void testClose(OSMNodeStore.Type type) {
+    var store = type.create();
+    store.add(node(1));
+    assertTrue(store.contains(1));
+
+    store.close();
+
+    assertFalse(store.contains(1));
+    assertNull(store.get(1));
+  }
+
+  private static void assertNodesWithTagsAreKept(OSMNodeStore store) {
+    OSMNode tagged = node(2);
+    tagged.addTag("highway", "traffic_signals");
+    OSMNode virtual = node(-100_000);
+
+    store.add(node(1));
+    store.add(tagged);
+    store.add(node(3));
+    store.add(virtual);
+
+    assertEquals(4, store.size());
+    assertSame(tagged, store.get(2));
+    assertSame(virtual, store.get(-100_000));
+    assertNode(1, store.get(1));
+    assertNode(3, store.get(3));
+    assertEquals(store.get(1), store.get(1));
+  }
+
+  private static void assertNodesOutOfOrder(OSMNodeStore store) {
+    // Two sorted files, then more runs than the store keeps
+    long[] ids = { 10, 20, 30, 15, 25, 35 };
+    for (long id : ids) {
+      store.add(node(id));
+    }
+    for (long id = 100; id > 80; id--) {
+      store.add(node(id));
+    }
+
+    for (long id : ids) {
+      assertNode(id, store.get(id));
+    }
+    for (long id = 100; id > 80; id--) {
+      assertNode(id, store.get(id));
+      assertTrue(store.contains(id));
+    }
+    assertFalse(store.contains(11));
+    assertEquals(ids.length + 20, store.size());
+  }
+
+  @ParameterizedTest
+  @EnumSource(OSMNodeStore.Type.class)
+  public void testSameDatabaseForAllStores(OSMNodeStore.Type type) {
+    OSMDatabase expected = read(OSMNodeStore.Type.MEMORY);
+    OSMDatabase actual = read(type);
+
+    assertEquals(expected.nodeCount(), actual.nodeCount());
+    for (OSMWay way : expected.getWays()) {
+      way
+        .getNodeRefs()
+        .forEach(ref -> {
+          OSMNode node = expected.getNode(ref);
+          OSMNode other = actual.getNode(ref);
+          assertEquals(node, other);
+          assertEquals(node.lat, other.lat);
+          assertEquals(node.lon, other.lon);
+          assertEquals(node.getTags(), other.getTags());
+          return true;
+        });
+    }
+  }
+
+  private static OSMDatabase read(OSMNodeStore.Type type) {
+    File file = new File(
+      URLDecoder.decode(
+        CompactOSMNodeStoreTest.class.getResource("map.osm.pbf").getPath(),
+        StandardCharsets.UTF_8
+      )
+    );
+    var osmdb = new OSMDatabase(new DataImportIssueStore(false), Set.of(), type.create());
+    new OpenStreetMapProvider(file, true).readOSM(osmdb);
+    return osmdb;
+  }
+
+  private static OSMNode node(long id) {
+    OSMNode node = new OSMNode();
+    node.setId(id);
+    node.lat = 60 + id / 1e7;
+    node.lon = 10 - id / 1e7;
+    return node;
+  }
+
+  private static void assertNode(long id, OSMNode node) {
+    assertEquals(id, node.getId());
+    assertEquals(60 + id / 1e7, node.lat);
+    assertEquals(10 - id / 1e7, node.lon);
+  }
+}
@@ -10,11 +10,15 @@ import java.io.File;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.opentripplanner.common.model.P2;
@@ -171,6 +175,19 @@ public class OpenStreetMapModuleTest {
     testBuildingAreas(false);
   }
 
+  /**
+   * The way properties and the area visibility are computed in parallel streams, which run in the
+   * fork-join pool of the calling task. Build the same graph in pools with one and several threads,
+   * the graphs should be equal.
+   */
+  @Test
+  public void testBuildAreaWithVisibilityIsIndependentOfNumberOfThreads() throws Exception {
+    List<String> singleThreaded = buildInPool(1, this::describeAreaGraph);
+    List<String> multiThreaded = buildInPool(4, this::describeAreaGraph);
+    assertTrue(singleThreaded.stream().anyMatch(edge -> edge.contains("AreaEdge")));
+    assertEquals(singleThreaded, multiThreaded);
+  }
+
   @Test
   public void testWayDataSet() {
     OSMWithTags way = new OSMWay();
@@ -330,6 +347,64 @@ public class OpenStreetMapModuleTest {
       assertFalse(path.states.isEmpty());
     }
   }
+
+  private static <T> T buildInPool(int threads, Callable<T> task) throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(task).get();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Build the usf_area graph with visibility and describe each vertex and its outgoing edges, in
+   * the order they are added to the vertex.
+   */
+  private List<String> describeAreaGraph() {
+    var deduplicator = new Deduplicator();
+    var stopModel = new StopModel();
+    var graph = new Graph(stopModel, deduplicator);
+    var transitModel = new TransitModel(stopModel, deduplicator);
+
+    File file = new File(
+      URLDecoder.decode(
+        getClass().getResource("usf_area.osm.pbf").getFile(),
+        StandardCharsets.UTF_8
+      )
+    );
+    OpenStreetMapModule loader = new OpenStreetMapModule(new OpenStreetMapProvider(file, false));
+    loader.setDefaultWayPropertySetSource(new DefaultWayPropertySetSource());
+    loader.buildGraph(graph, transitModel, new HashMap<>());
+
+    List<String> result = new ArrayList<>();
+    graph
+      .getVertices()
+      .stream()
+      .sorted(Comparator.comparing(Vertex::getLabel))
+      .forEach(v -> {
+        result.add(v.getLabel() + " " + v.getCoordinate());
+        for (Edge e : v.getOutgoing()) {
+          String permission = e instanceof StreetEdge se
+            ? se.getPermission() + " " + se.getDistanceMeters()
+            : "";
+          String geometry = e.getGeometry() == null ? "" : e.getGeometry().toText();
+          result.add(
+            "  " +
+            e.getClass().getSimpleName() +
+            " " +
+            e.getToVertex().getLabel() +
+            " " +
+            e.getDefaultName() +
+            " " +
+            permission +
+            " " +
+            geometry
+          );
+        }
+      });
+    return result;
+  }
   // disabled pending discussion with author (AMB)
   // @Test
   // public void testMultipolygon() throws Exception {
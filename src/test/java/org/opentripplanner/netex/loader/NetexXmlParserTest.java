@@ -0,0 +1,95 @@
+package org.opentripplanner.netex.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.ZipFileDataSource;
+import org.opentripplanner.netex.index.NetexEntityIndex;
+import org.opentripplanner.netex.loader.parser.NetexDocumentParser;
+import org.opentripplanner.netex.loader.parser.NetexStreamedEntities;
+import org.rutebanken.netex.model.EntityStructure;
+import org.rutebanken.netex.model.PublicationDeliveryStructure;
+
+public class NetexXmlParserTest {
+
+  private static final File NETEX_FILE = new File("src/test/resources/netex/netex_minimal.zip");
+
+  @ParameterizedTest(name = "Parse streamed entities when they are added: {0}")
+  @ValueSource(booleans = { true, false })
+  public void testStreamingParserPopulatesSameIndex(boolean parseOnAdd) throws Exception {
+    var subject = new NetexXmlParser();
+    var documentIndex = new NetexEntityIndex();
+    var streamingIndex = new NetexEntityIndex();
+    int nStreamed = 0;
+
+    try (var source = new ZipFileDataSource(NETEX_FILE, FileType.NETEX)) {
+      for (DataSource entry : sorted(source.content())) {
+        NetexDocumentParser.parseAndPopulateIndex(
+          documentIndex,
+          subject.parseXmlDoc(entry.asInputStream())
+        );
+
+        var streamedEntities = new NetexStreamedEntities(parseOnAdd);
+        PublicationDeliveryStructure doc = subject.parseXmlDoc(
+          entry.asInputStream(),
+          streamedEntities
+        );
+        NetexDocumentParser.parseAndPopulateIndex(streamingIndex, doc, streamedEntities);
+        nStreamed += streamedEntities.size();
+      }
+    }
+
+    assertTrue(nStreamed > 0);
+    assertFalse(documentIndex.serviceJourneyById.localValues().isEmpty());
+    assertFalse(documentIndex.journeyPatternsById.localValues().isEmpty());
+    assertFalse(documentIndex.quayIdByStopPointRef.localKeys().isEmpty());
+
+    assertEquals(
+      ids(documentIndex.serviceJourneyById.localValues()),
+      ids(streamingIndex.serviceJourneyById.localValues())
+    );
+    assertEquals(
+      ids(documentIndex.datedServiceJourneys.localValues()),
+      ids(streamingIndex.datedServiceJourneys.localValues())
+    );
+    assertEquals(
+      ids(documentIndex.journeyPatternsById.localValues()),
+      ids(streamingIndex.journeyPatternsById.localValues())
+    );
+    assertEquals(
+      documentIndex.quayIdByStopPointRef.localKeys().stream().sorted().collect(Collectors.toList()),
+      streamingIndex.quayIdByStopPointRef.localKeys().stream().sorted().collect(Collectors.toList())
+    );
+    assertEquals(
+      ids(documentIndex.routeById.localValues()),
+      ids(streamingIndex.routeById.localValues())
+    );
+    assertEquals(
+      ids(documentIndex.lineById.localValues()),
+      ids(streamingIndex.lineById.localValues())
+    );
+  }
+
+  private static List<DataSource> sorted(Iterable<DataSource> entries) {
+    List<DataSource> list = new ArrayList<>();
+    entries.forEach(list::add);
+    list.sort((a, b) -> a.name().compareTo(b.name()));
+    return list;
+  }
+
+  private static List<String> ids(Iterable<? extends EntityStructure> entities) {
+    List<String> ids = new ArrayList<>();
+    entities.forEach(it -> ids.add(it.getId()));
+    ids.sort(String::compareTo);
+    return ids;
+  }
+}
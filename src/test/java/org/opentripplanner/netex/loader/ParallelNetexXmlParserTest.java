@@ -0,0 +1,90 @@
+package org.opentripplanner.netex.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opentripplanner.datastore.api.DataSource;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+
+public class ParallelNetexXmlParserTest {
+
+  private static final int N_FILES = 20;
+
+  private File tempDir;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("ParallelNetexXmlParserTest-").toFile();
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(tempDir);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  public void testDocumentsAreConsumedInEntryOrder(int nThreads) throws IOException {
+    List<DataSource> entries = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < N_FILES; ++i) {
+      entries.add(netexFile("RUT-" + i + ".xml", publicationDelivery("P" + i)));
+      expected.add("RUT-" + i + ".xml:P" + i);
+    }
+
+    List<String> result = new ArrayList<>();
+    try (var subject = new ParallelNetexXmlParser(nThreads, false)) {
+      subject.parse(
+        entries,
+        (entry, doc, streamed) -> result.add(entry.name() + ":" + doc.getParticipantRef())
+      );
+    }
+
+    assertEquals(expected, result);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  public void testParseErrorIsThrownInCallerThread(int nThreads) throws IOException {
+    List<DataSource> entries = List.of(
+      netexFile("RUT-0.xml", publicationDelivery("P0")),
+      netexFile("RUT-1.xml", "<PublicationDelivery")
+    );
+
+    try (var subject = new ParallelNetexXmlParser(nThreads, false)) {
+      assertThrows(
+        RuntimeException.class,
+        () -> subject.parse(entries, (entry, doc, streamed) -> {})
+      );
+    }
+  }
+
+  private DataSource netexFile(String name, String content) throws IOException {
+    File file = new File(tempDir, name);
+    FileUtils.write(file, content, StandardCharsets.UTF_8);
+    return new FileDataSource(file, FileType.NETEX);
+  }
+
+  private static String publicationDelivery(String participantRef) {
+    return (
+      "<PublicationDelivery xmlns=\"http://www.netex.org.uk/netex\" version=\"1.0\">" +
+      "<PublicationTimestamp>2022-01-01T00:00:00</PublicationTimestamp>" +
+      "<ParticipantRef>" +
+      participantRef +
+      "</ParticipantRef>" +
+      "</PublicationDelivery>"
+    );
+  }
+}
@@ -0,0 +1,95 @@
+package org.opentripplanner.openstreetmap;
+
+import static org.opentripplanner.util.lang.TableFormatter.Align.Left;
+import static org.opentripplanner.util.lang.TableFormatter.Align.Right;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
+import org.opentripplanner.util.lang.TableFormatter;
+
+/**
+ * Measure the time it takes to read an OSM PBF file into an {@link OSMDatabase}, sequentially and
+ * in parallel, with and without skipping the blocks not needed in the ways and nodes passes. Use
+ * the same extract every time to compare results, for example a country extract from Geofabrik.
+ * The file is cached in memory, so the disk speed does not affect the result.
+ * <p>
+ * This is not a unit test, run the main method manually. The first argument is the PBF file, the
+ * second is the number of times the file is read in each mode, the default is 3.
+ */
+public class OpenStreetMapParseBenchmark {
+
+  private static final int WARMUP_READS = 1;
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.err.println("Usage: OpenStreetMapParseBenchmark <file.osm.pbf> [number of reads]");
+      System.exit(1);
+    }
+    File file = new File(args[0]);
+    int reads = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    int nThreads = Runtime.getRuntime().availableProcessors();
+
+    var table = new TableFormatter(
+      List.of(Left, Right, Right, Right, Right, Right),
+      List.of("Mode", "Threads", "Read min ms", "Read avg ms", "Nodes", "Ways")
+    );
+    addRow(table, "Sequential", file, 1, false, reads);
+    addRow(table, "Skip blocks", file, 1, true, reads);
+    addRow(table, "Parallel", file, nThreads, false, reads);
+    addRow(table, "Parallel and skip blocks", file, nThreads, true, reads);
+    System.out.println(table);
+  }
+
+  private static void addRow(
+    TableFormatter table,
+    String mode,
+    File file,
+    int nThreads,
+    boolean skipBlocks,
+    int reads
+  ) {
+    var provider = new OpenStreetMapProvider(
+      new FileDataSource(file, FileType.OSM),
+      true,
+      nThreads,
+      skipBlocks
+    );
+    for (int i = 0; i < WARMUP_READS; ++i) {
+      read(provider);
+    }
+    long minNanos = Long.MAX_VALUE;
+    long totalNanos = 0;
+    OSMDatabase osmdb = null;
+
+    for (int i = 0; i < reads; ++i) {
+      osmdb = null;
+      System.gc();
+      long start = System.nanoTime();
+
+      osmdb = read(provider);
+
+      long nanos = System.nanoTime() - start;
+      minNanos = Math.min(minNanos, nanos);
+      totalNanos += nanos;
+    }
+    table.addRow(
+      mode,
+      nThreads,
+      minNanos / 1_000_000,
+      totalNanos / (reads * 1_000_000L),
+      osmdb.nodeCount(),
+      osmdb.wayCount()
+    );
+  }
+
+  private static OSMDatabase read(OpenStreetMapProvider provider) {
+    var osmdb = new OSMDatabase(new DataImportIssueStore(false), Set.of());
+    provider.readOSM(osmdb);
+    return osmdb;
+  }
+}
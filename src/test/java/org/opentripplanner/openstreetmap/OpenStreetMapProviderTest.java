@@ -0,0 +1,267 @@
+package org.opentripplanner.openstreetmap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.osmosis.osmbinary.Fileformat;
+import org.openstreetmap.osmosis.osmbinary.Osmformat;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.graph_builder.DataImportIssueStore;
+import org.opentripplanner.graph_builder.module.osm.OSMDatabase;
+import org.opentripplanner.openstreetmap.model.OSMNode;
+import org.opentripplanner.openstreetmap.model.OSMNodeRef;
+import org.opentripplanner.openstreetmap.model.OSMTag;
+import org.opentripplanner.openstreetmap.model.OSMWay;
+
+public class OpenStreetMapProviderTest {
+
+  private static final String[] STRINGS = {
+    "",
+    "highway",
+    "residential",
+    "amenity",
+    "bicycle_parking",
+    "name",
+  };
+  private static final int HIGHWAY = 1;
+  private static final int RESIDENTIAL = 2;
+  private static final int AMENITY = 3;
+  private static final int BICYCLE_PARKING = 4;
+  private static final int NAME = 5;
+
+  @TempDir
+  File tempDir;
+
+  @Test
+  public void testParallelReadGivesSameResultAsSequentialRead() {
+    File file = new File(
+      URLDecoder.decode(
+        getClass()
+          .getResource("/org/opentripplanner/graph_builder/module/osm/map.osm.pbf")
+          .getPath(),
+        StandardCharsets.UTF_8
+      )
+    );
+    OSMDatabase sequential = read(file, 1, false);
+    OSMDatabase parallel = read(file, 4, true);
+
+    assertSameContent(sequential, parallel);
+  }
+
+  @Test
+  public void testSkipBlocksWithoutNeededNodes() throws IOException {
+    var out = new ByteArrayOutputStream();
+    var data = new DataOutputStream(out);
+    writeBlob(
+      data,
+      "OSMHeader",
+      Osmformat.HeaderBlock.newBuilder().addRequiredFeatures("OsmSchema-V0.6").build().toByteArray()
+    );
+    // Node blocks: used by the way, not used, a bike parking not used by any way
+    writeBlock(data, Osmformat.PrimitiveGroup.newBuilder().addNodes(node(1)).addNodes(node(2)));
+    writeBlock(
+      data,
+      Osmformat.PrimitiveGroup
+        .newBuilder()
+        .addNodes(node(10).addKeys(NAME).addVals(NAME))
+        .addNodes(node(11))
+    );
+    writeBlock(
+      data,
+      Osmformat.PrimitiveGroup
+        .newBuilder()
+        .addNodes(node(20).addKeys(AMENITY).addVals(BICYCLE_PARKING))
+    );
+    writeBlock(
+      data,
+      Osmformat.PrimitiveGroup
+        .newBuilder()
+        .addWays(
+          Osmformat.Way
+            .newBuilder()
+            .setId(100)
+            .addKeys(HIGHWAY)
+            .addVals(RESIDENTIAL)
+            .addRefs(1)
+            .addRefs(1)
+        )
+    );
+    File file = new File(tempDir, "blocks.osm.pbf");
+    Files.write(file.toPath(), out.toByteArray());
+
+    OSMDatabase withoutSkipping = read(file, 1, false);
+    OSMDatabase withSkipping = read(file, 2, true);
+
+    assertSameContent(withoutSkipping, withSkipping);
+    assertEquals(2, withSkipping.nodeCount());
+    assertNotNull(withSkipping.getNode(1L));
+    assertNotNull(withSkipping.getNode(2L));
+    assertNull(withSkipping.getNode(10L));
+    assertEquals(1, withSkipping.getBikeParkingNodes().size());
+    assertArrayEquals(new long[] { 1, 2 }, withSkipping.getWay(100L).getNodeRefs().toArray());
+  }
+
+  @Test
+  public void testWayBlocksNeeded() {
+    var summaries = List.of(
+      new OsmBlock.Summary(false, 1, 10, false),
+      new OsmBlock.Summary(true, Long.MAX_VALUE, Long.MIN_VALUE, false)
+    );
+    assertArrayEquals(
+      new boolean[] { false, true },
+      OpenStreetMapProvider.wayBlocksNeeded(summaries)
+    );
+  }
+
+  @Test
+  public void testNodeBlocksNeeded() {
+    OSMDatabase osmdb = databaseWithWay(5, 25);
+    var summaries = List.of(
+      new OsmBlock.Summary(false, 21, 30, false),
+      new OsmBlock.Summary(false, 1, 10, false),
+      new OsmBlock.Summary(false, 11, 20, false),
+      new OsmBlock.Summary(false, 31, 40, true),
+      new OsmBlock.Summary(true, Long.MAX_VALUE, Long.MIN_VALUE, false)
+    );
+    assertArrayEquals(
+      new boolean[] { true, true, false, true, false },
+      OpenStreetMapProvider.nodeBlocksNeeded(summaries, osmdb)
+    );
+  }
+
+  @Test
+  public void testAllNodeBlocksAreNeededIfTheyOverlap() {
+    OSMDatabase osmdb = databaseWithWay(5, 6);
+    var summaries = List.of(
+      new OsmBlock.Summary(false, 1, 10, false),
+      new OsmBlock.Summary(false, 8, 20, false),
+      new OsmBlock.Summary(true, Long.MAX_VALUE, Long.MIN_VALUE, false)
+    );
+    assertArrayEquals(
+      new boolean[] { true, true, false },
+      OpenStreetMapProvider.nodeBlocksNeeded(summaries, osmdb)
+    );
+  }
+
+  private static OSMDatabase read(File file, int nThreads, boolean skipBlocks) {
+    var osmdb = new OSMDatabase(new DataImportIssueStore(false), Set.of());
+    new OpenStreetMapProvider(new FileDataSource(file, FileType.OSM), false, nThreads, skipBlocks)
+      .readOSM(osmdb);
+    return osmdb;
+  }
+
+  private static OSMDatabase databaseWithWay(long... nodeIds) {
+    var osmdb = new OSMDatabase(new DataImportIssueStore(false), Set.of());
+    osmdb.doneFirstPhaseRelations();
+    OSMWay way = new OSMWay();
+    way.setId(1);
+    OSMTag tag = new OSMTag();
+    tag.setK("highway");
+    tag.setV("residential");
+    way.addTag(tag);
+    for (long nodeId : nodeIds) {
+      OSMNodeRef nodeRef = new OSMNodeRef();
+      nodeRef.setRef(nodeId);
+      way.addNodeRef(nodeRef);
+    }
+    osmdb.addWay(way);
+    osmdb.doneSecondPhaseWays();
+    return osmdb;
+  }
+
+  private static void assertSameContent(OSMDatabase expected, OSMDatabase actual) {
+    assertEquals(expected.nodeCount(), actual.nodeCount());
+    assertEquals(expected.wayCount(), actual.wayCount());
+    assertEquals(wayIds(expected), wayIds(actual));
+    for (OSMWay way : expected.getWays()) {
+      OSMWay other = actual.getWay(way.getId());
+      assertEquals(way.getTags(), other.getTags());
+      assertArrayEquals(way.getNodeRefs().toArray(), other.getNodeRefs().toArray());
+      way
+        .getNodeRefs()
+        .forEach(ref -> {
+          OSMNode node = expected.getNode(ref);
+          OSMNode otherNode = actual.getNode(ref);
+          if (node == null) {
+            assertNull(otherNode);
+          } else {
+            assertEquals(node.lat, otherNode.lat);
+            assertEquals(node.lon, otherNode.lon);
+            assertEquals(node.getTags(), otherNode.getTags());
+          }
+          return true;
+        });
+    }
+    assertEquals(nodeIds(expected.getBikeParkingNodes()), nodeIds(actual.getBikeParkingNodes()));
+    assertEquals(nodeIds(expected.getCarParkingNodes()), nodeIds(actual.getCarParkingNodes()));
+  }
+
+  private static Set<Long> wayIds(OSMDatabase osmdb) {
+    return osmdb.getWays().stream().map(OSMWay::getId).collect(Collectors.toSet());
+  }
+
+  private static Set<Long> nodeIds(Collection<OSMNode> nodes) {
+    return nodes.stream().map(OSMNode::getId).collect(Collectors.toSet());
+  }
+
+  private static Osmformat.Node.Builder node(long id) {
+    return Osmformat.Node.newBuilder().setId(id).setLat(600_000_000 + id).setLon(100_000_000);
+  }
+
+  private static void writeBlock(DataOutputStream out, Osmformat.PrimitiveGroup.Builder group)
+    throws IOException {
+    var stringTable = Osmformat.StringTable.newBuilder();
+    for (String s : STRINGS) {
+      stringTable.addS(ByteString.copyFromUtf8(s));
+    }
+    var block = Osmformat.PrimitiveBlock
+      .newBuilder()
+      .setStringtable(stringTable)
+      .addPrimitivegroup(group)
+      .build();
+    writeBlob(out, "OSMData", block.toByteArray());
+  }
+
+  private static void writeBlob(DataOutputStream out, String type, byte[] data) throws IOException {
+    Deflater deflater = new Deflater();
+    deflater.setInput(data);
+    deflater.finish();
+    byte[] buffer = new byte[data.length + 64];
+    int size = deflater.deflate(buffer);
+    deflater.end();
+
+    byte[] blob = Fileformat.Blob
+      .newBuilder()
+      .setRawSize(data.length)
+      .setZlibData(ByteString.copyFrom(buffer, 0, size))
+      .build()
+      .toByteArray();
+    byte[] header = Fileformat.BlobHeader
+      .newBuilder()
+      .setType(type)
+      .setDatasize(blob.length)
+      .build()
+      .toByteArray();
+    out.writeInt(header.length);
+    out.write(header);
+    out.write(blob);
+  }
+}
@@ -2,6 +2,7 @@ package org.opentripplanner.openstreetmap.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -39,4 +40,18 @@ public class OSMNodeTest {
     assertTrue(node.hasTag("capacity"));
     assertEquals(10, node.getCapacity());
   }
+
+  @Test
+  public void testEqualsUsesId() {
+    OSMNode node = new OSMNode();
+    node.setId(1);
+    OSMNode sameId = new OSMNode();
+    sameId.setId(1);
+    OSMNode otherId = new OSMNode();
+    otherId.setId(2);
+
+    assertEquals(node, sameId);
+    assertEquals(node.hashCode(), sameId.hashCode());
+    assertNotEquals(node, otherId);
+  }
 }
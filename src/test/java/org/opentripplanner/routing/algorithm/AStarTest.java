@@ -2,6 +2,8 @@ package org.opentripplanner.routing.algorithm;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashSet;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
 import org.opentripplanner.routing.algorithm.astar.AStarBuilder;
+import org.opentripplanner.routing.algorithm.astar.StateQueueType;
 import org.opentripplanner.routing.algorithm.astar.strategies.SearchTerminationStrategy;
 import org.opentripplanner.routing.api.request.RoutingRequest;
 import org.opentripplanner.routing.core.RoutingContext;
@@ -21,6 +24,7 @@ import org.opentripplanner.routing.graph.SimpleConcreteVertex;
 import org.opentripplanner.routing.graph.TemporaryConcreteEdge;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.spt.DominanceFunction;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.spt.ShortestPathTree;
 import org.opentripplanner.transit.model.basic.NonLocalizedString;
@@ -233,6 +237,74 @@ public class AStarTest {
     assertEquals("near_56th_20th", states.get(8).getVertex().getLabel());
   }
 
+  @Test
+  public void testCompactStreetGraph() {
+    graph.compactStreetGraph();
+
+    testForward();
+    testBack();
+    testForwardExtraEdges();
+    testBackExtraEdges();
+  }
+
+  @Test
+  public void testIndexedHeapFindsSameStates() {
+    RoutingRequest options = new RoutingRequest();
+    options.walkSpeed = 1.0;
+    Vertex from = graph.getVertex("56th_24th");
+
+    ShortestPathTree binHeapTree = allDirectionsTree(options, from, StateQueueType.BINARY_HEAP);
+    ShortestPathTree indexedTree = allDirectionsTree(options, from, StateQueueType.INDEXED_HEAP);
+
+    assertEquals(graph.getVertices().size(), indexedTree.getVertexCount());
+    for (Vertex v : graph.getVertices()) {
+      assertEquals(binHeapTree.getState(v).weight, indexedTree.getState(v).weight, 1e-6);
+    }
+
+    // The next search on this thread reuses the heap of the first one
+    Vertex other = graph.getVertex("shilshole_22nd");
+    binHeapTree = allDirectionsTree(options, other, StateQueueType.BINARY_HEAP);
+    indexedTree = allDirectionsTree(options, other, StateQueueType.INDEXED_HEAP);
+    for (Vertex v : graph.getVertices()) {
+      assertEquals(binHeapTree.getState(v).weight, indexedTree.getState(v).weight, 1e-6);
+    }
+  }
+
+  @Test
+  public void testVertexStateArrayFindsSameStates() {
+    RoutingRequest options = new RoutingRequest();
+    options.walkSpeed = 1.0;
+    Vertex from = graph.getVertex("56th_24th");
+
+    ShortestPathTree mapTree = allDirectionsTree(options, from, StateQueueType.BINARY_HEAP);
+
+    graph.compactStreetGraph();
+    ShortestPathTree arrayTree = pooledAllDirectionsTree(options, from);
+    assertEquals(mapTree.getVertices(), arrayTree.getVertices());
+    assertEquals(mapTree.getAllStates().size(), arrayTree.getAllStates().size());
+    for (Vertex v : graph.getVertices()) {
+      assertSame(v, arrayTree.getState(v).getVertex());
+      assertEquals(mapTree.getState(v).weight, arrayTree.getState(v).weight, 1e-6);
+    }
+
+    // The released array is reused by the next search
+    arrayTree.release();
+    assertThrows(IllegalStateException.class, arrayTree::getVertexCount);
+    ShortestPathTree reusedTree = pooledAllDirectionsTree(options, from);
+    assertEquals(mapTree.getVertexCount(), reusedTree.getVertexCount());
+    for (Vertex v : graph.getVertices()) {
+      assertEquals(mapTree.getState(v).weight, reusedTree.getState(v).weight, 1e-6);
+    }
+    reusedTree.release();
+
+    // Without the pooled array the states are kept in the map, also with a compact graph
+    ShortestPathTree compactMapTree = allDirectionsTree(options, from, StateQueueType.BINARY_HEAP);
+    assertEquals(mapTree.getVertices(), compactMapTree.getVertices());
+    for (Vertex v : graph.getVertices()) {
+      assertEquals(mapTree.getState(v).weight, compactMapTree.getState(v).weight, 1e-6);
+    }
+  }
+
   @Test
   public void testMultipleTargets() {
     RoutingRequest options = new RoutingRequest();
@@ -264,6 +336,28 @@ public class AStarTest {
    * Private Methods
    ****/
 
+  private ShortestPathTree allDirectionsTree(
+    RoutingRequest options,
+    Vertex from,
+    StateQueueType queueType
+  ) {
+    return AStarBuilder
+      .allDirections(null)
+      .setDominanceFunction(new DominanceFunction.MinimumWeight())
+      .setQueueType(queueType)
+      .setContext(new RoutingContext(options, graph, from, null))
+      .getShortestPathTree();
+  }
+
+  private ShortestPathTree pooledAllDirectionsTree(RoutingRequest options, Vertex from) {
+    return AStarBuilder
+      .allDirections(null)
+      .setDominanceFunction(new DominanceFunction.MinimumWeight())
+      .setPooledStateArray(true)
+      .setContext(new RoutingContext(options, graph, from, null))
+      .getShortestPathTree();
+  }
+
   private SimpleConcreteVertex vertex(String label, double lat, double lon) {
     return new SimpleConcreteVertex(graph, label, lat, lon);
   }
@@ -0,0 +1,103 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+
+class TripPatternsRunningOnDateTest {
+
+  private static final LocalDate DATE = LocalDate.of(2022, 6, 1);
+
+  private static final TripPatternWithRaptorStopIndexes PATTERN = createPattern();
+
+  /** More than two chunks */
+  private final List<TripPatternForDate> tripPatterns = createTripPatternsForDate(150);
+
+  @Test
+  void createFromCollection() {
+    var builder = TripPatternsRunningOnDate.of(tripPatterns);
+    // Duplicates are ignored
+    assertFalse(builder.add(tripPatterns.get(3)));
+
+    var list = builder.build();
+
+    assertEquals(tripPatterns.size(), list.size());
+    assertEquals(Set.copyOf(tripPatterns), new HashSet<>(list));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(tripPatterns.size()));
+  }
+
+  @Test
+  void addAndRemoveDoesNotChangeBuiltList() {
+    var builder = TripPatternsRunningOnDate.of(tripPatterns.subList(0, 100));
+    var first = builder.build();
+
+    var extra = tripPatterns.subList(100, 150);
+    extra.forEach(builder::add);
+    assertTrue(builder.remove(tripPatterns.get(0)));
+    assertTrue(builder.remove(tripPatterns.get(70)));
+    assertFalse(builder.remove(tripPatterns.get(70)));
+    var second = builder.build();
+
+    // Continue from the second list, with a new builder
+    var third = TripPatternsRunningOnDate.of(second);
+    assertTrue(third.remove(tripPatterns.get(149)));
+
+    var expected = new HashSet<>(tripPatterns);
+    expected.remove(tripPatterns.get(0));
+    expected.remove(tripPatterns.get(70));
+
+    assertEquals(Set.copyOf(tripPatterns.subList(0, 100)), new HashSet<>(first));
+    assertEquals(100, first.size());
+    assertEquals(expected, new HashSet<>(second));
+    assertEquals(148, second.size());
+
+    expected.remove(tripPatterns.get(149));
+    assertEquals(expected, new HashSet<>(third.build()));
+    assertEquals(148, second.size());
+  }
+
+  @Test
+  void removeAll() {
+    var builder = TripPatternsRunningOnDate.of(tripPatterns);
+    var all = builder.build();
+
+    tripPatterns.forEach(builder::remove);
+
+    assertEquals(0, builder.build().size());
+    assertEquals(tripPatterns.size(), all.size());
+  }
+
+  private static List<TripPatternForDate> createTripPatternsForDate(int n) {
+    List<TripPatternForDate> list = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      var tripTimes = Mockito.mock(TripTimes.class);
+      list.add(new TripPatternForDate(PATTERN, List.of(tripTimes), List.of(), DATE));
+    }
+    return list;
+  }
+
+  private static TripPatternWithRaptorStopIndexes createPattern() {
+    var stopTime = new StopTime();
+    stopTime.setStop(TransitModelForTest.stopForTest("TEST:STOP", 0, 0));
+    TripPattern pattern = TripPattern
+      .of(TransitModelForTest.id("P1"))
+      .withRoute(TransitModelForTest.route("1").build())
+      .withStopPattern(new StopPattern(List.of(stopTime)))
+      .build();
+    return new TripPatternWithRaptorStopIndexes(pattern, new int[0]);
+  }
+}
@@ -0,0 +1,228 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.mappers;
+
+import static org.opentripplanner.util.lang.TableFormatter.Align.Right;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.model.TimetableSnapshot;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.TransitStopVertexBuilder;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.network.Route;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.site.Stop;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.transit.service.StopModelIndex;
+import org.opentripplanner.transit.service.TransitModel;
+import org.opentripplanner.util.lang.TableFormatter;
+
+/**
+ * Measure the latency of committing realtime updates to the {@link TransitLayer} using the {@link
+ * TransitLayerUpdater}, for an increasing number of updated trips. A synthetic transit model with
+ * a given number of trip patterns is created. The benchmark applies delays to random trips in a
+ * {@link TimetableSnapshot} and time the {@code commit}, the same way as the {@code
+ * TimetableSnapshotSource} does it.
+ * <p>
+ * This is not a unit test, run the main method manually. The first argument is the number of trip
+ * patterns, the default is 30 000. Remember to set the max heap size, {@code -Xmx4G} should be
+ * enough for the default.
+ */
+public class TransitLayerUpdaterBenchmark {
+
+  private static final int[] UPDATED_TRIPS = { 1, 10, 100, 1_000, 10_000 };
+  private static final int N_STOPS = 200;
+  private static final int N_STOPS_IN_PATTERN = 10;
+  private static final int N_TRIPS_PER_PATTERN = 4;
+  private static final int N_DAYS = 3;
+  private static final int WARMUP_COMMITS = 10;
+  private static final int COMMITS = 30;
+  private static final LocalDate FIRST_DAY = LocalDate.of(2022, 6, 1);
+  private static final int SERVICE_CODE = 0;
+
+  private final Random random = new Random(42);
+  private final List<TripPattern> patterns = new ArrayList<>();
+  private final TransitModel transitModel;
+  private final TransitLayerUpdater updater;
+  private final TimetableSnapshot buffer = new TimetableSnapshot();
+
+  private TransitLayerUpdaterBenchmark(int nPatterns) {
+    var deduplicator = new Deduplicator();
+    var stopModel = new StopModel();
+    var graph = new Graph(stopModel, deduplicator);
+    this.transitModel = new TransitModel(stopModel, deduplicator);
+
+    List<Stop> stops = createStops(graph);
+    Route route = TransitModelForTest.route("R1").withMode(TransitMode.BUS).build();
+    for (int i = 0; i < nPatterns; ++i) {
+      patterns.add(createPattern(i, route, stops, deduplicator));
+    }
+
+    Map<LocalDate, TIntSet> serviceCodesRunningForDate = new HashMap<>();
+    for (int d = 0; d < N_DAYS; ++d) {
+      serviceCodesRunningForDate.put(FIRST_DAY.plusDays(d), new TIntHashSet(new int[] { 0 }));
+    }
+
+    var stopIndex = new StopModelIndex(stopModel);
+    var tripPatternMapper = new TripPatternMapper();
+    var tripPatternForDateMapper = new TripPatternForDateMapper(
+      Map.copyOf(serviceCodesRunningForDate),
+      tripPatternMapper.mapOldTripPatternToRaptorTripPattern(stopIndex, patterns)
+    );
+
+    Map<LocalDate, List<TripPatternForDate>> tripPatternsForDate = new HashMap<>();
+    for (var date : serviceCodesRunningForDate.keySet()) {
+      for (var pattern : patterns) {
+        var tripPatternForDate = tripPatternForDateMapper.map(
+          pattern.getScheduledTimetable(),
+          date
+        );
+        for (LocalDate runningDate : tripPatternForDate.getRunningPeriodDates()) {
+          tripPatternsForDate
+            .computeIfAbsent(runningDate, d -> new ArrayList<>())
+            .add(tripPatternForDate);
+        }
+      }
+    }
+
+    transitModel.setRealtimeTransitLayer(
+      new TransitLayer(
+        tripPatternsForDate,
+        List.of(),
+        transitModel.getTransferService(),
+        stopIndex,
+        transitModel.getTimeZone(),
+        null,
+        null,
+        tripPatternMapper,
+        null,
+        null
+      )
+    );
+    this.updater = new TransitLayerUpdater(transitModel, Map.copyOf(serviceCodesRunningForDate));
+  }
+
+  public static void main(String[] args) {
+    int nPatterns = args.length > 0 ? Integer.parseInt(args[0]) : 30_000;
+
+    System.out.println("Create transit model with " + nPatterns + " trip patterns...");
+    var benchmark = new TransitLayerUpdaterBenchmark(nPatterns);
+
+    var table = new TableFormatter(
+      List.of(Right, Right, Right),
+      List.of("Updated trips", "Commit avg ms", "Allocated avg kB")
+    );
+
+    for (int updatedTrips : UPDATED_TRIPS) {
+      for (int i = 0; i < WARMUP_COMMITS; ++i) {
+        benchmark.updateAndCommit(updatedTrips);
+      }
+      long totalNanos = 0;
+      long totalBytes = 0;
+      for (int i = 0; i < COMMITS; ++i) {
+        long[] result = benchmark.updateAndCommit(updatedTrips);
+        totalNanos += result[0];
+        totalBytes += result[1];
+      }
+      table.addRow(
+        updatedTrips,
+        String.format("%.2f", totalNanos / (COMMITS * 1_000_000.0)),
+        totalBytes / (COMMITS * 1024L)
+      );
+    }
+    System.out.println(table);
+  }
+
+  /**
+   * Delay the given number of random trips on a random day and commit.
+   *
+   * @return the commit time in nanoseconds and the number of bytes allocated during the commit.
+   */
+  private long[] updateAndCommit(int updatedTrips) {
+    var date = FIRST_DAY.plusDays(random.nextInt(N_DAYS));
+    for (int i = 0; i < updatedTrips; ++i) {
+      var pattern = patterns.get(random.nextInt(patterns.size()));
+      var tripTimes = new TripTimes(
+        pattern.getScheduledTimetable().getTripTimes(random.nextInt(N_TRIPS_PER_PATTERN))
+      );
+      int delay = 60 * random.nextInt(10);
+      for (int s = 0; s < tripTimes.getNumStops(); ++s) {
+        tripTimes.updateArrivalDelay(s, delay);
+        tripTimes.updateDepartureDelay(s, delay);
+      }
+      buffer.update(pattern, tripTimes, date);
+    }
+
+    long bytes = allocatedBytes();
+    long start = System.nanoTime();
+    buffer.commit(updater, true);
+    long nanos = System.nanoTime() - start;
+    return new long[] { nanos, allocatedBytes() - bytes };
+  }
+
+  private List<Stop> createStops(Graph graph) {
+    List<Stop> stops = new ArrayList<>();
+    for (int i = 0; i < N_STOPS; ++i) {
+      var stop = TransitModelForTest.stopForTest("S" + i, 60.0 + i * 0.001, 10.0);
+      new TransitStopVertexBuilder()
+        .withGraph(graph)
+        .withStop(stop)
+        .withTransitModel(transitModel)
+        .withModes(Set.of(TransitMode.BUS))
+        .build();
+      stops.add(stop);
+    }
+    return stops;
+  }
+
+  private TripPattern createPattern(int i, Route route, List<Stop> stops, Deduplicator dedup) {
+    int first = random.nextInt(N_STOPS - N_STOPS_IN_PATTERN);
+    List<StopTime> stopTimes = new ArrayList<>();
+    for (int s = 0; s < N_STOPS_IN_PATTERN; ++s) {
+      var stopTime = new StopTime();
+      stopTime.setStop(stops.get(first + s));
+      stopTimes.add(stopTime);
+    }
+    var pattern = TripPattern
+      .of(TransitModelForTest.id("P" + i))
+      .withRoute(route)
+      .withStopPattern(new StopPattern(stopTimes))
+      .build();
+
+    for (int t = 0; t < N_TRIPS_PER_PATTERN; ++t) {
+      var trip = TransitModelForTest.trip("T" + i + "_" + t).withRoute(route).build();
+      int departure = 6 * 3600 + t * 3600 + random.nextInt(3600);
+      for (int s = 0; s < N_STOPS_IN_PATTERN; ++s) {
+        stopTimes.get(s).setTrip(trip);
+        stopTimes.get(s).setArrivalTime(departure + s * 120);
+        stopTimes.get(s).setDepartureTime(departure + s * 120 + 30);
+      }
+      var tripTimes = new TripTimes(trip, stopTimes, dedup);
+      tripTimes.setServiceCode(SERVICE_CODE);
+      pattern.add(tripTimes);
+    }
+    return pattern;
+  }
+
+  private static long allocatedBytes() {
+    var bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean sunBean) {
+      return sunBean.getCurrentThreadAllocatedBytes();
+    }
+    return 0;
+  }
+}
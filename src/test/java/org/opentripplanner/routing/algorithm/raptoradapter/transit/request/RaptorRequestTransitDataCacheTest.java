@@ -0,0 +1,225 @@
+package org.opentripplanner.routing.algorithm.raptoradapter.transit.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.transit.model._data.TransitModelForTest.id;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.StopTime;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TransitLayer;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternForDate;
+import org.opentripplanner.routing.algorithm.raptoradapter.transit.TripPatternWithRaptorStopIndexes;
+import org.opentripplanner.routing.api.request.WheelchairAccessibilityRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.TransitStopVertexBuilder;
+import org.opentripplanner.transit.model._data.TransitModelForTest;
+import org.opentripplanner.transit.model.basic.MainAndSubMode;
+import org.opentripplanner.transit.model.basic.TransitMode;
+import org.opentripplanner.transit.model.framework.Deduplicator;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+import org.opentripplanner.transit.model.network.StopPattern;
+import org.opentripplanner.transit.model.network.TripPattern;
+import org.opentripplanner.transit.model.site.Stop;
+import org.opentripplanner.transit.model.timetable.TripTimes;
+import org.opentripplanner.transit.service.StopModel;
+import org.opentripplanner.transit.service.StopModelIndex;
+import org.opentripplanner.transit.service.TransitModel;
+import org.opentripplanner.util.time.ServiceDateUtils;
+
+public class RaptorRequestTransitDataCacheTest {
+
+  private static final ZoneId ZONE_ID = ZoneId.of("Europe/Oslo");
+  private static final LocalDate D1 = LocalDate.of(2022, 6, 1);
+  private static final LocalDate D2 = LocalDate.of(2022, 6, 2);
+  private static final ZonedDateTime TIME_ZERO = ServiceDateUtils.asStartOfService(D1, ZONE_ID);
+
+  private static final Stop STOP_A = TransitModelForTest.stopForTest("A", 60.0, 10.0);
+  private static final Stop STOP_B = TransitModelForTest.stopForTest("B", 60.1, 10.1);
+
+  private static final TripPattern TP = TripPattern
+    .of(id("P1"))
+    .withRoute(TransitModelForTest.route("1").withMode(TransitMode.BUS).build())
+    .withStopPattern(new StopPattern(List.of(createStopTime(STOP_A), createStopTime(STOP_B))))
+    .build();
+
+  private static final TripPatternWithRaptorStopIndexes PATTERN = new TripPatternWithId(
+    id("1"),
+    new int[] { 0, 1 },
+    TP
+  );
+
+  private static final TransitDataProviderFilter FILTER = createFilter(Set.of());
+
+  private StopModelIndex stopIndex;
+
+  @BeforeEach
+  public void setup() {
+    var deduplicator = new Deduplicator();
+    var stopModel = new StopModel();
+    var graph = new Graph(stopModel, deduplicator);
+    var transitModel = new TransitModel(stopModel, deduplicator);
+
+    for (Stop stop : List.of(STOP_A, STOP_B)) {
+      new TransitStopVertexBuilder()
+        .withGraph(graph)
+        .withStop(stop)
+        .withTransitModel(transitModel)
+        .withModes(Set.of(TransitMode.BUS))
+        .build();
+    }
+    stopIndex = new StopModelIndex(stopModel);
+  }
+
+  @Test
+  public void cacheTripPatternsForRequestWithSameFilter() {
+    var layer = createTransitLayer(new RaptorRequestTransitDataCache(5));
+    var cache = layer.getTransitDataCache();
+
+    var first = cache.get(layer, TIME_ZERO, 0, 1, FILTER);
+    var second = cache.get(layer, TIME_ZERO, 0, 1, createFilter(Set.of()));
+
+    assertSame(first, second);
+    assertEquals(1, cache.size());
+    assertEquals(1, first.patternIndex().size());
+    assertEquals(2, first.patternIndex().get(0).numberOfTripSchedules());
+
+    // A different filter or date range is cached as a separate entry
+    var banned = cache.get(layer, TIME_ZERO, 0, 1, createFilter(Set.of(id("Other"))));
+    var oneDay = cache.get(layer, TIME_ZERO, 0, 0, FILTER);
+
+    assertNotSame(first, banned);
+    assertEquals(1, oneDay.patternIndex().get(0).numberOfTripSchedules());
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void invalidateEntryWhenADateIsReplaced() {
+    var layer = createTransitLayer(new RaptorRequestTransitDataCache(5));
+    var cache = layer.getTransitDataCache();
+
+    var before = cache.get(layer, TIME_ZERO, 0, 1, FILTER);
+
+    // Simulate a realtime update: copy the layer and replace the patterns for the second day
+    var realtimeLayer = new TransitLayer(layer);
+    realtimeLayer.replaceTripPatternsForDate(D2, List.of());
+
+    var after = cache.get(realtimeLayer, TIME_ZERO, 0, 1, FILTER);
+
+    assertNotSame(before, after);
+    assertEquals(1, after.patternIndex().get(0).numberOfTripSchedules());
+    assertEquals(1, cache.size());
+    assertSame(after, cache.get(realtimeLayer, TIME_ZERO, 0, 1, FILTER));
+  }
+
+  @Test
+  public void doNotCacheIfFilterHasNoCacheKey() {
+    var layer = createTransitLayer(new RaptorRequestTransitDataCache(5));
+    var cache = layer.getTransitDataCache();
+    var filter = new AcceptAllFilter();
+
+    var first = cache.get(layer, TIME_ZERO, 0, 1, filter);
+    var second = cache.get(layer, TIME_ZERO, 0, 1, filter);
+
+    assertNotSame(first, second);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void doNotCacheIfDisabled() {
+    var layer = createTransitLayer(new RaptorRequestTransitDataCache(0));
+    var cache = layer.getTransitDataCache();
+
+    var first = cache.get(layer, TIME_ZERO, 0, 1, FILTER);
+    var second = cache.get(layer, TIME_ZERO, 0, 1, FILTER);
+
+    assertNotSame(first, second);
+    assertEquals(first.patternIndex().size(), second.patternIndex().size());
+    assertEquals(0, cache.size());
+  }
+
+  private static TransitDataProviderFilter createFilter(Set<FeedScopedId> bannedRoutes) {
+    return new RoutingRequestTransitDataProviderFilter(
+      false,
+      WheelchairAccessibilityRequest.DEFAULT,
+      true,
+      MainAndSubMode.all(),
+      bannedRoutes,
+      Set.of()
+    );
+  }
+
+  private static TripTimes createTripTimes() {
+    StopTime stopTime1 = new StopTime();
+    StopTime stopTime2 = new StopTime();
+
+    stopTime1.setDepartureTime(3600);
+    stopTime2.setArrivalTime(7200);
+
+    return new TripTimes(
+      TransitModelForTest.trip("T1").build(),
+      Arrays.asList(stopTime1, stopTime2),
+      new Deduplicator()
+    );
+  }
+
+  private static StopTime createStopTime(Stop stop) {
+    var st = new StopTime();
+    st.setStop(stop);
+    return st;
+  }
+
+  private TransitLayer createTransitLayer(RaptorRequestTransitDataCache transitDataCache) {
+    var tripTimes = List.of(createTripTimes());
+    return new TransitLayer(
+      Map.of(
+        D1,
+        List.of(new TripPatternForDate(PATTERN, tripTimes, List.of(), D1)),
+        D2,
+        List.of(new TripPatternForDate(PATTERN, tripTimes, List.of(), D2))
+      ),
+      List.of(),
+      null,
+      stopIndex,
+      ZONE_ID,
+      null,
+      transitDataCache,
+      null,
+      null,
+      null
+    );
+  }
+
+  /**
+   * Accept all trips, but do not provide a cache key.
+   */
+  private static class AcceptAllFilter implements TransitDataProviderFilter {
+
+    @Override
+    public boolean tripPatternPredicate(TripPatternForDate tripPatternForDate) {
+      return true;
+    }
+
+    @Override
+    public boolean tripTimesPredicate(TripTimes tripTimes) {
+      return true;
+    }
+
+    @Override
+    public BitSet filterAvailableStops(
+      TripPatternWithRaptorStopIndexes tripPattern,
+      BitSet boardingPossible
+    ) {
+      return boardingPossible;
+    }
+  }
+}
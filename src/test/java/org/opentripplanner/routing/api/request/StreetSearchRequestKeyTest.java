@@ -0,0 +1,117 @@
+package org.opentripplanner.routing.api.request;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.core.TraverseMode;
+
+class StreetSearchRequestKeyTest {
+
+  @Test
+  void fieldsNotUsedByTheStreetSearchAreIgnored() {
+    var request = new RoutingRequest();
+    var other = request.clone();
+    other.setDateTime(Instant.parse("2022-06-01T10:00:00Z"));
+    other.setNumItineraries(3);
+    other.from = new GenericLocation(60.0, 10.0);
+    other.waitReluctance = 0.5;
+
+    assertEquals(StreetSearchRequestKey.of(request), StreetSearchRequestKey.of(other));
+    assertEquals(
+      StreetSearchRequestKey.of(request).hashCode(),
+      StreetSearchRequestKey.of(other).hashCode()
+    );
+  }
+
+  @Test
+  void streetSearchFieldsArePartOfTheKey() {
+    var request = new RoutingRequest();
+    var key = StreetSearchRequestKey.of(request);
+
+    var bike = request.clone();
+    bike.bikeReluctance = 5.0;
+    assertNotEquals(key, StreetSearchRequestKey.of(bike));
+
+    var car = request.clone();
+    car.carReluctance = 5.0;
+    assertNotEquals(key, StreetSearchRequestKey.of(car));
+
+    var bikeWalking = request.clone();
+    bikeWalking.setBikeWalkingReluctance(2.0);
+    assertNotEquals(key, StreetSearchRequestKey.of(bikeWalking));
+
+    var wheelchair = request.clone();
+    wheelchair.wheelchairAccessibility = WheelchairAccessibilityRequest.makeDefault(true);
+    assertNotEquals(key, StreetSearchRequestKey.of(wheelchair));
+  }
+
+  @Test
+  void keyIsNotChangedByTheRequest() {
+    var request = new RoutingRequest();
+    var key = StreetSearchRequestKey.of(request);
+    var copy = StreetSearchRequestKey.of(request.clone());
+
+    request.streetSubRequestModes.setMode(TraverseMode.CAR, true);
+    request.walkSpeed = 0.5;
+
+    assertEquals(copy, key);
+    assertNotEquals(key, StreetSearchRequestKey.of(request));
+  }
+
+  /**
+   * The key compares the field values with {@code equals}. Fail if a field is added to the
+   * request with a type which does not implement it, the field must then be added to the key in
+   * another way, or be listed as not used by the street search.
+   */
+  @Test
+  void allFieldsCanBeCompared() {
+    // The data overlay requests are not cached, see NearbyStopCache
+    var identityCompared = Set.of("dataOverlay");
+    for (Field field : StreetSearchRequestKey.streetSearchFields()) {
+      if (identityCompared.contains(field.getName())) {
+        continue;
+      }
+      assertTrue(isComparable(field.getType()), field.getName() + " " + field.getType());
+    }
+  }
+
+  @Test
+  void excludedFieldsExist() {
+    var names = Arrays
+      .stream(RoutingRequest.class.getDeclaredFields())
+      .map(Field::getName)
+      .collect(Collectors.toSet());
+    for (String name : StreetSearchRequestKey.NOT_USED_BY_STREET_SEARCH) {
+      assertTrue(names.contains(name), name);
+    }
+  }
+
+  private static boolean isComparable(Class<?> type) {
+    if (
+      type.isPrimitive() ||
+      type.isEnum() ||
+      Number.class.isAssignableFrom(type) ||
+      List.of(String.class, Boolean.class, Character.class).contains(type) ||
+      Collection.class.isAssignableFrom(type) ||
+      Map.class.isAssignableFrom(type)
+    ) {
+      return true;
+    }
+    try {
+      return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package org.opentripplanner.routing.edgetype;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.transit.model.basic.NonLocalizedString;
+
+public class StreetEdgeSectionsTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private IntersectionVertex a;
+  private IntersectionVertex b;
+  private IntersectionVertex c;
+
+  @BeforeEach
+  public void setup() {
+    var graph = new Graph();
+    a = new IntersectionVertex(graph, "A", 10.0, 60.0);
+    b = new IntersectionVertex(graph, "B", 10.001, 60.0);
+    c = new IntersectionVertex(graph, "C", 10.001, 60.001);
+  }
+
+  @Test
+  public void restoreAttributes() throws IOException {
+    var ab = edge(a, b, line(a, b), 70.0, StreetTraversalPermission.ALL, false);
+    ab.setCarSpeed(22.2f);
+    ab.setStreetClass(StreetEdge.CLASS_STREET);
+    ab.setRoundabout(true);
+    ab.setBicycleSafetyFactor(1.5f);
+
+    var ba = edge(b, a, line(b, a), 70.0, StreetTraversalPermission.ALL, true);
+    ba.shareData(ab);
+
+    var bc = edge(b, c, line(b, new Coordinate(10.0015, 60.0005), c), 120.0, null, false);
+    bc.setStairs(true);
+
+    var ca = edge(c, a, null, 150.0, StreetTraversalPermission.PEDESTRIAN, false);
+
+    var original = List.of(ab, ba, bc, ca);
+    var copy = List.of(
+      edge(a, b, null, 1.0, StreetTraversalPermission.NONE, false),
+      edge(b, a, null, 1.0, StreetTraversalPermission.NONE, false),
+      edge(b, c, null, 1.0, StreetTraversalPermission.NONE, false),
+      edge(c, a, null, 1.0, StreetTraversalPermission.NONE, false)
+    );
+
+    StreetEdgeSections.read(source(write(original)), copy);
+
+    for (int i = 0; i < original.size(); ++i) {
+      var expected = original.get(i);
+      var actual = copy.get(i);
+      assertEquals(expected.getFlags(), actual.getFlags());
+      assertEquals(expected.getLengthMm(), actual.getLengthMm());
+      assertEquals(expected.getBicycleSafetyFactor(), actual.getBicycleSafetyFactor());
+      assertEquals(expected.getCarSpeed(), actual.getCarSpeed());
+      assertEquals(expected.getPermission(), actual.getPermission());
+      assertEquals(expected.getStreetClass(), actual.getStreetClass());
+      assertEquals(expected.getRawInAngle(), actual.getRawInAngle());
+      assertEquals(expected.getRawOutAngle(), actual.getRawOutAngle());
+      assertArrayEquals(expected.getCompactGeometry(), actual.getCompactGeometry());
+    }
+
+    // The geometry shared by the forward and back edge is still shared
+    assertSame(copy.get(0).getCompactGeometry(), copy.get(1).getCompactGeometry());
+    assertNull(copy.get(2).getPermission());
+    assertNull(copy.get(3).getCompactGeometry());
+  }
+
+  @Test
+  public void failIfTheEdgesDoNotMatch() throws IOException {
+    var ab = edge(a, b, line(a, b), 70.0, StreetTraversalPermission.ALL, false);
+    var bytes = write(List.of(ab));
+
+    assertThrows(IOException.class, () -> StreetEdgeSections.read(source(bytes), List.of()));
+  }
+
+  private static byte[] write(List<StreetEdge> edges) throws IOException {
+    var sections = StreetEdgeSections.of(edges);
+    var bytes = new ByteArrayOutputStream();
+    sections.write(new DataOutputStream(bytes));
+    return bytes.toByteArray();
+  }
+
+  private static StreetEdgeSections.SectionSource source(byte[] bytes) {
+    var buffer = ByteBuffer.wrap(bytes);
+    return length -> {
+      var section = buffer.slice(buffer.position(), (int) length);
+      buffer.position(buffer.position() + (int) length);
+      return section;
+    };
+  }
+
+  private static LineString line(IntersectionVertex from, IntersectionVertex to) {
+    return line(from, null, to);
+  }
+
+  private static LineString line(IntersectionVertex from, Coordinate via, IntersectionVertex to) {
+    var coordinates = via == null
+      ? new Coordinate[] { from.getCoordinate(), to.getCoordinate() }
+      : new Coordinate[] { from.getCoordinate(), via, to.getCoordinate() };
+    return GEOMETRY_FACTORY.createLineString(coordinates);
+  }
+
+  private static StreetEdge edge(
+    IntersectionVertex from,
+    IntersectionVertex to,
+    LineString geometry,
+    double length,
+    StreetTraversalPermission permission,
+    boolean back
+  ) {
+    return new StreetEdge(
+      from,
+      to,
+      geometry,
+      new NonLocalizedString(from.getLabel() + to.getLabel()),
+      length,
+      permission,
+      back
+    );
+  }
+}
@@ -5,9 +5,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Instant;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
@@ -273,6 +275,41 @@ public class StreetEdgeTest {
     assertNotNull(e0.traverse(e1.traverse(state)));
   }
 
+  @Test
+  public void testTurnRestrictionsAndCostExtensionAreKeptApart() {
+    StreetEdge e0 = edge(v0, v1, 50.0, StreetTraversalPermission.ALL);
+    StreetEdge e1 = edge(v1, v2, 18.4, StreetTraversalPermission.ALL);
+    var turnRestriction = new TurnRestriction(e1, e0, null, TraverseModeSet.allModes(), null);
+    StreetEdgeCostExtension costExtension = (context, lengthMm, mode) -> 7.0;
+
+    e1.addTurnRestriction(turnRestriction);
+    e1.setCostExtension(costExtension);
+    assertEquals(List.of(turnRestriction), e1.getTurnRestrictions());
+
+    e1.removeTurnRestriction(turnRestriction);
+    assertTrue(e1.getTurnRestrictions().isEmpty());
+
+    RoutingRequest options = proto.clone();
+    options.setMode(TraverseMode.WALK);
+    State s1 = e1.traverse(new State(new RoutingContext(options, graph, v1, v2)));
+    assertEquals(e1.getDistanceMeters() / options.walkSpeed + 7.0, s1.getWeight(), 0.0001);
+  }
+
+  @Test
+  public void testPermissionAndStreetClass() {
+    StreetEdge e0 = edge(v0, v1, 50.0, null);
+    assertNull(e0.getPermission());
+
+    for (var permission : StreetTraversalPermission.values()) {
+      e0.setPermission(permission);
+      assertEquals(permission, e0.getPermission());
+    }
+
+    e0.setStreetClass(StreetEdge.CLASS_STREET | StreetEdge.CLASS_LINK);
+    assertEquals(StreetEdge.CLASS_STREET | StreetEdge.CLASS_LINK, e0.getStreetClass());
+    assertThrows(IllegalArgumentException.class, () -> e0.setStreetClass(256));
+  }
+
   @Test
   public void testElevationProfile() {
     var elevationProfile = new PackedCoordinateSequence.Double(
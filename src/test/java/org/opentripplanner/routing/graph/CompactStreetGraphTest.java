@@ -0,0 +1,106 @@
+package org.opentripplanner.routing.graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.transit.model.basic.NonLocalizedString;
+
+public class CompactStreetGraphTest {
+
+  private Graph graph;
+  private Vertex a;
+  private Vertex b;
+  private Vertex c;
+  private Edge ba;
+
+  @BeforeEach
+  public void setup() {
+    graph = new Graph();
+    a = new SimpleConcreteVertex(graph, "A", 60.0, 10.0);
+    b = new SimpleConcreteVertex(graph, "B", 60.1, 10.0);
+    c = new SimpleConcreteVertex(graph, "C", 60.2, 10.0);
+    new SimpleConcreteEdge(a, b);
+    ba = new SimpleConcreteEdge(b, a);
+    new SimpleConcreteEdge(b, c);
+  }
+
+  @Test
+  public void compactAdjacencyIsSameAsVertexEdges() {
+    graph.compactStreetGraph();
+    var compact = graph.getCompactStreetGraph();
+    assertNotNull(compact);
+
+    assertEquals(3, compact.numberOfVertices());
+    assertEquals(3, compact.numberOfEdges());
+
+    for (Vertex v : List.of(a, b, c)) {
+      assertSame(v, compact.vertex(v.getIndex()));
+      assertEquals(v.getOutgoing(), adjacentEdges(compact, v, false));
+      assertEquals(v.getIncoming(), adjacentEdges(compact, v, true));
+    }
+
+    for (int e = 0; e < compact.numberOfEdges(); ++e) {
+      Edge edge = compact.edge(e);
+      assertSame(edge.getFromVertex(), compact.vertex(compact.fromVertex(e)));
+      assertSame(edge.getToVertex(), compact.vertex(compact.toVertex(e)));
+    }
+  }
+
+  @Test
+  public void useVertexEdgesWhenTemporaryEdgeIsConnected() {
+    graph.compactStreetGraph();
+    var compact = graph.getCompactStreetGraph();
+
+    var to = new TemporaryStreetLocation(
+      "near_C",
+      new Coordinate(10.0, 60.2),
+      new NonLocalizedString("near_C"),
+      true
+    );
+    var temporaryEdge = new TemporaryConcreteEdge(c, to);
+
+    assertEquals(Vertex.NO_INDEX, compact.indexOf(c, false));
+    assertEquals(c.getIndex(), compact.indexOf(c, true));
+    assertEquals(Vertex.NO_INDEX, compact.indexOf(to, true));
+
+    c.removeOutgoing(temporaryEdge);
+
+    assertEquals(c.getIndex(), compact.indexOf(c, false));
+  }
+
+  @Test
+  public void useVertexEdgesWhenPermanentEdgeIsChanged() {
+    graph.compactStreetGraph();
+    var compact = graph.getCompactStreetGraph();
+
+    new SimpleConcreteEdge(c, b);
+    graph.removeEdge(ba);
+
+    assertEquals(Vertex.NO_INDEX, compact.indexOf(a, true));
+    assertEquals(Vertex.NO_INDEX, compact.indexOf(b, false));
+    assertEquals(Vertex.NO_INDEX, compact.indexOf(c, false));
+
+    // The vertex index is kept
+    assertSame(c, compact.vertex(compact.vertexIndex(c)));
+  }
+
+  private static List<Edge> adjacentEdges(CompactStreetGraph graph, Vertex v, boolean incoming) {
+    int index = graph.indexOf(v, incoming);
+    List<Edge> edges = new ArrayList<>();
+    for (
+      int i = graph.firstAdjacent(index, incoming);
+      i < graph.endAdjacent(index, incoming);
+      ++i
+    ) {
+      edges.add(graph.adjacentEdge(i, incoming));
+    }
+    return edges;
+  }
+}
@@ -0,0 +1,126 @@
+package org.opentripplanner.routing.graph;
+
+import static org.opentripplanner.util.lang.TableFormatter.Align.Left;
+import static org.opentripplanner.util.lang.TableFormatter.Align.Right;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.opentripplanner.datastore.api.FileType;
+import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.util.lang.TableFormatter;
+
+/**
+ * Measure the time it takes to load a graph saved with Kryo only, with the street edge attributes
+ * in memory-mapped sections and in chunks deserialized in parallel. The given graph is loaded and
+ * saved in each format to temporary files, then each file is loaded a number of times.
+ * <p>
+ * This is not a unit test, run the main method manually. The first argument is the graph file, the
+ * second is the number of times each file is loaded, the default is 3. Remember to set the max heap
+ * size big enough to hold the graph twice.
+ */
+public class GraphFileLoadBenchmark {
+
+  private static final int WARMUP_LOADS = 1;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: GraphFileLoadBenchmark <graph.obj> [number of loads]");
+      System.exit(1);
+    }
+    File graphFile = new File(args[0]);
+    int loads = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+    System.out.println("Load " + graphFile + " ...");
+    var original = SerializedGraphObject.load(graphFile);
+
+    var kryoFile = save(original, false, false);
+    var sectionsFile = save(original, true, false);
+    var parallelFile = save(original, false, true);
+    var sectionsAndParallelFile = save(original, true, true);
+    original = null;
+
+    var table = new TableFormatter(
+      List.of(Left, Right, Right, Right, Right, Right),
+      List.of("Format", "File MB", "Load min ms", "Load avg ms", "Allocated MB", "Retained MB")
+    );
+    addRow(table, "Kryo", kryoFile, loads);
+    addRow(table, "Street edge sections", sectionsFile, loads);
+    addRow(table, "Parallel chunks", parallelFile, loads);
+    addRow(table, "Sections and parallel chunks", sectionsAndParallelFile, loads);
+    System.out.println(table);
+  }
+
+  private static File save(
+    SerializedGraphObject graph,
+    boolean streetEdgeSections,
+    boolean parallelLoad
+  ) throws IOException {
+    var buildConfig = new BuildConfig(
+      new ObjectMapper()
+        .createObjectNode()
+        .put("graphFileStreetEdgeSections", streetEdgeSections)
+        .put("graphFileParallelLoad", parallelLoad),
+      "GraphFileLoadBenchmark",
+      false
+    );
+    File file = File.createTempFile("graph", ".obj");
+    file.deleteOnExit();
+    new SerializedGraphObject(graph.graph, graph.transitModel, buildConfig, graph.routerConfig)
+      .save(new FileDataSource(file, FileType.GRAPH));
+    return file;
+  }
+
+  private static void addRow(TableFormatter table, String format, File file, int loads) {
+    for (int i = 0; i < WARMUP_LOADS; ++i) {
+      SerializedGraphObject.load(file);
+    }
+    long minNanos = Long.MAX_VALUE;
+    long totalNanos = 0;
+    long totalAllocated = 0;
+    long totalRetained = 0;
+
+    for (int i = 0; i < loads; ++i) {
+      System.gc();
+      long heapBefore = usedHeap();
+      long allocatedBefore = allocatedBytes();
+      long start = System.nanoTime();
+
+      var graph = SerializedGraphObject.load(file);
+
+      long nanos = System.nanoTime() - start;
+      totalAllocated += allocatedBytes() - allocatedBefore;
+      minNanos = Math.min(minNanos, nanos);
+      totalNanos += nanos;
+      System.gc();
+      totalRetained += usedHeap() - heapBefore;
+      // Keep the graph until the retained heap is measured
+      if (graph.graph == null) {
+        throw new IllegalStateException();
+      }
+    }
+    table.addRow(
+      format,
+      file.length() / (1024 * 1024),
+      minNanos / 1_000_000,
+      totalNanos / (loads * 1_000_000L),
+      totalAllocated / (loads * 1024L * 1024L),
+      totalRetained / (loads * 1024L * 1024L)
+    );
+  }
+
+  private static long usedHeap() {
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long allocatedBytes() {
+    var bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean sunBean) {
+      return sunBean.getCurrentThreadAllocatedBytes();
+    }
+    return 0;
+  }
+}
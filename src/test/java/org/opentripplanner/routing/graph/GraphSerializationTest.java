@@ -1,17 +1,27 @@
 package org.opentripplanner.routing.graph;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import com.conveyal.object_differ.ObjectDiffer;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.lang.ref.SoftReference;
 import java.lang.reflect.Method;
 import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.jar.JarFile;
+import java.util.zip.GZIPOutputStream;
 import org.geotools.util.WeakValueHashMap;
 import org.jets3t.service.io.TempFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.Polygon;
 import org.opentripplanner.ConstantsForTests;
@@ -19,8 +29,13 @@ import org.opentripplanner.TestOtpModel;
 import org.opentripplanner.common.geometry.HashGridSpatialIndex;
 import org.opentripplanner.datastore.api.FileType;
 import org.opentripplanner.datastore.file.FileDataSource;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.standalone.config.BuildConfig;
+import org.opentripplanner.standalone.config.JsonSupport;
 import org.opentripplanner.standalone.config.RouterConfig;
+import org.opentripplanner.transit.model.basic.NonLocalizedString;
 import org.opentripplanner.transit.model.framework.Deduplicator;
 import org.opentripplanner.transit.service.TransitModel;
 
@@ -53,6 +68,85 @@ public class GraphSerializationTest {
     testRoundTrip(model.graph(), model.transitModel());
   }
 
+  /**
+   * Tests that the street edges are restored when the graph is saved with the street edge
+   * sections or in parallel chunks, both when the file is memory-mapped and when it is read from a
+   * stream.
+   */
+  @ParameterizedTest
+  @ValueSource(
+    strings = {
+      "{ 'graphFileStreetEdgeSections' : true }",
+      "{ 'graphFileParallelLoad' : true }",
+      "{ 'graphFileStreetEdgeSections' : true, 'graphFileParallelLoad' : true }",
+    }
+  )
+  public void testRoundTripWithGraphFileFormat(String buildConfigJson) throws Exception {
+    Graph graph = new Graph();
+    var a = new IntersectionVertex(graph, "A", 10.0, 60.0);
+    var b = new IntersectionVertex(graph, "B", 10.001, 60.0);
+    var c = new IntersectionVertex(graph, "C", 10.001, 60.001);
+    var geometryFactory = new GeometryFactory();
+    var ab = new StreetEdge(
+      a,
+      b,
+      geometryFactory.createLineString(new Coordinate[] { a.getCoordinate(), b.getCoordinate() }),
+      new NonLocalizedString("AB"),
+      70.0,
+      StreetTraversalPermission.ALL,
+      false
+    );
+    ab.setCarSpeed(22.2f);
+    ab.setStreetClass(StreetEdge.CLASS_STREET);
+    var bc = new StreetEdge(
+      b,
+      c,
+      null,
+      new NonLocalizedString("BC"),
+      120.0,
+      StreetTraversalPermission.PEDESTRIAN,
+      false
+    );
+    bc.setStairs(true);
+
+    var buildConfig = new BuildConfig(JsonSupport.jsonNodeForTest(buildConfigJson), "Test", false);
+    File file = TempFile.createTempFile("graph", "sections");
+    new SerializedGraphObject(graph, new TransitModel(), buildConfig, RouterConfig.DEFAULT)
+      .save(new FileDataSource(file, FileType.GRAPH));
+
+    // A compressed file is read as a stream
+    File gzFile = new File(file.getPath() + ".gz");
+    try (
+      var in = new FileInputStream(file);
+      var out = new GZIPOutputStream(new FileOutputStream(gzFile))
+    ) {
+      in.transferTo(out);
+    }
+
+    for (var source : List.of(
+      new FileDataSource(file, FileType.GRAPH),
+      new FileDataSource(gzFile, FileType.GRAPH)
+    )) {
+      Graph copy = SerializedGraphObject.load(source).graph;
+      List<StreetEdge> expected = sortedStreetEdges(graph);
+      List<StreetEdge> actual = sortedStreetEdges(copy);
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); ++i) {
+        var e = expected.get(i);
+        var x = actual.get(i);
+        assertEquals(e.getName(), x.getName());
+        assertEquals(e.getDistanceMeters(), x.getDistanceMeters());
+        assertEquals(e.getPermission(), x.getPermission());
+        assertEquals(e.getCarSpeed(), x.getCarSpeed());
+        assertEquals(e.getStreetClass(), x.getStreetClass());
+        assertEquals(e.isBack(), x.isBack());
+        assertEquals(e.isStairs(), x.isStairs());
+        assertEquals(e.getInAngle(), x.getInAngle());
+        assertEquals(e.getOutAngle(), x.getOutAngle());
+      }
+    }
+  }
+
   // Ideally we'd also test comparing two separate but identical complex graphs, built separately from the same inputs.
   // A test that builds the same graph twice will currently fail for the following reasons:
   // There is global state in Vertex.index and the feeds IDs that mean if you build the same graph twice the feed IDs
@@ -112,6 +206,14 @@ public class GraphSerializationTest {
     assertNoDifferences(graph1, graph2);
   }
 
+  private static List<StreetEdge> sortedStreetEdges(Graph graph) {
+    return graph
+      .getStreetEdges()
+      .stream()
+      .sorted(Comparator.comparing(e -> e.getName().toString()))
+      .toList();
+  }
+
   private static void assertNoDifferences(Graph g1, Graph g2) {
     // Make some exclusions because some classes are inherently transient or contain unordered lists we can't yet compare.
     ObjectDiffer objectDiffer = new ObjectDiffer();
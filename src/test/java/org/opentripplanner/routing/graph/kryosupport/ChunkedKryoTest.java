@@ -0,0 +1,83 @@
+package org.opentripplanner.routing.graph.kryosupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ChunkedKryoTest {
+
+  private static final int N_CHUNKS = 200;
+
+  @Test
+  void referencesToObjectsInPreviousChunksAreKept() throws Exception {
+    // Each chunk contains a new node, and the node of the previous chunk
+    List<Object> chunks = new ArrayList<>();
+    List<Object> shared = new ArrayList<>(List.of("shared"));
+    List<Object> previous = shared;
+    for (int i = 0; i < N_CHUNKS; ++i) {
+      var node = new ArrayList<Object>(List.of("node " + i));
+      chunks.add(new ArrayList<>(List.of(node, previous, shared)));
+      previous = node;
+    }
+    // The last chunk refers to all the others
+    chunks.add(new ArrayList<>(chunks));
+
+    var output = new Output(1024, -1);
+    ChunkedKryo.write(output, chunks, KryoBuilder.create());
+
+    var input = new Input(output.toBytes());
+    var result = (List<?>) ChunkedKryo.read(input, 4, KryoBuilder::create);
+
+    assertEquals(N_CHUNKS, result.size());
+    var sharedCopy = ((List<?>) result.get(0)).get(1);
+    assertEquals(List.of("shared"), sharedCopy);
+    for (int i = 0; i < N_CHUNKS; ++i) {
+      var chunk = (List<?>) result.get(i);
+      assertEquals(List.of("node " + i), chunk.get(0));
+      assertSame(sharedCopy, chunk.get(2));
+      if (i > 0) {
+        assertSame(((List<?>) result.get(i - 1)).get(0), chunk.get(1));
+      }
+    }
+  }
+
+  @Test
+  void objectsInPreviousChunksAreCompletelyRead() throws Exception {
+    // Each chunk contains a list, and a set with the list of the previous chunk. Kryo adds the
+    // list to the reference table before its elements are read, the set is only correct if the
+    // hash code of the list is computed after all its elements are read.
+    int size = 1_000;
+    List<Object> chunks = new ArrayList<>();
+    List<Object> previous = new ArrayList<>();
+    for (int i = 0; i < N_CHUNKS; ++i) {
+      var list = new ArrayList<Object>(size);
+      for (int j = 0; j < size; ++j) {
+        list.add(i * size + j);
+      }
+      chunks.add(new ArrayList<>(List.of(list, new HashSet<>(Set.of(previous)))));
+      previous = list;
+    }
+    chunks.add(new ArrayList<>(chunks));
+
+    var output = new Output(1024, -1);
+    ChunkedKryo.write(output, chunks, KryoBuilder.create());
+
+    var input = new Input(output.toBytes());
+    var result = (List<?>) ChunkedKryo.read(input, 4, KryoBuilder::create);
+
+    for (int i = 1; i < N_CHUNKS; ++i) {
+      var list = ((List<?>) result.get(i - 1)).get(0);
+      var set = (Set<?>) ((List<?>) result.get(i)).get(1);
+      assertEquals(size, ((List<?>) list).size());
+      assertTrue(set.contains(list), "chunk " + i);
+    }
+  }
+}
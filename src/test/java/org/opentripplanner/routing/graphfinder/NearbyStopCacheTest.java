@@ -0,0 +1,317 @@
+package org.opentripplanner.routing.graphfinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.common.RepeatingTimePeriod;
+import org.opentripplanner.common.TurnRestriction;
+import org.opentripplanner.common.TurnRestrictionType;
+import org.opentripplanner.graph_builder.module.NearbyStopFinder;
+import org.opentripplanner.model.GenericLocation;
+import org.opentripplanner.routing.algorithm.GraphRoutingTest;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.core.TemporaryVerticesContainer;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.transit.service.DefaultTransitService;
+import org.opentripplanner.transit.service.TransitService;
+
+class NearbyStopCacheTest extends GraphRoutingTest {
+
+  private static final Instant TIME = Instant.parse("2022-06-01T10:00:00Z");
+
+  private final NearbyStopCache subject = new NearbyStopCache(5, Duration.ofMinutes(10));
+
+  private Graph graph;
+  private TransitService transitService;
+  private StreetVertex A;
+  private StreetEdge AB;
+  private StreetEdge BC;
+
+  private int numberOfSearches = 0;
+
+  @BeforeEach
+  void setUp() {
+    // S1 <-> A <-> B <-> C <-> S2
+    var otpModel = graphOf(
+      new Builder() {
+        @Override
+        public void build() {
+          var S1 = stop("S1", 60.0, 10.0);
+          var S2 = stop("S2", 60.003, 10.0);
+          A = intersection("A", 60.0, 10.0);
+          var B = intersection("B", 60.001, 10.0);
+          var C = intersection("C", 60.003, 10.0);
+          biLink(A, S1);
+          AB =
+            street(A, B, 100, StreetTraversalPermission.ALL, StreetTraversalPermission.ALL).get(0);
+          BC =
+            street(B, C, 200, StreetTraversalPermission.ALL, StreetTraversalPermission.ALL).get(0);
+          biLink(C, S2);
+        }
+      }
+    );
+    graph = otpModel.graph();
+    transitService = new DefaultTransitService(otpModel.transitModel());
+  }
+
+  @Test
+  void repeatedSearchIsCachedWithTheStatesOfTheRequest() {
+    var request = new RoutingRequest();
+    request.setDateTime(TIME);
+    var first = search(Set.of(A), StreetMode.WALK, false, request);
+
+    var later = request.clone();
+    later.setDateTime(TIME.plusSeconds(3600));
+    var second = search(Set.of(A), StreetMode.WALK, false, later);
+
+    assertEquals(1, numberOfSearches);
+    assertEquals(1, subject.size());
+    assertSameStops(first, second, 3600);
+  }
+
+  @Test
+  void egressIsCachedWithTheStatesOfTheRequest() {
+    var request = new RoutingRequest();
+    request.setDateTime(TIME);
+    var first = search(Set.of(A), StreetMode.WALK, true, request);
+
+    var later = request.clone();
+    later.setDateTime(TIME.plusSeconds(3600));
+    var second = search(Set.of(A), StreetMode.WALK, true, later);
+
+    assertEquals(1, numberOfSearches);
+    assertSameStops(first, second, 3600);
+    for (NearbyStop stop : second) {
+      assertTrue(stop.state.getTimeSeconds() <= later.getDateTime().getEpochSecond());
+    }
+  }
+
+  @Test
+  void otherModeDirectionOrStreetParametersAreSearchedAgain() {
+    var request = new RoutingRequest();
+    search(Set.of(A), StreetMode.WALK, false, request);
+    search(Set.of(A), StreetMode.BIKE, false, request);
+    search(Set.of(A), StreetMode.WALK, true, request);
+
+    var slowWalk = request.clone();
+    slowWalk.walkSpeed = 0.5;
+    search(Set.of(A), StreetMode.WALK, false, slowWalk);
+
+    var reluctantBike = request.clone();
+    reluctantBike.bikeReluctance = 5.0;
+    search(Set.of(A), StreetMode.BIKE, false, reluctantBike);
+
+    assertEquals(5, numberOfSearches);
+  }
+
+  @Test
+  void temporaryOriginIsCachedByTheVerticesItIsLinkedTo() {
+    var request = new RoutingRequest();
+    var first = search(Set.of(temporaryVertex()), StreetMode.WALK, false, request);
+    var origin = temporaryVertex();
+    var second = search(Set.of(origin), StreetMode.WALK, false, request);
+
+    assertEquals(1, numberOfSearches);
+    assertEquals(1, subject.size());
+    assertSameStopsFromTemporaryOrigin(first, second, origin);
+  }
+
+  @Test
+  void originOnAStreetIsCachedByTheSplitPoint() {
+    // Both are linked to the same point on the street between A and B
+    var first = searchFrom(new GenericLocation(60.0005, 10.0001));
+    var second = searchFrom(new GenericLocation(60.0005, 10.0002));
+
+    assertEquals(1, numberOfSearches);
+    assertEquals(1, subject.size());
+    assertSameStopsFromTemporaryOrigin(first.stops(), second.stops(), second.origin());
+  }
+
+  @Test
+  void destinationOnAStreetIsCachedByTheSplitPoint() {
+    var first = searchTo(new GenericLocation(60.0005, 10.0001));
+    var second = searchTo(new GenericLocation(60.0005, 10.0002));
+
+    assertEquals(1, numberOfSearches);
+    assertSameStopsFromTemporaryOrigin(first.stops(), second.stops(), second.origin());
+  }
+
+  @Test
+  void otherSplitPointIsSearchedAgain() {
+    searchFrom(new GenericLocation(60.0005, 10.0001));
+    searchFrom(new GenericLocation(60.0007, 10.0001));
+
+    assertEquals(2, numberOfSearches);
+    assertEquals(2, subject.size());
+  }
+
+  @Test
+  void rentalAndParkingIsNotCached() {
+    var request = new RoutingRequest();
+    search(Set.of(A), StreetMode.BIKE_RENTAL, false, request);
+    search(Set.of(A), StreetMode.BIKE_RENTAL, false, request);
+    search(Set.of(A), StreetMode.CAR_TO_PARK, false, request);
+    search(Set.of(A), StreetMode.CAR_TO_PARK, false, request);
+    assertEquals(4, numberOfSearches);
+    assertEquals(0, subject.size());
+  }
+
+  @Test
+  void invalidateAll() {
+    var request = new RoutingRequest();
+    search(Set.of(A), StreetMode.WALK, false, request);
+    subject.invalidateAll();
+    search(Set.of(A), StreetMode.WALK, false, request);
+    assertEquals(2, numberOfSearches);
+  }
+
+  @Test
+  void timeDependentTurnRestrictions() {
+    assertFalse(NearbyStopCache.hasTimeDependentTurnRestrictions(graph));
+
+    AB.addTurnRestriction(
+      new TurnRestriction(AB, BC, TurnRestrictionType.NO_TURN, new TraverseModeSet(), null)
+    );
+    assertFalse(NearbyStopCache.hasTimeDependentTurnRestrictions(graph));
+
+    AB.addTurnRestriction(
+      new TurnRestriction(
+        AB,
+        BC,
+        TurnRestrictionType.NO_TURN,
+        new TraverseModeSet(),
+        RepeatingTimePeriod.parseFromOsmTurnRestriction("monday", "friday", "07:00", "09:00")
+      )
+    );
+    assertTrue(NearbyStopCache.hasTimeDependentTurnRestrictions(graph));
+  }
+
+  private static void assertSameStops(
+    List<NearbyStop> expected,
+    List<NearbyStop> actual,
+    long timeShift
+  ) {
+    expected =
+      expected.stream().sorted(Comparator.comparing(s -> s.stop.getId().toString())).toList();
+    actual = actual.stream().sorted(Comparator.comparing(s -> s.stop.getId().toString())).toList();
+    assertEquals(expected.size(), actual.size());
+    assertTrue(expected.size() > 1);
+    for (int i = 0; i < expected.size(); ++i) {
+      var e = expected.get(i);
+      var a = actual.get(i);
+      assertSame(e.stop, a.stop);
+      assertEquals(e.distance, a.distance);
+      assertEquals(e.edges, a.edges);
+      assertNotSame(e.state, a.state);
+      assertSame(e.state.getVertex(), a.state.getVertex());
+      assertEquals(e.state.getWeight(), a.state.getWeight(), 0.001);
+      assertEquals(e.state.getTimeSeconds() + timeShift, a.state.getTimeSeconds());
+    }
+  }
+
+  /**
+   * The stops found from a temporary origin are the same, but the path starts with the temporary
+   * edges of the new origin, and the states belong to the new search.
+   */
+  private static void assertSameStopsFromTemporaryOrigin(
+    List<NearbyStop> expected,
+    List<NearbyStop> actual,
+    Vertex origin
+  ) {
+    expected =
+      expected.stream().sorted(Comparator.comparing(s -> s.stop.getId().toString())).toList();
+    actual = actual.stream().sorted(Comparator.comparing(s -> s.stop.getId().toString())).toList();
+    assertEquals(expected.size(), actual.size());
+    assertTrue(expected.size() > 1);
+    for (int i = 0; i < expected.size(); ++i) {
+      var e = expected.get(i);
+      var a = actual.get(i);
+      assertSame(e.stop, a.stop);
+      assertEquals(e.distance, a.distance);
+      assertEquals(e.edges.size(), a.edges.size());
+      var first = a.state;
+      while (first.getBackState() != null) {
+        first = first.getBackState();
+      }
+      assertSame(origin, first.getVertex());
+      assertNotSame(e.state, a.state);
+      assertSame(e.state.getVertex(), a.state.getVertex());
+      assertEquals(e.state.getWeight(), a.state.getWeight(), 0.001);
+    }
+  }
+
+  private record TemporarySearch(Vertex origin, List<NearbyStop> stops) {}
+
+  private TemporarySearch searchFrom(GenericLocation from) {
+    var request = new RoutingRequest();
+    request.from = from;
+    request.to = new GenericLocation(60.003, 10.0);
+    try (var temporaryVertices = new TemporaryVerticesContainer(graph, request)) {
+      var origin = temporaryVertices.getFromVertices();
+      return new TemporarySearch(
+        origin.iterator().next(),
+        search(origin, StreetMode.WALK, false, request)
+      );
+    }
+  }
+
+  private TemporarySearch searchTo(GenericLocation to) {
+    var request = new RoutingRequest();
+    request.from = new GenericLocation(60.003, 10.0);
+    request.to = to;
+    try (var temporaryVertices = new TemporaryVerticesContainer(graph, request)) {
+      var destination = temporaryVertices.getToVertices();
+      return new TemporarySearch(
+        destination.iterator().next(),
+        search(destination, StreetMode.WALK, true, request)
+      );
+    }
+  }
+
+  private Vertex temporaryVertex() {
+    var builder = new Builder() {
+      @Override
+      public void build() {}
+    };
+    var location = builder.streetLocation("T", 60.0, 10.0, false);
+    builder.link(location, A);
+    return location;
+  }
+
+  private List<NearbyStop> search(
+    Set<Vertex> from,
+    StreetMode mode,
+    boolean fromTarget,
+    RoutingRequest request
+  ) {
+    var streetRequest = request.getStreetSearchRequest(mode);
+    return subject.get(
+      graph,
+      from,
+      mode,
+      fromTarget,
+      streetRequest,
+      () -> {
+        ++numberOfSearches;
+        return new NearbyStopFinder(graph, transitService, Duration.ofMinutes(30), true)
+          .findNearbyStopsViaStreets(from, fromTarget, streetRequest);
+      }
+    );
+  }
+}
@@ -0,0 +1,265 @@
+package org.opentripplanner.routing.responsecache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.opentripplanner.model.plan.TestItineraryBuilder.newItinerary;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.model.plan.Itinerary;
+import org.opentripplanner.model.plan.PlanTestConstants;
+import org.opentripplanner.model.plan.ScheduledTransitLeg;
+import org.opentripplanner.model.plan.TripPlan;
+import org.opentripplanner.routing.api.request.RequestModes;
+import org.opentripplanner.routing.api.request.RoutingRequest;
+import org.opentripplanner.routing.api.request.StreetMode;
+import org.opentripplanner.routing.api.response.InputField;
+import org.opentripplanner.routing.api.response.RoutingError;
+import org.opentripplanner.routing.api.response.RoutingErrorCode;
+import org.opentripplanner.routing.api.response.RoutingResponse;
+import org.opentripplanner.routing.api.response.TripSearchMetadata;
+import org.opentripplanner.routing.framework.DebugTimingAggregator;
+import org.opentripplanner.transit.model.framework.FeedScopedId;
+
+class RoutingResponseCacheTest implements PlanTestConstants {
+
+  private static final Instant TIME = Instant.parse("2022-02-02T12:00:00Z");
+
+  private Itinerary itinerary = newItinerary(A, T11_00).walk(D2m, C).build();
+
+  private final RoutingResponseCache subject = new RoutingResponseCache(
+    new RoutingResponseCacheParameters() {
+      @Override
+      public long maxWeight() {
+        return 100;
+      }
+
+      @Override
+      public Duration timeToLive() {
+        return Duration.ofMinutes(1);
+      }
+    }
+  );
+
+  private int numberOfRoutings = 0;
+
+  @Test
+  void identicalRequestIsCached() {
+    var request = request();
+    var response = route(request);
+
+    // A new request with the same parameters, the date-time is truncated to seconds
+    var sameRequest = request();
+    sameRequest.setDateTime(TIME.plusMillis(300));
+    assertSameResponse(response, route(sameRequest));
+    assertEquals(1, numberOfRoutings);
+  }
+
+  @Test
+  void eachCallerGetsItsOwnResponse() {
+    var response = route(request());
+    var first = route(request());
+    var second = route(request());
+
+    assertNotSame(first, second);
+    assertSameResponse(response, first);
+    assertSameResponse(response, second);
+
+    // Changing the metadata of one response does not change the others
+    first.getMetadata().nextDateTime = TIME.plusSeconds(3600);
+    assertEquals(response.getMetadata().nextDateTime, second.getMetadata().nextDateTime);
+    assertEquals(response.getMetadata().nextDateTime, route(request()).getMetadata().nextDateTime);
+
+    assertNotSame(first.getRoutingErrors(), second.getRoutingErrors());
+  }
+
+  @Test
+  void cachedResponseHasItsOwnDebugTimingAggregator() {
+    var response = route(request());
+    var first = route(request());
+    var second = route(request());
+
+    assertNotNull(first.getDebugTimingAggregator());
+    assertNotSame(response.getDebugTimingAggregator(), first.getDebugTimingAggregator());
+    assertNotSame(first.getDebugTimingAggregator(), second.getDebugTimingAggregator());
+    // The APIs render the debug output of the cached response
+    assertNotNull(first.getDebugTimingAggregator().finishedRendering());
+    assertNotNull(second.getDebugTimingAggregator().finishedRendering());
+  }
+
+  @Test
+  void setOrderDoesNotMatter() {
+    var a = new FeedScopedId("F", "A");
+    var b = new FeedScopedId("F", "B");
+
+    var request = request();
+    request.bannedTrips = new LinkedHashSet<>(List.of(a, b));
+    var otherOrder = request();
+    otherOrder.bannedTrips = new LinkedHashSet<>(List.of(b, a));
+
+    assertSameResponse(route(request), route(otherOrder));
+    assertEquals(1, numberOfRoutings);
+  }
+
+  @Test
+  void differentRequestIsRouted() {
+    route(request());
+
+    var otherTime = request();
+    otherTime.setDateTime(TIME.plusSeconds(60));
+    route(otherTime);
+
+    var otherSpeed = request();
+    otherSpeed.walkSpeed = 0.7;
+    route(otherSpeed);
+
+    var otherBannedTrips = request();
+    otherBannedTrips.bannedTrips = Set.of(new FeedScopedId("F", "1"));
+    route(otherBannedTrips);
+
+    assertEquals(4, numberOfRoutings);
+    assertEquals(4, subject.size());
+  }
+
+  @Test
+  void responseWithRoutingErrorIsNotCached() {
+    var request = request();
+    var error = new RoutingError(RoutingErrorCode.NO_TRANSIT_CONNECTION, InputField.FROM_PLACE);
+    Runnable routeWithError = () ->
+      subject.route(
+        request,
+        () -> {
+          ++numberOfRoutings;
+          return response(List.of(error));
+        },
+        DebugTimingAggregator::new
+      );
+    routeWithError.run();
+    routeWithError.run();
+    assertEquals(2, numberOfRoutings);
+  }
+
+  @Test
+  void invalidateResponsesUsingUpdatedPattern() {
+    var walkRequest = request();
+    route(walkRequest);
+
+    itinerary = newItinerary(A, T11_00).walk(D2m, B).bus(21, T11_05, T11_15, C).build();
+    var pattern = ((ScheduledTransitLeg) itinerary.getLegs().get(1)).getTripPattern();
+    var request = request();
+    request.walkSpeed = 0.7;
+    route(request);
+
+    subject.invalidate(Set.of());
+    route(request);
+    assertEquals(2, numberOfRoutings);
+
+    // Only the response using the pattern is removed
+    subject.invalidate(Set.of(pattern));
+    route(request);
+    route(walkRequest);
+    assertEquals(3, numberOfRoutings);
+  }
+
+  @Test
+  void invalidateResponsesWithTransitOnAlertUpdate() {
+    var walkRequest = request();
+    route(walkRequest);
+
+    itinerary = newItinerary(A, T11_00).walk(D2m, B).bus(21, T11_05, T11_15, C).build();
+    var transitRequest = request();
+    transitRequest.walkSpeed = 0.7;
+    route(transitRequest);
+
+    subject.invalidateTransit();
+    route(walkRequest);
+    assertEquals(2, numberOfRoutings);
+    route(transitRequest);
+    assertEquals(3, numberOfRoutings);
+  }
+
+  @Test
+  void invalidateResponsesUsingVehicleRental() {
+    var walkRequest = request();
+    route(walkRequest);
+    var rentalRequest = request(StreetMode.BIKE_RENTAL);
+    route(rentalRequest);
+    var parkingRequest = request(StreetMode.CAR_TO_PARK);
+    route(parkingRequest);
+
+    subject.invalidateVehicleRental();
+    route(walkRequest);
+    route(parkingRequest);
+    assertEquals(3, numberOfRoutings);
+    route(rentalRequest);
+    assertEquals(4, numberOfRoutings);
+  }
+
+  @Test
+  void invalidateResponsesUsingVehicleParking() {
+    var walkRequest = request();
+    route(walkRequest);
+    var rentalRequest = request(StreetMode.BIKE_RENTAL);
+    route(rentalRequest);
+    var parkingRequest = request(StreetMode.CAR_TO_PARK);
+    route(parkingRequest);
+
+    subject.invalidateVehicleParking();
+    route(walkRequest);
+    route(rentalRequest);
+    assertEquals(3, numberOfRoutings);
+    route(parkingRequest);
+    assertEquals(4, numberOfRoutings);
+  }
+
+  /** The cached responses share the trip plan, and have equal metadata and errors. */
+  private static void assertSameResponse(RoutingResponse expected, RoutingResponse actual) {
+    assertSame(expected.getTripPlan(), actual.getTripPlan());
+    assertSame(expected.getNextPageCursor(), actual.getNextPageCursor());
+    assertSame(expected.getPreviousPageCursor(), actual.getPreviousPageCursor());
+    assertNotSame(expected.getMetadata(), actual.getMetadata());
+    assertEquals(expected.getMetadata().toString(), actual.getMetadata().toString());
+    assertEquals(expected.getRoutingErrors(), actual.getRoutingErrors());
+  }
+
+  private RoutingResponse route(RoutingRequest request) {
+    return subject.route(
+      request,
+      () -> {
+        ++numberOfRoutings;
+        return response(List.of());
+      },
+      DebugTimingAggregator::new
+    );
+  }
+
+  private RoutingResponse response(List<RoutingError> errors) {
+    return new RoutingResponse(
+      new TripPlan(A, C, TIME, List.of(itinerary)),
+      null,
+      null,
+      TripSearchMetadata.createForDepartAfter(TIME, 3600, null),
+      new ArrayList<>(errors),
+      null
+    );
+  }
+
+  private static RoutingRequest request(StreetMode accessMode) {
+    var request = request();
+    request.modes = RequestModes.of().withAccessMode(accessMode).build();
+    return request;
+  }
+
+  private static RoutingRequest request() {
+    var request = new RoutingRequest();
+    request.setDateTime(TIME);
+    return request;
+  }
+}
@@ -19,6 +19,7 @@ import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.TemporaryVerticesContainer;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.impl.GraphPathFinder;
 import org.opentripplanner.util.PolylineEncoder;
@@ -121,13 +122,58 @@ public class CarRoutingTest {
     );
   }
 
-  private static String computePolyline(Graph graph, GenericLocation from, GenericLocation to) {
+  /**
+   * The transit router closes the temporary vertices before the access and egress paths are mapped
+   * to itineraries. The partial street edges at the start and the end of the path are then removed
+   * from the graph, but must still have their geometry.
+   */
+  @Test
+  public void mapItineraryAfterTemporaryVerticesAreDisposed() {
+    var mozartStr = new GenericLocation(48.59521, 8.88391);
+    var fritzLeharStr = new GenericLocation(48.59460, 8.88291);
+
+    var request = carRequest(mozartStr, fritzLeharStr);
+    var temporaryVertices = new TemporaryVerticesContainer(herrenbergGraph, request);
+    var routingContext = new RoutingContext(request, herrenbergGraph, temporaryVertices);
+    var paths = new GraphPathFinder(null, Duration.ofSeconds(5))
+      .graphPathFinderEntryPoint(routingContext);
+    var mapper = itineraryMapper(herrenbergGraph);
+    var expected = mapper.mapItineraries(paths).get(0).getLegs().get(0).getLegGeometry();
+
+    temporaryVertices.close();
+
+    var partialEdges = paths
+      .get(0)
+      .edges.stream()
+      .filter(TemporaryPartialStreetEdge.class::isInstance)
+      .toList();
+    Assertions.assertFalse(partialEdges.isEmpty());
+    partialEdges.forEach(e -> Assertions.assertNull(e.getFromVertex()));
+
+    var actual = mapper.mapItineraries(paths).get(0).getLegs().get(0).getLegGeometry();
+    Assertions.assertEquals(expected, actual);
+  }
+
+  private static RoutingRequest carRequest(GenericLocation from, GenericLocation to) {
     RoutingRequest request = new RoutingRequest();
     request.setDateTime(dateTime);
     request.from = from;
     request.to = to;
 
     request.streetSubRequestModes = new TraverseModeSet(TraverseMode.CAR);
+    return request;
+  }
+
+  private static GraphPathToItineraryMapper itineraryMapper(Graph graph) {
+    return new GraphPathToItineraryMapper(
+      ZoneId.of("Europe/Berlin"),
+      graph.streetNotesService,
+      graph.ellipsoidToGeoidDifference
+    );
+  }
+
+  private static String computePolyline(Graph graph, GenericLocation from, GenericLocation to) {
+    RoutingRequest request = carRequest(from, to);
 
     var temporaryVertices = new TemporaryVerticesContainer(graph, request);
     final RoutingContext routingContext = new RoutingContext(request, graph, temporaryVertices);
@@ -135,11 +181,7 @@ public class CarRoutingTest {
     var gpf = new GraphPathFinder(null, Duration.ofSeconds(5));
     var paths = gpf.graphPathFinderEntryPoint(routingContext);
 
-    GraphPathToItineraryMapper graphPathToItineraryMapper = new GraphPathToItineraryMapper(
-      ZoneId.of("Europe/Berlin"),
-      graph.streetNotesService,
-      graph.ellipsoidToGeoidDifference
-    );
+    GraphPathToItineraryMapper graphPathToItineraryMapper = itineraryMapper(graph);
 
     var itineraries = graphPathToItineraryMapper.mapItineraries(paths);
     temporaryVertices.close();
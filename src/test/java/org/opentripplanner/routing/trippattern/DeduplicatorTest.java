@@ -10,6 +10,7 @@ import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.opentripplanner.transit.model.framework.Deduplicator;
@@ -228,4 +229,53 @@ public class DeduplicatorTest {
       subject.toString()
     );
   }
+
+  @Test
+  public void testHitStatistics() {
+    subject.deduplicateIntArray(INT_ARRAY);
+    subject.deduplicateIntArray(INT_ARRAY_2);
+    subject.deduplicateStringArray(STRING_ARRAY);
+    subject.deduplicateStringArray(STRING_ARRAY_2);
+    subject.deduplicateImmutableList(DATE_CL, DATE_LIST);
+
+    // Only the types requested are listed
+    assertEquals(
+      "Deduplicator{" +
+      "IntArray: 1/2 (50%), " +
+      "String: 0/1 (0%), " +
+      "StringArray: 1/2 (50%), " +
+      "LocalDate: 0/1 (0%), " +
+      "List<LocalDate>: 0/1 (0%)" +
+      "}",
+      subject.hitStatistics()
+    );
+  }
+
+  @Test
+  public void deduplicateFromManyThreads() {
+    int n = 10_000;
+    int[][] arrays = IntStream
+      .range(0, n)
+      .parallel()
+      .mapToObj(i -> subject.deduplicateIntArray(new int[] { i % 10, 1, 2 }))
+      .toArray(int[][]::new);
+    String[] strings = IntStream
+      .range(0, n)
+      .parallel()
+      .mapToObj(i -> subject.deduplicateString(new String("S" + i % 10)))
+      .toArray(String[]::new);
+
+    for (int i = 10; i < n; i++) {
+      assertSame(arrays[i % 10], arrays[i]);
+      assertSame(strings[i % 10], strings[i]);
+    }
+    assertEquals(
+      "Deduplicator{BitSet: 0(0), IntArray: 10(10000), String: 10(10000), StringArray: 0(0), String2DArray: 0(0)}",
+      subject.toString()
+    );
+    assertEquals(
+      "Deduplicator{IntArray: 9990/10000 (99%), String: 9990/10000 (99%)}",
+      subject.hitStatistics()
+    );
+  }
 }
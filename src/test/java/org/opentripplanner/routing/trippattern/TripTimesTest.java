@@ -2,6 +2,8 @@ package org.opentripplanner.routing.trippattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.LinkedList;
@@ -179,4 +181,64 @@ public class TripTimesTest {
 
     assertFalse(updatedTripTimesA.timesIncreasing());
   }
+
+  @Test
+  public void testUpdateWithoutChangedTimes() {
+    TripTimes updatedTripTimesA = new TripTimes(originalTripTimes);
+
+    updatedTripTimesA.updateArrivalDelay(2, 0);
+    updatedTripTimesA.updateDepartureTime(2, 120);
+    updatedTripTimesA.setNoData(3);
+
+    assertEquals(RealTimeState.UPDATED, updatedTripTimesA.getRealTimeState());
+    assertTrue(updatedTripTimesA.isNoDataStop(3));
+    assertEquals(120, updatedTripTimesA.getArrivalTime(2));
+    assertEquals(0, updatedTripTimesA.getDepartureDelay(2));
+    // The scheduled times are still used, so the trip can be time-shifted
+    assertNotNull(updatedTripTimesA.timeShift(0, 600, true));
+    assertFalse(originalTripTimes.isNoDataStop(3));
+
+    updatedTripTimesA.updateDepartureDelay(2, 30);
+
+    assertEquals(120, updatedTripTimesA.getArrivalTime(2));
+    assertEquals(150, updatedTripTimesA.getDepartureTime(2));
+    assertEquals(180, updatedTripTimesA.getDepartureTime(3));
+    assertNull(updatedTripTimesA.timeShift(0, 600, true));
+    assertEquals(120, originalTripTimes.getDepartureTime(2));
+  }
+
+  @Test
+  public void testTimeShiftedTripsShareScheduledTimes() {
+    var deduplicator = new Deduplicator();
+    // Two trips with the same running times, at different times of the day and visiting
+    // different stops, hence they belong to different patterns.
+    var early = new TripTimes(
+      TransitModelForTest.trip("early").build(),
+      List.of(stopTime(STOP_A, 3600, 0), stopTime(STOP_B, 3660, 1)),
+      deduplicator
+    );
+    var late = new TripTimes(
+      TransitModelForTest.trip("late").build(),
+      List.of(stopTime(STOP_C, 7200, 0), stopTime(STOP_D, 7260, 1)),
+      deduplicator
+    );
+
+    assertEquals(3660, early.getScheduledArrivalTime(1));
+    assertEquals(7260, late.getScheduledArrivalTime(1));
+    // The shifted arrival and departure arrays and the stop sequence of the first trip are stored,
+    // all the other time arrays are hits.
+    assertTrue(
+      deduplicator.hitStatistics().contains("IntArray: 4/6"),
+      deduplicator.hitStatistics()
+    );
+  }
+
+  private static StopTime stopTime(FeedScopedId stopId, int time, int sequence) {
+    StopTime stopTime = new StopTime();
+    stopTime.setStop(TransitModelForTest.stopForTest(stopId.getId(), 0.0, 0.0));
+    stopTime.setArrivalTime(time);
+    stopTime.setDepartureTime(time);
+    stopTime.setStopSequence(sequence);
+    return stopTime;
+  }
 }
@@ -1,6 +1,7 @@
 package org.opentripplanner.standalone.config;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.opentripplanner.standalone.config.JsonSupport.newNodeAdapterForTest;
 
@@ -21,6 +22,8 @@ public class NetexConfigTest {
     assertTrue(subject.sharedGroupFilePattern.matcher("RUT-anything-shared.xml").matches());
     assertTrue(subject.groupFilePattern.matcher("RUT-anything.xml").matches());
     assertEquals("DefaultFeed", subject.netexFeedId);
+    assertEquals(1, subject.parseThreads);
+    assertFalse(subject.streamingParser);
   }
 
   @Test
@@ -32,7 +35,9 @@ public class NetexConfigTest {
       "    'sharedFilePattern' : '_stops.xml',\n" +
       "    'sharedGroupFilePattern' : '_(\\\\w{3})_shared_data.xml',\n" +
       "    'groupFilePattern' : '(\\\\w{3})_.*\\\\.xml',\n" +
-      "    'netexFeedId': 'RB'\n" +
+      "    'netexFeedId': 'RB',\n" +
+      "    'parseThreads': 4,\n" +
+      "    'streamingParser': true\n" +
       "}"
     );
 
@@ -44,5 +49,7 @@ public class NetexConfigTest {
     assertTrue(subject.sharedGroupFilePattern.matcher("_RUT_shared_data.xml").matches());
     assertTrue(subject.groupFilePattern.matcher("RUT_anything.xml").matches());
     assertEquals("RB", subject.netexFeedId);
+    assertEquals(4, subject.parseThreads);
+    assertTrue(subject.streamingParser);
   }
 }
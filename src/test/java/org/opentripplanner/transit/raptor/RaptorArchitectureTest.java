@@ -119,9 +119,13 @@ public class RaptorArchitectureTest {
       .dependsOn(rrCommon, mcArrivals)
       .verify();
     RR_MULTI_CRITERIA.dependsOn(rrCommon, mcArrivals, mcHeuristics).verify();
+    var mcArrays = RR_MULTI_CRITERIA
+      .subPackage("arrays")
+      .dependsOn(rrCommon, mcHeuristics)
+      .verify();
 
     RR_MC_CONFIGURE
-      .dependsOn(rrCommon, RR_CONTEXT, pathConfigure, mcHeuristics, RR_MULTI_CRITERIA)
+      .dependsOn(rrCommon, RR_CONTEXT, pathConfigure, mcHeuristics, mcArrays, RR_MULTI_CRITERIA)
       .verify();
   }
 
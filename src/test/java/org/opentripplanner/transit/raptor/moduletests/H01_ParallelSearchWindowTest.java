@@ -0,0 +1,143 @@
+package org.opentripplanner.transit.raptor.moduletests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.opentripplanner.transit.raptor._data.api.PathUtils.pathsToString;
+import static org.opentripplanner.transit.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.transit.raptor._data.transit.TestTransfer.walk;
+import static org.opentripplanner.transit.raptor._data.transit.TestTripPattern.pattern;
+import static org.opentripplanner.transit.raptor._data.transit.TestTripSchedule.schedule;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.transit.raptor.RaptorService;
+import org.opentripplanner.transit.raptor._data.RaptorTestConstants;
+import org.opentripplanner.transit.raptor._data.transit.TestTransitData;
+import org.opentripplanner.transit.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.transit.raptor.api.debug.RaptorTimers;
+import org.opentripplanner.transit.raptor.api.request.Optimization;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.transit.raptor.configure.RaptorConfig;
+
+/**
+ * FEATURE UNDER TEST
+ * <p>
+ * Raptor should return the same paths for a multi-criteria search if the search-window is split
+ * into sub-windows routed in parallel, as when the entire search-window is routed by one worker.
+ */
+public class H01_ParallelSearchWindowTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+
+  private final RaptorConfig<TestTripSchedule> parallelConfig = new RaptorConfig<>(
+    new RaptorTuningParameters() {
+      @Override
+      public int searchThreadPoolSize() {
+        return 2;
+      }
+
+      @Override
+      public int parallelSearchWindowSplitInSeconds() {
+        return D10m;
+      }
+    }
+  );
+
+  /**
+   * Stops: 0..4
+   *
+   * Stop on route (stop indexes):
+   *   R1:  1 - 2 - 3
+   *   R2:  1 - 3
+   *
+   * Schedule:
+   *   R1: every 5 minutes, 20 minutes travel time
+   *   R2: every 15 minutes, 10 minutes travel time
+   *
+   * Access (toStop & duration):
+   *   1  30s
+   *
+   * Egress (fromStop & duration):
+   *   2  20s
+   *   3  20s
+   */
+  @BeforeEach
+  public void setup() {
+    data.withRoute(
+      route(pattern("R1", STOP_A, STOP_B, STOP_C))
+        .withTimetable(
+          schedule("00:02, 00:12, 00:22"),
+          schedule("00:07, 00:17, 00:27"),
+          schedule("00:12, 00:22, 00:32"),
+          schedule("00:17, 00:27, 00:37"),
+          schedule("00:22, 00:32, 00:42"),
+          schedule("00:27, 00:37, 00:47")
+        )
+    );
+    data.withRoute(
+      route(pattern("R2", STOP_A, STOP_C))
+        .withTimetable(schedule("00:05, 00:15"), schedule("00:20, 00:30"), schedule("00:35, 00:45"))
+    );
+    requestBuilder
+      .profile(RaptorProfile.MULTI_CRITERIA)
+      .enableOptimization(Optimization.PARALLEL)
+      .searchParams()
+      .addAccessPaths(walk(STOP_A, D30s))
+      .addEgressPaths(walk(STOP_B, D20s), walk(STOP_C, D20s))
+      .earliestDepartureTime(T00_00)
+      .searchWindowInSeconds(D30m)
+      .timetableEnabled(true);
+
+    ModuleTestDebugLogging.setupDebugLogging(data, requestBuilder);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    parallelConfig.shutdown();
+  }
+
+  @Test
+  public void multiCriteriaWithSplitSearchWindow() {
+    var singleWorkerTimers = new CountingTimers();
+    var expected = new RaptorService<>(RaptorConfig.<TestTripSchedule>defaultConfigForTest())
+      .route(requestBuilder.performanceTimers(singleWorkerTimers).build(), data);
+
+    var parallelTimers = new CountingTimers();
+    var response = new RaptorService<>(parallelConfig)
+      .route(requestBuilder.performanceTimers(parallelTimers).build(), data);
+
+    assertFalse(expected.paths().isEmpty());
+    assertEquals(pathsToString(expected), pathsToString(response));
+
+    // The 30 minutes search-window is split in three 10 minutes sub-windows, each routed by its
+    // own worker, instead of one worker routing the entire search-window.
+    assertEquals(singleWorkerTimers.nRoutes.get() + 2, parallelTimers.nRoutes.get());
+  }
+
+  /** Count the number of Range Raptor workers routing, the workers may run in parallel. */
+  private static class CountingTimers implements RaptorTimers {
+
+    private final AtomicInteger nRoutes = new AtomicInteger();
+
+    @Override
+    public void route(Runnable body) {
+      nRoutes.incrementAndGet();
+      body.run();
+    }
+
+    @Override
+    public void findTransitForRound(Runnable body) {
+      body.run();
+    }
+
+    @Override
+    public void findTransfersForRound(Runnable body) {
+      body.run();
+    }
+  }
+}
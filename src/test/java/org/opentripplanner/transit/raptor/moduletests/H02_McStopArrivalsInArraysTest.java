@@ -0,0 +1,134 @@
+package org.opentripplanner.transit.raptor.moduletests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.opentripplanner.transit.raptor._data.api.PathUtils.pathsToString;
+import static org.opentripplanner.transit.raptor._data.transit.TestRoute.route;
+import static org.opentripplanner.transit.raptor._data.transit.TestTransfer.flex;
+import static org.opentripplanner.transit.raptor._data.transit.TestTransfer.walk;
+import static org.opentripplanner.transit.raptor._data.transit.TestTripSchedule.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentripplanner.transit.raptor.RaptorService;
+import org.opentripplanner.transit.raptor._data.RaptorTestConstants;
+import org.opentripplanner.transit.raptor._data.transit.TestTransitData;
+import org.opentripplanner.transit.raptor._data.transit.TestTripSchedule;
+import org.opentripplanner.transit.raptor.api.request.Optimization;
+import org.opentripplanner.transit.raptor.api.request.RaptorProfile;
+import org.opentripplanner.transit.raptor.api.request.RaptorRequestBuilder;
+import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
+import org.opentripplanner.transit.raptor.api.transit.RaptorSlackProvider;
+import org.opentripplanner.transit.raptor.configure.RaptorConfig;
+
+/**
+ * FEATURE UNDER TEST
+ * <p>
+ * Raptor should return the same paths for a multi-criteria search when the stop arrivals are
+ * stored in primitive arrays, as when the default object based state is used. The arrays are
+ * pooled, so routing the same request twice should also give the same result.
+ */
+public class H02_McStopArrivalsInArraysTest implements RaptorTestConstants {
+
+  private final TestTransitData data = new TestTransitData();
+  private final RaptorRequestBuilder<TestTripSchedule> requestBuilder = new RaptorRequestBuilder<>();
+
+  private final RaptorService<TestTripSchedule> defaultService = new RaptorService<>(
+    RaptorConfig.defaultConfigForTest()
+  );
+
+  private final RaptorService<TestTripSchedule> arraysService = new RaptorService<>(
+    new RaptorConfig<>(
+      new RaptorTuningParameters() {
+        @Override
+        public boolean multiCriteriaStopArrivalsInArrays() {
+          return true;
+        }
+      }
+    )
+  );
+
+  /**
+   * Stops: A..G
+   * <p>
+   * Routes:
+   * <pre>
+   *   R1:  A - B - C - D
+   *   R2:  C - E - G
+   *   R3:  D - F - G
+   *   R4:  B - G        (guaranteed transfer from R1 at B)
+   * </pre>
+   * Transfers: C -> D 2m, E -> F 1m
+   * <p>
+   * Access: walk to A 1m, flex to B 3m (one ride)
+   * <p>
+   * Egress: walk from F 5m, walk from G 1m
+   */
+  @BeforeEach
+  public void setup() {
+    var r1 = route("R1", STOP_A, STOP_B, STOP_C, STOP_D)
+      .withTimetable(
+        schedule("0:02 0:06 0:10 0:14"),
+        schedule("0:12 0:16 0:20 0:24"),
+        schedule("0:22 0:26 0:30 0:34")
+      );
+    var r4 = route("R4", STOP_B, STOP_G).withTimetable(schedule("0:16 0:40"));
+
+    data.withRoutes(
+      r1,
+      route("R2", STOP_C, STOP_E, STOP_G)
+        .withTimetable(
+          schedule("0:13 0:18 0:28"),
+          schedule("0:23 0:28 0:38"),
+          schedule("0:33 0:38 0:48")
+        ),
+      route("R3", STOP_D, STOP_F, STOP_G)
+        .withTimetable(schedule("0:18 0:25 0:30"), schedule("0:28 0:35 0:40")),
+      r4
+    );
+    data.withTransfer(STOP_C, walk(STOP_D, D2m));
+    data.withTransfer(STOP_E, walk(STOP_F, D1m));
+    data.withGuaranteedTransfer(
+      r1.timetable().getTripSchedule(1),
+      STOP_B,
+      r4.timetable().getTripSchedule(0),
+      STOP_B
+    );
+
+    requestBuilder
+      .profile(RaptorProfile.MULTI_CRITERIA)
+      .searchParams()
+      .constrainedTransfersEnabled(true)
+      .addAccessPaths(walk(STOP_A, D1m), flex(STOP_B, D3m, ONE_RIDE))
+      .addEgressPaths(walk(STOP_F, D5m), walk(STOP_G, D1m))
+      .earliestDepartureTime(T00_00)
+      .searchWindowInSeconds(D30m)
+      .timetableEnabled(true);
+
+    requestBuilder.slackProvider(RaptorSlackProvider.defaultSlackProvider(60, 0, 0));
+
+    ModuleTestDebugLogging.setupDebugLogging(data, requestBuilder);
+  }
+
+  @Test
+  public void multiCriteria() {
+    assertSameResult();
+  }
+
+  @Test
+  public void multiCriteriaWithDestinationPruning() {
+    requestBuilder.enableOptimization(Optimization.PARETO_CHECK_AGAINST_DESTINATION);
+    assertSameResult();
+  }
+
+  private void assertSameResult() {
+    var request = requestBuilder.build();
+
+    var expected = pathsToString(defaultService.route(request, data));
+
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, pathsToString(arraysService.route(request, data)));
+    // Route again, reusing the pooled arrays
+    assertEquals(expected, pathsToString(arraysService.route(request, data)));
+  }
+}
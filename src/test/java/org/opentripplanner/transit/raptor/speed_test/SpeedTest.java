@@ -24,6 +24,8 @@ import org.opentripplanner.standalone.OtpStartupInfo;
 import org.opentripplanner.standalone.api.OtpServerContext;
 import org.opentripplanner.standalone.config.RouterConfig;
 import org.opentripplanner.standalone.server.DefaultServerContext;
+import org.opentripplanner.transit.raptor.api.request.DynamicSearchWindowCoefficients;
+import org.opentripplanner.transit.raptor.api.request.RaptorTuningParameters;
 import org.opentripplanner.transit.raptor.configure.RaptorConfig;
 import org.opentripplanner.transit.raptor.speed_test.model.SpeedTestProfile;
 import org.opentripplanner.transit.raptor.speed_test.model.testcase.CsvFileIO;
@@ -52,6 +54,7 @@ public class SpeedTest {
   private final SpeedTestConfig config;
   private final List<TestCaseInput> testCaseInputs;
   private final OtpServerContext serverContext;
+  private final OtpServerContext serverContextMcArrays;
   private final Map<SpeedTestProfile, List<Integer>> workerResults = new HashMap<>();
   private final Map<SpeedTestProfile, List<Integer>> totalResults = new HashMap<>();
   private final CsvFileIO tcIO;
@@ -79,6 +82,17 @@ public class SpeedTest {
         timer.getRegistry(),
         null
       );
+    // The stop arrival state is selected by the application scoped RaptorConfig, so we need a
+    // separate server context to compare the state implementations in the same run
+    this.serverContextMcArrays =
+      DefaultServerContext.create(
+        routerConfig,
+        new RaptorConfig<>(withMcStopArrivalsInArrays(routerConfig.raptorTuningParameters())),
+        graph,
+        transitModel,
+        timer.getRegistry(),
+        null
+      );
     // Creating transitLayerForRaptor should be integrated into the TransitModel, but for now
     // we do it manually here
     creatTransitLayerForRaptor(transitModel, routerConfig);
@@ -219,7 +233,8 @@ public class SpeedTest {
         getTimeZoneId()
       );
       var routingRequest = speedTestRequest.toRoutingRequest();
-      RoutingResponse routingResponse = serverContext.routingService().route(routingRequest);
+      var context = routeProfile.mcStopArrivalsInArrays() ? serverContextMcArrays : serverContext;
+      RoutingResponse routingResponse = context.routingService().route(routingRequest);
 
       var times = routingResponse.getDebugTimingAggregator().finishedRendering();
 
@@ -269,6 +284,45 @@ public class SpeedTest {
     return testCaseInputs.stream().map(in -> in.createTestCase(opts.skipCost())).toList();
   }
 
+  private static RaptorTuningParameters withMcStopArrivalsInArrays(RaptorTuningParameters tp) {
+    return new RaptorTuningParameters() {
+      @Override
+      public int maxNumberOfTransfers() {
+        return tp.maxNumberOfTransfers();
+      }
+
+      @Override
+      public int scheduledTripBinarySearchThreshold() {
+        return tp.scheduledTripBinarySearchThreshold();
+      }
+
+      @Override
+      public int iterationDepartureStepInSeconds() {
+        return tp.iterationDepartureStepInSeconds();
+      }
+
+      @Override
+      public int searchThreadPoolSize() {
+        return tp.searchThreadPoolSize();
+      }
+
+      @Override
+      public int parallelSearchWindowSplitInSeconds() {
+        return tp.parallelSearchWindowSplitInSeconds();
+      }
+
+      @Override
+      public boolean multiCriteriaStopArrivalsInArrays() {
+        return true;
+      }
+
+      @Override
+      public DynamicSearchWindowCoefficients dynamicSearchWindowCoefficients() {
+        return tp.dynamicSearchWindowCoefficients();
+      }
+    };
+  }
+
   private static boolean includeCategory(Collection<String> includeCategories, TestCaseInput c) {
     return includeCategories.contains(c.definition().category());
   }
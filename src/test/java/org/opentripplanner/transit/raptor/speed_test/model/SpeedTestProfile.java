@@ -68,6 +68,21 @@ public enum SpeedTestProfile {
     RaptorProfile.MULTI_CRITERIA,
     SearchDirection.FORWARD,
     Optimization.PARETO_CHECK_AGAINST_DESTINATION
+  ),
+  mc_arrays(
+    "mca",
+    "Multi-Criteria Range Raptor with the stop arrivals stored in arrays.",
+    RaptorProfile.MULTI_CRITERIA,
+    SearchDirection.FORWARD,
+    true
+  ),
+  mc_destination_arrays(
+    "mda",
+    "Multi-Criteria Range Raptor with destination pruning and the stop arrivals stored in arrays.",
+    RaptorProfile.MULTI_CRITERIA,
+    SearchDirection.FORWARD,
+    true,
+    Optimization.PARETO_CHECK_AGAINST_DESTINATION
   );
 
   final String shortName;
@@ -75,6 +90,7 @@ public enum SpeedTestProfile {
   final RaptorProfile raptorProfile;
   final SearchDirection direction;
   final List<Optimization> optimizations;
+  final boolean mcStopArrivalsInArrays;
 
   SpeedTestProfile(
     String shortName,
@@ -82,11 +98,23 @@ public enum SpeedTestProfile {
     RaptorProfile profile,
     SearchDirection direction,
     Optimization... optimizations
+  ) {
+    this(shortName, description, profile, direction, false, optimizations);
+  }
+
+  SpeedTestProfile(
+    String shortName,
+    String description,
+    RaptorProfile profile,
+    SearchDirection direction,
+    boolean mcStopArrivalsInArrays,
+    Optimization... optimizations
   ) {
     this.shortName = shortName;
     this.description = description;
     this.raptorProfile = profile;
     this.direction = direction;
+    this.mcStopArrivalsInArrays = mcStopArrivalsInArrays;
     this.optimizations = Arrays.asList(optimizations);
   }
 
@@ -113,6 +141,14 @@ public enum SpeedTestProfile {
     return optimizations;
   }
 
+  /**
+   * Route with the {@code multiCriteriaStopArrivalsInArrays} tuning parameter enabled. Use this to
+   * compare the array based multi-criteria state with the default state, e.g. {@code -p md,mda}.
+   */
+  public boolean mcStopArrivalsInArrays() {
+    return mcStopArrivalsInArrays;
+  }
+
   /* private methods */
 
   private static SpeedTestProfile parseOne(String value) {
@@ -152,6 +188,9 @@ public enum SpeedTestProfile {
       for (Optimization it : optimizations) {
         text.append(", ").append(it.name());
       }
+      if (mcStopArrivalsInArrays) {
+        text.append(", STOP_ARRIVALS_IN_ARRAYS");
+      }
     }
     return text.toString();
   }
@@ -14,6 +14,7 @@ import com.google.transit.realtime.GtfsRealtime.TripDescriptor.ScheduleRelations
 import com.google.transit.realtime.GtfsRealtime.TripUpdate;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeEvent;
 import com.google.transit.realtime.GtfsRealtime.TripUpdate.StopTimeUpdate;
+import io.micrometer.core.instrument.Metrics;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Stream;
@@ -85,6 +86,28 @@ public class TimetableSnapshotSourceTest {
     assertNotSame(snapshot, newSnapshot);
   }
 
+  @Test
+  public void testGetSnapshotWithoutPendingChanges() throws InvalidProtocolBufferException {
+    updater.applyTripUpdates(fullDataset, List.of(TripUpdate.parseFrom(cancellation)), feedId);
+    final TimetableSnapshot snapshot = updater.getTimetableSnapshot();
+
+    // All updates are published, so requesting the snapshot does not commit a new one
+    updater.maxSnapshotFrequency = (-1);
+    assertSame(snapshot, updater.getTimetableSnapshot());
+
+    // The updates are published by the updater, when not throttled
+    updater.applyTripUpdates(fullDataset, List.of(TripUpdate.parseFrom(cancellation)), feedId);
+    assertNotSame(snapshot, updater.getTimetableSnapshot());
+  }
+
+  @Test
+  public void testSnapshotAgeGaugeIsTaggedWithFeedId() throws InvalidProtocolBufferException {
+    updater.applyTripUpdates(fullDataset, List.of(TripUpdate.parseFrom(cancellation)), feedId);
+
+    var gauge = Metrics.globalRegistry.find("realtime.snapshot.age").tag("feedId", feedId).gauge();
+    assertNotNull(gauge);
+  }
+
   @Test
   public void testHandleCanceledTrip() throws InvalidProtocolBufferException {
     final FeedScopedId tripId = new FeedScopedId(feedId, "1.1");
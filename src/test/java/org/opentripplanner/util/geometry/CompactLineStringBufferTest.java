@@ -0,0 +1,86 @@
+package org.opentripplanner.util.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+
+public class CompactLineStringBufferTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private static final double XA = 10.7512345;
+  private static final double YA = 59.9112345;
+  private static final double XB = 10.7623456;
+  private static final double YB = 59.9223456;
+
+  private final CompactLineStringBuffer buffer = new CompactLineStringBuffer();
+
+  @Test
+  public void sameCoordinatesAsTheUncompactedLineString() {
+    var line = line(
+      new Coordinate(XA, YA),
+      new Coordinate(10.7534567, 59.9145678),
+      new Coordinate(-179.99, 1.12345),
+      new Coordinate(10.7601234, 59.9201234),
+      new Coordinate(XB, YB)
+    );
+
+    for (boolean reverse : new boolean[] { false, true }) {
+      LineString packed = reverse ? (LineString) line.reverse() : line;
+      byte[] compact = CompactLineStringUtils.compactLineString(XA, YA, XB, YB, packed, reverse);
+
+      assertSameCoordinates(
+        CompactLineStringUtils.uncompactLineString(XA, YA, XB, YB, compact, reverse),
+        buffer.decode(XA, YA, XB, YB, compact, reverse)
+      );
+    }
+  }
+
+  @Test
+  public void straightLinesAndReuse() {
+    var longLine = new Coordinate[40];
+    for (int i = 0; i < longLine.length; ++i) {
+      longLine[i] = new Coordinate(XA + i * 0.0001, YA + (i % 3) * 0.0001);
+    }
+    longLine[longLine.length - 1] = new Coordinate(XB, YB);
+    longLine[0] = new Coordinate(XA, YA);
+    byte[] compact = CompactLineStringUtils.compactLineString(
+      XA,
+      YA,
+      XB,
+      YB,
+      line(longLine),
+      false
+    );
+
+    assertSameCoordinates(
+      CompactLineStringUtils.uncompactLineString(XA, YA, XB, YB, compact, false),
+      buffer.decode(XA, YA, XB, YB, compact, false)
+    );
+
+    // A shorter line string in the same buffer
+    byte[] straight = CompactLineStringUtils.STRAIGHT_LINE_PACKED;
+    buffer.decode(XA, YA, XB, YB, straight, true);
+    assertEquals(2, buffer.size());
+    assertEquals(new Coordinate(XA, YA), buffer.getCoordinate(0));
+    assertEquals(new Coordinate(XB, YB), buffer.getCoordinate(1));
+
+    // A missing geometry is decoded as a straight line, like in uncompactLineString
+    assertEquals(2, buffer.decode(XA, YA, XB, YB, null, false).size());
+  }
+
+  private static void assertSameCoordinates(LineString expected, CompactLineStringBuffer actual) {
+    assertEquals(expected.getNumPoints(), actual.size());
+    for (int i = 0; i < actual.size(); ++i) {
+      assertEquals(expected.getCoordinateN(i).x, actual.getX(i));
+      assertEquals(expected.getCoordinateN(i).y, actual.getY(i));
+    }
+  }
+
+  private static LineString line(Coordinate... coordinates) {
+    return GEOMETRY_FACTORY.createLineString(coordinates);
+  }
+}
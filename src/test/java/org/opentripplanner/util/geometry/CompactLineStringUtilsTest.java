@@ -109,6 +109,7 @@ public class CompactLineStringUtilsTest {
       "Unpacked: " + Arrays.toString(arr) + " -> packed: " + unsignedCharString(packed)
     );
     assertEquals(expectedPackedLen, packed.length);
+    assertEquals(arr.length, DlugoszVarLenIntPacker.size(packed));
     int[] unpacked = DlugoszVarLenIntPacker.unpack(packed);
     assertArrayEquals(arr, unpacked);
   }